@@ -15,7 +15,6 @@ import com.github.javaparser.ast.expr.SingleMemberAnnotationExpr;
 import com.github.javaparser.ast.visitor.Visitable;
 import com.github.javaparser.resolution.UnsolvedSymbolException;
 import com.github.javaparser.resolution.types.ResolvedType;
-import com.github.javaparser.symbolsolver.reflectionmodel.ReflectionAnnotationDeclaration;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -82,7 +81,7 @@ public class AnnotationParameterTypesVisitor extends SpeciminStateVisitor {
         decl.setType(type);
       } else {
         try {
-          ResolvedType resolved = decl.getType().resolve();
+          ResolvedType resolved = resolutionCache.resolve(decl.getType());
           if (resolved.isArray()) {
             resolved = resolved.asArrayType().getComponentType();
           }
@@ -167,8 +166,8 @@ public class AnnotationParameterTypesVisitor extends SpeciminStateVisitor {
     Set<String> usedMembersByCurrentAnnotation = new HashSet<>();
     boolean resolvable = true;
     try {
-      String qualifiedName = anno.resolve().getQualifiedName();
-      if (anno.resolve() instanceof ReflectionAnnotationDeclaration
+      String qualifiedName = resolutionCache.resolve(anno).getQualifiedName();
+      if (JavaParserUtil.isResolvedFromClassFile(resolutionCache.resolve(anno))
           && !JavaLangUtils.inJdkPackage(qualifiedName)) {
         // This usually means that JavaParser has resolved this through the import, but there
         // is no file/CompilationUnit behind it, so we should discard it to prevent compile errors
@@ -199,7 +198,7 @@ public class AnnotationParameterTypesVisitor extends SpeciminStateVisitor {
 
     // Only add annotation to the usedClass set if all parameters are resolvable
     if (resolvable) {
-      usedClassByCurrentAnnotation.add(anno.resolve().getQualifiedName());
+      usedClassByCurrentAnnotation.add(resolutionCache.resolve(anno).getQualifiedName());
       classesToAdd.addAll(usedClassByCurrentAnnotation);
       usedMembers.addAll(usedMembersByCurrentAnnotation);
     } else {
@@ -234,7 +233,7 @@ public class AnnotationParameterTypesVisitor extends SpeciminStateVisitor {
       return true;
     } else if (value.isClassExpr()) {
       try {
-        ResolvedType resolved = value.asClassExpr().getType().resolve();
+        ResolvedType resolved = resolutionCache.resolve(value.asClassExpr().getType());
 
         if (resolved.isReferenceType()) {
           usedClassByCurrentAnnotation.add(resolved.asReferenceType().getQualifiedName());
@@ -246,7 +245,7 @@ public class AnnotationParameterTypesVisitor extends SpeciminStateVisitor {
       return true;
     } else if (value.isFieldAccessExpr()) {
       try {
-        ResolvedType resolved = value.asFieldAccessExpr().calculateResolvedType();
+        ResolvedType resolved = resolutionCache.calculateResolvedType(value.asFieldAccessExpr());
 
         if (resolved.isReferenceType()) {
           String parentName = resolved.asReferenceType().getQualifiedName();
@@ -263,7 +262,7 @@ public class AnnotationParameterTypesVisitor extends SpeciminStateVisitor {
       return true;
     } else if (value.isNameExpr()) { // variable of some sort
       try {
-        ResolvedType resolved = value.asNameExpr().calculateResolvedType();
+        ResolvedType resolved = resolutionCache.calculateResolvedType(value.asNameExpr());
 
         if (resolved.isReferenceType()) {
           usedClassByCurrentAnnotation.add(resolved.asReferenceType().getQualifiedName());
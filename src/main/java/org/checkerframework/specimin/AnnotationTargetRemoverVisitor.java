@@ -1,6 +1,5 @@
 package org.checkerframework.specimin;
 
-import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.PackageDeclaration;
 import com.github.javaparser.ast.body.AnnotationDeclaration;
@@ -163,7 +162,7 @@ public class AnnotationTargetRemoverVisitor extends ModifierVisitor<Void> {
       }
 
       newAnnotation.append("})");
-      AnnotationExpr trimmed = StaticJavaParser.parseAnnotation(newAnnotation.toString());
+      AnnotationExpr trimmed = JavaParserUtil.parseAnnotation(newAnnotation.toString());
 
       targetAnnotation.remove();
 
@@ -0,0 +1,1889 @@
+package org.checkerframework.specimin;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import javassist.bytecode.AccessFlag;
+import javassist.bytecode.AnnotationDefaultAttribute;
+import javassist.bytecode.AnnotationsAttribute;
+import javassist.bytecode.AttributeInfo;
+import javassist.bytecode.BadBytecode;
+import javassist.bytecode.ClassFile;
+import javassist.bytecode.CodeAttribute;
+import javassist.bytecode.CodeIterator;
+import javassist.bytecode.ConstPool;
+import javassist.bytecode.ConstantAttribute;
+import javassist.bytecode.ExceptionsAttribute;
+import javassist.bytecode.FieldInfo;
+import javassist.bytecode.InnerClassesAttribute;
+import javassist.bytecode.LocalVariableAttribute;
+import javassist.bytecode.MethodInfo;
+import javassist.bytecode.MethodParametersAttribute;
+import javassist.bytecode.Opcode;
+import javassist.bytecode.ParameterAnnotationsAttribute;
+import javassist.bytecode.SignatureAttribute;
+import javassist.bytecode.TypeAnnotationsAttribute;
+import javassist.bytecode.annotation.Annotation;
+import javassist.bytecode.annotation.AnnotationMemberValue;
+import javassist.bytecode.annotation.ArrayMemberValue;
+import javassist.bytecode.annotation.BooleanMemberValue;
+import javassist.bytecode.annotation.ByteMemberValue;
+import javassist.bytecode.annotation.CharMemberValue;
+import javassist.bytecode.annotation.ClassMemberValue;
+import javassist.bytecode.annotation.DoubleMemberValue;
+import javassist.bytecode.annotation.EnumMemberValue;
+import javassist.bytecode.annotation.FloatMemberValue;
+import javassist.bytecode.annotation.IntegerMemberValue;
+import javassist.bytecode.annotation.LongMemberValue;
+import javassist.bytecode.annotation.MemberValue;
+import javassist.bytecode.annotation.ShortMemberValue;
+import javassist.bytecode.annotation.StringMemberValue;
+import javax.lang.model.SourceVersion;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Generates the source of a top-level class of a jar, and of its nested classes, straight from
+ * their class files. Unlike the output of a decompiler, the generated source is only a stub: it
+ * contains the type parameters, supertypes, fields, and the signatures of the methods and
+ * constructors of the classes, with their annotations, but every body is replaced with {@code throw
+ * new java.lang.Error();}, which is what PrunerVisitor would turn it into anyway. Private methods
+ * and fields are left out, since code outside the jar cannot use them.
+ *
+ * <p>Stubs are much smaller than decompiled classes, so the jar classes that a minimization uses
+ * take far less work to parse, resolve, and prune, and the output is smaller. A stub still
+ * compiles: final fields get a constant or default initializer, and a constructor of a class whose
+ * superclass has no constructor without parameters calls the same constructor of the superclass as
+ * the original, with null or zero arguments.
+ *
+ * <p>Only the annotations of the declarations, and the type annotations that apply to the whole
+ * type of a field, a parameter, or a method's result, are kept; Vineflower keeps the same ones.
+ */
+public class BytecodeStubGenerator {
+
+  /**
+   * The version of the generator. It is part of the names of the directories of the {@link
+   * DecompilationCache}, so it must be incremented whenever the generated stubs change.
+   */
+  public static final String VERSION = "1";
+
+  /** The body of every generated method and constructor. */
+  private static final String BODY = "throw new java.lang.Error();";
+
+  /** The value of {@link #claimedSimpleNames} for the names of type variables. */
+  private static final String TYPE_VARIABLE = "<type variable>";
+
+  /** The class files from which to generate, keyed by their binary names, top-level class first. */
+  private final Map<String, ClassFile> classFiles = new LinkedHashMap<>();
+
+  /**
+   * What the InnerClasses attributes of the class files say about every nested class that they
+   * mention, keyed by the binary name of the nested class.
+   */
+  private final Map<String, NestedClass> nestedClasses = new HashMap<>();
+
+  /** The package of the top-level class, or the empty string for the default package. */
+  private final String packageName;
+
+  /**
+   * The simple names that the generated source uses to refer to classes, each mapped to the binary
+   * name of the top-level class that it refers to. Every other class that has the same simple name
+   * is referred to by its fully-qualified name instead. A name that refers to a nested class of the
+   * generated source or to a type variable is mapped to something that is not a top-level class.
+   */
+  private final Map<String, String> claimedSimpleNames = new HashMap<>();
+
+  /** The classes that the generated source imports. */
+  private final Set<String> imports = new TreeSet<>();
+
+  /** Finds the class files of the classes outside the stub, such as superclasses. */
+  private final ClassFileLookup classFileLookup;
+
+  /**
+   * The class files found by {@link #findClassFile(String)}, keyed by binary name. A null value
+   * means that the class file could not be found.
+   */
+  private final Map<String, @Nullable ClassFile> lookedUpClassFiles = new HashMap<>();
+
+  /** Finds the class files of classes that are not part of a stub. */
+  public interface ClassFileLookup {
+    /**
+     * Reads the class file of a class.
+     *
+     * @param binaryName the binary name of the class, such as "java.util.Map$Entry"
+     * @return the content of the class file, or null if it cannot be found
+     * @throws IOException if the class file cannot be read
+     */
+    byte @Nullable [] read(String binaryName) throws IOException;
+  }
+
+  /** What InnerClasses attributes say about a nested class. */
+  private static class NestedClass {
+    /** The binary name of the directly enclosing class, or null for local and anonymous classes. */
+    final @Nullable String outerName;
+
+    /** The simple name of the class, or null for anonymous classes. */
+    final @Nullable String simpleName;
+
+    /** The access flags of the class as it was declared. */
+    final int accessFlags;
+
+    /**
+     * Creates a new description of a nested class.
+     *
+     * @param outerName the binary name of the directly enclosing class, or null
+     * @param simpleName the simple name of the class, or null
+     * @param accessFlags the access flags of the class as it was declared
+     */
+    NestedClass(@Nullable String outerName, @Nullable String simpleName, int accessFlags) {
+      this.outerName = outerName;
+      this.simpleName = simpleName;
+      this.accessFlags = accessFlags;
+    }
+  }
+
+  /**
+   * Creates a generator for the given class files.
+   *
+   * @param classFileContents the contents of the class files of a top-level class and of its nested
+   *     classes, top-level class first
+   * @param classFileLookup finds the class files of the classes outside the stub
+   * @throws IOException if a class file cannot be read
+   */
+  private BytecodeStubGenerator(List<byte[]> classFileContents, ClassFileLookup classFileLookup)
+      throws IOException {
+    this.classFileLookup = classFileLookup;
+    for (byte[] content : classFileContents) {
+      ClassFile classFile = new ClassFile(new DataInputStream(new ByteArrayInputStream(content)));
+      classFiles.put(classFile.getName(), classFile);
+      @Nullable InnerClassesAttribute innerClasses =
+          (InnerClassesAttribute) classFile.getAttribute(InnerClassesAttribute.tag);
+      if (innerClasses != null) {
+        for (int i = 0; i < innerClasses.tableLength(); i++) {
+          nestedClasses.putIfAbsent(
+              innerClasses.innerClass(i),
+              new NestedClass(
+                  innerClasses.outerClass(i),
+                  innerClasses.innerName(i),
+                  innerClasses.accessFlags(i)));
+        }
+      }
+    }
+    if (classFiles.isEmpty()) {
+      throw new IOException("no class files to generate a stub from");
+    }
+    String topLevelName = classFiles.keySet().iterator().next();
+    int lastDot = topLevelName.lastIndexOf('.');
+    packageName = lastDot == -1 ? "" : topLevelName.substring(0, lastDot);
+    claimedSimpleNames.put(topLevelName.substring(lastDot + 1), topLevelName);
+    // Inside the generated source, the names of the nested classes and of the type variables
+    // shadow those of the classes that would otherwise be imported.
+    for (ClassFile classFile : classFiles.values()) {
+      NestedClass nested = nestedClasses.get(classFile.getName());
+      if (nested != null && nested.simpleName != null) {
+        claimedSimpleNames.put(nested.simpleName, classFile.getName());
+      }
+      claimTypeVariables(getClassSignature(classFile).getParameters());
+      for (MethodInfo method : classFile.getMethods()) {
+        claimTypeVariables(getMethodSignature(method).getTypeParameters());
+      }
+    }
+  }
+
+  /**
+   * Generates the source of a stub for a top-level class and its nested classes.
+   *
+   * @param classFileContents the contents of the class files of a top-level class and of its nested
+   *     classes, top-level class first. Local and anonymous classes are ignored.
+   * @param classFileLookup finds the class files of the classes outside the stub, such as the
+   *     superclasses whose constructors the constructors of the stub must call. The class files of
+   *     the JDK are found even if it does not find them.
+   * @return the source of the stub, as the content of a Java file
+   * @throws IOException if a class file cannot be read
+   */
+  public static String generate(List<byte[]> classFileContents, ClassFileLookup classFileLookup)
+      throws IOException {
+    return new BytecodeStubGenerator(classFileContents, classFileLookup).generate();
+  }
+
+  /**
+   * Generates the source of a stub for a top-level class of a jar and its nested classes. The other
+   * classes that the stub needs are looked up in the same jar.
+   *
+   * @param jar the jar
+   * @param classFiles the names of the entries of the jar that contain the class files of the
+   *     top-level class and of its nested classes, top-level class first
+   * @return the source of the stub, as the content of a Java file
+   * @throws IOException if a class file cannot be read
+   */
+  public static String generate(ZipFile jar, List<String> classFiles) throws IOException {
+    List<byte[]> classFileContents = new ArrayList<>();
+    for (String classFile : classFiles) {
+      byte @Nullable [] content = readEntry(jar, classFile);
+      if (content == null) {
+        throw new IOException(classFile + " disappeared from " + jar.getName());
+      }
+      classFileContents.add(content);
+    }
+    return generate(
+        classFileContents, binaryName -> readEntry(jar, binaryName.replace('.', '/') + ".class"));
+  }
+
+  /**
+   * Generates the source of a stub for a top-level class of a directory of class files and its
+   * nested classes. The other classes that the stub needs are looked up in the same directory.
+   *
+   * @param classDirectory the directory of class files
+   * @param classFiles the paths of the class files of the top-level class and of its nested classes
+   *     relative to the directory, top-level class first
+   * @return the source of the stub, as the content of a Java file
+   * @throws IOException if a class file cannot be read
+   */
+  public static String generate(Path classDirectory, List<String> classFiles) throws IOException {
+    List<byte[]> classFileContents = new ArrayList<>();
+    for (String classFile : classFiles) {
+      classFileContents.add(Files.readAllBytes(classDirectory.resolve(classFile)));
+    }
+    return generate(
+        classFileContents,
+        binaryName -> {
+          Path classFile = classDirectory.resolve(binaryName.replace('.', '/') + ".class");
+          return Files.isRegularFile(classFile) ? Files.readAllBytes(classFile) : null;
+        });
+  }
+
+  /**
+   * Reads an entry of a jar.
+   *
+   * @param jar the jar
+   * @param name the name of the entry
+   * @return the content of the entry, or null if the jar has no such entry
+   * @throws IOException if the entry cannot be read
+   */
+  private static byte @Nullable [] readEntry(ZipFile jar, String name) throws IOException {
+    ZipEntry entry = jar.getEntry(name);
+    if (entry == null) {
+      return null;
+    }
+    try (InputStream in = jar.getInputStream(entry)) {
+      return in.readAllBytes();
+    }
+  }
+
+  /**
+   * Generates the source of the stub.
+   *
+   * @return the content of the Java file
+   * @throws IOException if a class file is malformed
+   */
+  private String generate() throws IOException {
+    StringBuilder body = new StringBuilder();
+    appendClass(body, classFiles.values().iterator().next(), "");
+    StringBuilder result = new StringBuilder();
+    if (!packageName.isEmpty()) {
+      result.append("package ").append(packageName).append(";\n\n");
+    }
+    for (String importedClass : imports) {
+      result.append("import ").append(importedClass).append(";\n");
+    }
+    if (!imports.isEmpty()) {
+      result.append("\n");
+    }
+    return result.append(body).toString();
+  }
+
+  /**
+   * Marks the names of type variables as used.
+   *
+   * @param typeParameters the declared type variables, or null if there are none
+   */
+  private void claimTypeVariables(SignatureAttribute.TypeParameter @Nullable [] typeParameters) {
+    if (typeParameters != null) {
+      for (SignatureAttribute.TypeParameter typeParameter : typeParameters) {
+        claimedSimpleNames.put(typeParameter.getName(), TYPE_VARIABLE);
+      }
+    }
+  }
+
+  /** The kinds of classes, which are declared differently. */
+  private enum Kind {
+    /** A class that is none of the other kinds. */
+    CLASS,
+    /** An interface that is not an annotation interface. */
+    INTERFACE,
+    /** An annotation interface. */
+    ANNOTATION,
+    /** An enum class. */
+    ENUM,
+    /** A record class. */
+    RECORD
+  }
+
+  /**
+   * Determines the kind of a class.
+   *
+   * @param classFile the class file of the class
+   * @return the kind of the class
+   */
+  private static Kind getKind(ClassFile classFile) {
+    int accessFlags = classFile.getAccessFlags();
+    if ((accessFlags & AccessFlag.ANNOTATION) != 0) {
+      return Kind.ANNOTATION;
+    } else if ((accessFlags & AccessFlag.INTERFACE) != 0) {
+      return Kind.INTERFACE;
+    } else if ((accessFlags & AccessFlag.ENUM) != 0) {
+      return Kind.ENUM;
+    } else if (classFile.getAttribute("Record") != null) {
+      return Kind.RECORD;
+    }
+    return Kind.CLASS;
+  }
+
+  /**
+   * Appends the declaration of a class, including its nested classes.
+   *
+   * @param out the source being generated
+   * @param classFile the class file of the class
+   * @param indent the indentation of the declaration
+   * @throws IOException if the class file is malformed
+   */
+  private void appendClass(StringBuilder out, ClassFile classFile, String indent)
+      throws IOException {
+    String name = classFile.getName();
+    Kind kind = getKind(classFile);
+    NestedClass nested = nestedClasses.get(name);
+    boolean isNested = nested != null && nested.outerName != null;
+    int accessFlags =
+        nested != null && nested.outerName != null
+            ? nested.accessFlags
+            : classFile.getAccessFlags();
+
+    for (String annotation :
+        getAnnotations(
+            classFile.getAttribute(AnnotationsAttribute.visibleTag),
+            classFile.getAttribute(AnnotationsAttribute.invisibleTag))) {
+      out.append(indent).append(annotation).append("\n");
+    }
+    out.append(indent).append(getAccessModifier(accessFlags));
+    if (kind == Kind.CLASS) {
+      if ((accessFlags & AccessFlag.ABSTRACT) != 0) {
+        out.append("abstract ");
+      }
+      if (isNested && (accessFlags & AccessFlag.STATIC) != 0) {
+        out.append("static ");
+      }
+      if ((accessFlags & AccessFlag.FINAL) != 0) {
+        out.append("final ");
+      }
+    }
+    switch (kind) {
+      case ANNOTATION:
+        out.append("@interface ");
+        break;
+      case INTERFACE:
+        out.append("interface ");
+        break;
+      case ENUM:
+        out.append("enum ");
+        break;
+      case RECORD:
+        out.append("record ");
+        break;
+      default:
+        out.append("class ");
+        break;
+    }
+    out.append(getSimpleName(classFile));
+
+    SignatureAttribute.ClassSignature signature = getClassSignature(classFile);
+    out.append(getTypeParameters(signature.getParameters()));
+    List<String> recordComponentDescriptors = new ArrayList<>();
+    if (kind == Kind.RECORD) {
+      out.append("(").append(getRecordComponents(classFile, recordComponentDescriptors));
+      out.append(")");
+    }
+    SignatureAttribute.ClassType superClass = signature.getSuperClass();
+    if (kind == Kind.CLASS && !"java.lang.Object".equals(superClass.getName())) {
+      out.append(" extends ").append(getType(superClass));
+    }
+    List<String> interfaces = new ArrayList<>();
+    for (SignatureAttribute.ClassType interfaceType : signature.getInterfaces()) {
+      if (kind != Kind.ANNOTATION) {
+        interfaces.add(getType(interfaceType));
+      }
+    }
+    if (!interfaces.isEmpty()) {
+      out.append(kind == Kind.INTERFACE ? " extends " : " implements ");
+      out.append(String.join(", ", interfaces));
+    }
+    out.append(" {\n");
+
+    String memberIndent = indent + "  ";
+    if (kind == Kind.ENUM) {
+      List<String> constants = new ArrayList<>();
+      for (FieldInfo field : classFile.getFields()) {
+        if ((field.getAccessFlags() & AccessFlag.ENUM) != 0) {
+          StringBuilder constant = new StringBuilder();
+          for (String annotation : getAnnotations(field)) {
+            constant.append(memberIndent).append(annotation).append("\n");
+          }
+          constants.add(constant.append(memberIndent).append(field.getName()).toString());
+        }
+      }
+      out.append(String.join(",\n", constants)).append(";\n");
+    }
+    for (FieldInfo field : classFile.getFields()) {
+      int fieldFlags = field.getAccessFlags();
+      if ((fieldFlags & (AccessFlag.SYNTHETIC | AccessFlag.PRIVATE | AccessFlag.ENUM)) != 0
+          || (kind == Kind.RECORD && (fieldFlags & AccessFlag.STATIC) == 0)) {
+        continue;
+      }
+      out.append("\n");
+      appendField(out, field, kind, memberIndent);
+    }
+    // The names and parameters of the methods, which a class cannot declare twice.
+    Set<String> methodSignatures = new HashSet<>();
+    for (MethodInfo method : classFile.getMethods()) {
+      methodSignatures.add(getNameAndParameters(method));
+      if (isGenerated(method, classFile, kind, recordComponentDescriptors)) {
+        continue;
+      }
+      out.append("\n");
+      appendMethod(out, method, classFile, kind, memberIndent);
+    }
+    if (kind == Kind.ENUM) {
+      // The stub has no constant bodies, so the methods that only they implement, such as those of
+      // an interface of the enum, are declared by the enum itself instead.
+      for (ClassFile constantBody : classFiles.values()) {
+        if (!name.equals(constantBody.getSuperclass())) {
+          continue;
+        }
+        for (MethodInfo method : constantBody.getMethods()) {
+          if (!method.isConstructor()
+              && !isGenerated(method, constantBody, Kind.CLASS, recordComponentDescriptors)
+              && methodSignatures.add(getNameAndParameters(method))) {
+            out.append("\n");
+            appendMethod(out, method, constantBody, kind, memberIndent);
+          }
+        }
+      }
+    }
+    @Nullable InnerClassesAttribute innerClasses =
+        (InnerClassesAttribute) classFile.getAttribute(InnerClassesAttribute.tag);
+    if (innerClasses != null) {
+      for (int i = 0; i < innerClasses.tableLength(); i++) {
+        ClassFile member = classFiles.get(innerClasses.innerClass(i));
+        if (member != null
+            && name.equals(innerClasses.outerClass(i))
+            && innerClasses.innerName(i) != null
+            && (innerClasses.accessFlags(i) & AccessFlag.SYNTHETIC) == 0) {
+          out.append("\n");
+          appendClass(out, member, memberIndent);
+        }
+      }
+    }
+    out.append(indent).append("}\n");
+  }
+
+  /**
+   * Returns the name of a method followed by the descriptors of its parameters.
+   *
+   * @param method a method
+   * @return the name and parameters of the method, such as "get(I)"
+   */
+  private static String getNameAndParameters(MethodInfo method) {
+    String descriptor = method.getDescriptor();
+    return method.getName() + descriptor.substring(0, descriptor.indexOf(')') + 1);
+  }
+
+  /**
+   * Is a method one that the stub leaves out, because it is private, because the compiler generated
+   * it, or because the compiler will generate it again from the stub?
+   *
+   * @param method a method of the class
+   * @param classFile the class file of the class
+   * @param kind the kind of the class
+   * @param recordComponentDescriptors the descriptors of the components, if the class is a record
+   * @return true iff the stub leaves out the method
+   */
+  private static boolean isGenerated(
+      MethodInfo method, ClassFile classFile, Kind kind, List<String> recordComponentDescriptors) {
+    int accessFlags = method.getAccessFlags();
+    String name = method.getName();
+    if ((accessFlags & (AccessFlag.SYNTHETIC | AccessFlag.BRIDGE)) != 0
+        || MethodInfo.nameClinit.equals(name)) {
+      return true;
+    }
+    if (kind == Kind.ENUM
+        && (method.isConstructor()
+            || ((accessFlags & AccessFlag.STATIC) != 0
+                && (name.equals("values") || name.equals("valueOf"))))) {
+      // The implicit constructor of an enum is enough for constants without arguments.
+      return true;
+    }
+    if ((accessFlags & AccessFlag.PRIVATE) != 0) {
+      // Other constructors may call a private constructor of the class.
+      return !method.isConstructor();
+    }
+    if (kind == Kind.RECORD && method.isConstructor()) {
+      return method
+          .getDescriptor()
+          .startsWith("(" + String.join("", recordComponentDescriptors) + ")");
+    }
+    return false;
+  }
+
+  /**
+   * Appends the declaration of a field.
+   *
+   * @param out the source being generated
+   * @param field the field
+   * @param kind the kind of the class that declares the field
+   * @param indent the indentation of the declaration
+   * @throws IOException if the field is malformed
+   */
+  private void appendField(StringBuilder out, FieldInfo field, Kind kind, String indent)
+      throws IOException {
+    int accessFlags = field.getAccessFlags();
+    for (String annotation : getAnnotations(field)) {
+      out.append(indent).append(annotation).append("\n");
+    }
+    for (String annotation :
+        getTypeAnnotations(
+            field.getAttribute(TypeAnnotationsAttribute.visibleTag),
+            field.getAttribute(TypeAnnotationsAttribute.invisibleTag),
+            0x13,
+            -1)) {
+      out.append(indent).append(annotation).append("\n");
+    }
+    out.append(indent);
+    boolean isInterfaceField = kind == Kind.INTERFACE || kind == Kind.ANNOTATION;
+    if (!isInterfaceField) {
+      out.append(getAccessModifier(accessFlags));
+      if ((accessFlags & AccessFlag.STATIC) != 0) {
+        out.append("static ");
+      }
+      if ((accessFlags & AccessFlag.FINAL) != 0) {
+        out.append("final ");
+      }
+      if ((accessFlags & AccessFlag.TRANSIENT) != 0) {
+        out.append("transient ");
+      }
+      if ((accessFlags & AccessFlag.VOLATILE) != 0) {
+        out.append("volatile ");
+      }
+    }
+    @Nullable SignatureAttribute signatureAttribute =
+        (SignatureAttribute) field.getAttribute(SignatureAttribute.tag);
+    String descriptor = field.getDescriptor();
+    SignatureAttribute.Type type;
+    try {
+      type =
+          signatureAttribute != null
+              ? SignatureAttribute.toFieldSignature(signatureAttribute.getSignature())
+              : SignatureAttribute.toTypeSignature(descriptor);
+    } catch (BadBytecode e) {
+      throw new IOException("malformed signature of field " + field.getName(), e);
+    }
+    out.append(getType(type)).append(" ").append(field.getName());
+    @Nullable ConstantAttribute constant =
+        (ConstantAttribute) field.getAttribute(ConstantAttribute.tag);
+    if (constant != null) {
+      out.append(" = ").append(getConstant(field.getConstPool(), constant, descriptor));
+    } else if (isInterfaceField || (accessFlags & AccessFlag.FINAL) != 0) {
+      out.append(" = ").append(getDefaultValue(descriptor));
+    }
+    out.append(";\n");
+  }
+
+  /**
+   * Appends the declaration of a method or constructor.
+   *
+   * @param out the source being generated
+   * @param method the method or constructor
+   * @param classFile the class file of the class that declares it
+   * @param kind the kind of the class
+   * @param indent the indentation of the declaration
+   * @throws IOException if the method is malformed
+   */
+  private void appendMethod(
+      StringBuilder out, MethodInfo method, ClassFile classFile, Kind kind, String indent)
+      throws IOException {
+    int accessFlags = method.getAccessFlags();
+    boolean isInterface = kind == Kind.INTERFACE || kind == Kind.ANNOTATION;
+    boolean isStatic = (accessFlags & AccessFlag.STATIC) != 0;
+    // An enum whose constants have bodies may declare abstract methods, but the stub has no
+    // constant bodies to implement them.
+    boolean isAbstract = (accessFlags & AccessFlag.ABSTRACT) != 0 && kind != Kind.ENUM;
+    boolean hasBody = !isAbstract && (accessFlags & AccessFlag.NATIVE) == 0;
+
+    Set<String> annotations = new LinkedHashSet<>(getAnnotations(method));
+    annotations.addAll(
+        getTypeAnnotations(
+            method.getAttribute(TypeAnnotationsAttribute.visibleTag),
+            method.getAttribute(TypeAnnotationsAttribute.invisibleTag),
+            0x14,
+            -1));
+    for (String annotation : annotations) {
+      out.append(indent).append(annotation).append("\n");
+    }
+    out.append(indent);
+    if (isInterface) {
+      if ((accessFlags & AccessFlag.PRIVATE) != 0) {
+        out.append("private ");
+      }
+    } else {
+      out.append(getAccessModifier(accessFlags));
+      if (isAbstract) {
+        out.append("abstract ");
+      }
+    }
+    if (isStatic) {
+      out.append("static ");
+    } else if (isInterface && hasBody && (accessFlags & AccessFlag.PRIVATE) == 0) {
+      out.append("default ");
+    }
+    if (!isInterface && (accessFlags & AccessFlag.FINAL) != 0) {
+      out.append("final ");
+    }
+    if ((accessFlags & AccessFlag.SYNCHRONIZED) != 0) {
+      out.append("synchronized ");
+    }
+    if ((accessFlags & AccessFlag.NATIVE) != 0) {
+      out.append("native ");
+    }
+
+    SignatureAttribute.MethodSignature signature = getMethodSignature(method);
+    String typeParameters = getTypeParameters(signature.getTypeParameters());
+    if (!typeParameters.isEmpty()) {
+      out.append(typeParameters).append(" ");
+    }
+    if (method.isConstructor()) {
+      out.append(getSimpleName(classFile));
+    } else {
+      out.append(getType(signature.getReturnType())).append(" ").append(method.getName());
+    }
+    out.append("(").append(getParameters(method, classFile, signature, isStatic)).append(")");
+
+    List<String> exceptions = new ArrayList<>();
+    for (SignatureAttribute.ObjectType exception : signature.getExceptionTypes()) {
+      exceptions.add(getType(exception));
+    }
+    @Nullable ExceptionsAttribute exceptionsAttribute = method.getExceptionsAttribute();
+    if (exceptions.isEmpty() && exceptionsAttribute != null) {
+      for (String exception : exceptionsAttribute.getExceptions()) {
+        exceptions.add(getClassName(exception));
+      }
+    }
+    if (!exceptions.isEmpty()) {
+      out.append(" throws ").append(String.join(", ", exceptions));
+    }
+
+    if (kind == Kind.ANNOTATION) {
+      @Nullable AnnotationDefaultAttribute defaultAttribute =
+          (AnnotationDefaultAttribute) method.getAttribute(AnnotationDefaultAttribute.tag);
+      if (defaultAttribute != null) {
+        out.append(" default ").append(getMemberValue(defaultAttribute.getDefaultValue()));
+      }
+      out.append(";\n");
+    } else if (!hasBody) {
+      out.append(";\n");
+    } else {
+      out.append(" {\n");
+      if (method.isConstructor()) {
+        String constructorCall = getConstructorCall(method, classFile);
+        if (!constructorCall.isEmpty()) {
+          out.append(indent).append("  ").append(constructorCall).append("\n");
+        }
+      }
+      out.append(indent).append("  ").append(BODY).append("\n");
+      out.append(indent).append("}\n");
+    }
+  }
+
+  /**
+   * Returns the parameters of a method or constructor, as they are declared in its source.
+   *
+   * @param method the method or constructor
+   * @param classFile the class file of the class that declares it
+   * @param signature its signature
+   * @param isStatic true iff it is static
+   * @return the comma-separated declarations of its parameters
+   * @throws IOException if the method is malformed
+   */
+  private String getParameters(
+      MethodInfo method,
+      ClassFile classFile,
+      SignatureAttribute.MethodSignature signature,
+      boolean isStatic)
+      throws IOException {
+    SignatureAttribute.Type[] descriptorTypes;
+    try {
+      descriptorTypes =
+          SignatureAttribute.toMethodSignature(method.getDescriptor()).getParameterTypes();
+    } catch (BadBytecode e) {
+      throw new IOException("malformed descriptor of method " + method.getName(), e);
+    }
+    SignatureAttribute.Type[] types = signature.getParameterTypes();
+    // The descriptor of a constructor of an inner class starts with the enclosing instance, which
+    // is not declared in the source. Generic signatures leave it out.
+    int signatureOffset = descriptorTypes.length - types.length;
+    int firstDeclared = signatureOffset;
+    if (firstDeclared == 0 && method.isConstructor() && isInnerClass(classFile.getName())) {
+      firstDeclared = 1;
+    }
+
+    int[] slots = new int[descriptorTypes.length];
+    int slot = isStatic ? 0 : 1;
+    for (int i = 0; i < descriptorTypes.length; i++) {
+      slots[i] = slot;
+      String descriptor = descriptorTypes[i].jvmTypeName();
+      slot += descriptor.equals("long") || descriptor.equals("double") ? 2 : 1;
+    }
+    Map<Integer, String> localVariableNames = new HashMap<>();
+    @Nullable CodeAttribute code = method.getCodeAttribute();
+    @Nullable LocalVariableAttribute localVariables =
+        code == null
+            ? null
+            : (LocalVariableAttribute) code.getAttribute(LocalVariableAttribute.tag);
+    if (localVariables != null) {
+      for (int i = 0; i < localVariables.tableLength(); i++) {
+        if (localVariables.startPc(i) == 0) {
+          localVariableNames.put(localVariables.index(i), localVariables.variableName(i));
+        }
+      }
+    }
+    @Nullable MethodParametersAttribute methodParameters =
+        (MethodParametersAttribute) method.getAttribute(MethodParametersAttribute.tag);
+    Annotation[] @Nullable [] visibleParameterAnnotations =
+        getParameterAnnotations(method.getAttribute(ParameterAnnotationsAttribute.visibleTag));
+    Annotation[] @Nullable [] invisibleParameterAnnotations =
+        getParameterAnnotations(method.getAttribute(ParameterAnnotationsAttribute.invisibleTag));
+
+    List<String> parameters = new ArrayList<>();
+    Set<String> usedNames = new HashSet<>();
+    for (int i = firstDeclared; i < descriptorTypes.length; i++) {
+      int declaredIndex = i - firstDeclared;
+      Set<String> annotations = new LinkedHashSet<>();
+      annotations.addAll(getAnnotations(visibleParameterAnnotations, i, descriptorTypes.length));
+      annotations.addAll(getAnnotations(invisibleParameterAnnotations, i, descriptorTypes.length));
+      annotations.addAll(
+          getTypeAnnotations(
+              method.getAttribute(TypeAnnotationsAttribute.visibleTag),
+              method.getAttribute(TypeAnnotationsAttribute.invisibleTag),
+              0x16,
+              declaredIndex));
+      String type = getType(types[i - signatureOffset]);
+      if (i == descriptorTypes.length - 1
+          && (method.getAccessFlags() & AccessFlag.VARARGS) != 0
+          && type.endsWith("[]")) {
+        type = type.substring(0, type.length() - 2) + "...";
+      }
+      @Nullable String name = localVariableNames.get(slots[i]);
+      if (methodParameters != null && i < methodParameters.size()) {
+        name = methodParameters.parameterName(i);
+      }
+      if (name == null
+          || !SourceVersion.isIdentifier(name)
+          || SourceVersion.isKeyword(name)
+          || usedNames.contains(name)) {
+        name = "var" + slots[i];
+      }
+      usedNames.add(name);
+      StringBuilder parameter = new StringBuilder();
+      for (String annotation : annotations) {
+        parameter.append(annotation).append(" ");
+      }
+      parameters.add(parameter.append(type).append(" ").append(name).toString());
+    }
+    return String.join(", ", parameters);
+  }
+
+  /**
+   * Returns the simple name of a class of the stub.
+   *
+   * @param classFile the class file of the class
+   * @return the simple name of the class
+   */
+  private String getSimpleName(ClassFile classFile) {
+    NestedClass nested = nestedClasses.get(classFile.getName());
+    if (nested != null && nested.simpleName != null) {
+      return nested.simpleName;
+    }
+    return classFile.getName().substring(classFile.getName().lastIndexOf('.') + 1);
+  }
+
+  /**
+   * Is a class an inner class, i.e., a nested class that has an enclosing instance? Javac marks
+   * nested interfaces, enums, and records as static, so only classes can be inner classes.
+   *
+   * @param binaryName the binary name of the class
+   * @return true iff the InnerClasses attributes of the stub say that the class is an inner class
+   */
+  private boolean isInnerClass(String binaryName) {
+    NestedClass nested = nestedClasses.get(binaryName);
+    return nested != null
+        && nested.outerName != null
+        && (nested.accessFlags & AccessFlag.STATIC) == 0;
+  }
+
+  /**
+   * Is a class lexically enclosed by the class that encloses an inner class, so that the instance
+   * that encloses the inner class is implicitly available?
+   *
+   * @param binaryName the binary name of a class
+   * @param innerClass the binary name of an inner class
+   * @return true iff the class is enclosed by the class that encloses the inner class, or by one of
+   *     its subclasses
+   * @throws IOException if the class file of a superclass cannot be read
+   */
+  private boolean isEnclosedBy(String binaryName, String innerClass) throws IOException {
+    NestedClass inner = nestedClasses.get(innerClass);
+    if (inner == null || inner.outerName == null) {
+      return false;
+    }
+    NestedClass nested;
+    String enclosing = binaryName;
+    while ((nested = nestedClasses.get(enclosing)) != null && nested.outerName != null) {
+      enclosing = nested.outerName;
+      // An enclosing instance of a subclass of the class that encloses the inner class will do.
+      for (@Nullable String superClass = enclosing; superClass != null; ) {
+        if (superClass.equals(inner.outerName)) {
+          return true;
+        }
+        @Nullable ClassFile superClassFile = findClassFile(superClass);
+        superClass = superClassFile == null ? null : superClassFile.getSuperclass();
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the call to another constructor with which a constructor of the stub must start. The
+   * call is needed because a constructor without one implicitly calls the constructor of the
+   * superclass that has no parameters, which may not exist. It calls the constructor that the
+   * original constructor calls, with null or zero arguments, cast to the types of its parameters so
+   * that the right overload is chosen.
+   *
+   * @param constructor a constructor
+   * @param classFile the class file of the class that declares it
+   * @return the call, or the empty string if none is needed
+   * @throws IOException if the constructor is malformed
+   */
+  private String getConstructorCall(MethodInfo constructor, ClassFile classFile)
+      throws IOException {
+    @Nullable CodeAttribute code = constructor.getCodeAttribute();
+    if (code == null) {
+      return "";
+    }
+    ConstPool constPool = constructor.getConstPool();
+    // Every call to a constructor other than the one to find initializes an object created by an
+    // earlier "new" instruction.
+    int uninitializedObjects = 0;
+    CodeIterator iterator = code.iterator();
+    try {
+      while (iterator.hasNext()) {
+        int index = iterator.next();
+        int opcode = iterator.byteAt(index);
+        if (opcode == Opcode.NEW) {
+          uninitializedObjects++;
+        } else if (opcode == Opcode.INVOKESPECIAL) {
+          int methodref = iterator.u16bitAt(index + 1);
+          if (!MethodInfo.nameInit.equals(constPool.getMethodrefName(methodref))) {
+            continue;
+          }
+          if (uninitializedObjects > 0) {
+            uninitializedObjects--;
+            continue;
+          }
+          String owner = constPool.getMethodrefClassName(methodref);
+          String descriptor = constPool.getMethodrefType(methodref);
+          boolean isThisCall = owner.equals(classFile.getName());
+          if (!isThisCall
+              && (descriptor.startsWith("()")
+                  || (isInnerClass(owner) && !isEnclosedBy(classFile.getName(), owner)))) {
+            // The implicit call is enough, or the enclosing instance that the call passes to the
+            // superclass cannot be expressed.
+            return "";
+          }
+          return (isThisCall ? "this(" : "super(")
+              + getConstructorArguments(classFile, owner, descriptor, isThisCall)
+              + ");";
+        }
+      }
+    } catch (BadBytecode e) {
+      throw new IOException("malformed code in a constructor of " + classFile.getName(), e);
+    }
+    return "";
+  }
+
+  /**
+   * Returns the arguments of a call to another constructor. Each argument is cast to the type of
+   * the parameter, as the constructor declares it when its generic signature can be found, and to
+   * the erased type of the parameter otherwise.
+   *
+   * @param classFile the class file of the class whose constructor makes the call
+   * @param owner the binary name of the class of the called constructor
+   * @param descriptor the descriptor of the called constructor
+   * @param isThisCall true if the called constructor is one of the same class
+   * @return the comma-separated arguments
+   * @throws IOException if a class file is malformed
+   */
+  private String getConstructorArguments(
+      ClassFile classFile, String owner, String descriptor, boolean isThisCall) throws IOException {
+    SignatureAttribute.Type[] erasedTypes;
+    try {
+      erasedTypes = SignatureAttribute.toMethodSignature(descriptor).getParameterTypes();
+    } catch (BadBytecode e) {
+      throw new IOException("malformed descriptor of a constructor of " + owner, e);
+    }
+    SignatureAttribute.Type @Nullable [] genericTypes = null;
+    // The types that the call sees in place of the type variables of the called constructor, of its
+    // class, and of the classes that enclose it.
+    Map<String, String> substitution = new HashMap<>();
+    // The types that can replace the type variables of the called constructor as a whole, where
+    // intersection types are allowed.
+    Map<String, String> bounds = new HashMap<>();
+    // The number of parameters at the end of the descriptor that the generic signature leaves out.
+    int trailingParameters = 0;
+    @Nullable ClassFile ownerFile = findClassFile(owner);
+    if (ownerFile != null) {
+      // The constructors through which javac lets nested classes access private constructors have
+      // an additional parameter, an anonymous class, and no generic signature.
+      String privateDescriptor = descriptor.replaceFirst("L[^;]*\\$[0-9]+;\\)", ")");
+      for (MethodInfo method : ownerFile.getMethods()) {
+        if (method.isConstructor()
+            && (method.getDescriptor().equals(descriptor)
+                || method.getDescriptor().equals(privateDescriptor))
+            && method.getAttribute(SignatureAttribute.tag) != null) {
+          SignatureAttribute.MethodSignature methodSignature = getMethodSignature(method);
+          genericTypes = methodSignature.getParameterTypes();
+          trailingParameters = method.getDescriptor().equals(descriptor) ? 0 : 1;
+          for (SignatureAttribute.TypeParameter typeParameter :
+              methodSignature.getTypeParameters()) {
+            List<String> erasedBounds = getErasedBounds(typeParameter);
+            substitution.put(typeParameter.getName(), erasedBounds.get(0));
+            bounds.put(typeParameter.getName(), String.join(" & ", erasedBounds));
+          }
+        }
+      }
+      if (!isThisCall) {
+        for (SignatureAttribute.@Nullable ClassType superClass =
+                getClassSignature(classFile).getSuperClass();
+            superClass != null;
+            superClass = superClass.getDeclaringClass()) {
+          @Nullable ClassFile superClassFile = findClassFile(getBinaryName(superClass));
+          SignatureAttribute.TypeParameter @Nullable [] typeParameters =
+              superClassFile == null ? null : getClassSignature(superClassFile).getParameters();
+          SignatureAttribute.TypeArgument @Nullable [] typeArguments =
+              superClass.getTypeArguments();
+          if (typeParameters == null
+              || typeArguments == null
+              || typeParameters.length != typeArguments.length) {
+            // A raw superclass, whose constructors have erased parameters.
+            continue;
+          }
+          for (int i = 0; i < typeParameters.length; i++) {
+            SignatureAttribute.@Nullable ObjectType typeArgument = typeArguments[i].getType();
+            if (typeArgument != null && !typeArguments[i].isWildcard()) {
+              substitution.putIfAbsent(typeParameters[i].getName(), getType(typeArgument));
+            }
+          }
+        }
+      }
+      // The type variables of the class and of the classes that enclose it are in scope.
+      for (String scope = classFile.getName(); ; ) {
+        @Nullable ClassFile scopeFile = classFiles.get(scope);
+        SignatureAttribute.TypeParameter @Nullable [] typeParameters =
+            scopeFile == null ? null : getClassSignature(scopeFile).getParameters();
+        if (typeParameters != null) {
+          for (SignatureAttribute.TypeParameter typeParameter : typeParameters) {
+            substitution.putIfAbsent(typeParameter.getName(), typeParameter.getName());
+          }
+        }
+        NestedClass nested = nestedClasses.get(scope);
+        if (!isInnerClass(scope) || nested == null || nested.outerName == null) {
+          break;
+        }
+        scope = nested.outerName;
+      }
+    }
+
+    // Generic signatures leave out the enclosing instance, and the other parameters that are not
+    // declared in the source.
+    int signatureOffset =
+        genericTypes == null ? 0 : erasedTypes.length - trailingParameters - genericTypes.length;
+    List<String> arguments = new ArrayList<>();
+    // A call to a constructor of an inner class passes the enclosing instance implicitly.
+    for (int i = isInnerClass(owner) ? 1 : 0; i < erasedTypes.length; i++) {
+      SignatureAttribute.Type type = erasedTypes[i];
+      if (type instanceof SignatureAttribute.BaseType) {
+        String name = type.jvmTypeName();
+        arguments.add(name.equals("boolean") ? "false" : "(" + name + ") 0");
+        continue;
+      }
+      if (type instanceof SignatureAttribute.ClassType) {
+        NestedClass nested = nestedClasses.get(getBinaryName((SignatureAttribute.ClassType) type));
+        if (nested != null && nested.simpleName == null) {
+          // The anonymous class that javac adds to the parameters of the constructors through
+          // which nested classes access private constructors.
+          continue;
+        }
+      }
+      if (genericTypes != null
+          && i >= signatureOffset
+          && i - signatureOffset < genericTypes.length) {
+        SignatureAttribute.Type genericType = genericTypes[i - signatureOffset];
+        Set<String> typeVariables = new HashSet<>();
+        collectTypeVariables(genericType, typeVariables);
+        if (substitution.keySet().containsAll(typeVariables)) {
+          type = genericType;
+        }
+      }
+      if (type instanceof SignatureAttribute.TypeVariable
+          && bounds.containsKey(((SignatureAttribute.TypeVariable) type).getName())) {
+        arguments.add(
+            "(" + bounds.get(((SignatureAttribute.TypeVariable) type).getName()) + ") null");
+        continue;
+      }
+      arguments.add("(" + getType(type, substitution) + ") null");
+    }
+    return String.join(", ", arguments);
+  }
+
+  /**
+   * Returns the erased bounds of a type variable.
+   *
+   * @param typeParameter the declaration of the type variable
+   * @return the erasures of its bounds, or java.lang.Object if it has none
+   */
+  private List<String> getErasedBounds(SignatureAttribute.TypeParameter typeParameter) {
+    List<SignatureAttribute.ObjectType> bounds = new ArrayList<>();
+    SignatureAttribute.@Nullable ObjectType classBound = typeParameter.getClassBound();
+    if (classBound != null) {
+      bounds.add(classBound);
+    }
+    SignatureAttribute.ObjectType @Nullable [] interfaceBounds = typeParameter.getInterfaceBound();
+    if (interfaceBounds != null) {
+      bounds.addAll(Arrays.asList(interfaceBounds));
+    }
+    List<String> result = new ArrayList<>();
+    for (SignatureAttribute.ObjectType bound : bounds) {
+      if (bound instanceof SignatureAttribute.ClassType) {
+        result.add(getClassName(getBinaryName((SignatureAttribute.ClassType) bound)));
+      } else if (bound instanceof SignatureAttribute.ArrayType) {
+        result.add(getType(bound));
+      }
+      // A bound that is another type variable is left out.
+    }
+    if (result.isEmpty()) {
+      result.add("Object");
+    }
+    return result;
+  }
+
+  /**
+   * Collects the names of the type variables that a type uses.
+   *
+   * @param type a type
+   * @param typeVariables the set to which to add the names
+   */
+  private static void collectTypeVariables(
+      SignatureAttribute.Type type, Set<String> typeVariables) {
+    if (type instanceof SignatureAttribute.ArrayType) {
+      collectTypeVariables(((SignatureAttribute.ArrayType) type).getComponentType(), typeVariables);
+    } else if (type instanceof SignatureAttribute.TypeVariable) {
+      typeVariables.add(((SignatureAttribute.TypeVariable) type).getName());
+    } else if (type instanceof SignatureAttribute.ClassType) {
+      SignatureAttribute.ClassType classType = (SignatureAttribute.ClassType) type;
+      SignatureAttribute.@Nullable ClassType declaringClass = classType.getDeclaringClass();
+      if (declaringClass != null) {
+        collectTypeVariables(declaringClass, typeVariables);
+      }
+      SignatureAttribute.TypeArgument @Nullable [] typeArguments = classType.getTypeArguments();
+      if (typeArguments != null) {
+        for (SignatureAttribute.TypeArgument typeArgument : typeArguments) {
+          SignatureAttribute.@Nullable ObjectType bound = typeArgument.getType();
+          if (bound != null) {
+            collectTypeVariables(bound, typeVariables);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Finds the class file of a class: one of the class files of the stub, one found by the {@link
+   * ClassFileLookup}, or one of the JDK.
+   *
+   * @param binaryName the binary name of the class
+   * @return the class file, or null if it cannot be found
+   * @throws IOException if the class file cannot be read
+   */
+  private @Nullable ClassFile findClassFile(String binaryName) throws IOException {
+    ClassFile result = classFiles.get(binaryName);
+    if (result != null || lookedUpClassFiles.containsKey(binaryName)) {
+      return result != null ? result : lookedUpClassFiles.get(binaryName);
+    }
+    byte @Nullable [] content = classFileLookup.read(binaryName);
+    if (content == null) {
+      try (InputStream in =
+          ClassLoader.getPlatformClassLoader()
+              .getResourceAsStream(binaryName.replace('.', '/') + ".class")) {
+        content = in == null ? null : in.readAllBytes();
+      }
+    }
+    result =
+        content == null
+            ? null
+            : new ClassFile(new DataInputStream(new ByteArrayInputStream(content)));
+    lookedUpClassFiles.put(binaryName, result);
+    return result;
+  }
+
+  /**
+   * Returns the components of a record, as they are declared in its header.
+   *
+   * @param classFile the class file of the record
+   * @param descriptors the list to which to add the descriptors of the components
+   * @return the comma-separated declarations of the components
+   * @throws IOException if the Record attribute is malformed
+   */
+  private String getRecordComponents(ClassFile classFile, List<String> descriptors)
+      throws IOException {
+    @Nullable AttributeInfo recordAttribute = classFile.getAttribute("Record");
+    if (recordAttribute == null) {
+      return "";
+    }
+    ConstPool constPool = classFile.getConstPool();
+    byte[] info = recordAttribute.get();
+    List<String> components = new ArrayList<>();
+    int count = readU2(info, 0);
+    int position = 2;
+    for (int i = 0; i < count; i++) {
+      String name = constPool.getUtf8Info(readU2(info, position));
+      String descriptor = constPool.getUtf8Info(readU2(info, position + 2));
+      String signature = descriptor;
+      int attributeCount = readU2(info, position + 4);
+      position += 6;
+      for (int j = 0; j < attributeCount; j++) {
+        int attributeLength = (readU2(info, position + 2) << 16) | readU2(info, position + 4);
+        if (SignatureAttribute.tag.equals(constPool.getUtf8Info(readU2(info, position)))) {
+          signature = constPool.getUtf8Info(readU2(info, position + 6));
+        }
+        position += 6 + attributeLength;
+      }
+      descriptors.add(descriptor);
+      try {
+        components.add(getType(SignatureAttribute.toFieldSignature(signature)) + " " + name);
+      } catch (BadBytecode e) {
+        throw new IOException("malformed signature of record component " + name, e);
+      }
+    }
+    return String.join(", ", components);
+  }
+
+  /**
+   * Returns the generic signature of a class, or its erased signature if it is not generic.
+   *
+   * @param classFile the class file of the class
+   * @return the signature of the class
+   * @throws IOException if the signature is malformed
+   */
+  private static SignatureAttribute.ClassSignature getClassSignature(ClassFile classFile)
+      throws IOException {
+    @Nullable SignatureAttribute signatureAttribute =
+        (SignatureAttribute) classFile.getAttribute(SignatureAttribute.tag);
+    if (signatureAttribute != null) {
+      try {
+        return SignatureAttribute.toClassSignature(signatureAttribute.getSignature());
+      } catch (BadBytecode e) {
+        throw new IOException("malformed signature of " + classFile.getName(), e);
+      }
+    }
+    String[] interfaceNames = classFile.getInterfaces();
+    SignatureAttribute.ClassType[] interfaces =
+        new SignatureAttribute.ClassType[interfaceNames.length];
+    for (int i = 0; i < interfaceNames.length; i++) {
+      interfaces[i] = toClassType(interfaceNames[i]);
+    }
+    return new SignatureAttribute.ClassSignature(
+        null, toClassType(classFile.getSuperclass()), interfaces);
+  }
+
+  /**
+   * Converts the binary name of a class to a type, in the form that Javassist uses for types in
+   * signatures.
+   *
+   * @param binaryName the binary name of a class
+   * @return the type
+   * @throws IOException if the name is malformed
+   */
+  private static SignatureAttribute.ClassType toClassType(String binaryName) throws IOException {
+    try {
+      return (SignatureAttribute.ClassType)
+          SignatureAttribute.toFieldSignature("L" + binaryName.replace('.', '/') + ";");
+    } catch (BadBytecode e) {
+      throw new IOException("malformed class name " + binaryName, e);
+    }
+  }
+
+  /**
+   * Returns the generic signature of a method, or its erased signature if it is not generic.
+   *
+   * @param method the method
+   * @return the signature of the method
+   * @throws IOException if the signature is malformed
+   */
+  private static SignatureAttribute.MethodSignature getMethodSignature(MethodInfo method)
+      throws IOException {
+    @Nullable SignatureAttribute signatureAttribute =
+        (SignatureAttribute) method.getAttribute(SignatureAttribute.tag);
+    try {
+      return SignatureAttribute.toMethodSignature(
+          signatureAttribute != null ? signatureAttribute.getSignature() : method.getDescriptor());
+    } catch (BadBytecode e) {
+      throw new IOException("malformed signature of method " + method.getName(), e);
+    }
+  }
+
+  /**
+   * Returns the declaration of type parameters.
+   *
+   * @param typeParameters the type parameters, or null if there are none
+   * @return the declaration, such as "&lt;T extends Comparable&lt;T&gt;&gt;", or the empty string
+   */
+  private String getTypeParameters(SignatureAttribute.TypeParameter @Nullable [] typeParameters) {
+    if (typeParameters == null || typeParameters.length == 0) {
+      return "";
+    }
+    List<String> declarations = new ArrayList<>();
+    for (SignatureAttribute.TypeParameter typeParameter : typeParameters) {
+      List<String> bounds = new ArrayList<>();
+      SignatureAttribute.@Nullable ObjectType classBound = typeParameter.getClassBound();
+      if (classBound != null && !isObject(classBound)) {
+        bounds.add(getType(classBound));
+      }
+      SignatureAttribute.ObjectType @Nullable [] interfaceBounds =
+          typeParameter.getInterfaceBound();
+      if (interfaceBounds != null) {
+        for (SignatureAttribute.ObjectType bound : interfaceBounds) {
+          bounds.add(getType(bound));
+        }
+      }
+      declarations.add(
+          typeParameter.getName()
+              + (bounds.isEmpty() ? "" : " extends " + String.join(" & ", bounds)));
+    }
+    return "<" + String.join(", ", declarations) + ">";
+  }
+
+  /**
+   * Is a type java.lang.Object?
+   *
+   * @param type a type
+   * @return true iff the type is java.lang.Object
+   */
+  private static boolean isObject(SignatureAttribute.ObjectType type) {
+    return type instanceof SignatureAttribute.ClassType
+        && ((SignatureAttribute.ClassType) type).getDeclaringClass() == null
+        && "java.lang.Object".equals(((SignatureAttribute.ClassType) type).getName());
+  }
+
+  /**
+   * Returns the source form of a type.
+   *
+   * @param type a type
+   * @return the type as it should be written in the stub
+   */
+  private String getType(SignatureAttribute.Type type) {
+    return getType(type, Map.of());
+  }
+
+  /**
+   * Returns the source form of a type, in which some type variables are replaced.
+   *
+   * @param type a type
+   * @param substitution the source forms of the types that replace the type variables, keyed by the
+   *     names of the variables
+   * @return the type as it should be written in the stub
+   */
+  private String getType(SignatureAttribute.Type type, Map<String, String> substitution) {
+    if (type instanceof SignatureAttribute.ArrayType) {
+      SignatureAttribute.ArrayType arrayType = (SignatureAttribute.ArrayType) type;
+      return getType(arrayType.getComponentType(), substitution)
+          + "[]".repeat(arrayType.getDimension());
+    } else if (type instanceof SignatureAttribute.TypeVariable) {
+      String name = ((SignatureAttribute.TypeVariable) type).getName();
+      return substitution.getOrDefault(name, name);
+    } else if (type instanceof SignatureAttribute.ClassType) {
+      SignatureAttribute.ClassType classType = (SignatureAttribute.ClassType) type;
+      SignatureAttribute.@Nullable ClassType declaringClass = classType.getDeclaringClass();
+      String typeArguments = getTypeArguments(classType.getTypeArguments(), substitution);
+      if (declaringClass == null || !hasTypeArguments(declaringClass)) {
+        return getClassName(getBinaryName(classType)) + typeArguments;
+      }
+      return getType(declaringClass, substitution) + "." + classType.getName() + typeArguments;
+    }
+    // a primitive type or void
+    return type.jvmTypeName();
+  }
+
+  /**
+   * Does a class type, or one of the classes that enclose it, have type arguments?
+   *
+   * @param classType a class type
+   * @return true iff the type has type arguments at any level
+   */
+  private static boolean hasTypeArguments(SignatureAttribute.@Nullable ClassType classType) {
+    return classType != null
+        && (classType.getTypeArguments() != null
+            || hasTypeArguments(classType.getDeclaringClass()));
+  }
+
+  /**
+   * Returns the binary name of a class type. Javassist splits the binary names of classes at every
+   * '$' sign, so they have to be put back together.
+   *
+   * @param classType a class type
+   * @return its binary name, such as "java.util.Map$Entry"
+   */
+  private static String getBinaryName(SignatureAttribute.ClassType classType) {
+    SignatureAttribute.@Nullable ClassType declaringClass = classType.getDeclaringClass();
+    return declaringClass == null
+        ? classType.getName()
+        : getBinaryName(declaringClass) + "$" + classType.getName();
+  }
+
+  /**
+   * Returns the source form of type arguments.
+   *
+   * @param typeArguments the type arguments, or null if there are none
+   * @param substitution the source forms of the types that replace type variables, keyed by the
+   *     names of the variables
+   * @return the type arguments, such as "&lt;? extends T&gt;", or the empty string
+   */
+  private String getTypeArguments(
+      SignatureAttribute.TypeArgument @Nullable [] typeArguments,
+      Map<String, String> substitution) {
+    if (typeArguments == null) {
+      return "";
+    }
+    List<String> arguments = new ArrayList<>();
+    for (SignatureAttribute.TypeArgument typeArgument : typeArguments) {
+      SignatureAttribute.@Nullable ObjectType bound = typeArgument.getType();
+      if (typeArgument.getKind() == '*' || bound == null) {
+        arguments.add("?");
+      } else if (typeArgument.getKind() == '+') {
+        arguments.add("? extends " + getType(bound, substitution));
+      } else if (typeArgument.getKind() == '-') {
+        arguments.add("? super " + getType(bound, substitution));
+      } else {
+        arguments.add(getType(bound, substitution));
+      }
+    }
+    return "<" + String.join(", ", arguments) + ">";
+  }
+
+  /**
+   * Returns the name by which the stub refers to a class, importing the class if needed. A class is
+   * referred to by its simple name, unless another class with the same simple name has been
+   * referred to already, in which case it is referred to by its fully-qualified name.
+   *
+   * @param binaryName the binary name of the class, such as "java.util.Map$Entry"
+   * @return the name of the class in the stub, such as "Map.Entry"
+   */
+  private String getClassName(String binaryName) {
+    String topLevelName = binaryName;
+    String nestedNames = "";
+    NestedClass nested;
+    while ((nested = nestedClasses.get(topLevelName)) != null
+        && nested.outerName != null
+        && nested.simpleName != null) {
+      nestedNames = "." + nested.simpleName + nestedNames;
+      topLevelName = nested.outerName;
+    }
+    int lastDot = topLevelName.lastIndexOf('.');
+    String classPackage = lastDot == -1 ? "" : topLevelName.substring(0, lastDot);
+    String simpleName = topLevelName.substring(lastDot + 1);
+    String claimant = claimedSimpleNames.get(simpleName);
+    if (claimant == null) {
+      claimedSimpleNames.put(simpleName, topLevelName);
+      if (!classPackage.isEmpty()
+          && !classPackage.equals(packageName)
+          && !classPackage.equals("java.lang")) {
+        imports.add(topLevelName);
+      }
+      return simpleName + nestedNames;
+    } else if (claimant.equals(topLevelName)) {
+      return simpleName + nestedNames;
+    }
+    return topLevelName + nestedNames;
+  }
+
+  /**
+   * Returns the access modifier that corresponds to some access flags.
+   *
+   * @param accessFlags access flags
+   * @return "public ", "protected ", "private ", or the empty string
+   */
+  private static String getAccessModifier(int accessFlags) {
+    if ((accessFlags & AccessFlag.PUBLIC) != 0) {
+      return "public ";
+    } else if ((accessFlags & AccessFlag.PROTECTED) != 0) {
+      return "protected ";
+    } else if ((accessFlags & AccessFlag.PRIVATE) != 0) {
+      return "private ";
+    }
+    return "";
+  }
+
+  /**
+   * Returns the declaration annotations of a field.
+   *
+   * @param field a field
+   * @return the annotations, in source form
+   */
+  private List<String> getAnnotations(FieldInfo field) {
+    return getAnnotations(
+        field.getAttribute(AnnotationsAttribute.visibleTag),
+        field.getAttribute(AnnotationsAttribute.invisibleTag));
+  }
+
+  /**
+   * Returns the declaration annotations of a method.
+   *
+   * @param method a method
+   * @return the annotations, in source form
+   */
+  private List<String> getAnnotations(MethodInfo method) {
+    return getAnnotations(
+        method.getAttribute(AnnotationsAttribute.visibleTag),
+        method.getAttribute(AnnotationsAttribute.invisibleTag));
+  }
+
+  /**
+   * Returns the annotations stored in annotation attributes.
+   *
+   * @param attributes the attributes, which are null if the annotated element has none
+   * @return the annotations, in source form
+   */
+  private List<String> getAnnotations(@Nullable AttributeInfo... attributes) {
+    List<String> result = new ArrayList<>();
+    for (AttributeInfo attribute : attributes) {
+      if (attribute instanceof AnnotationsAttribute) {
+        for (Annotation annotation : ((AnnotationsAttribute) attribute).getAnnotations()) {
+          result.add(getAnnotation(annotation));
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the annotations of the parameters of a method stored in an attribute.
+   *
+   * @param attribute the attribute, or null if the parameters have no such annotations
+   * @return the annotations, indexed by parameter, or null
+   */
+  private static Annotation[] @Nullable [] getParameterAnnotations(
+      @Nullable AttributeInfo attribute) {
+    return attribute instanceof ParameterAnnotationsAttribute
+        ? ((ParameterAnnotationsAttribute) attribute).getAnnotations()
+        : null;
+  }
+
+  /**
+   * Returns the annotations of one parameter.
+   *
+   * @param parameterAnnotations the annotations of the parameters, or null
+   * @param index the index of the parameter in the descriptor of the method
+   * @param parameterCount the number of parameters in the descriptor of the method
+   * @return the annotations, in source form
+   */
+  private List<String> getAnnotations(
+      Annotation[] @Nullable [] parameterAnnotations, int index, int parameterCount) {
+    List<String> result = new ArrayList<>();
+    if (parameterAnnotations == null) {
+      return result;
+    }
+    // Javac leaves out the parameters that are not declared in the source, such as the enclosing
+    // instance, from the start of the attribute.
+    int annotationsIndex = index - (parameterCount - parameterAnnotations.length);
+    if (annotationsIndex >= 0 && annotationsIndex < parameterAnnotations.length) {
+      for (Annotation annotation : parameterAnnotations[annotationsIndex]) {
+        result.add(getAnnotation(annotation));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the type annotations that apply to a whole type, rather than to a part of it such as a
+   * type argument.
+   *
+   * @param visible the RuntimeVisibleTypeAnnotations attribute, or null
+   * @param invisible the RuntimeInvisibleTypeAnnotations attribute, or null
+   * @param targetType the kind of type, such as 0x14 for the result of a method
+   * @param targetIndex the index of the parameter for parameter types, and -1 otherwise
+   * @return the annotations, in source form
+   * @throws IOException if an attribute is malformed
+   */
+  private List<String> getTypeAnnotations(
+      @Nullable AttributeInfo visible,
+      @Nullable AttributeInfo invisible,
+      int targetType,
+      int targetIndex)
+      throws IOException {
+    List<String> result = new ArrayList<>();
+    for (AttributeInfo attribute : new @Nullable AttributeInfo[] {visible, invisible}) {
+      if (attribute == null) {
+        continue;
+      }
+      // Javassist does not parse type annotations, so only the part of each entry that precedes
+      // the annotation itself is read here.
+      byte[] info = attribute.get();
+      int count = readU2(info, 0);
+      int position = 2;
+      for (int i = 0; i < count; i++) {
+        int entryTarget = info[position++] & 0xFF;
+        int entryIndex = -1;
+        switch (entryTarget) {
+          case 0x00: // type parameter of a class
+          case 0x01: // type parameter of a method
+          case 0x16: // formal parameter
+            entryIndex = info[position] & 0xFF;
+            position += 1;
+            break;
+          case 0x10: // supertype
+          case 0x17: // throws clause
+            entryIndex = readU2(info, position);
+            position += 2;
+            break;
+          case 0x11: // bound of a type parameter of a class
+          case 0x12: // bound of a type parameter of a method
+            position += 2;
+            break;
+          case 0x13: // field
+          case 0x14: // result of a method
+          case 0x15: // receiver
+            break;
+          default:
+            // The other targets only appear in the attributes of code, which are not read here.
+            throw new IOException("unexpected type annotation target: " + entryTarget);
+        }
+        int pathLength = info[position] & 0xFF;
+        position += 1 + 2 * pathLength;
+        int start = position;
+        position = skipAnnotation(info, position);
+        if (entryTarget == targetType && entryIndex == targetIndex && pathLength == 0) {
+          byte[] annotationInfo = new byte[2 + position - start];
+          annotationInfo[1] = 1;
+          System.arraycopy(info, start, annotationInfo, 2, position - start);
+          result.add(
+              getAnnotation(
+                  new AnnotationsAttribute(
+                          attribute.getConstPool(), AnnotationsAttribute.visibleTag, annotationInfo)
+                      .getAnnotations()[0]));
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Skips an annotation structure of a class file.
+   *
+   * @param info the content of an attribute
+   * @param position the position of the annotation in the content
+   * @return the position that follows the annotation
+   * @throws IOException if the annotation is malformed
+   */
+  private static int skipAnnotation(byte[] info, int position) throws IOException {
+    int pairCount = readU2(info, position + 2);
+    position += 4;
+    for (int i = 0; i < pairCount; i++) {
+      position = skipElementValue(info, position + 2);
+    }
+    return position;
+  }
+
+  /**
+   * Skips an element_value structure of a class file.
+   *
+   * @param info the content of an attribute
+   * @param position the position of the element value in the content
+   * @return the position that follows the element value
+   * @throws IOException if the element value is malformed
+   */
+  private static int skipElementValue(byte[] info, int position) throws IOException {
+    char tag = (char) (info[position] & 0xFF);
+    position++;
+    switch (tag) {
+      case 'B':
+      case 'C':
+      case 'D':
+      case 'F':
+      case 'I':
+      case 'J':
+      case 'S':
+      case 'Z':
+      case 's':
+      case 'c':
+        return position + 2;
+      case 'e':
+        return position + 4;
+      case '@':
+        return skipAnnotation(info, position);
+      case '[':
+        int valueCount = readU2(info, position);
+        position += 2;
+        for (int i = 0; i < valueCount; i++) {
+          position = skipElementValue(info, position);
+        }
+        return position;
+      default:
+        throw new IOException("unexpected element value tag: " + tag);
+    }
+  }
+
+  /**
+   * Reads an unsigned 16-bit number of a class file.
+   *
+   * @param info the content of an attribute
+   * @param position the position of the number in the content
+   * @return the number
+   * @throws IOException if the content ends before the number
+   */
+  private static int readU2(byte[] info, int position) throws IOException {
+    if (position + 1 >= info.length) {
+      throw new IOException("truncated attribute");
+    }
+    return ((info[position] & 0xFF) << 8) | (info[position + 1] & 0xFF);
+  }
+
+  /**
+   * Returns the source form of an annotation.
+   *
+   * @param annotation an annotation
+   * @return the annotation, such as "@Retention(RetentionPolicy.RUNTIME)"
+   */
+  private String getAnnotation(Annotation annotation) {
+    StringBuilder result = new StringBuilder("@").append(getClassName(annotation.getTypeName()));
+    @Nullable Set<String> memberNames = annotation.getMemberNames();
+    if (memberNames == null || memberNames.isEmpty()) {
+      return result.toString();
+    }
+    List<String> members = new ArrayList<>();
+    for (String memberName : memberNames) {
+      @Nullable MemberValue value = annotation.getMemberValue(memberName);
+      if (value == null) {
+        continue;
+      }
+      members.add(
+          memberNames.size() == 1 && memberName.equals("value")
+              ? getMemberValue(value)
+              : memberName + " = " + getMemberValue(value));
+    }
+    return result.append("(").append(String.join(", ", members)).append(")").toString();
+  }
+
+  /**
+   * Returns the source form of the value of an element of an annotation.
+   *
+   * @param value the value
+   * @return the value as it should be written in the stub
+   */
+  private String getMemberValue(MemberValue value) {
+    if (value instanceof BooleanMemberValue) {
+      return String.valueOf(((BooleanMemberValue) value).getValue());
+    } else if (value instanceof ByteMemberValue) {
+      return String.valueOf(((ByteMemberValue) value).getValue());
+    } else if (value instanceof ShortMemberValue) {
+      return String.valueOf(((ShortMemberValue) value).getValue());
+    } else if (value instanceof IntegerMemberValue) {
+      return String.valueOf(((IntegerMemberValue) value).getValue());
+    } else if (value instanceof LongMemberValue) {
+      return ((LongMemberValue) value).getValue() + "L";
+    } else if (value instanceof FloatMemberValue) {
+      return getFloatLiteral(((FloatMemberValue) value).getValue());
+    } else if (value instanceof DoubleMemberValue) {
+      return getDoubleLiteral(((DoubleMemberValue) value).getValue());
+    } else if (value instanceof CharMemberValue) {
+      return "'" + escape(String.valueOf(((CharMemberValue) value).getValue()), '\'') + "'";
+    } else if (value instanceof StringMemberValue) {
+      return "\"" + escape(((StringMemberValue) value).getValue(), '"') + "\"";
+    } else if (value instanceof EnumMemberValue) {
+      EnumMemberValue enumValue = (EnumMemberValue) value;
+      return getClassName(enumValue.getType()) + "." + enumValue.getValue();
+    } else if (value instanceof ClassMemberValue) {
+      return getClassLiteralType(((ClassMemberValue) value).getValue()) + ".class";
+    } else if (value instanceof AnnotationMemberValue) {
+      return getAnnotation(((AnnotationMemberValue) value).getValue());
+    } else if (value instanceof ArrayMemberValue) {
+      List<String> elements = new ArrayList<>();
+      MemberValue @Nullable [] values = ((ArrayMemberValue) value).getValue();
+      if (values != null) {
+        for (MemberValue element : values) {
+          elements.add(getMemberValue(element));
+        }
+      }
+      return "{" + String.join(", ", elements) + "}";
+    }
+    throw new RuntimeException("unexpected annotation element value: " + value);
+  }
+
+  /**
+   * Returns the source form of the type of a class literal.
+   *
+   * @param javaName the type, as Javassist names it, such as "java.lang.String[]" or "int"
+   * @return the type as it should be written in the stub
+   */
+  private String getClassLiteralType(String javaName) {
+    int arrayStart = javaName.indexOf('[');
+    String elementType = arrayStart == -1 ? javaName : javaName.substring(0, arrayStart);
+    String dimensions = arrayStart == -1 ? "" : javaName.substring(arrayStart);
+    if (elementType.indexOf('.') == -1 && SourceVersion.isKeyword(elementType)) {
+      // a primitive type or void
+      return elementType + dimensions;
+    }
+    return getClassName(elementType) + dimensions;
+  }
+
+  /**
+   * Returns the initializer of a constant field.
+   *
+   * @param constPool the constant pool of the class
+   * @param constant the ConstantValue attribute of the field
+   * @param descriptor the descriptor of the type of the field
+   * @return the value of the constant, as it should be written in the stub
+   */
+  private static String getConstant(
+      ConstPool constPool, ConstantAttribute constant, String descriptor) {
+    int index = constant.getConstantValue();
+    switch (constPool.getTag(index)) {
+      case ConstPool.CONST_Long:
+        return constPool.getLongInfo(index) + "L";
+      case ConstPool.CONST_Float:
+        return getFloatLiteral(constPool.getFloatInfo(index));
+      case ConstPool.CONST_Double:
+        return getDoubleLiteral(constPool.getDoubleInfo(index));
+      case ConstPool.CONST_String:
+        return "\"" + escape(constPool.getStringInfo(index), '"') + "\"";
+      default:
+        int value = constPool.getIntegerInfo(index);
+        switch (descriptor) {
+          case "Z":
+            return value != 0 ? "true" : "false";
+          case "C":
+            return "'" + escape(String.valueOf((char) value), '\'') + "'";
+          case "B":
+            return "(byte) " + value;
+          case "S":
+            return "(short) " + value;
+          default:
+            return String.valueOf(value);
+        }
+    }
+  }
+
+  /**
+   * Returns the initializer of a final field that is not a constant.
+   *
+   * @param descriptor the descriptor of the type of the field
+   * @return the default value of the type
+   */
+  private static String getDefaultValue(String descriptor) {
+    switch (descriptor) {
+      case "Z":
+        return "false";
+      case "C":
+        return "'\\u0000'";
+      case "B":
+        return "(byte) 0";
+      case "S":
+        return "(short) 0";
+      case "I":
+        return "0";
+      case "J":
+        return "0L";
+      case "F":
+        return "0.0f";
+      case "D":
+        return "0.0";
+      default:
+        return "null";
+    }
+  }
+
+  /**
+   * Returns a float literal.
+   *
+   * @param value a float
+   * @return an expression with the value
+   */
+  private static String getFloatLiteral(float value) {
+    if (Float.isNaN(value)) {
+      return "0.0f / 0.0f";
+    } else if (Float.isInfinite(value)) {
+      return value > 0 ? "1.0f / 0.0f" : "-1.0f / 0.0f";
+    }
+    return value + "f";
+  }
+
+  /**
+   * Returns a double literal.
+   *
+   * @param value a double
+   * @return an expression with the value
+   */
+  private static String getDoubleLiteral(double value) {
+    if (Double.isNaN(value)) {
+      return "0.0 / 0.0";
+    } else if (Double.isInfinite(value)) {
+      return value > 0 ? "1.0 / 0.0" : "-1.0 / 0.0";
+    }
+    return String.valueOf(value);
+  }
+
+  /**
+   * Escapes the characters of a string or character literal.
+   *
+   * @param value the value of the literal
+   * @param quote the quote that delimits the literal
+   * @return the value, escaped so that it can be written between the quotes
+   */
+  private static String escape(String value, char quote) {
+    StringBuilder result = new StringBuilder();
+    for (char c : value.toCharArray()) {
+      if (c == quote || c == '\\') {
+        result.append('\\').append(c);
+      } else if (c == '\n') {
+        result.append("\\n");
+      } else if (c == '\r') {
+        result.append("\\r");
+      } else if (c == '\t') {
+        result.append("\\t");
+      } else if (c < 0x20 || c > 0x7E) {
+        result.append(String.format("\\u%04x", (int) c));
+      } else {
+        result.append(c);
+      }
+    }
+    return result.toString();
+  }
+}
@@ -0,0 +1,255 @@
+package org.checkerframework.specimin;
+
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.symbolsolver.javassistmodel.JavassistFactory;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JarTypeSolver;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.NotFoundException;
+import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A type solver for a directory of class files, such as the build/classes directory of a Gradle
+ * project. It solves types from their bytecode in the same way as JavaParser's JarTypeSolver solves
+ * them in a jar file, so a directory of classes can be used as an input without first being packed
+ * into a jar.
+ *
+ * <p>The entries of Specimin's class path are jar files and directories of class files; the static
+ * methods of this class create the right type solver for either. This solver is also used for a jar
+ * file whose class pool is kept between minimizations by a {@link ClassPoolCache}, since
+ * JavaParser's JarTypeSolver always reads the jar into a class pool of its own.
+ */
+public class ClassDirectoryTypeSolver implements TypeSolver {
+
+  /** The class pool that reads the class files of the directory. */
+  private final ClassPool classPool;
+
+  /**
+   * The classes of the directory, keyed by both their canonical names, such as
+   * "com.example.Foo.Bar", and their names in the class pool, such as "com.example.Foo$Bar". The
+   * values are the names in the class pool.
+   */
+  private final Map<String, String> knownClasses;
+
+  /** The parent of this solver. */
+  private @MonotonicNonNull TypeSolver parent;
+
+  /**
+   * Creates a new solver.
+   *
+   * @param directory a directory of class files, laid out by package
+   * @throws IOException if the directory cannot be read
+   */
+  public ClassDirectoryTypeSolver(String directory) throws IOException {
+    this(newClassPool(directory), indexClassFiles(listClassFiles(Path.of(directory))));
+  }
+
+  /**
+   * Creates a new solver for the classes of a class pool that has already been set up, such as one
+   * that is kept by a {@link ClassPoolCache}.
+   *
+   * @param classPool the class pool that reads the class files
+   * @param knownClasses the classes of the class pool, as computed by {@link
+   *     #indexClassFiles(List)}
+   */
+  ClassDirectoryTypeSolver(ClassPool classPool, Map<String, String> knownClasses) {
+    this.classPool = classPool;
+    this.knownClasses = knownClasses;
+  }
+
+  /**
+   * Creates a class pool that reads the class files of an entry of the class path.
+   *
+   * @param classPathEntry a jar file or a directory of class files
+   * @return a new class pool
+   * @throws IOException if the entry cannot be read
+   */
+  static ClassPool newClassPool(String classPathEntry) throws IOException {
+    ClassPool classPool = new ClassPool();
+    try {
+      classPool.appendClassPath(classPathEntry);
+    } catch (NotFoundException e) {
+      throw new IOException("cannot read the class path entry " + classPathEntry, e);
+    }
+    return classPool;
+  }
+
+  /**
+   * Computes the names by which the classes of the given class files are looked up.
+   *
+   * @param classFiles the paths of class files relative to their directory or jar, using "/" as the
+   *     separator, such as "com/example/Foo$Bar.class"
+   * @return the classes, keyed by both their canonical names and their names in the class pool,
+   *     with the names in the class pool as values
+   */
+  static Map<String, String> indexClassFiles(List<String> classFiles) {
+    Map<String, String> knownClasses = new HashMap<>();
+    for (String classFile : classFiles) {
+      String classPoolName =
+          classFile.substring(0, classFile.length() - ".class".length()).replace('/', '.');
+      knownClasses.put(classPoolName.replace('$', '.'), classPoolName);
+      knownClasses.put(classPoolName, classPoolName);
+    }
+    return knownClasses;
+  }
+
+  /**
+   * Is an entry of the class path a directory of class files, rather than a jar file?
+   *
+   * @param classPathEntry a jar file or a directory of class files
+   * @return true iff the entry is a directory
+   */
+  public static boolean isClassDirectory(String classPathEntry) {
+    return Files.isDirectory(Path.of(classPathEntry));
+  }
+
+  /**
+   * Creates a type solver for an entry of the class path.
+   *
+   * @param classPathEntry a jar file or a directory of class files
+   * @return a JarTypeSolver for a jar file, or a ClassDirectoryTypeSolver for a directory
+   * @throws IOException if the entry cannot be read
+   */
+  public static TypeSolver create(String classPathEntry) throws IOException {
+    return isClassDirectory(classPathEntry)
+        ? new ClassDirectoryTypeSolver(classPathEntry)
+        : new JarTypeSolver(classPathEntry);
+  }
+
+  /**
+   * Returns the names of the classes of an entry of the class path, in the same forms as {@link
+   * JarTypeSolver#getKnownClasses()}.
+   *
+   * @param classPathEntry a jar file or a directory of class files
+   * @return the names of its classes
+   * @throws IOException if the entry cannot be read
+   */
+  public static Set<String> getKnownClassesOf(String classPathEntry) throws IOException {
+    return isClassDirectory(classPathEntry)
+        ? new ClassDirectoryTypeSolver(classPathEntry).getKnownClasses()
+        : new JarTypeSolver(classPathEntry).getKnownClasses();
+  }
+
+  /**
+   * Creates a type solver for an entry of the class path, reusing the class pool of a jar file that
+   * the given cache keeps.
+   *
+   * @param classPathEntry a jar file or a directory of class files
+   * @param classPoolCache the class pools kept between minimizations, or null
+   * @return a ClassDirectoryTypeSolver, except for a jar file when there is no cache, for which it
+   *     is a JarTypeSolver
+   * @throws IOException if the entry cannot be read
+   */
+  public static TypeSolver create(String classPathEntry, @Nullable ClassPoolCache classPoolCache)
+      throws IOException {
+    if (classPoolCache == null || isClassDirectory(classPathEntry)) {
+      return create(classPathEntry);
+    }
+    return classPoolCache.getJarTypeSolver(classPathEntry);
+  }
+
+  /**
+   * Lists the class files of a directory, leaving out module and package descriptors.
+   *
+   * @param directory a directory of class files
+   * @return the paths of the class files relative to the directory, using "/" as the separator,
+   *     such as "com/example/Foo$Bar.class"
+   * @throws IOException if the directory cannot be read
+   */
+  static List<String> listClassFiles(Path directory) throws IOException {
+    try (Stream<Path> paths = Files.walk(directory)) {
+      return paths
+          .filter(Files::isRegularFile)
+          .map(path -> directory.relativize(path).toString().replace('\\', '/'))
+          .filter(ClassDirectoryTypeSolver::isClassFile)
+          .sorted()
+          .collect(Collectors.toList());
+    }
+  }
+
+  /**
+   * Lists the class files of a jar file, leaving out module and package descriptors.
+   *
+   * @param jarPath a jar file
+   * @return the paths of the class files within the jar, such as "com/example/Foo$Bar.class"
+   * @throws IOException if the jar cannot be read
+   */
+  static List<String> listJarClassFiles(String jarPath) throws IOException {
+    try (ZipFile zipFile = new ZipFile(jarPath)) {
+      return zipFile.stream()
+          .map(ZipEntry::getName)
+          .filter(ClassDirectoryTypeSolver::isClassFile)
+          .sorted()
+          .collect(Collectors.toList());
+    }
+  }
+
+  /**
+   * Is an entry of a directory or jar a class file, rather than a module or package descriptor or a
+   * file of the META-INF directory?
+   *
+   * @param name the path of the entry, using "/" as the separator
+   * @return true iff the entry is the class file of a class
+   */
+  private static boolean isClassFile(String name) {
+    return name.endsWith(".class")
+        && !name.startsWith("META-INF/")
+        && !name.endsWith("module-info.class")
+        && !name.endsWith("package-info.class");
+  }
+
+  /**
+   * Returns the names of the classes of the directory.
+   *
+   * @return their canonical names and their names in the class pool
+   */
+  public Set<String> getKnownClasses() {
+    return knownClasses.keySet();
+  }
+
+  @Override
+  @SuppressWarnings("nullness") // the TypeSolver interface allows a null parent
+  public TypeSolver getParent() {
+    return parent;
+  }
+
+  @Override
+  public void setParent(TypeSolver parent) {
+    if (this.parent != null) {
+      throw new IllegalStateException("This TypeSolver already has a parent.");
+    }
+    if (parent == this) {
+      throw new IllegalStateException("The parent of this TypeSolver cannot be itself.");
+    }
+    this.parent = parent;
+  }
+
+  @Override
+  public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+    @Nullable String classPoolName = knownClasses.get(name);
+    if (classPoolName == null) {
+      return SymbolReference.unsolved();
+    }
+    try {
+      CtClass ctClass = classPool.get(classPoolName);
+      return SymbolReference.solved(JavassistFactory.toTypeDeclaration(ctClass, getRoot()));
+    } catch (NotFoundException e) {
+      throw new IllegalStateException(
+          "the class file of " + classPoolName + " disappeared from its directory", e);
+    }
+  }
+}
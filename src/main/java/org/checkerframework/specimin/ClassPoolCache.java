@@ -0,0 +1,110 @@
+package org.checkerframework.specimin;
+
+import com.github.javaparser.resolution.TypeSolver;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Map;
+import javassist.ClassPool;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The Javassist class pools of the JDK classes and of jar files, kept between the minimizations of
+ * a long-lived process such as {@link SpeciminDaemon}. A class pool keeps every class file that it
+ * has parsed, so a later minimization that uses the same release or jar does not read and parse
+ * those class files again, and the class names of a jar are listed once rather than on every
+ * minimization.
+ *
+ * <p>A class pool only reads class files and never changes them, so the type solvers of different
+ * minimizations can share it; each minimization still creates its own solvers, since those are tied
+ * to its own root solver. A jar is read again if its size or modification time has changed.
+ * Directories of class files are not kept, since a build may rewrite any of their files without
+ * changing the directory itself. This class is not thread-safe: it is meant for minimizations that
+ * run one at a time.
+ */
+public final class ClassPoolCache {
+
+  /** The most jar files whose class pools are kept. */
+  private static final int MAX_JARS = 64;
+
+  /** The class pool of the JDK classes of each release that has been used. */
+  private final Map<JdkClassFiles, ClassPool> jdkClassPools = new HashMap<>();
+
+  /** The classes of the jar files that have been used, keyed by the path of the jar. */
+  private final Map<Path, CachedJar> jars = new LruCache<>(MAX_JARS);
+
+  /** The class pool of a jar file and the names of its classes. */
+  private static final class CachedJar {
+
+    /** The attributes of the jar file when it was read. */
+    final BasicFileAttributes attributes;
+
+    /** The class pool that reads the class files of the jar. */
+    final ClassPool classPool;
+
+    /** The classes of the jar, as computed by {@link ClassDirectoryTypeSolver#indexClassFiles}. */
+    final Map<String, String> knownClasses;
+
+    /**
+     * Creates a new entry.
+     *
+     * @param attributes the attributes of the jar file when it was read
+     * @param classPool the class pool that reads the class files of the jar
+     * @param knownClasses the classes of the jar
+     */
+    CachedJar(
+        BasicFileAttributes attributes, ClassPool classPool, Map<String, String> knownClasses) {
+      this.attributes = attributes;
+      this.classPool = classPool;
+      this.knownClasses = knownClasses;
+    }
+
+    /**
+     * Is this entry still up to date?
+     *
+     * @param current the current attributes of the jar file
+     * @return true iff the jar has the same size and modification time as when it was read
+     */
+    boolean isCurrent(BasicFileAttributes current) {
+      FileTime modified = attributes.lastModifiedTime();
+      return attributes.size() == current.size() && modified.equals(current.lastModifiedTime());
+    }
+  }
+
+  /**
+   * Returns the class pool of the given JDK class files, creating it on first use.
+   *
+   * @param classFiles the class files of the JDK classes of a release
+   * @return the class pool that reads them
+   */
+  ClassPool getJdkClassPool(JdkClassFiles classFiles) {
+    return jdkClassPools.computeIfAbsent(classFiles, JdkTypeSolver::newClassPool);
+  }
+
+  /**
+   * Creates a type solver for a jar file, reusing the class pool of the jar if it has not changed
+   * since it was last read.
+   *
+   * @param jarPath the path of a jar file
+   * @return a new type solver for the classes of the jar
+   * @throws IOException if the jar cannot be read
+   */
+  TypeSolver getJarTypeSolver(String jarPath) throws IOException {
+    Path key = Path.of(jarPath).toAbsolutePath().normalize();
+    BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+    @Nullable CachedJar jar = jars.get(key);
+    if (jar == null || !jar.isCurrent(attributes)) {
+      jar =
+          new CachedJar(
+              attributes,
+              ClassDirectoryTypeSolver.newClassPool(jarPath),
+              ClassDirectoryTypeSolver.indexClassFiles(
+                  ClassDirectoryTypeSolver.listJarClassFiles(jarPath)));
+      jars.put(key, jar);
+    }
+    return new ClassDirectoryTypeSolver(jar.classPool, jar.knownClasses);
+  }
+}
@@ -0,0 +1,268 @@
+package org.checkerframework.specimin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipFile;
+import org.apache.commons.io.FileUtils;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.jetbrains.java.decompiler.main.decompiler.ConsoleDecompiler;
+
+/**
+ * A cache of the decompiled sources of jar files, shared by every run of Specimin on the machine.
+ * The sources of a jar are stored in a directory of the cache whose name is derived from the
+ * SHA-256 hash of the jar and the kind of the sources (see {@link #getSourceKind(boolean)}). So a
+ * jar is decompiled only the first time that it is seen, and a jar that changes, or a new version
+ * of the decompiler, simply gets a new directory.
+ *
+ * <p>By default, the sources of a jar are stubs that {@link BytecodeStubGenerator} generates from
+ * its class files: they have the signatures of the classes, but no method bodies, which Specimin
+ * would remove anyway. The whole classes are decompiled by Vineflower instead only if a run asks
+ * for it (see {@link MinimizationOptions#withDecompileMethodBodies(boolean)}).
+ *
+ * <p>Each run chooses the directory of its cache and the kind of its sources (see {@link
+ * MinimizationOptions}), so runs in one process may use different caches.
+ *
+ * <p>The directories of the cache are used as additional source roots by SpeciminRunner, so nothing
+ * is ever decompiled into the user's root. A directory is decompiled under a temporary name and
+ * then moved into place, so concurrent runs, even in different processes, never see a partial
+ * directory.
+ *
+ * <p>In lazy mode (see {@link MinimizationOptions#withDecompileLazily(boolean)}), jars are not
+ * decompiled as a whole. Instead, each class is decompiled the first time that a run needs its
+ * source, into a directory of the cache that is shared by all runs (see {@link LazyDecompiledJar}).
+ */
+public class DecompilationCache {
+
+  /** The version of the decompiler, computed when it is first needed. */
+  private static volatile @Nullable String decompilerVersion = null;
+
+  /**
+   * The locks of the directories and files being looked up, so that two threads of one process do
+   * not decompile the same jar or class at the same time.
+   */
+  private static final Map<Path, Object> locks = new ConcurrentHashMap<>();
+
+  /**
+   * Private constructor to prevent instantiation.
+   *
+   * @throws UnsupportedOperationException if an attempt is made to instantiate this class.
+   */
+  private DecompilationCache() {
+    throw new UnsupportedOperationException("This class cannot be instantiated.");
+  }
+
+  /**
+   * Returns the directory of the cache used when a run does not choose one (see {@link
+   * MinimizationOptions#withDecompilationCacheDirectory(String)}): a directory of the user's
+   * temporary directory.
+   *
+   * @return the default directory of the cache
+   */
+  public static String getDefaultDirectory() {
+    return Path.of(
+            System.getProperty("java.io.tmpdir"),
+            "specimin-" + System.getProperty("user.name"),
+            "decompiled-jars")
+        .toString();
+  }
+
+  /**
+   * Returns the kind of the sources that the cache produces, which is part of the names of the
+   * directories of the cache, so that sources of different kinds or of different versions of their
+   * generators are never mixed up.
+   *
+   * @param decompileMethodBodies true if jars are decompiled by Vineflower rather than turned into
+   *     stubs
+   * @return "stubs-" or "vineflower-" followed by the version of the generator
+   * @throws IOException if the version of Vineflower cannot be determined
+   */
+  static String getSourceKind(boolean decompileMethodBodies) throws IOException {
+    return decompileMethodBodies
+        ? "vineflower-" + getDecompilerVersion()
+        : "stubs-" + BytecodeStubGenerator.VERSION;
+  }
+
+  /**
+   * Returns the directories that contain the decompiled sources of the given jars, decompiling the
+   * jars that are not in the cache yet.
+   *
+   * @param jarPaths the jar files
+   * @param options the options of the run, which choose the directory of the cache and the kind of
+   *     its sources
+   * @return the directories of their sources, in the same order, each ending with a separator
+   * @throws IOException if a jar cannot be read or the cache cannot be written
+   */
+  public static List<String> getSourceDirectories(
+      List<String> jarPaths, MinimizationOptions options) throws IOException {
+    List<String> result = new ArrayList<>();
+    for (String jarPath : jarPaths) {
+      result.add(getSourceDirectory(jarPath, options).toString() + File.separator);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the directory that contains the decompiled sources of a jar, decompiling the jar if it
+   * is not in the cache yet.
+   *
+   * @param jarPath the jar file
+   * @param options the options of the run
+   * @return the directory of its sources
+   * @throws IOException if the jar cannot be read or the cache cannot be written
+   */
+  private static Path getSourceDirectory(String jarPath, MinimizationOptions options)
+      throws IOException {
+    boolean decompileMethodBodies = options.isDecompilingMethodBodies();
+    Path cacheDirectory =
+        Path.of(options.getDecompilationCacheDirectory()).toAbsolutePath().normalize();
+    Path sourceDirectory =
+        cacheDirectory.resolve(
+            sha256(Path.of(jarPath)) + "-" + getSourceKind(decompileMethodBodies));
+    if (Files.isDirectory(sourceDirectory)) {
+      return sourceDirectory;
+    }
+    synchronized (getLock(sourceDirectory)) {
+      if (Files.isDirectory(sourceDirectory)) {
+        return sourceDirectory;
+      }
+      Files.createDirectories(cacheDirectory);
+      Path temporaryDirectory = Files.createTempDirectory(cacheDirectory, "decompiling-");
+      try {
+        if (decompileMethodBodies) {
+          ConsoleDecompiler.main(
+              new String[] {"--silent", jarPath, temporaryDirectory.toString() + File.separator});
+          // delete unnecessary legal files
+          FileUtils.deleteDirectory(temporaryDirectory.resolve("META-INF").toFile());
+        } else {
+          try (ZipFile zipFile = new ZipFile(jarPath)) {
+            for (Map.Entry<String, List<String>> group :
+                LazyDecompiledJar.groupClassFiles(zipFile).entrySet()) {
+              Path sourceFile = temporaryDirectory.resolve(group.getKey());
+              Path parent = sourceFile.getParent();
+              if (parent != null) {
+                Files.createDirectories(parent);
+              }
+              Files.writeString(
+                  sourceFile, BytecodeStubGenerator.generate(zipFile, group.getValue()));
+            }
+          }
+        }
+        try {
+          Files.move(temporaryDirectory, sourceDirectory, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+          // Another process may have decompiled the same jar in the meantime.
+          if (!Files.isDirectory(sourceDirectory)) {
+            throw e;
+          }
+        }
+      } finally {
+        if (Files.exists(temporaryDirectory)) {
+          FileUtils.deleteDirectory(temporaryDirectory.toFile());
+        }
+      }
+    }
+    return sourceDirectory;
+  }
+
+  /**
+   * Returns the lock of a directory or file of the cache, which must be held while it is being
+   * decompiled.
+   *
+   * @param path the absolute path of a directory or file of the cache
+   * @return its lock
+   */
+  static Object getLock(Path path) {
+    return locks.computeIfAbsent(path, key -> new Object());
+  }
+
+  /**
+   * Returns the version of Vineflower. It is normally read from the manifest of Vineflower's jar.
+   * If Vineflower has been repackaged, e.g., into a jar that contains all of Specimin's
+   * dependencies, the manifest is not available, and the version is derived from a hash of the jar
+   * that contains Vineflower instead, so a new build of that jar conservatively starts a new cache.
+   *
+   * @return the version of Vineflower, made of characters that can appear in file names
+   * @throws IOException if the jar that contains Vineflower cannot be read
+   */
+  static String getDecompilerVersion() throws IOException {
+    @Nullable String result = decompilerVersion;
+    if (result != null) {
+      return result;
+    }
+    Package decompilerPackage = ConsoleDecompiler.class.getPackage();
+    result = decompilerPackage == null ? null : decompilerPackage.getImplementationVersion();
+    if (result == null) {
+      CodeSource codeSource = ConsoleDecompiler.class.getProtectionDomain().getCodeSource();
+      @Nullable Path location = null;
+      try {
+        location = codeSource == null ? null : Path.of(codeSource.getLocation().toURI());
+      } catch (URISyntaxException | IllegalArgumentException e) {
+        // The location is not a file, so the version cannot be determined.
+      }
+      if (location == null || !Files.isRegularFile(location)) {
+        throw new IOException("cannot determine the version of Vineflower");
+      }
+      result = "build-" + sha256(location);
+    }
+    result = result.replaceAll("[^A-Za-z0-9._-]", "_");
+    decompilerVersion = result;
+    return result;
+  }
+
+  /**
+   * Computes the SHA-256 hash of a string, such as the path of a directory.
+   *
+   * @param text a string
+   * @return the hash of its UTF-8 encoding, as a hexadecimal string
+   */
+  static String sha256(String text) {
+    return HexFormat.of()
+        .formatHex(newSha256Digest().digest(text.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  /**
+   * Computes the SHA-256 hash of a file.
+   *
+   * @param file a file
+   * @return the hash, as a hexadecimal string
+   * @throws IOException if the file cannot be read
+   */
+  static String sha256(Path file) throws IOException {
+    MessageDigest digest = newSha256Digest();
+    byte[] buffer = new byte[65536];
+    try (InputStream in = Files.newInputStream(file)) {
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        digest.update(buffer, 0, read);
+      }
+    }
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  /**
+   * Creates a new SHA-256 message digest.
+   *
+   * @return the digest
+   */
+  private static MessageDigest newSha256Digest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException("SHA-256 is not supported by this JVM", e);
+    }
+  }
+}
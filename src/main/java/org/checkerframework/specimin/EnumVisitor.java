@@ -65,13 +65,13 @@ public class EnumVisitor extends SpeciminStateVisitor {
     // expression.
     if (expression.isFieldAccessExpr()) {
       try {
-        resolvedField = expression.asFieldAccessExpr().resolve();
+        resolvedField = resolutionCache.resolve(expression.asFieldAccessExpr());
       } catch (UnsolvedSymbolException | UnsupportedOperationException e) {
         return;
       }
     } else if (expression.isNameExpr()) {
       try {
-        resolvedField = expression.asNameExpr().resolve();
+        resolvedField = resolutionCache.resolve(expression.asNameExpr());
       } catch (UnsolvedSymbolException | UnsupportedOperationException e) {
         return;
       }
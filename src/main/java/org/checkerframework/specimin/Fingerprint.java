@@ -0,0 +1,114 @@
+package org.checkerframework.specimin;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A 128-bit fingerprint of a set of strings, which stands in for the set when all that matters is
+ * whether two sets are equal. The fingerprint of a set is the exclusive or of the fingerprints of
+ * its elements, so it can be kept up to date as elements are added to or removed from the set,
+ * without the set being copied or traversed: {@link #with(String, String)} both adds and removes an
+ * element. Each element is hashed together with a kind, such as "member", so that the fingerprints
+ * of different sets can be combined, again by exclusive or, into the fingerprint of their disjoint
+ * union.
+ *
+ * <p>Two different sets have the same fingerprint only with negligible probability, since the
+ * elements are hashed with MD5. MD5 is not safe against collisions that are made on purpose, but
+ * the strings hashed here are class names and generated source code, not adversarial input.
+ */
+public final class Fingerprint {
+
+  /** The fingerprint of the empty set. */
+  public static final Fingerprint EMPTY = new Fingerprint(0, 0);
+
+  /** The high 64 bits of the fingerprint. */
+  private final long high;
+
+  /** The low 64 bits of the fingerprint. */
+  private final long low;
+
+  /**
+   * Creates a new fingerprint.
+   *
+   * @param high the high 64 bits
+   * @param low the low 64 bits
+   */
+  private Fingerprint(long high, long low) {
+    this.high = high;
+    this.low = low;
+  }
+
+  /**
+   * Returns the fingerprint of this set with an element added, if the set does not contain it, or
+   * removed, if it does. The caller must know which: adding an element that is already in the set
+   * removes it from the fingerprint.
+   *
+   * @param kind the kind of the element, which keeps apart equal strings from different sets
+   * @param element the element
+   * @return the updated fingerprint
+   */
+  public Fingerprint with(String kind, String element) {
+    byte[] hash = md5(kind + '\0' + element);
+    return new Fingerprint(high ^ toLong(hash, 0), low ^ toLong(hash, 8));
+  }
+
+  /**
+   * Returns the fingerprint of the union of this set and another, disjoint set.
+   *
+   * @param other the fingerprint of the other set
+   * @return the fingerprint of the union
+   */
+  public Fingerprint with(Fingerprint other) {
+    return new Fingerprint(high ^ other.high, low ^ other.low);
+  }
+
+  /**
+   * Computes the MD5 hash of a string.
+   *
+   * @param string a string
+   * @return the 16 bytes of the hash of its UTF-8 encoding
+   */
+  private static byte[] md5(String string) {
+    try {
+      return MessageDigest.getInstance("MD5").digest(string.getBytes(StandardCharsets.UTF_8));
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException("MD5 is not supported by this JVM", e);
+    }
+  }
+
+  /**
+   * Reads 8 bytes of an array as a big-endian long.
+   *
+   * @param bytes the array
+   * @param offset the index of the first byte to read
+   * @return the long
+   */
+  private static long toLong(byte[] bytes, int offset) {
+    long result = 0;
+    for (int i = offset; i < offset + 8; i++) {
+      result = (result << 8) | (bytes[i] & 0xFF);
+    }
+    return result;
+  }
+
+  @Override
+  public boolean equals(@Nullable Object obj) {
+    if (!(obj instanceof Fingerprint)) {
+      return false;
+    }
+    Fingerprint other = (Fingerprint) obj;
+    return high == other.high && low == other.low;
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(high) * 31 + Long.hashCode(low);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%016x%016x", high, low);
+  }
+}
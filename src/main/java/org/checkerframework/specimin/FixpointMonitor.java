@@ -0,0 +1,149 @@
+package org.checkerframework.specimin;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Decides when the fixpoint loop of {@link UnsolvedSymbolVisitor} should stop without having
+ * reached its fixpoint, for targets on which it would otherwise run for a very long time or
+ * forever. It keeps the history of the states reached after each iteration, as fingerprints (see
+ * {@link UnsolvedSymbolVisitor#getProgressFingerprint()}), and detects when the loop is cycling
+ * through the same states. It also enforces a budget on the number of iterations and on the time
+ * that a run may take, which each run chooses (see {@link
+ * MinimizationOptions#withMaxIterations(Integer)} and {@link
+ * MinimizationOptions#withTimeBudget(Duration)}).
+ *
+ * <p>A state that has been reached before is not in itself a cycle: the loop sometimes needs one
+ * more iteration with the same outputs to solve some symbol. The loop is cycling in two cases. The
+ * first is when the states of the latest iterations are periodic, repeating a whole period at least
+ * twice and covering at least three iterations. So a loop that gets stuck on one state stops on its
+ * third occurrence, and a loop that oscillates between two states stops on the fourth iteration of
+ * the oscillation. The second is the rule that Specimin has always used: a state that was reached
+ * again is reached once more, with no new state in between, even if the states in between do not
+ * form a period. So a, b, a, a and a, b, c, a, b, a are cycles, but a, b, a, c, a is not, since c
+ * is new. The periodic rule alone would stop such loops later, or not at all.
+ */
+public class FixpointMonitor {
+
+  /** The maximum number of iterations of this run, or null if there is no limit. */
+  private final @Nullable Integer maxIterations;
+
+  /** The time budget of this run, or null if there is no limit. */
+  private final @Nullable Duration timeBudget;
+
+  /**
+   * The value of {@link System#nanoTime()} at which this run must stop its fixpoint loop, or null
+   * if there is no limit.
+   */
+  private final @Nullable Long deadlineNanos;
+
+  /** The state reached after each iteration so far, in order. */
+  private final List<Fingerprint> history = new ArrayList<>();
+
+  /** The index in {@link #history} of the latest occurrence of each state. */
+  private final Map<Fingerprint, Integer> latestOccurrence = new HashMap<>();
+
+  /**
+   * A state that was reached again, if no new state has been reached since, or null. Reaching it
+   * once more closes a cycle.
+   */
+  private @Nullable Fingerprint repeatedState = null;
+
+  /** True iff the state recorded last closed a cycle. */
+  private boolean cycling = false;
+
+  /** Creates a monitor for a run that begins now and has no budgets. */
+  public FixpointMonitor() {
+    this(null, null);
+  }
+
+  /**
+   * Creates a monitor for a run that begins now. The time budget is counted from now, so it
+   * includes the setup before the loop, but the loop is only stopped between two iterations.
+   *
+   * @param maxIterations the maximum number of iterations of the fixpoint loop, or null for no
+   *     limit
+   * @param timeBudget the maximum time that the run may spend before its fixpoint loop stops, and,
+   *     with partial output, before the run stops altogether (see {@link PartialOutput}), or null
+   *     for no limit
+   */
+  public FixpointMonitor(@Nullable Integer maxIterations, @Nullable Duration timeBudget) {
+    this.maxIterations = maxIterations;
+    this.timeBudget = timeBudget;
+    deadlineNanos = timeBudget == null ? null : System.nanoTime() + timeBudget.toNanos();
+  }
+
+  /**
+   * Records the state reached after an iteration of the fixpoint loop.
+   *
+   * @param state the fingerprint of the state
+   * @return true iff the state has been reached before
+   */
+  public boolean record(Fingerprint state) {
+    int index = history.size();
+    history.add(state);
+    @Nullable Integer previous = latestOccurrence.put(state, index);
+    if (previous == null) {
+      repeatedState = null;
+      cycling = false;
+      return false;
+    }
+    boolean reachedAgain = state.equals(repeatedState);
+    if (repeatedState == null) {
+      repeatedState = state;
+    }
+    int period = index - previous;
+    int length = Math.max(2 * period, 3);
+    cycling = index + 1 >= length;
+    for (int i = index; cycling && i > index - length + period; i--) {
+      if (!history.get(i).equals(history.get(i - period))) {
+        cycling = false;
+      }
+    }
+    cycling = cycling || reachedAgain;
+    return true;
+  }
+
+  /**
+   * Did the state recorded last close a cycle, so that the loop would go on reaching the same
+   * states forever?
+   *
+   * @return true iff the latest states are periodic, as described in the documentation of this
+   *     class
+   */
+  public boolean isCycling() {
+    return cycling;
+  }
+
+  /**
+   * Has this run gone past its time budget?
+   *
+   * @return true iff the run has a time budget and has used it up
+   */
+  public boolean isPastDeadline() {
+    return deadlineNanos != null && System.nanoTime() - deadlineNanos >= 0;
+  }
+
+  /**
+   * Has this run used up one of its budgets? The loop should then stop before its next iteration.
+   *
+   * @return a description of the budget that is used up, for a diagnostic, or null if neither is
+   */
+  public @Nullable String getExhaustedBudget() {
+    if (maxIterations != null && history.size() >= maxIterations) {
+      return "the maximum of " + maxIterations + " iterations";
+    }
+    if (timeBudget != null && isPastDeadline()) {
+      return "the time budget of "
+          + timeBudget.toSeconds()
+          + " seconds, after "
+          + history.size()
+          + " iterations";
+    }
+    return null;
+  }
+}
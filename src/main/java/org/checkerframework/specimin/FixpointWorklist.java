@@ -0,0 +1,137 @@
+package org.checkerframework.specimin;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Decides which target files {@link UnsolvedSymbolVisitor} must visit in each iteration of its
+ * fixpoint loop. Visiting a file whose types have not changed since its last visit would only do
+ * the same work again, so an iteration visits just the files that could be affected by the
+ * synthetic classes that were added or changed since.
+ *
+ * <p>The dependencies of a file are the names of the types that were looked up while it was
+ * visited, as recorded by {@link GenerationalTypeSolver#startRecordingLookups()}, and so include
+ * the types needed to resolve anything in the file, transitively, whether or not they were solved.
+ * A file is visited again if any synthetic file that could declare one of those types was added,
+ * changed, or removed; if the file itself is a synthetic file that changed; if its last visit found
+ * something still unsolved; or if other files have since added to the members that may be used,
+ * which decide which of its methods are visited at all. The granularity is the file rather than the
+ * node: the files are parsed again in every iteration, and the visitor keeps state, such as the
+ * current class and the local variables in scope, that it builds up while it walks each file.
+ */
+class FixpointWorklist {
+
+  /** The synthetic classes of the run. */
+  private final SyntheticSourceOverlay syntheticSourceOverlay;
+
+  /** The type solver of the run, which records the lookups of each visit. */
+  private final GenerationalTypeSolver typeSolver;
+
+  /** The last visit of each file that has been visited, keyed by the path of the file. */
+  private final Map<String, Visit> lastVisits = new HashMap<>();
+
+  /** The contents of the overlay when the current iteration began. */
+  private Map<String, String> overlaySnapshot;
+
+  /** The synthetic files that changed between the beginning of the previous iteration and this. */
+  private Set<String> changedPaths = new HashSet<>();
+
+  /** What is known about a visit of a file. */
+  private static final class Visit {
+    /** The synthetic files that could declare a type that was looked up during the visit. */
+    private final Set<String> dependencies;
+
+    /** True iff the visit found something that it could not solve yet. */
+    private final boolean foundUnsolved;
+
+    /** The number of members that might be used when the visit began. */
+    private final int potentialUsedMemberCount;
+
+    /**
+     * Creates a new visit.
+     *
+     * @param dependencies the synthetic files that could declare a type that was looked up
+     * @param foundUnsolved true iff the visit found something that it could not solve yet
+     * @param potentialUsedMemberCount the number of members that might be used when the visit began
+     */
+    private Visit(Set<String> dependencies, boolean foundUnsolved, int potentialUsedMemberCount) {
+      this.dependencies = dependencies;
+      this.foundUnsolved = foundUnsolved;
+      this.potentialUsedMemberCount = potentialUsedMemberCount;
+    }
+  }
+
+  /**
+   * Creates a new worklist, with which every file is visited in the first iteration.
+   *
+   * @param syntheticSourceOverlay the synthetic classes of the run
+   * @param typeSolver the type solver of the run
+   */
+  FixpointWorklist(
+      SyntheticSourceOverlay syntheticSourceOverlay, GenerationalTypeSolver typeSolver) {
+    this.syntheticSourceOverlay = syntheticSourceOverlay;
+    this.typeSolver = typeSolver;
+    this.overlaySnapshot = new HashMap<>(syntheticSourceOverlay.getSources());
+  }
+
+  /** Begins an iteration of the fixpoint loop. Call this before deciding which files to visit. */
+  void startIteration() {
+    changedPaths = syntheticSourceOverlay.getChangedPaths(overlaySnapshot);
+    overlaySnapshot = new HashMap<>(syntheticSourceOverlay.getSources());
+  }
+
+  /**
+   * Forgets every visit, so that every file is visited in the next iteration. Call this when
+   * something other than the synthetic classes has changed what a visit would find, such as the
+   * types corrected by javac, which only reach the synthetic classes after the next iteration.
+   */
+  void visitEverythingNextIteration() {
+    lastVisits.clear();
+  }
+
+  /**
+   * Does a file need to be visited in the current iteration?
+   *
+   * @param filePath the path of the file
+   * @param potentialUsedMemberCount the number of members that might be used now
+   * @return true iff visiting the file could find something new
+   */
+  boolean needsVisit(String filePath, int potentialUsedMemberCount) {
+    @Nullable Visit lastVisit = lastVisits.get(filePath);
+    if (lastVisit == null
+        || lastVisit.foundUnsolved
+        || lastVisit.potentialUsedMemberCount != potentialUsedMemberCount
+        || changedPaths.contains(filePath)) {
+      return true;
+    }
+    for (String dependency : lastVisit.dependencies) {
+      if (changedPaths.contains(dependency)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Begins a visit of a file, recording the types that it looks up. */
+  void startVisit() {
+    typeSolver.startRecordingLookups();
+  }
+
+  /**
+   * Ends a visit of a file.
+   *
+   * @param filePath the path of the file
+   * @param foundUnsolved true iff the visit found something that it could not solve yet
+   * @param potentialUsedMemberCount the number of members that might be used when the visit began
+   */
+  void finishVisit(String filePath, boolean foundUnsolved, int potentialUsedMemberCount) {
+    Set<String> dependencies = new HashSet<>();
+    for (String name : typeSolver.stopRecordingLookups()) {
+      dependencies.addAll(SyntheticSourceTypeSolver.candidateFilePaths(name));
+    }
+    lastVisits.put(filePath, new Visit(dependencies, foundUnsolved, potentialUsedMemberCount));
+  }
+}
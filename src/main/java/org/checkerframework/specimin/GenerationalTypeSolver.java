@@ -0,0 +1,272 @@
+package org.checkerframework.specimin;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.DataKey;
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.symbolsolver.cache.InMemoryCache;
+import com.github.javaparser.symbolsolver.javaparsermodel.JavaParserFacade;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The type solver of one run of Specimin, which lives for the whole run. It combines, in order of
+ * precedence, the JDK, the synthetic classes, the root directory, the decompiled sources of the jar
+ * files, and the jar files and class directories themselves, like a CombinedTypeSolver.
+ *
+ * <p>The synthetic classes change while UnsolvedSymbolVisitor works towards a fixpoint, but
+ * everything else stays the same. Rather than building a new solver after each change, which throws
+ * away every parsed file and re-indexes every jar, this solver is told when a new generation of the
+ * synthetic classes begins (see {@link #startNewGeneration()}). It then forgets only the types that
+ * could be declared in a synthetic file that was added, changed, or removed since the previous
+ * generation. All other cached types, parsed root files, and jar indexes are kept.
+ *
+ * <p>JavaParser also caches the type of each expression that it resolves on the expression's node,
+ * and such a type may come from a synthetic class that has since changed. So when a new generation
+ * begins, those cached types are forgotten on every file that this solver has parsed and kept.
+ */
+public class GenerationalTypeSolver implements TypeSolver {
+
+  /** The synthetic classes of the run. */
+  private final SyntheticSourceOverlay syntheticSourceOverlay;
+
+  /** The solver for the synthetic classes. */
+  private final SyntheticSourceTypeSolver syntheticSourceTypeSolver;
+
+  /** The solvers for the decompiled sources of the jar files. */
+  private final List<LazyDecompiledJarTypeSolver> lazyDecompiledJarTypeSolvers = new ArrayList<>();
+
+  /** The parsed files of the solvers for the complete directories of the source roots. */
+  private final List<ParsedFilesCache> rootParsedFiles = new ArrayList<>();
+
+  /** The solvers to consult, in order of precedence. */
+  private final List<TypeSolver> elements = new ArrayList<>();
+
+  /**
+   * The keys under which JavaParserFacade caches the type of an expression on the expression's
+   * node. JavaParser keeps them private, so they are read reflectively.
+   */
+  private static final List<DataKey<?>> RESOLVED_TYPE_KEYS =
+      getJavaParserFacadeKeys("TYPE_WITH_LAMBDAS_RESOLVED", "TYPE_WITHOUT_LAMBDAS_RESOLVED");
+
+  /** The results of previous lookups, keyed by the name that was looked up. */
+  private final Map<String, SymbolReference<ResolvedReferenceTypeDeclaration>> typeCache =
+      new HashMap<>();
+
+  /** The contents of the overlay when the current generation began. */
+  private Map<String, String> overlaySnapshot;
+
+  /**
+   * The names that have been looked up since {@link #startRecordingLookups()} was called, or null
+   * if lookups are not being recorded.
+   */
+  private @Nullable Set<String> recordedLookups;
+
+  /** The parent of this solver. Always null in practice, since this solver is the root. */
+  private @Nullable TypeSolver parent;
+
+  /**
+   * Creates a new solver.
+   *
+   * @param sourceRoots the source roots of the run
+   * @param jarPaths the jar files and directories of class files used by the run
+   * @param syntheticSourceOverlay the synthetic classes of the run
+   * @param parserConfiguration the configuration of the run's parser, which every file that this
+   *     solver reads is parsed with
+   * @param release the release of the JDK classes, or null for the release of the JDK that runs
+   *     Specimin
+   * @param classPoolCache the class pools of the JDK and the jar files kept between minimizations,
+   *     or null to read them afresh
+   * @throws IOException if a jar file cannot be read
+   */
+  public GenerationalTypeSolver(
+      SourceRoots sourceRoots,
+      List<String> jarPaths,
+      SyntheticSourceOverlay syntheticSourceOverlay,
+      ParserConfiguration parserConfiguration,
+      @Nullable Integer release,
+      @Nullable ClassPoolCache classPoolCache)
+      throws IOException {
+    this.syntheticSourceOverlay = syntheticSourceOverlay;
+    this.syntheticSourceTypeSolver =
+        new SyntheticSourceTypeSolver(syntheticSourceOverlay, parserConfiguration);
+    this.overlaySnapshot = new HashMap<>(syntheticSourceOverlay.getSources());
+    // The synthetic classes come before the root, because they hide any file with the same path in
+    // the root.
+    elements.add(new JdkTypeSolver(release, classPoolCache));
+    elements.add(syntheticSourceTypeSolver);
+    for (String directory : sourceRoots.getCompleteDirectories()) {
+      ParsedFilesCache parsedFiles = new ParsedFilesCache();
+      rootParsedFiles.add(parsedFiles);
+      elements.add(
+          new JavaParserTypeSolver(
+              Path.of(directory),
+              new JavaParser(parserConfiguration),
+              parsedFiles,
+              InMemoryCache.create(),
+              InMemoryCache.create()));
+    }
+    for (LazyDecompiledJar jar : sourceRoots.getLazyDecompiledJars()) {
+      LazyDecompiledJarTypeSolver jarTypeSolver =
+          new LazyDecompiledJarTypeSolver(jar, parserConfiguration);
+      lazyDecompiledJarTypeSolvers.add(jarTypeSolver);
+      elements.add(jarTypeSolver);
+    }
+    for (String path : jarPaths) {
+      elements.add(ClassDirectoryTypeSolver.create(path, classPoolCache));
+    }
+    for (TypeSolver element : elements) {
+      element.setParent(this);
+    }
+  }
+
+  /**
+   * Begins a new generation of the synthetic classes. Call this after the overlay has been updated,
+   * so that later lookups see the new synthetic classes.
+   *
+   * @return true iff any synthetic file was added, changed, or removed since the previous
+   *     generation
+   */
+  public boolean startNewGeneration() {
+    Set<String> changedPaths = syntheticSourceOverlay.getChangedPaths(overlaySnapshot);
+    if (changedPaths.isEmpty()) {
+      return false;
+    }
+    overlaySnapshot = new HashMap<>(syntheticSourceOverlay.getSources());
+    syntheticSourceTypeSolver.invalidate(changedPaths);
+    // A lookup depends only on the files that could declare the name, so a cached result, whether
+    // solved or unsolved, is still valid unless one of those files changed.
+    typeCache
+        .keySet()
+        .removeIf(
+            name -> {
+              for (String path : SyntheticSourceTypeSolver.candidateFilePaths(name)) {
+                if (changedPaths.contains(path)) {
+                  return true;
+                }
+              }
+              return false;
+            });
+    forgetResolvedTypes();
+    return true;
+  }
+
+  /**
+   * Forgets the types that JavaParser cached on the nodes of the files that this solver has parsed
+   * and kept: the synthetic files that did not change, the root files, and the decompiled files.
+   * Any of them may refer to a synthetic class that changed. The instance of JavaParserFacade for
+   * this solver keeps no resolved types of its own, only these node caches, so it need not be
+   * replaced; JavaParserFacade.clearInstances() would also drop the facades of the other runs in
+   * the JVM, without synchronization.
+   */
+  private void forgetResolvedTypes() {
+    List<CompilationUnit> parsedFiles = new ArrayList<>(syntheticSourceTypeSolver.getParsedFiles());
+    for (ParsedFilesCache cache : rootParsedFiles) {
+      parsedFiles.addAll(cache.getParsedFiles());
+    }
+    for (LazyDecompiledJarTypeSolver jarTypeSolver : lazyDecompiledJarTypeSolvers) {
+      parsedFiles.addAll(jarTypeSolver.getParsedFiles());
+    }
+    for (CompilationUnit parsedFile : parsedFiles) {
+      parsedFile.walk(
+          node -> {
+            for (DataKey<?> key : RESOLVED_TYPE_KEYS) {
+              node.removeData(key);
+            }
+          });
+    }
+  }
+
+  /**
+   * Reads private static DataKey fields of JavaParserFacade.
+   *
+   * @param fieldNames the names of the fields
+   * @return the values of the fields
+   */
+  private static List<DataKey<?>> getJavaParserFacadeKeys(String... fieldNames) {
+    List<DataKey<?>> result = new ArrayList<>(fieldNames.length);
+    for (String fieldName : fieldNames) {
+      try {
+        Field field = JavaParserFacade.class.getDeclaredField(fieldName);
+        field.setAccessible(true);
+        result.add((DataKey<?>) field.get(null));
+      } catch (ReflectiveOperationException e) {
+        throw new RuntimeException("JavaParserFacade has no accessible field " + fieldName, e);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Starts recording the names that are looked up, whether or not they are solved and whether or
+   * not the result was cached. Every type that JavaParser resolves is looked up through this
+   * solver, since it is the root, so the names are every type that the resolutions in between
+   * depended on.
+   */
+  public void startRecordingLookups() {
+    recordedLookups = new HashSet<>();
+  }
+
+  /**
+   * Stops recording the names that are looked up.
+   *
+   * @return the names that were looked up since {@link #startRecordingLookups()} was called, or an
+   *     empty set if it was not called
+   */
+  public Set<String> stopRecordingLookups() {
+    @Nullable Set<String> result = recordedLookups;
+    recordedLookups = null;
+    return result == null ? new HashSet<>() : result;
+  }
+
+  @Override
+  @SuppressWarnings("nullness") // the TypeSolver interface allows a null parent
+  public TypeSolver getParent() {
+    return parent;
+  }
+
+  @Override
+  public void setParent(TypeSolver parent) {
+    if (this.parent != null) {
+      throw new IllegalStateException("This TypeSolver already has a parent.");
+    }
+    if (parent == this) {
+      throw new IllegalStateException("The parent of this TypeSolver cannot be itself.");
+    }
+    this.parent = parent;
+  }
+
+  @Override
+  public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+    @Nullable Set<String> lookups = recordedLookups;
+    if (lookups != null) {
+      lookups.add(name);
+    }
+    SymbolReference<ResolvedReferenceTypeDeclaration> cached = typeCache.get(name);
+    if (cached != null) {
+      return cached;
+    }
+    SymbolReference<ResolvedReferenceTypeDeclaration> result = SymbolReference.unsolved();
+    for (TypeSolver element : elements) {
+      SymbolReference<ResolvedReferenceTypeDeclaration> candidate = element.tryToSolveType(name);
+      if (candidate.isSolved()) {
+        result = candidate;
+        break;
+      }
+    }
+    typeCache.put(name, result);
+    return result;
+  }
+}
@@ -0,0 +1,310 @@
+package org.checkerframework.specimin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The file manager used by {@link JavaTypeCorrect} to run javac in the same process as Specimin.
+ * Its source path is the root directory, followed by the directories of decompiled jar sources,
+ * with the synthetic classes of a {@link SyntheticSourceOverlay} layered on top, so a synthetic
+ * file hides a file with the same path in the root. Its class path contains only the jars and class
+ * directories whose classes are decompiled lazily, so that javac reads their class files instead.
+ * Every class file that javac produces is discarded, because only javac's diagnostics are of
+ * interest, so nothing is ever written to disk.
+ *
+ * <p>One file manager serves many compilations (see {@link JavacSession}). Each compilation sees
+ * the synthetic classes as they were when it began (see {@link #beginCompilation()}), and the file
+ * manager records which of them javac looked at, so that a later change to the overlay can be
+ * checked against the previous compilation (see {@link #dependsOnAny(Set)}).
+ */
+class InMemoryJavaFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+  /** The synthetic classes of the run. */
+  private final SyntheticSourceOverlay syntheticSourceOverlay;
+
+  /** The synthetic classes of the current compilation, keyed by their binary names. */
+  private final Map<String, SyntheticSource> syntheticSources = new HashMap<>();
+
+  /** The synthetic files that javac read during the current compilation. */
+  private final Set<String> readPaths = new HashSet<>();
+
+  /** The packages of the source path that javac listed during the current compilation. */
+  private final Set<String> listedPackages = new HashSet<>();
+
+  /** The binary names that javac looked up in the source path during the current compilation. */
+  private final Set<String> lookedUpClassNames = new HashSet<>();
+
+  /** True iff javac listed a package of the source path together with all its subpackages. */
+  private boolean listedRecursively = false;
+
+  /**
+   * Creates a new file manager.
+   *
+   * @param fileManager the standard file manager of the compiler, which serves the source roots
+   * @param sourcePath the root directory, followed by the other directories of the source path
+   * @param classPath the jar files and class directories of the class path
+   * @param syntheticSourceOverlay the synthetic classes of the run
+   * @throws IOException if the locations of the standard file manager cannot be set
+   */
+  InMemoryJavaFileManager(
+      StandardJavaFileManager fileManager,
+      List<String> sourcePath,
+      List<String> classPath,
+      SyntheticSourceOverlay syntheticSourceOverlay)
+      throws IOException {
+    super(fileManager);
+    fileManager.setLocation(StandardLocation.SOURCE_PATH, toFiles(sourcePath));
+    fileManager.setLocation(StandardLocation.CLASS_PATH, toFiles(classPath));
+    this.syntheticSourceOverlay = syntheticSourceOverlay;
+  }
+
+  /**
+   * Converts paths to files.
+   *
+   * @param paths paths of files or directories
+   * @return the files
+   */
+  private static List<File> toFiles(List<String> paths) {
+    List<File> result = new ArrayList<>();
+    for (String path : paths) {
+      result.add(new File(path));
+    }
+    return result;
+  }
+
+  /**
+   * Prepares this file manager for a new compilation: javac will see the synthetic classes as they
+   * are now, and the record of what javac looked at is cleared.
+   */
+  void beginCompilation() {
+    syntheticSources.clear();
+    for (Map.Entry<String, String> entry : syntheticSourceOverlay.getSources().entrySet()) {
+      SyntheticSource source = new SyntheticSource(entry.getKey(), entry.getValue());
+      syntheticSources.put(source.binaryName, source);
+    }
+    readPaths.clear();
+    listedPackages.clear();
+    lookedUpClassNames.clear();
+    listedRecursively = false;
+  }
+
+  /**
+   * Checks whether the outcome of the current compilation could depend on any of the given
+   * synthetic files. That is the case if javac read the file, or if javac would have found the file
+   * had it existed, because it listed the package of the file or looked up the class by name.
+   *
+   * @param paths paths of synthetic files relative to the root, such as "com/example/Foo.java"
+   * @return true iff javac looked at any of the files or at the places where they would be
+   */
+  boolean dependsOnAny(Set<String> paths) {
+    for (String path : paths) {
+      String binaryName = getBinaryName(path);
+      if (readPaths.contains(path)
+          || listedRecursively
+          || listedPackages.contains(getPackageName(binaryName))
+          || lookedUpClassNames.contains(binaryName)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the file objects of the given files under the root.
+   *
+   * @param files the files to compile
+   * @return their file objects
+   */
+  Iterable<? extends JavaFileObject> getJavaFileObjects(File... files) {
+    return fileManager.getJavaFileObjects(files);
+  }
+
+  @Override
+  public Iterable<JavaFileObject> list(
+      Location location, String packageName, Set<JavaFileObject.Kind> kinds, boolean recurse)
+      throws IOException {
+    Iterable<JavaFileObject> standard = super.list(location, packageName, kinds, recurse);
+    if (location != StandardLocation.SOURCE_PATH || !kinds.contains(JavaFileObject.Kind.SOURCE)) {
+      return standard;
+    }
+    listedPackages.add(packageName);
+    listedRecursively |= recurse;
+    List<JavaFileObject> result = new ArrayList<>();
+    for (SyntheticSource source : syntheticSources.values()) {
+      if (source.packageName.equals(packageName)
+          || (recurse
+              && (packageName.isEmpty() || source.packageName.startsWith(packageName + ".")))) {
+        result.add(source);
+      }
+    }
+    for (JavaFileObject file : standard) {
+      if (file.getKind() == JavaFileObject.Kind.SOURCE
+          && syntheticSources.containsKey(super.inferBinaryName(location, file))) {
+        // hidden by a synthetic class
+        continue;
+      }
+      result.add(file);
+    }
+    return result;
+  }
+
+  @Override
+  public @Nullable String inferBinaryName(Location location, JavaFileObject file) {
+    if (file instanceof SyntheticSource) {
+      return ((SyntheticSource) file).binaryName;
+    }
+    return super.inferBinaryName(location, file);
+  }
+
+  @Override
+  public boolean isSameFile(FileObject a, FileObject b) {
+    if (a instanceof SyntheticSource || b instanceof SyntheticSource) {
+      return a == b;
+    }
+    return super.isSameFile(a, b);
+  }
+
+  @Override
+  public boolean contains(Location location, FileObject file) throws IOException {
+    if (file instanceof SyntheticSource) {
+      return location == StandardLocation.SOURCE_PATH;
+    }
+    return super.contains(location, file);
+  }
+
+  @Override
+  public @Nullable JavaFileObject getJavaFileForInput(
+      Location location, String className, JavaFileObject.Kind kind) throws IOException {
+    if (location == StandardLocation.SOURCE_PATH && kind == JavaFileObject.Kind.SOURCE) {
+      lookedUpClassNames.add(className);
+      SyntheticSource source = syntheticSources.get(className);
+      if (source != null) {
+        return source;
+      }
+    }
+    return super.getJavaFileForInput(location, className, kind);
+  }
+
+  @Override
+  public JavaFileObject getJavaFileForOutput(
+      Location location, String className, JavaFileObject.Kind kind, @Nullable FileObject sibling) {
+    return new DiscardedOutput(className.replace('.', '/') + kind.extension, kind);
+  }
+
+  @Override
+  public FileObject getFileForOutput(
+      Location location, String packageName, String relativeName, @Nullable FileObject sibling) {
+    return new DiscardedOutput(
+        packageName.replace('.', '/') + "/" + relativeName, JavaFileObject.Kind.OTHER);
+  }
+
+  /**
+   * Creates the URI of an in-memory file. Characters that are not allowed in URIs are escaped,
+   * since synthetic classes may have names such as "Foo[]" that javac will ignore.
+   *
+   * @param scheme the scheme of the URI
+   * @param relativePath the path of the file relative to the root
+   * @return the URI
+   */
+  private static URI createUri(String scheme, String relativePath) {
+    try {
+      return new URI(scheme, null, "/" + relativePath, null);
+    } catch (URISyntaxException e) {
+      throw new RuntimeException("invalid file path: " + relativePath, e);
+    }
+  }
+
+  /**
+   * Returns the binary name of the class declared in a synthetic file.
+   *
+   * @param relativePath the path of the file relative to the root, such as "com/example/Foo.java"
+   * @return the binary name of the class, such as "com.example.Foo"
+   */
+  private static String getBinaryName(String relativePath) {
+    return relativePath
+        .substring(0, relativePath.length() - JavaFileObject.Kind.SOURCE.extension.length())
+        .replace('/', '.');
+  }
+
+  /**
+   * Returns the name of the package of a class.
+   *
+   * @param binaryName the binary name of the class, such as "com.example.Foo"
+   * @return the name of its package, such as "com.example"
+   */
+  private static String getPackageName(String binaryName) {
+    int lastDot = binaryName.lastIndexOf('.');
+    return lastDot == -1 ? "" : binaryName.substring(0, lastDot);
+  }
+
+  /** The source code of a synthetic class, as seen by javac. */
+  private final class SyntheticSource extends SimpleJavaFileObject {
+
+    /** The path of the file relative to the root, such as "com/example/Foo.java". */
+    private final String relativePath;
+
+    /** The binary name of the class, such as "com.example.Foo". */
+    private final String binaryName;
+
+    /** The name of the package of the class, such as "com.example". */
+    private final String packageName;
+
+    /** The content of the file. */
+    private final String source;
+
+    /**
+     * Creates a new synthetic source file.
+     *
+     * @param relativePath the path of the file relative to the root, such as "com/example/Foo.java"
+     * @param source the content of the file
+     */
+    SyntheticSource(String relativePath, String source) {
+      super(createUri("specimin", relativePath), JavaFileObject.Kind.SOURCE);
+      this.relativePath = relativePath;
+      this.binaryName = getBinaryName(relativePath);
+      this.packageName = getPackageName(binaryName);
+      this.source = source;
+    }
+
+    @Override
+    public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+      readPaths.add(relativePath);
+      return source;
+    }
+  }
+
+  /** An output file of javac whose content is thrown away. */
+  private static final class DiscardedOutput extends SimpleJavaFileObject {
+
+    /**
+     * Creates a new discarded output file.
+     *
+     * @param relativePath the path that the file would have had in the output directory
+     * @param kind the kind of the file
+     */
+    DiscardedOutput(String relativePath, JavaFileObject.Kind kind) {
+      super(createUri("specimin-discarded", relativePath), kind);
+    }
+
+    @Override
+    public OutputStream openOutputStream() {
+      return OutputStream.nullOutputStream();
+    }
+  }
+}
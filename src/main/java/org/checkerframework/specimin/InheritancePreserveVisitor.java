@@ -23,13 +23,30 @@ public class InheritancePreserveVisitor extends ModifierVisitor<Void> {
   /** List of fully-qualified classnames to be added to the list of used classes. */
   public Set<String> addedClasses = new HashSet<>();
 
+  /**
+   * The type parameter bounds that have already been visited, to avoid an infinite loop. This set
+   * is shared by all the InheritancePreserveVisitors of a single run of Specimin.
+   */
+  private final Set<String> visitedBounds;
+
+  /**
+   * The results of resolving the nodes of this run, shared with the other visitors that run after
+   * the fixpoint loop. Every round of this visitor visits all the files again.
+   */
+  private final ResolutionCache resolutionCache;
+
   /**
    * Constructs an InheritancePreserveVisitor with the specified set of used classes.
    *
    * @param usedClass The set of classes used by the target methods.
+   * @param visitedBounds The type parameter bounds already visited during this run of Specimin.
+   * @param resolutionCache The results of resolving the nodes of this run of Specimin.
    */
-  public InheritancePreserveVisitor(Set<String> usedClass) {
+  public InheritancePreserveVisitor(
+      Set<String> usedClass, Set<String> visitedBounds, ResolutionCache resolutionCache) {
     this.usedClass = usedClass;
+    this.visitedBounds = visitedBounds;
+    this.resolutionCache = resolutionCache;
   }
 
   /**
@@ -57,17 +74,14 @@ public class InheritancePreserveVisitor extends ModifierVisitor<Void> {
     addedClasses = new HashSet<>();
   }
 
-  /** Cheap and dirty trick to avoid an infinite loop TODO: clean this up after the deadline */
-  private static HashSet<String> visitedBounds = new HashSet();
-
   @Override
   public Visitable visit(ClassOrInterfaceDeclaration decl, Void p) {
-    if (usedClass.contains(decl.resolve().getQualifiedName())) {
+    if (usedClass.contains(resolutionCache.resolve(decl).getQualifiedName())) {
       if (decl.getTypeParameters().size() > 0) {
         // preserve the bounds of the type parameters, too
         for (TypeParameter tp : decl.getTypeParameters()) {
           for (Type bound : tp.getTypeBound()) {
-            String boundDesc = bound.resolve().describe();
+            String boundDesc = resolutionCache.resolve(bound).describe();
             if (visitedBounds.add(boundDesc)) {
               TargetMemberFinderVisitor.updateUsedClassWithQualifiedClassName(
                   boundDesc, addedClasses, new HashMap<>());
@@ -83,11 +97,11 @@ public class InheritancePreserveVisitor extends ModifierVisitor<Void> {
           // infinite file visits. The TargetMethodFinderVisitor already addresses the updating job
           // in such cases. (Refer to the SuperClass test for an example.)
           TargetMemberFinderVisitor.updateUsedClassWithQualifiedClassName(
-              extendedType.resolve().describe(), addedClasses, new HashMap<>());
+              resolutionCache.resolve(extendedType).describe(), addedClasses, new HashMap<>());
           if (extendedType.getTypeArguments().isPresent()) {
             for (Type typeArgument : extendedType.getTypeArguments().get()) {
               TargetMemberFinderVisitor.updateUsedClassWithQualifiedClassName(
-                  typeArgument.resolve().describe(), addedClasses, new HashMap<>());
+                  resolutionCache.resolve(typeArgument).describe(), addedClasses, new HashMap<>());
             }
           }
         } catch (UnsolvedSymbolException | UnsupportedOperationException e) {
@@ -97,7 +111,7 @@ public class InheritancePreserveVisitor extends ModifierVisitor<Void> {
 
       for (ClassOrInterfaceType implementedType : decl.getImplementedTypes()) {
         try {
-          String interfacename = implementedType.resolve().describe();
+          String interfacename = resolutionCache.resolve(implementedType).describe();
           if (JavaLangUtils.inJdkPackage(interfacename)) {
             // Avoid keeping implementations of java.* classes, because those
             // would require us to actually implement them (we can't remove things
@@ -110,7 +124,7 @@ public class InheritancePreserveVisitor extends ModifierVisitor<Void> {
           if (implementedType.getTypeArguments().isPresent()) {
             for (Type typeAgrument : implementedType.getTypeArguments().get()) {
               TargetMemberFinderVisitor.updateUsedClassWithQualifiedClassName(
-                  typeAgrument.resolve().describe(), addedClasses, new HashMap<>());
+                  resolutionCache.resolve(typeAgrument).describe(), addedClasses, new HashMap<>());
             }
           }
         } catch (UnsolvedSymbolException | UnsupportedOperationException e) {
@@ -1,6 +1,9 @@
 package org.checkerframework.specimin;
 
-import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.ast.body.AnnotationDeclaration;
@@ -10,15 +13,20 @@ import com.github.javaparser.ast.body.EnumDeclaration;
 import com.github.javaparser.ast.body.FieldDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.expr.AnnotationExpr;
 import com.github.javaparser.ast.expr.ArrayInitializerExpr;
 import com.github.javaparser.ast.expr.Expression;
 import com.github.javaparser.ast.nodeTypes.NodeWithDeclaration;
+import com.github.javaparser.ast.stmt.BlockStmt;
 import com.github.javaparser.ast.type.ClassOrInterfaceType;
 import com.github.javaparser.ast.type.Type;
 import com.github.javaparser.resolution.UnsolvedSymbolException;
+import com.github.javaparser.resolution.declarations.ResolvedAnnotationDeclaration;
 import com.github.javaparser.resolution.declarations.ResolvedMethodLikeDeclaration;
 import com.github.javaparser.resolution.types.ResolvedReferenceType;
 import com.github.javaparser.resolution.types.ResolvedType;
+import com.github.javaparser.symbolsolver.javassistmodel.JavassistAnnotationDeclaration;
+import com.github.javaparser.symbolsolver.reflectionmodel.ReflectionAnnotationDeclaration;
 import com.google.common.base.Splitter;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -34,6 +42,16 @@ import org.checkerframework.checker.signature.qual.FullyQualifiedName;
  */
 public class JavaParserUtil {
 
+  /**
+   * The configuration used to parse code fragments (types, blocks, annotations) that Specimin
+   * creates while editing ASTs. Fragments are never compilation units, so they do not need a symbol
+   * resolver; once attached to a compilation unit, they use that unit's resolver. This
+   * configuration is never modified after initialization, so it is safe to share between threads,
+   * unlike {@code StaticJavaParser}'s configuration.
+   */
+  private static final ParserConfiguration FRAGMENT_CONFIGURATION =
+      new ParserConfiguration().setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_17);
+
   /**
    * Private constructor to prevent instantiation.
    *
@@ -43,6 +61,77 @@ public class JavaParserUtil {
     throw new UnsupportedOperationException("This class cannot be instantiated.");
   }
 
+  /**
+   * Was an annotation resolved from a class file rather than from a source file? Such annotations,
+   * which normally belong to the JDK, have no CompilationUnit behind them.
+   *
+   * @param annotation a resolved annotation
+   * @return true iff the annotation was resolved by reflection or from bytecode
+   */
+  public static boolean isResolvedFromClassFile(ResolvedAnnotationDeclaration annotation) {
+    return annotation instanceof ReflectionAnnotationDeclaration
+        || annotation instanceof JavassistAnnotationDeclaration;
+  }
+
+  /**
+   * Parses a block of statements, such as a method body.
+   *
+   * @param code the block, including its braces
+   * @return the parsed block
+   * @throws ParseProblemException if the code is not a valid block
+   */
+  public static BlockStmt parseBlock(String code) {
+    return getParsedResult(new JavaParser(FRAGMENT_CONFIGURATION).parseBlock(code));
+  }
+
+  /**
+   * Parses a type.
+   *
+   * @param code the type
+   * @return the parsed type
+   * @throws ParseProblemException if the code is not a valid type
+   */
+  public static Type parseType(String code) {
+    return getParsedResult(new JavaParser(FRAGMENT_CONFIGURATION).parseType(code));
+  }
+
+  /**
+   * Parses a class or interface type.
+   *
+   * @param code the type
+   * @return the parsed type
+   * @throws ParseProblemException if the code is not a valid class or interface type
+   */
+  public static ClassOrInterfaceType parseClassOrInterfaceType(String code) {
+    return getParsedResult(new JavaParser(FRAGMENT_CONFIGURATION).parseClassOrInterfaceType(code));
+  }
+
+  /**
+   * Parses an annotation.
+   *
+   * @param code the annotation, including the leading "@"
+   * @return the parsed annotation
+   * @throws ParseProblemException if the code is not a valid annotation
+   */
+  public static AnnotationExpr parseAnnotation(String code) {
+    return getParsedResult(new JavaParser(FRAGMENT_CONFIGURATION).parseAnnotation(code));
+  }
+
+  /**
+   * Unwraps the result of a parse, in the same way that {@code StaticJavaParser} does.
+   *
+   * @param <N> the type of the parsed node
+   * @param result the result of a parse
+   * @return the parsed node
+   * @throws ParseProblemException if the parse was not successful
+   */
+  public static <N extends Node> N getParsedResult(ParseResult<N> result) {
+    if (result.isSuccessful() && result.getResult().isPresent()) {
+      return result.getResult().get();
+    }
+    throw new ParseProblemException(result.getProblems());
+  }
+
   /**
    * Removes a node from its compilation unit. If a node cannot be removed directly, it might be
    * wrapped inside another node, causing removal failure. This method iterates through the parent
@@ -246,7 +335,7 @@ public class JavaParserUtil {
     }
 
     // Splitting them is simply to change primitives to objects so we do not
-    // get an error when parsing in StaticJavaParser (note that this array)
+    // get an error when parsing (note that this array)
     // may contain incomplete types like ["Map<String", "Object>"]
     String[] tokens = commaSeparatedTypes.split(",");
 
@@ -259,7 +348,7 @@ public class JavaParserUtil {
     // Parse as a generic type, then get the type arguments
     // This way we can properly differentiate between commas within type arguments
     // versus actual commas in javac error messages
-    Type parsed = StaticJavaParser.parseType("ToParse<" + String.join(", ", tokens) + ">");
+    Type parsed = parseType("ToParse<" + String.join(", ", tokens) + ">");
 
     List<String> types = new ArrayList<>();
     NodeList<Type> typeArguments = parsed.asClassOrInterfaceType().getTypeArguments().orElse(null);
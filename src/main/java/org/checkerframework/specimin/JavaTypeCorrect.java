@@ -1,20 +1,21 @@
 package org.checkerframework.specimin;
 
 import com.google.common.base.Splitter;
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
@@ -70,6 +71,18 @@ class JavaTypeCorrect {
   /** This map associates a method reference usage to whether its return type is void or not. */
   private final Map<String, Boolean> methodRefVoidness = new HashMap<>();
 
+  /** The javac session of the minimization, which sees the synthetic classes in memory. */
+  private final JavacSession javacSession;
+
+  /**
+   * Matches a fully-qualified type name in a javac error message, such as "com.example.Foo" or
+   * "com.example.Outer.Inner". The first group is the package name followed by a dot, and the
+   * second group is the rest of the name. Following Java conventions, package names are lowercase
+   * and type names are capitalized.
+   */
+  private static final Pattern QUALIFIED_TYPE_NAME =
+      Pattern.compile("\\b((?:[a-z_$][\\w$]*\\.)+)([A-Z][\\w$]*(?:\\.[A-Z][\\w$]*)*)\\b");
+
   /** The name used for a synthetic, unconstrained type variable. */
   public static final String SYNTHETIC_UNCONSTRAINED_TYPE = "SyntheticUnconstrainedType";
 
@@ -79,12 +92,16 @@ class JavaTypeCorrect {
    *
    * @param rootDirectory the root directory of the files to correct types
    * @param fileNameList the list of the relative directory of the files to correct types
+   * @param fileAndAssociatedTypes the fully-qualified names of the types used in each file
+   * @param javacSession the javac session of the minimization
    */
   public JavaTypeCorrect(
       String rootDirectory,
       Set<String> fileNameList,
-      Map<String, Set<String>> fileAndAssociatedTypes) {
+      Map<String, Set<String>> fileAndAssociatedTypes,
+      JavacSession javacSession) {
     this.fileNameList = fileNameList;
+    this.javacSession = javacSession;
     this.sourcePath = new File(rootDirectory).getAbsolutePath();
     this.typeToChange = new HashMap<>();
     this.fileAndAssociatedTypes = fileAndAssociatedTypes;
@@ -155,265 +172,276 @@ class JavaTypeCorrect {
   }
 
   /**
-   * This method updates typeToChange by using javac to run all the files in fileNameList and
-   * analyzing the error messages returned by javac
+   * This method uses javac to run all the files in fileNameList in a single compilation, and
+   * updates typeToChange if there is any incompatible type error. Javac runs in this process, in
+   * the session of the minimization, and sees the synthetic classes of the overlay without them
+   * ever being written to disk. Each error is attributed to the file in fileNameList in which javac
+   * reported it, if any.
    */
   public void correctTypesForAllFiles() {
-    for (String fileName : fileNameList) {
-      runJavacAndUpdateTypes(fileName);
+    for (Diagnostic<? extends JavaFileObject> diagnostic : javacSession.compile(fileNameList)) {
+      if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+        updateTypesFromDiagnostic(diagnostic, javacSession.getFilePath(diagnostic));
+      }
     }
   }
 
   /**
-   * This method uses javac to run a file and updates typeToChange if that file has any incompatible
-   * type error
+   * Updates the corrections of this JavaTypeCorrect based on one error reported by javac. The kind
+   * of error is identified by its diagnostic code. The types involved are read from the message,
+   * whose first line is the summary of the error and whose other lines, if any, are the details.
+   *
+   * <p>Note: this is before PrunerVisitor's phase, meaning that the methods reported as not
+   * overridden are never in the source codes to begin with. This usually happens when a file is
+   * isolated from its package, and its parent is supposed to override some of the methods in the
+   * given interface. For these cases, if the interface is not from Java language, we will modify
+   * the codes of the interface. Otherwise, we will remove that interface completely.
    *
-   * @param filePath the directory of the file to be analyzed
+   * <p>TODO: Update Specimin to generate a synthetic version for the missing parent class with
+   * synthetic method implementations, particularly if the targeted method invokes a method from the
+   * parent class that implements a method from a Java language interface.
+   *
+   * @param diagnostic an error reported by javac
+   * @param filePath the path of the file in fileNameList in which the error was reported, or null
+   *     if the error is in some other file, such as a synthetic class
    */
-  public void runJavacAndUpdateTypes(String filePath) {
-    Path outputDir;
-    try {
-      outputDir = Files.createTempDirectory("specimin-javatypecorrect");
-    } catch (IOException e) {
-      throw new RuntimeException("failed to create a temporary directory");
+  private void updateTypesFromDiagnostic(
+      Diagnostic<? extends JavaFileObject> diagnostic, @Nullable String filePath) {
+    List<String> messageLines =
+        simplifyTypeNames(diagnostic.getMessage(Locale.ROOT)).lines().toList();
+    if (messageLines.isEmpty()) {
+      return;
+    }
+    String summary = messageLines.get(0).trim();
+    List<String> details = new ArrayList<>();
+    for (String line : messageLines.subList(1, messageLines.size())) {
+      details.add(line.trim());
     }
 
-    try {
-      String command = "javac";
-      // Note: -d to a tempdir is used to avoid generating .class files amongst the user's files
-      // when compilation succeeds. -Xmaxerrs 0 is used to print out all error messages.
-      String[] arguments = {
-        command,
-        "-d",
-        outputDir.toAbsolutePath().toString(),
-        "-sourcepath",
-        sourcePath,
-        sourcePath + "/" + filePath,
-        "-Xmaxerrs",
-        "0"
-      };
-      ProcessBuilder processBuilder = new ProcessBuilder(arguments);
-      processBuilder.redirectErrorStream(true);
-      Process process = processBuilder.start();
-      BufferedReader reader =
-          new BufferedReader(
-              new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
-      String line;
-
-      // These temporaries are necessary to handle various multi-line error messages.
-      // We support multiline error messages of the following kinds:
-      // * incompatible equality constraints
-      // * bad operand types for binary operators
-      // * for-each not applicable to expression type
-      // * incompatiable method reference types
-
-      // These are temporaries for the equality constraints case.
-      String[] firstConstraints = {"equality constraints: "};
-      String[] secondConstraints = {"lower bounds: "};
-      String firstConstraintType = "";
-
-      // These are temporaries for the binary operator case.
-      String binOp = null;
-      String firstBinOpType = null;
-
-      // These temporaries are for the for-each case.
-      String loopType = null;
-      boolean lookingForLoopType = false;
-
-      // These temporaries are for the invalid method reference cases.
-      boolean lookingForInvalidMethodReference = false;
-      String methodReferenceUsage = null;
-
-      StringBuilder lines = new StringBuilder("\n");
-
-      lines:
-      while ((line = reader.readLine()) != null) {
-        lines.append(line);
-        // Note: this is before PrunerVisitor's phase, meaning that these methods are never in the
-        // source codes to begin with. This usually happens when a file is isolated from its
-        // package, and its parent is supposed to override some of the methods in the given
-        // interface. For these cases, if the interface is not from Java language, we will modify
-        // the codes of the interface. Otherwise, we will remove that interface completely.
-
-        // TODO: Update Specimin to generate a synthetic version for the missing parent class with
-        // synthetic method implementations, particularly if the targeted method invokes a method
-        // from the parent class that implements a method from a Java language interface.
-        if (line.contains("not abstract and does not override abstract method")) {
-          updateClassAndUnresolvedInterface(line);
-        }
-
-        // For-each logic
-        if (loopType != null) {
-          // intermediate parts of the error message, which we can skip
-          if (line.contains("^")) {
-            continue;
-          }
-          if (line.contains("required: array or java.lang.Iterable")) {
-            continue;
-          }
-          // the next line should look like: "found:    GetFoosReturnType"
-          if (!line.contains("found: ")) {
-            throw new RuntimeException(
-                "could not complete a for-each correction, because encountered "
-                    + "an unexpected line in a javac error message: "
-                    + line);
-          }
-          String typeToCorrect = line.substring(line.indexOf(':') + 1).trim();
-          changeType(typeToCorrect, loopType + "[]");
-          loopType = null;
-          continue;
+    switch (diagnostic.getCode()) {
+      case "compiler.err.does.not.override.abstract":
+        updateClassAndUnresolvedInterface(summary);
+        break;
+      case "compiler.err.foreach.not.applicable.to.type":
+        // the source line should look like: "for (Foo f : b.getFoos()) {"; we want to extract the
+        // "Foo". The details should contain a line like "found:    GetFoosReturnType".
+        String sourceLine = getSourceLine(diagnostic);
+        String found = findDetail(details, "found:");
+        if (sourceLine == null || found == null) {
+          throw new RuntimeException(
+              "could not complete a for-each correction for this javac error: " + diagnostic);
         }
-        if (lookingForLoopType) {
-          // line should look like: "for (Foo f : b.getFoos()) {"; we want to extract the "Foo"
-          // and put it into loopType.
-          if (loopType != null) {
-            throw new RuntimeException(
-                "loopType wasn't null when trying to set a loopType: " + loopType);
-          }
-          int startIndex = line.indexOf('(') + 1;
-          loopType = line.substring(startIndex, line.indexOf(' ', startIndex));
-          lookingForLoopType = false;
-          continue;
+        int startIndex = sourceLine.indexOf('(') + 1;
+        String loopType = sourceLine.substring(startIndex, sourceLine.indexOf(' ', startIndex));
+        changeType(found, loopType + "[]");
+        break;
+      case "compiler.err.prob.found.req":
+        if (summary.contains("invalid method reference")
+            || summary.contains("bad return type in method reference")) {
+          updateMethodReference(diagnostic, details);
+        } else if (summary.contains("cannot be converted to") || summary.contains("required")) {
+          // Other kinds of incompatible types, such as incompatible inference bounds, are
+          // described by the details instead.
+          updateTypeToChange(summary, filePath);
         }
-        if (line.contains("for-each not applicable to expression type")) {
-          lookingForLoopType = true;
-          continue;
+        break;
+      case "compiler.err.incomparable.types":
+        updateTypeToChange(summary, filePath);
+        break;
+      case "compiler.err.operator.cant.be.applied.1":
+        // the form of the error is "bad operand types for binary operator '||'"
+        String binOp = summary.substring(summary.indexOf('\'') + 1, summary.lastIndexOf('\''));
+        String firstBinOpType = findDetail(details, "first type:");
+        String secondBinOpType = findDetail(details, "second type:");
+        if (firstBinOpType == null || secondBinOpType == null) {
+          throw new RuntimeException(
+              "failed to complete a binary operator correction for this javac error: "
+                  + diagnostic);
         }
+        updateTypesForBinaryOperator(binOp, firstBinOpType, secondBinOpType);
+        break;
+      default:
+        break;
+    }
 
-        if (lookingForInvalidMethodReference) {
-          if (line.contains("::")) {
-            methodReferenceUsage = line;
-          } else if (line.contains("^")) {
-            if (methodReferenceUsage == null) {
-              throw new RuntimeException("Method reference not found");
-            }
-
-            // This is the start of the method reference; travel forwards until we hit a non-
-            // alphanumeric character, except for :
-            int start = line.indexOf("^");
-
-            int end = start;
-            while (end < methodReferenceUsage.length()
-                && (Character.isLetterOrDigit(methodReferenceUsage.charAt(end))
-                    || methodReferenceUsage.charAt(end) == ':')) {
-              end++;
-            }
-
-            methodReferenceUsage = methodReferenceUsage.substring(start, end);
-          }
-          // method x in class y cannot be applied to given types
-          // then, it gives you a line with required: and all the necessary parameters
-          else if (line.contains("required:")) {
-            if (methodReferenceUsage == null) {
-              throw new RuntimeException("Method reference not found");
-            }
-            if (line.contains("no arguments")) {
-              methodRefToCorrectParameters.put(methodReferenceUsage, "");
-            } else {
-              methodRefToCorrectParameters.put(
-                  methodReferenceUsage, line.trim().substring("required:".length()).trim());
-            }
-
-            lookingForInvalidMethodReference = false;
-            methodReferenceUsage = null;
-            continue;
-          }
-          // handle method return type (this is mutually exclusive with
-          // argument types; if argument types are not valid, this error message
-          // will not show up)
-          else if (line.contains("void cannot be converted to")) {
-            if (methodReferenceUsage == null) {
-              throw new RuntimeException("Method reference not found");
-            }
-            methodRefVoidness.put(methodReferenceUsage, true);
-            lookingForInvalidMethodReference = false;
-            methodReferenceUsage = null;
-            continue;
-          }
-        }
+    for (String detail : details) {
+      // e.g., "return type Foo is not compatible with Bar", when an overriding method's return type
+      // does not match
+      if (detail.contains("is not compatible with")) {
+        updateTypeToChange(detail, filePath);
+      }
+    }
+    String equalityConstraints = findDetail(details, "equality constraints:");
+    String lowerBounds = findDetail(details, "lower bounds:");
+    if (equalityConstraints != null && lowerBounds != null) {
+      updateTypesForConstraints(equalityConstraints, lowerBounds);
+    }
+  }
 
-        if (line.contains("error: incompatible types")
-            || line.contains("error: incomparable types")) {
-          if (line.contains("invalid method reference")
-              || line.contains("bad return type in method reference")) {
-            lookingForInvalidMethodReference = true;
-            continue;
-          } else {
-            updateTypeToChange(line, filePath);
-          }
-          continue lines;
-        }
-        if (line.contains("is not compatible with")) {
-          updateTypeToChange(line, filePath);
-          continue lines;
-        }
-        if (line.contains("bad operand types for binary operator")) {
-          if (binOp != null || firstBinOpType != null) {
-            throw new RuntimeException("failed to complete a binary operator correction: " + lines);
-          }
-          // the form of the error is "bad operand types for binary operator '||'"
-          binOp = line.substring(line.indexOf('\'') + 1, line.lastIndexOf('\''));
-          continue lines;
-        }
-        if (binOp != null && line.contains("first type: ")) {
-          if (firstBinOpType != null) {
-            throw new RuntimeException("failed to complete a binary operator correction: " + lines);
-          }
-          firstBinOpType = line.replace("first type:", "").trim();
-          continue lines;
-        }
-        if (binOp != null && firstBinOpType != null && line.contains("second type: ")) {
-          String secondBinOpType = line.replace("second type:", "").trim();
-          updateTypesForBinaryOperator(binOp, firstBinOpType, secondBinOpType);
-          binOp = null;
-          firstBinOpType = null;
-          continue lines;
-        }
-        // these type error with constraint types will be in a pair of lines
-        for (String firstConstraint : firstConstraints) {
-          if (line.contains(firstConstraint)) {
-            firstConstraintType = line.replace(firstConstraint, "").trim();
-            continue lines;
-          }
-        }
-        for (String secondConstraint : secondConstraints) {
-          if (line.contains(secondConstraint)) {
-            String secondConstraintType = line.replace(secondConstraint, "").trim();
-            // These "constraint types" may include more than one type, especially if
-            // they are equality constraints. The strategy for solving them below is
-            // quite coarse, but it works on most examples. TODO: do this properly by
-            // reasoning about what the constraints mean.
-            Set<String> constraints = new HashSet<>(2);
-            constraints.addAll(List.of(firstConstraintType.split(",")));
-            constraints.addAll(List.of(secondConstraintType.split(",")));
-            if (constraints.size() == 2) {
-              String[] constraintsArray = constraints.toArray(new String[0]);
-              firstConstraintType = constraintsArray[0];
-              secondConstraintType = constraintsArray[1];
-              if (isSynthetic(firstConstraintType)) {
-                changeType(firstConstraintType, secondConstraintType);
-              } else if (isSynthetic(secondConstraintType)) {
-                changeType(secondConstraintType, firstConstraintType);
-              } else {
-                // We used to throw an exception here. However, sometimes
-                // this case does happen while reducing large projects - we saw
-                // it while reducing e.g. Apache Cassandra. It may still indicate
-                // a problem when we encounter it, but I'm not sure that it is:
-                // this may happen sometimes during intermediate stages of Specimin.
-              }
-            } else {
-              // do nothing - we can't solve this case.
-              // TODO: properly solve sets of three or more constraints
-            }
-
-            firstConstraintType = "";
-            continue lines;
-          }
+  /**
+   * Updates the corrections of method references based on an "invalid method reference" or "bad
+   * return type in method reference" error reported by javac.
+   *
+   * @param diagnostic the error reported by javac
+   * @param details the detail lines of the error message, trimmed
+   */
+  private void updateMethodReference(
+      Diagnostic<? extends JavaFileObject> diagnostic, List<String> details) {
+    String sourceLine = getSourceLine(diagnostic);
+    if (sourceLine == null || !sourceLine.contains("::")) {
+      throw new RuntimeException("Method reference not found");
+    }
+    // This is the start of the method reference; travel forwards until we hit a non-alphanumeric
+    // character, except for :
+    int start = (int) diagnostic.getColumnNumber() - 1;
+    int end = start;
+    while (end < sourceLine.length()
+        && (Character.isLetterOrDigit(sourceLine.charAt(end)) || sourceLine.charAt(end) == ':')) {
+      end++;
+    }
+    String methodReferenceUsage = sourceLine.substring(start, end);
+
+    for (String detail : details) {
+      // method x in class y cannot be applied to given types
+      // then, it gives you a line with required: and all the necessary parameters
+      if (detail.startsWith("required:")) {
+        if (detail.contains("no arguments")) {
+          methodRefToCorrectParameters.put(methodReferenceUsage, "");
+        } else {
+          methodRefToCorrectParameters.put(
+              methodReferenceUsage, detail.substring("required:".length()).trim());
         }
+        return;
+      }
+      // handle method return type (this is mutually exclusive with argument types; if argument
+      // types are not valid, this error message will not show up)
+      if (detail.contains("void cannot be converted to")) {
+        methodRefVoidness.put(methodReferenceUsage, true);
+        return;
       }
+    }
+  }
+
+  /**
+   * Updates the types involved in a pair of inference constraints reported by javac, such as
+   * "equality constraints: Foo" and "lower bounds: SyntheticTypeForFoo".
+   *
+   * @param firstConstraintType the types in the first constraint, separated by commas
+   * @param secondConstraintType the types in the second constraint, separated by commas
+   */
+  private void updateTypesForConstraints(String firstConstraintType, String secondConstraintType) {
+    // These "constraint types" may include more than one type, especially if they are equality
+    // constraints. The strategy for solving them below is quite coarse, but it works on most
+    // examples. TODO: do this properly by reasoning about what the constraints mean.
+    Set<String> constraints = new HashSet<>(2);
+    constraints.addAll(List.of(firstConstraintType.split(",")));
+    constraints.addAll(List.of(secondConstraintType.split(",")));
+    if (constraints.size() == 2) {
+      String[] constraintsArray = constraints.toArray(new String[0]);
+      firstConstraintType = constraintsArray[0];
+      secondConstraintType = constraintsArray[1];
+      if (isSynthetic(firstConstraintType)) {
+        changeType(firstConstraintType, secondConstraintType);
+      } else if (isSynthetic(secondConstraintType)) {
+        changeType(secondConstraintType, firstConstraintType);
+      } else {
+        // We used to throw an exception here. However, sometimes
+        // this case does happen while reducing large projects - we saw
+        // it while reducing e.g. Apache Cassandra. It may still indicate
+        // a problem when we encounter it, but I'm not sure that it is:
+        // this may happen sometimes during intermediate stages of Specimin.
+      }
+    } else {
+      // do nothing - we can't solve this case.
+      // TODO: properly solve sets of three or more constraints
+    }
+  }
+
+  /**
+   * Replaces the fully-qualified type names in a javac error message with simple names, as javac's
+   * command-line output does: "java.util.List<com.example.Foo>" becomes "List<Foo>", and
+   * "com.example.Outer.Inner" becomes "Inner". Like javac, a name stays qualified if another type
+   * in the same message has the same simple name. The corrections rely on simple names, both to
+   * recognize synthetic types and because {@link #extendedTypes} is keyed by simple names.
+   *
+   * @param message an error message from javac
+   * @return the message with simplified type names
+   */
+  private static String simplifyTypeNames(String message) {
+    Map<String, String> simpleNameToQualifiedName = new HashMap<>();
+    Set<String> ambiguousSimpleNames = new HashSet<>();
+    Matcher matcher = QUALIFIED_TYPE_NAME.matcher(message);
+    while (matcher.find()) {
+      String qualifiedName = matcher.group();
+      String simpleName = getSimpleName(matcher);
+      String previous = simpleNameToQualifiedName.putIfAbsent(simpleName, qualifiedName);
+      if (previous != null && !previous.equals(qualifiedName)) {
+        ambiguousSimpleNames.add(simpleName);
+      }
+    }
+    StringBuilder result = new StringBuilder();
+    matcher.reset();
+    while (matcher.find()) {
+      String simpleName = getSimpleName(matcher);
+      matcher.appendReplacement(
+          result,
+          Matcher.quoteReplacement(
+              ambiguousSimpleNames.contains(simpleName) ? matcher.group() : simpleName));
+    }
+    matcher.appendTail(result);
+    return result.toString();
+  }
+
+  /**
+   * Returns the simple name of the type name found by a matcher for {@link #QUALIFIED_TYPE_NAME}.
+   *
+   * @param matcher a matcher that has just found a type name
+   * @return the last element of the type name
+   */
+  private static String getSimpleName(Matcher matcher) {
+    String typeName = matcher.group(2);
+    return typeName.substring(typeName.lastIndexOf('.') + 1);
+  }
+
+  /**
+   * Finds the detail line of a javac error message that starts with the given label, and returns
+   * the rest of that line.
+   *
+   * @param details the detail lines of the error message, trimmed
+   * @param label the label to look for, such as "found:"
+   * @return the text after the label, trimmed, or null if there is no such line
+   */
+  private static @Nullable String findDetail(List<String> details, String label) {
+    for (String detail : details) {
+      if (detail.startsWith(label)) {
+        return detail.substring(label.length()).trim();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the line of source code on which javac reported an error.
+   *
+   * @param diagnostic an error reported by javac
+   * @return the line of source code, or null if the error has no position
+   */
+  private static @Nullable String getSourceLine(Diagnostic<? extends JavaFileObject> diagnostic) {
+    JavaFileObject source = diagnostic.getSource();
+    long lineNumber = diagnostic.getLineNumber();
+    if (source == null || lineNumber == Diagnostic.NOPOS) {
+      return null;
+    }
+    try {
+      return source
+          .getCharContent(true)
+          .toString()
+          .lines()
+          .skip(lineNumber - 1)
+          .findFirst()
+          .orElse(null);
     } catch (IOException e) {
-      // TODO: Handle this properly
-      System.out.println(e);
+      return null;
     }
   }
 
@@ -463,22 +491,24 @@ class JavaTypeCorrect {
   /**
    * This method updates typeToChange by relying on the error messages from javac
    *
-   * @param errorMessage the error message to be analyzed
-   * @param filePath the path of the file where this error happens
+   * @param errorMessage the line of the error message to be analyzed, without the location of the
+   *     error
+   * @param filePath the path of the file in fileNameList where this error happens, or null if the
+   *     error happens in some other file
    */
-  private void updateTypeToChange(String errorMessage, String filePath) {
+  private void updateTypeToChange(String errorMessage, @Nullable String filePath) {
     // TODO: splitting on spaces here isn't safe, because types can contain spaces (e.g., if they
     // are wildcards or have multiple type parameters!). We should find an alternative way to parse
     // these error messages that doesn't require us to then re-parse the types from this list.
-    List<String> splitErrorMessage = Splitter.onPattern("\\s+").splitToList(errorMessage);
-    if (splitErrorMessage.size() < 7) {
+    List<String> splitErrorMessage = Splitter.onPattern("\\s+").splitToList(errorMessage.trim());
+    if (splitErrorMessage.size() < 5) {
       throw new RuntimeException("Unexpected type error messages: " + errorMessage);
     }
     /* There are four possible forms of error messages in total:
-     * 1. error: incompatible types: <type1> cannot be converted to <type2>
+     * 1. incompatible types: <type1> cannot be converted to <type2>
      */
     if (errorMessage.contains("cannot be converted to")) {
-      String rhs = getTypeFrom(splitErrorMessage, 4, "cannot");
+      String rhs = getTypeFrom(splitErrorMessage, 2, "cannot");
       int toIndex = splitErrorMessage.indexOf("to");
       String lhs = getTypeFrom(splitErrorMessage, toIndex + 1, null);
       if ("Throwable".equals(lhs)) {
@@ -508,23 +538,23 @@ class JavaTypeCorrect {
       }
     }
     /*
-     * 2. error: incomparable types: Type1 and Type2
+     * 2. incomparable types: Type1 and Type2
      * 3. return type <type1> is not compatible with <type2> (triggered when there is type mismatching in inheritance)
-     * 4. error: incompatible types: found <type1> required <type2> (unknown triggers)
+     * 4. incompatible types: found <type1> required <type2> (unknown triggers)
      */
     else {
       String rhs, lhs;
       if (errorMessage.contains("incomparable types")) {
         // Case 2
-        rhs = getTypeFrom(splitErrorMessage, 4, "and");
+        rhs = getTypeFrom(splitErrorMessage, 2, "and");
         lhs = getTypeFrom(splitErrorMessage, splitErrorMessage.indexOf("and") + 1, null);
       } else if (errorMessage.contains("is not compatible with")) {
         // Case 3
-        rhs = getTypeFrom(splitErrorMessage, 3, "is");
+        rhs = getTypeFrom(splitErrorMessage, 2, "is");
         lhs = getTypeFrom(splitErrorMessage, splitErrorMessage.indexOf("with") + 1, null);
       } else {
         // Case 4
-        rhs = getTypeFrom(splitErrorMessage, 5, "required");
+        rhs = getTypeFrom(splitErrorMessage, 3, "required");
         lhs = getTypeFrom(splitErrorMessage, splitErrorMessage.indexOf("required") + 1, null);
       }
       if (isSynthetic(lhs)) {
@@ -584,18 +614,17 @@ class JavaTypeCorrect {
    * This method updates the map of classes and their unresolved interfaces based on an error
    * message from javac.
    *
-   * @param line an error message from javac.
+   * @param line an error message from javac, without the location of the error.
    */
   private void updateClassAndUnresolvedInterface(String line) {
     List<String> splitErrorMessage = Splitter.onPattern("\\s+").splitToList(line);
     // such an error message will have this format:
-    // <Location> error: <Class> is not abstract and does not override abstract method <Method> in
-    // <Interface>
-    if (splitErrorMessage.size() < 3) {
-      // technically it is more than 3, but this is all we need to avoid false warnings.
+    // <Class> is not abstract and does not override abstract method <Method> in <Interface>
+    if (splitErrorMessage.size() < 2) {
+      // technically it is more than 2, but this is all we need to avoid false warnings.
       throw new RuntimeException("Unexpected type error messages: " + line);
     }
-    String className = splitErrorMessage.get(2);
+    String className = splitErrorMessage.get(0);
     String interfaceName = splitErrorMessage.get(splitErrorMessage.size() - 1);
     classAndUnresolvedInterface.put(className, interfaceName);
   }
@@ -605,11 +634,13 @@ class JavaTypeCorrect {
    * type and the class file where that type is used.
    *
    * @param type the type to be taken as input
-   * @param filePath the path of the file where type is used
+   * @param filePath the path of the file where type is used, or null if type is used in a file
+   *     outside fileNameList, in which case the types used in all the files of fileNameList are
+   *     searched
    * @return the fully-qualified name of that type if any. Otherwise, return the original expression
    *     of type.
    */
-  public String tryResolveFullyQualifiedType(String type, String filePath) {
+  public String tryResolveFullyQualifiedType(String type, @Nullable String filePath) {
     // type is already in the fully qualified format
     if (Splitter.onPattern("\\.").splitToList(type).size() > 1) {
       return type;
@@ -619,11 +650,13 @@ class JavaTypeCorrect {
       typeVariable = type.substring(type.indexOf("<"));
       type = type.substring(0, type.indexOf("<"));
     }
-    if (fileAndAssociatedTypes.containsKey(filePath)) {
-      Set<String> fullyQualifiedType = fileAndAssociatedTypes.get(filePath);
-      for (String typeFullName : fullyQualifiedType) {
-        if (typeFullName.substring(typeFullName.lastIndexOf(".") + 1).equals(type)) {
-          return typeFullName + typeVariable;
+    for (String fileToSearch : filePath == null ? fileNameList : Set.of(filePath)) {
+      if (fileAndAssociatedTypes.containsKey(fileToSearch)) {
+        Set<String> fullyQualifiedType = fileAndAssociatedTypes.get(fileToSearch);
+        for (String typeFullName : fullyQualifiedType) {
+          if (typeFullName.substring(typeFullName.lastIndexOf(".") + 1).equals(type)) {
+            return typeFullName + typeVariable;
+          }
         }
       }
     }
@@ -0,0 +1,183 @@
+package org.checkerframework.specimin;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.ToolProvider;
+import org.checkerframework.checker.calledmethods.qual.EnsuresCalledMethods;
+import org.checkerframework.checker.mustcall.qual.Owning;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The javac session of one minimization, shared by the {@link JavaTypeCorrect} of every correction
+ * round of the fixpoint loop in SpeciminRunner.
+ *
+ * <p>The session keeps one file manager for the whole minimization, so the JDK's platform classes
+ * and the listings of the source roots are looked up once rather than once per round. It also
+ * remembers the outcome of its previous compilation. A javac task can only be run once, so javac
+ * cannot re-attribute just part of a compilation; but when the files to compile are the same as
+ * last time and none of the synthetic classes that javac looked at has changed since, the result
+ * would be the same, so the previous diagnostics are returned without running javac at all.
+ */
+class JavacSession implements AutoCloseable {
+
+  /**
+   * The options passed to javac. -Xmaxerrs 0 is used to report all errors. No class files are
+   * written, because the file manager discards them.
+   */
+  private static final List<String> OPTIONS = List.of("-Xmaxerrs", "0", "-proc:none");
+
+  /** The root directory. */
+  private final String root;
+
+  /** The synthetic classes of the minimization. */
+  private final SyntheticSourceOverlay syntheticSourceOverlay;
+
+  /** The compiler. */
+  private final JavaCompiler compiler;
+
+  /** The options passed to javac by this session: {@link #OPTIONS}, and the release, if any. */
+  private final List<String> options;
+
+  /** The file manager, which serves the root and the synthetic classes to every compilation. */
+  private final @Owning InMemoryJavaFileManager fileManager;
+
+  /** The files compiled by the previous compilation, or null if there has been none. */
+  private @Nullable Set<String> compiledFiles = null;
+
+  /** The contents of the overlay when the previous compilation ran. */
+  private Map<String, String> compiledOverlay = new HashMap<>();
+
+  /** The errors and warnings reported by the previous compilation. */
+  private List<Diagnostic<? extends JavaFileObject>> diagnostics = new ArrayList<>();
+
+  /** The files compiled by the previous compilation, keyed by the URIs javac knows them by. */
+  private final Map<URI, String> filePathsByUri = new HashMap<>();
+
+  /** The number of times that javac has actually run. */
+  private int compilationCount = 0;
+
+  /**
+   * Creates a new session.
+   *
+   * @param sourcePath the root directory, followed by the other directories in which javac looks up
+   *     source files
+   * @param classPath the jar files and class directories in which javac looks up classes that are
+   *     not in the source path
+   * @param syntheticSourceOverlay the synthetic classes of the minimization
+   * @param release the release of the JDK classes that javac compiles against, or null for the
+   *     release of the JDK that runs Specimin
+   * @throws IOException if the file manager cannot be set up
+   */
+  JavacSession(
+      List<String> sourcePath,
+      List<String> classPath,
+      SyntheticSourceOverlay syntheticSourceOverlay,
+      @Nullable Integer release)
+      throws IOException {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    if (compiler == null) {
+      throw new RuntimeException(
+          "Specimin must run on a JDK rather than a JRE, because it uses javac to correct types");
+    }
+    this.compiler = compiler;
+    this.root = new File(sourcePath.get(0)).getAbsolutePath();
+    this.syntheticSourceOverlay = syntheticSourceOverlay;
+    this.options = getOptions(release);
+    this.fileManager =
+        new InMemoryJavaFileManager(
+            compiler.getStandardFileManager(null, Locale.ROOT, StandardCharsets.UTF_8),
+            sourcePath,
+            classPath,
+            syntheticSourceOverlay);
+  }
+
+  /**
+   * Compiles the given files together, with the synthetic classes as they are now, unless the
+   * previous compilation is known to give the same result.
+   *
+   * @param filePaths the files to compile, relative to the root
+   * @return the errors and warnings reported by javac
+   */
+  List<Diagnostic<? extends JavaFileObject>> compile(Set<String> filePaths) {
+    if (filePaths.equals(compiledFiles)
+        && !fileManager.dependsOnAny(syntheticSourceOverlay.getChangedPaths(compiledOverlay))) {
+      return diagnostics;
+    }
+    fileManager.beginCompilation();
+    compiledFiles = new HashSet<>(filePaths);
+    compiledOverlay = new HashMap<>(syntheticSourceOverlay.getSources());
+    filePathsByUri.clear();
+    List<JavaFileObject> compilationUnits = new ArrayList<>();
+    for (String filePath : filePaths) {
+      for (JavaFileObject file : fileManager.getJavaFileObjects(new File(root, filePath))) {
+        compilationUnits.add(file);
+        filePathsByUri.put(file.toUri(), filePath);
+      }
+    }
+    DiagnosticCollector<JavaFileObject> collector = new DiagnosticCollector<>();
+    if (!compilationUnits.isEmpty()) {
+      compiler.getTask(null, fileManager, collector, options, null, compilationUnits).call();
+      compilationCount++;
+    }
+    diagnostics = collector.getDiagnostics();
+    return diagnostics;
+  }
+
+  /**
+   * Returns the file in which the previous compilation reported a diagnostic.
+   *
+   * @param diagnostic a diagnostic returned by {@link #compile(Set)}
+   * @return the path of the file relative to the root, or null if the diagnostic is not in one of
+   *     the compiled files, e.g., because it is in a synthetic class
+   */
+  @Nullable String getFilePath(Diagnostic<? extends JavaFileObject> diagnostic) {
+    JavaFileObject source = diagnostic.getSource();
+    return source == null ? null : filePathsByUri.get(source.toUri());
+  }
+
+  /**
+   * Returns the options to pass to javac, which compile against the JDK classes of the release
+   * chosen by the run, if any, so that javac and the type solvers agree on which JDK classes exist.
+   *
+   * @param release the release of the JDK classes, or null for the release of the JDK that runs
+   *     Specimin
+   * @return the options
+   */
+  private static List<String> getOptions(@Nullable Integer release) {
+    if (release == null) {
+      return OPTIONS;
+    }
+    List<String> options = new ArrayList<>(OPTIONS);
+    options.add("--release");
+    options.add(release.toString());
+    return options;
+  }
+
+  /**
+   * Returns the number of times that javac has actually run in this session.
+   *
+   * @return the number of compilations
+   */
+  int getCompilationCount() {
+    return compilationCount;
+  }
+
+  @Override
+  @EnsuresCalledMethods(value = "this.fileManager", methods = "close")
+  public void close() throws IOException {
+    fileManager.close();
+  }
+}
@@ -0,0 +1,305 @@
+package org.checkerframework.specimin;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The class files of the JDK classes of one Java release, read without loading the classes. The
+ * classes of the release of the JDK that runs Specimin are read from its runtime image, through the
+ * jrt file system. The classes of older releases are read from the lib/ct.sym file of the JDK,
+ * which is what javac's --release option uses. The files of one release are shared by every
+ * minimization in the process, and every class file is read at most once.
+ *
+ * <p>ct.sym contains one directory for each group of releases in which a class file is the same,
+ * such as "9ABC/java.base/java/util/List.sig" for releases 9 to 12: the name of the directory lists
+ * the releases, in base 36. Its ".sig" files are class files without code.
+ */
+final class JdkClassFiles {
+
+  /** The class files of each release that has been used, keyed by the release. */
+  private static final Map<Integer, JdkClassFiles> byRelease = new ConcurrentHashMap<>();
+
+  /** The runtime image of the current JDK, or null if the classes are read from ct.sym. */
+  private final @Nullable FileSystem runtimeImage;
+
+  /** The ct.sym file of the current JDK, or null if the classes are read from the runtime image. */
+  private final @Nullable Path ctSym;
+
+  /**
+   * The entries of ct.sym that contain the class files of the release, keyed by package, such as
+   * "java/util", and then by internal name, such as "java/util/Map$Entry". Empty if the classes are
+   * read from the runtime image.
+   */
+  private final Map<String, Map<String, String>> ctSymEntries = new HashMap<>();
+
+  /**
+   * The modules of the runtime image that contain each package, keyed by the internal name of the
+   * package, such as "java/util". Filled in as packages are looked up.
+   */
+  private final Map<String, List<String>> modulesByPackage = new ConcurrentHashMap<>();
+
+  /**
+   * The class files of the runtime image that have been looked up, keyed by internal name, or empty
+   * for classes that it does not have. The runtime image is slow to search, so each class is looked
+   * up once.
+   */
+  private final Map<String, Optional<Path>> runtimeImageFiles = new ConcurrentHashMap<>();
+
+  /** The contents of the class files that have been read, keyed by internal name. */
+  private final Map<String, byte[]> contents = new ConcurrentHashMap<>();
+
+  /**
+   * Finds the class files of a release.
+   *
+   * @param release a release of Java, such as 11, no newer than the JDK that runs Specimin
+   * @return the class files of the JDK classes of the release
+   * @throws IllegalArgumentException if the JDK that runs Specimin cannot provide the release
+   */
+  static JdkClassFiles forRelease(int release) {
+    return byRelease.computeIfAbsent(
+        release,
+        key -> {
+          try {
+            return new JdkClassFiles(key);
+          } catch (IOException e) {
+            throw new RuntimeException("cannot read the JDK classes of release " + key, e);
+          }
+        });
+  }
+
+  /**
+   * Opens the class files of a release.
+   *
+   * @param release a release of Java
+   * @throws IOException if ct.sym cannot be read
+   * @throws IllegalArgumentException if the JDK that runs Specimin cannot provide the release
+   */
+  private JdkClassFiles(int release) throws IOException {
+    int currentRelease = Runtime.version().feature();
+    if (release > currentRelease) {
+      throw new IllegalArgumentException(
+          "release "
+              + release
+              + " is newer than the JDK that runs Specimin ("
+              + currentRelease
+              + ")");
+    }
+    if (release == currentRelease) {
+      this.runtimeImage = FileSystems.getFileSystem(URI.create("jrt:/"));
+      this.ctSym = null;
+      return;
+    }
+    this.runtimeImage = null;
+    this.ctSym = Path.of(System.getProperty("java.home"), "lib", "ct.sym");
+    if (!Files.isRegularFile(ctSym)) {
+      throw new IllegalArgumentException(
+          "release " + release + " is not supported: the JDK has no " + ctSym);
+    }
+    String releaseCode = Integer.toString(release, Character.MAX_RADIX).toUpperCase();
+    try (ZipFile zipFile = new ZipFile(ctSym.toFile())) {
+      Enumeration<? extends ZipEntry> entries = zipFile.entries();
+      while (entries.hasMoreElements()) {
+        String name = entries.nextElement().getName();
+        if (!name.endsWith(".sig") || name.endsWith("module-info.sig")) {
+          continue;
+        }
+        // The name is made of the releases, the module, and the internal name of the class.
+        int releasesEnd = name.indexOf('/');
+        int moduleEnd = name.indexOf('/', releasesEnd + 1);
+        if (moduleEnd == -1 || !name.substring(0, releasesEnd).contains(releaseCode)) {
+          continue;
+        }
+        String internalName = name.substring(moduleEnd + 1, name.length() - ".sig".length());
+        ctSymEntries
+            .computeIfAbsent(getPackage(internalName), key -> new HashMap<>())
+            .put(internalName, name);
+      }
+    }
+    if (ctSymEntries.isEmpty()) {
+      throw new IllegalArgumentException(
+          "release " + release + " is not supported by the JDK that runs Specimin");
+    }
+  }
+
+  /**
+   * Finds the binary name of a JDK class. Since the name of a nested class is written with dots in
+   * source code, the name is looked up as it is, and then with its last dots replaced by dollar
+   * signs, one at a time, like JavaParser's ReflectionTypeSolver does.
+   *
+   * @param name a fully-qualified name, such as "java.util.Map.Entry"
+   * @return the binary name of the class, such as "java.util.Map$Entry", or null if the release has
+   *     no such class
+   */
+  @Nullable String findBinaryName(String name) {
+    String candidate = name;
+    while (true) {
+      if (exists(candidate.replace('.', '/'))) {
+        return candidate;
+      }
+      int lastDot = candidate.lastIndexOf('.');
+      if (lastDot == -1) {
+        return null;
+      }
+      candidate = candidate.substring(0, lastDot) + "$" + candidate.substring(lastDot + 1);
+    }
+  }
+
+  /**
+   * Reads the class file of a class.
+   *
+   * @param binaryName the binary name of the class, such as "java.util.Map$Entry"
+   * @return the content of the class file, or null if the release has no such class
+   * @throws IOException if the class file cannot be read
+   */
+  byte @Nullable [] read(String binaryName) throws IOException {
+    String internalName = binaryName.replace('.', '/');
+    byte @Nullable [] content = contents.get(internalName);
+    if (content != null) {
+      return content;
+    }
+    @Nullable Path file = findInRuntimeImage(internalName);
+    if (file != null) {
+      content = Files.readAllBytes(file);
+      contents.putIfAbsent(internalName, content);
+      return content;
+    }
+    if (ctSym == null) {
+      return null;
+    }
+    @Nullable Map<String, String> packageEntries = ctSymEntries.get(getPackage(internalName));
+    if (packageEntries == null || !packageEntries.containsKey(internalName)) {
+      return null;
+    }
+    // The classes of a package are usually used together, so read them all at once rather than
+    // opening ct.sym once per class.
+    try (ZipFile zipFile = new ZipFile(ctSym.toFile())) {
+      for (Map.Entry<String, String> entry : packageEntries.entrySet()) {
+        ZipEntry zipEntry = zipFile.getEntry(entry.getValue());
+        if (zipEntry != null) {
+          try (InputStream in = zipFile.getInputStream(zipEntry)) {
+            contents.putIfAbsent(entry.getKey(), in.readAllBytes());
+          }
+        }
+      }
+    }
+    return contents.get(internalName);
+  }
+
+  /**
+   * Returns a URL of the class file of a class.
+   *
+   * @param binaryName the binary name of the class, such as "java.util.Map$Entry"
+   * @return the URL of the class file, or null if the release has no such class
+   */
+  @Nullable URL find(String binaryName) {
+    String internalName = binaryName.replace('.', '/');
+    try {
+      @Nullable Path file = findInRuntimeImage(internalName);
+      if (file != null) {
+        return file.toUri().toURL();
+      }
+      @Nullable Map<String, String> packageEntries = ctSymEntries.get(getPackage(internalName));
+      @Nullable String entry = packageEntries == null ? null : packageEntries.get(internalName);
+      if (entry == null || ctSym == null) {
+        return null;
+      }
+      return URI.create("jar:" + ctSym.toUri() + "!/" + entry).toURL();
+    } catch (MalformedURLException e) {
+      throw new RuntimeException("cannot make a URL for the class file of " + binaryName, e);
+    }
+  }
+
+  /**
+   * Does the release have a class?
+   *
+   * @param internalName the internal name of the class, such as "java/util/Map$Entry"
+   * @return true iff the release has the class
+   */
+  private boolean exists(String internalName) {
+    if (runtimeImage != null) {
+      return findInRuntimeImage(internalName) != null;
+    }
+    @Nullable Map<String, String> packageEntries = ctSymEntries.get(getPackage(internalName));
+    return packageEntries != null && packageEntries.containsKey(internalName);
+  }
+
+  /**
+   * Finds the class file of a class in the runtime image.
+   *
+   * @param internalName the internal name of the class, such as "java/util/Map$Entry"
+   * @return the class file, or null if the classes are not read from the runtime image or it has no
+   *     such class
+   */
+  private @Nullable Path findInRuntimeImage(String internalName) {
+    @Nullable FileSystem image = runtimeImage;
+    if (image == null) {
+      return null;
+    }
+    return runtimeImageFiles
+        .computeIfAbsent(internalName, key -> searchRuntimeImage(image, key))
+        .orElse(null);
+  }
+
+  /**
+   * Searches the runtime image for the class file of a class.
+   *
+   * @param image the runtime image
+   * @param internalName the internal name of the class, such as "java/util/Map$Entry"
+   * @return the class file, or empty if the runtime image has no such class
+   */
+  private Optional<Path> searchRuntimeImage(FileSystem image, String internalName) {
+    List<String> modules =
+        modulesByPackage.computeIfAbsent(
+            getPackage(internalName),
+            key -> {
+              // The runtime image has a directory for each package, with a link to each module
+              // that contains the package.
+              Path packageDirectory = image.getPath("/packages", key.replace('/', '.'));
+              List<String> result = new ArrayList<>();
+              if (Files.isDirectory(packageDirectory)) {
+                try (Stream<Path> links = Files.list(packageDirectory)) {
+                  links.forEach(link -> result.add(String.valueOf(link.getFileName())));
+                } catch (IOException e) {
+                  throw new RuntimeException("cannot read the runtime image of the JDK", e);
+                }
+              }
+              return result;
+            });
+    for (String module : modules) {
+      Path file = image.getPath("/modules", module, internalName + ".class");
+      if (Files.isRegularFile(file)) {
+        return Optional.of(file);
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Returns the package of a class.
+   *
+   * @param internalName the internal name of a class, such as "java/util/Map$Entry"
+   * @return the internal name of its package, such as "java/util"
+   */
+  private static String getPackage(String internalName) {
+    int lastSlash = internalName.lastIndexOf('/');
+    return lastSlash == -1 ? "" : internalName.substring(0, lastSlash);
+  }
+}
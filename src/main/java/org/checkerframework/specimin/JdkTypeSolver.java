@@ -1,16 +1,141 @@
 package org.checkerframework.specimin;
 
-import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.symbolsolver.javassistmodel.JavassistFactory;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import javassist.ClassPath;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.NotFoundException;
+import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
- * A specialized version of Java Parser's ReflectionTypeSolver that allows access to compiler
- * internals (e.g., com.sun and jdk. packages) in addition to the JRE, but does not include anything
- * else on Specimin's classpath (especially JavaParser itself).
+ * A type solver for the classes of the JDK, including compiler internals (e.g., com.sun and jdk.
+ * packages), but nothing else on Specimin's classpath (especially JavaParser itself).
+ *
+ * <p>The classes are read from their class files by Javassist, like the classes of jars, rather
+ * than loaded into Specimin's JVM by reflection, which is slow the first time that each class is
+ * used and keeps every class in memory. The class files are those of the release chosen by the run
+ * (see {@link MinimizationOptions#withRelease(Integer)}), so the JDK that Specimin models need not
+ * be the JDK that runs it; see {@link JdkClassFiles}.
  */
-public class JdkTypeSolver extends ReflectionTypeSolver {
+public class JdkTypeSolver implements TypeSolver {
+
+  /** The class files of the JDK classes. */
+  private final JdkClassFiles classFiles;
+
+  /** The class pool that reads the class files. */
+  private final ClassPool classPool;
+
+  /** The parent of this solver. */
+  private @MonotonicNonNull TypeSolver parent;
+
+  /** Creates a new solver for the JDK classes of the JDK that runs Specimin. */
+  public JdkTypeSolver() {
+    this(null);
+  }
+
+  /**
+   * Creates a new solver for the JDK classes of the given release, like javac's --release option.
+   *
+   * @param release a release of Java no newer than the JDK that runs Specimin, such as 11, or null
+   *     for the release of the JDK that runs Specimin
+   * @throws IllegalArgumentException if the JDK that runs Specimin cannot provide the release
+   */
+  public JdkTypeSolver(@Nullable Integer release) {
+    this(release, null);
+  }
+
+  /**
+   * Creates a new solver for the JDK classes of the given release, reusing the class pool of the
+   * release that the given cache keeps, so that the classes that earlier minimizations have read
+   * are not read again.
+   *
+   * @param release a release of Java no newer than the JDK that runs Specimin, such as 11, or null
+   *     for the release of the JDK that runs Specimin
+   * @param classPoolCache the class pools kept between minimizations, or null to use a new class
+   *     pool
+   * @throws IllegalArgumentException if the JDK that runs Specimin cannot provide the release
+   */
+  public JdkTypeSolver(@Nullable Integer release, @Nullable ClassPoolCache classPoolCache) {
+    this.classFiles =
+        JdkClassFiles.forRelease(release == null ? Runtime.version().feature() : release);
+    this.classPool =
+        classPoolCache == null
+            ? newClassPool(classFiles)
+            : classPoolCache.getJdkClassPool(classFiles);
+  }
+
+  /**
+   * Creates a class pool that reads the given class files of the JDK classes.
+   *
+   * @param classFiles the class files of the JDK classes of a release
+   * @return a new class pool
+   */
+  static ClassPool newClassPool(JdkClassFiles classFiles) {
+    ClassPool classPool = new ClassPool();
+    classPool.appendClassPath(
+        new ClassPath() {
+          @Override
+          public InputStream openClassfile(String classname) throws NotFoundException {
+            byte @Nullable [] content;
+            try {
+              content = classFiles.read(classname);
+            } catch (IOException e) {
+              throw new RuntimeException("cannot read the JDK class " + classname, e);
+            }
+            if (content == null) {
+              throw new NotFoundException(classname);
+            }
+            return new ByteArrayInputStream(content);
+          }
+
+          @Override
+          @SuppressWarnings("nullness") // Javassist's ClassPath allows a null URL
+          public URL find(String classname) {
+            return classFiles.find(classname);
+          }
+        });
+    return classPool;
+  }
+
+  @Override
+  @SuppressWarnings("nullness") // the TypeSolver interface allows a null parent
+  public TypeSolver getParent() {
+    return parent;
+  }
+
+  @Override
+  public void setParent(TypeSolver parent) {
+    if (this.parent != null) {
+      throw new IllegalStateException("This TypeSolver already has a parent.");
+    }
+    if (parent == this) {
+      throw new IllegalStateException("The parent of this TypeSolver cannot be itself.");
+    }
+    this.parent = parent;
+  }
 
   @Override
-  protected boolean filterName(String name) {
-    return JavaLangUtils.inJdkPackage(name);
+  public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+    if (!JavaLangUtils.inJdkPackage(name)) {
+      return SymbolReference.unsolved();
+    }
+    @Nullable String binaryName = classFiles.findBinaryName(name);
+    if (binaryName == null) {
+      return SymbolReference.unsolved();
+    }
+    try {
+      CtClass ctClass = classPool.get(binaryName);
+      return SymbolReference.solved(JavassistFactory.toTypeDeclaration(ctClass, getRoot()));
+    } catch (NotFoundException e) {
+      throw new IllegalStateException("the class file of " + binaryName + " cannot be read", e);
+    }
   }
 }
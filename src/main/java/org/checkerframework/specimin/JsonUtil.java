@@ -0,0 +1,473 @@
+package org.checkerframework.specimin;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A minimal JSON reader and writer, used by Specimin's line-oriented protocols (daemon mode and
+ * batch manifests). Specimin does not otherwise depend on a JSON library, and these protocols only
+ * need objects, arrays, strings, numbers, booleans, and null.
+ *
+ * <p>Parsed objects are represented as {@code Map<String, Object>} (preserving key order), arrays
+ * as {@code List<Object>}, numbers as {@code Long} or {@code Double}, and JSON null as Java null.
+ *
+ * <p>This class cannot be instantiated.
+ */
+public class JsonUtil {
+
+  /**
+   * Private constructor to prevent instantiation.
+   *
+   * @throws UnsupportedOperationException if an attempt is made to instantiate this class.
+   */
+  private JsonUtil() {
+    throw new UnsupportedOperationException("This class cannot be instantiated.");
+  }
+
+  /**
+   * Parses a single JSON value.
+   *
+   * @param json the text to parse
+   * @return the parsed value, as described in the class documentation
+   * @throws IllegalArgumentException if the text is not a single well-formed JSON value
+   */
+  public static @Nullable Object parse(String json) {
+    Reader reader = new Reader(json);
+    reader.skipWhitespace();
+    Object result = reader.readValue();
+    reader.skipWhitespace();
+    if (!reader.atEnd()) {
+      throw reader.error("unexpected trailing characters");
+    }
+    return result;
+  }
+
+  /**
+   * Serializes a value as compact, single-line JSON. Supported values are maps (whose keys are
+   * converted with {@code toString()}), iterables, strings, numbers, booleans, and null; any other
+   * object is serialized as its {@code toString()} string.
+   *
+   * @param value the value to serialize
+   * @return the JSON representation of the value
+   */
+  public static String toJson(@Nullable Object value) {
+    StringBuilder sb = new StringBuilder();
+    write(value, sb);
+    return sb.toString();
+  }
+
+  /**
+   * Returns the list of strings stored under the given key of a parsed JSON object. A missing key
+   * or a JSON null is treated as an empty list, and a single string is treated as a one-element
+   * list.
+   *
+   * @param object a parsed JSON object
+   * @param key the key to look up
+   * @return the strings stored under the key
+   * @throws IllegalArgumentException if the value is neither a string nor an array of strings
+   */
+  public static List<String> getStringList(Map<String, @Nullable Object> object, String key) {
+    Object value = object.get(key);
+    List<String> result = new ArrayList<>();
+    if (value == null) {
+      return result;
+    }
+    if (value instanceof String) {
+      result.add((String) value);
+      return result;
+    }
+    if (value instanceof List) {
+      for (Object element : (List<?>) value) {
+        if (!(element instanceof String)) {
+          throw new IllegalArgumentException("\"" + key + "\" must only contain strings");
+        }
+        result.add((String) element);
+      }
+      return result;
+    }
+    throw new IllegalArgumentException("\"" + key + "\" must be a string or an array of strings");
+  }
+
+  /**
+   * Returns the string stored under the given key of a parsed JSON object.
+   *
+   * @param object a parsed JSON object
+   * @param key the key to look up
+   * @return the string, or null if the key is missing or maps to JSON null
+   * @throws IllegalArgumentException if the value is present but is not a string
+   */
+  public static @Nullable String getString(Map<String, @Nullable Object> object, String key) {
+    Object value = object.get(key);
+    if (value == null || value instanceof String) {
+      return (String) value;
+    }
+    throw new IllegalArgumentException("\"" + key + "\" must be a string");
+  }
+
+  /**
+   * Returns the integer stored under the given key of a parsed JSON object.
+   *
+   * @param object a parsed JSON object
+   * @param key the key to look up
+   * @return the integer, or null if the key is missing or maps to JSON null
+   * @throws IllegalArgumentException if the value is present but is not an integer that fits in an
+   *     int
+   */
+  public static @Nullable Integer getInteger(Map<String, @Nullable Object> object, String key) {
+    Object value = object.get(key);
+    if (value == null) {
+      return null;
+    }
+    if (value instanceof Long
+        && (Long) value >= Integer.MIN_VALUE
+        && (Long) value <= Integer.MAX_VALUE) {
+      return ((Long) value).intValue();
+    }
+    throw new IllegalArgumentException("\"" + key + "\" must be an integer");
+  }
+
+  /**
+   * Returns the boolean stored under the given key of a parsed JSON object.
+   *
+   * @param object a parsed JSON object
+   * @param key the key to look up
+   * @return the boolean, or null if the key is missing or maps to JSON null
+   * @throws IllegalArgumentException if the value is present but is not a boolean
+   */
+  public static @Nullable Boolean getBoolean(Map<String, @Nullable Object> object, String key) {
+    Object value = object.get(key);
+    if (value == null || value instanceof Boolean) {
+      return (Boolean) value;
+    }
+    throw new IllegalArgumentException("\"" + key + "\" must be a boolean");
+  }
+
+  /**
+   * Writes the JSON representation of a value.
+   *
+   * @param value the value to write
+   * @param sb the destination
+   */
+  private static void write(@Nullable Object value, StringBuilder sb) {
+    if (value == null) {
+      sb.append("null");
+    } else if (value instanceof Boolean || value instanceof Long || value instanceof Integer) {
+      sb.append(value);
+    } else if (value instanceof Number) {
+      double d = ((Number) value).doubleValue();
+      if (Double.isNaN(d) || Double.isInfinite(d)) {
+        sb.append("null");
+      } else {
+        sb.append(value);
+      }
+    } else if (value instanceof Map) {
+      sb.append('{');
+      boolean first = true;
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        if (!first) {
+          sb.append(',');
+        }
+        first = false;
+        writeString(String.valueOf(entry.getKey()), sb);
+        sb.append(':');
+        write(entry.getValue(), sb);
+      }
+      sb.append('}');
+    } else if (value instanceof Iterable) {
+      sb.append('[');
+      boolean first = true;
+      for (Object element : (Iterable<?>) value) {
+        if (!first) {
+          sb.append(',');
+        }
+        first = false;
+        write(element, sb);
+      }
+      sb.append(']');
+    } else {
+      writeString(value.toString(), sb);
+    }
+  }
+
+  /**
+   * Writes a JSON string literal, escaping characters as required by the JSON grammar.
+   *
+   * @param s the string to write
+   * @param sb the destination
+   */
+  private static void writeString(String s, StringBuilder sb) {
+    sb.append('"');
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      switch (c) {
+        case '"':
+          sb.append("\\\"");
+          break;
+        case '\\':
+          sb.append("\\\\");
+          break;
+        case '\n':
+          sb.append("\\n");
+          break;
+        case '\r':
+          sb.append("\\r");
+          break;
+        case '\t':
+          sb.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            sb.append(String.format("\\u%04x", (int) c));
+          } else {
+            sb.append(c);
+          }
+      }
+    }
+    sb.append('"');
+  }
+
+  /** A recursive-descent reader over a JSON string. */
+  private static class Reader {
+
+    /** The text being read. */
+    private final String text;
+
+    /** The index of the next character to read. */
+    private int pos = 0;
+
+    /**
+     * Creates a new reader.
+     *
+     * @param text the text to read
+     */
+    Reader(String text) {
+      this.text = text;
+    }
+
+    /**
+     * Is the whole input consumed?
+     *
+     * @return true iff there are no more characters to read
+     */
+    boolean atEnd() {
+      return pos >= text.length();
+    }
+
+    /** Skips any JSON whitespace. */
+    void skipWhitespace() {
+      while (!atEnd() && " \t\r\n".indexOf(text.charAt(pos)) != -1) {
+        pos++;
+      }
+    }
+
+    /**
+     * Creates an exception that describes a syntax error at the current position.
+     *
+     * @param message what went wrong
+     * @return an exception to throw
+     */
+    IllegalArgumentException error(String message) {
+      return new IllegalArgumentException("malformed JSON at offset " + pos + ": " + message);
+    }
+
+    /**
+     * Consumes the given character, or fails if it is not next.
+     *
+     * @param c the expected character
+     */
+    void expect(char c) {
+      if (atEnd() || text.charAt(pos) != c) {
+        throw error("expected '" + c + "'");
+      }
+      pos++;
+    }
+
+    /**
+     * Reads any JSON value.
+     *
+     * @return the value
+     */
+    @Nullable Object readValue() {
+      if (atEnd()) {
+        throw error("unexpected end of input");
+      }
+      char c = text.charAt(pos);
+      switch (c) {
+        case '{':
+          return readObject();
+        case '[':
+          return readArray();
+        case '"':
+          return readString();
+        case 't':
+          readKeyword("true");
+          return Boolean.TRUE;
+        case 'f':
+          readKeyword("false");
+          return Boolean.FALSE;
+        case 'n':
+          readKeyword("null");
+          return null;
+        default:
+          return readNumber();
+      }
+    }
+
+    /**
+     * Reads a JSON object.
+     *
+     * @return the object's members, in order
+     */
+    Map<String, @Nullable Object> readObject() {
+      Map<String, @Nullable Object> result = new LinkedHashMap<>();
+      expect('{');
+      skipWhitespace();
+      if (!atEnd() && text.charAt(pos) == '}') {
+        pos++;
+        return result;
+      }
+      while (true) {
+        skipWhitespace();
+        String key = readString();
+        skipWhitespace();
+        expect(':');
+        skipWhitespace();
+        result.put(key, readValue());
+        skipWhitespace();
+        if (!atEnd() && text.charAt(pos) == ',') {
+          pos++;
+          continue;
+        }
+        expect('}');
+        return result;
+      }
+    }
+
+    /**
+     * Reads a JSON array.
+     *
+     * @return the array's elements, in order
+     */
+    List<@Nullable Object> readArray() {
+      List<@Nullable Object> result = new ArrayList<>();
+      expect('[');
+      skipWhitespace();
+      if (!atEnd() && text.charAt(pos) == ']') {
+        pos++;
+        return result;
+      }
+      while (true) {
+        skipWhitespace();
+        result.add(readValue());
+        skipWhitespace();
+        if (!atEnd() && text.charAt(pos) == ',') {
+          pos++;
+          continue;
+        }
+        expect(']');
+        return result;
+      }
+    }
+
+    /**
+     * Reads a JSON string literal.
+     *
+     * @return the unescaped string
+     */
+    String readString() {
+      expect('"');
+      StringBuilder sb = new StringBuilder();
+      while (true) {
+        if (atEnd()) {
+          throw error("unterminated string");
+        }
+        char c = text.charAt(pos++);
+        if (c == '"') {
+          return sb.toString();
+        }
+        if (c != '\\') {
+          sb.append(c);
+          continue;
+        }
+        if (atEnd()) {
+          throw error("unterminated escape sequence");
+        }
+        char escaped = text.charAt(pos++);
+        switch (escaped) {
+          case '"':
+          case '\\':
+          case '/':
+            sb.append(escaped);
+            break;
+          case 'b':
+            sb.append('\b');
+            break;
+          case 'f':
+            sb.append('\f');
+            break;
+          case 'n':
+            sb.append('\n');
+            break;
+          case 'r':
+            sb.append('\r');
+            break;
+          case 't':
+            sb.append('\t');
+            break;
+          case 'u':
+            if (pos + 4 > text.length()) {
+              throw error("truncated unicode escape");
+            }
+            try {
+              sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+            } catch (NumberFormatException e) {
+              throw error("invalid unicode escape");
+            }
+            pos += 4;
+            break;
+          default:
+            throw error("invalid escape character '" + escaped + "'");
+        }
+      }
+    }
+
+    /**
+     * Reads the given keyword (true, false, or null).
+     *
+     * @param keyword the keyword that must come next
+     */
+    void readKeyword(String keyword) {
+      if (!text.startsWith(keyword, pos)) {
+        throw error("expected " + keyword);
+      }
+      pos += keyword.length();
+    }
+
+    /**
+     * Reads a JSON number.
+     *
+     * @return a Long if the number is integral and fits in a long, otherwise a Double
+     */
+    Number readNumber() {
+      int start = pos;
+      while (!atEnd() && "+-0123456789.eE".indexOf(text.charAt(pos)) != -1) {
+        pos++;
+      }
+      String number = text.substring(start, pos);
+      if (number.isEmpty()) {
+        throw error("unexpected character '" + text.charAt(pos) + "'");
+      }
+      try {
+        if (number.indexOf('.') == -1 && number.indexOf('e') == -1 && number.indexOf('E') == -1) {
+          return Long.parseLong(number);
+        }
+        return Double.parseDouble(number);
+      } catch (NumberFormatException e) {
+        throw error("invalid number " + number);
+      }
+    }
+  }
+}
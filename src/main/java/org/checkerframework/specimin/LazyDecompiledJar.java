@@ -0,0 +1,514 @@
+package org.checkerframework.specimin;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.apache.commons.io.FileUtils;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.specimin.TypeDeclarationScanner.DeclaredType;
+import org.jetbrains.java.decompiler.main.decompiler.ConsoleDecompiler;
+
+/**
+ * The sources of a jar file, decompiled one top-level class at a time, the first time that the
+ * source of the class is needed. This is the lazy mode of the {@link DecompilationCache}: a run
+ * whose target uses three classes of a large jar decompiles three classes rather than the whole
+ * jar. A class is either turned into a stub by {@link BytecodeStubGenerator} or, if the cache
+ * decompiles method bodies, decompiled by Vineflower.
+ *
+ * <p>The decompiled classes are kept in a directory of the cache whose name is derived from the
+ * SHA-256 hash of the jar and the kind of sources (see {@link
+ * DecompilationCache#getSourceKind(boolean)}), like the directories of whole jars, so a class that
+ * was decompiled by one run is reused by every later run. The directory only ever contains complete
+ * files: each class is decompiled under a temporary name and then moved into place.
+ *
+ * <p>A directory of class files, such as the build/classes directory of a Gradle project, is read
+ * the same way, so that it need not be packed into a jar first. Since its classes may be recompiled
+ * at any time, its directory of the cache is derived from its path instead, and a class is
+ * decompiled again whenever one of its class files is newer than its decompiled source.
+ */
+public class LazyDecompiledJar {
+
+  /** The jar file, or the directory of class files. */
+  private final String jarPath;
+
+  /** True iff {@link #jarPath} is a directory of class files rather than a jar file. */
+  private final boolean isClassDirectory;
+
+  /** True iff the classes are decompiled by Vineflower rather than turned into stubs. */
+  private final boolean decompileMethodBodies;
+
+  /** The directory of the cache that contains the decompiled classes of the jar. */
+  private final Path directory;
+
+  /**
+   * The class files of each top-level class of the jar, keyed by the path of the source file of the
+   * class relative to {@link #directory}, such as "com/example/Foo.java". The class file of the
+   * top-level class comes first, followed by those of its nested classes, such as
+   * "com/example/Foo$Bar.class".
+   */
+  private final Map<String, List<String>> classFilesBySourcePath = new HashMap<>();
+
+  /**
+   * Opens a jar file or a directory of class files. Only the list of its classes is read; nothing
+   * is decompiled yet.
+   *
+   * @param jarPath the jar file, or the directory of class files
+   * @param options the options of the run, which choose the decompilation cache and the kind of its
+   *     sources
+   * @throws IOException if the jar or the directory cannot be read
+   */
+  public LazyDecompiledJar(String jarPath, MinimizationOptions options) throws IOException {
+    this.jarPath = jarPath;
+    this.isClassDirectory = ClassDirectoryTypeSolver.isClassDirectory(jarPath);
+    this.decompileMethodBodies = options.isDecompilingMethodBodies();
+    Path absolutePath = Path.of(jarPath).toAbsolutePath().normalize();
+    String sourceKind = DecompilationCache.getSourceKind(decompileMethodBodies);
+    this.directory =
+        Path.of(options.getDecompilationCacheDirectory())
+            .toAbsolutePath()
+            .normalize()
+            .resolve(
+                isClassDirectory
+                    ? DecompilationCache.sha256(absolutePath.toString())
+                        + "-"
+                        + sourceKind
+                        + "-class-directory"
+                    : DecompilationCache.sha256(absolutePath) + "-" + sourceKind + "-by-class");
+    if (isClassDirectory) {
+      classFilesBySourcePath.putAll(
+          groupClassFiles(ClassDirectoryTypeSolver.listClassFiles(absolutePath)));
+    } else {
+      try (ZipFile zipFile = new ZipFile(jarPath)) {
+        classFilesBySourcePath.putAll(groupClassFiles(zipFile));
+      }
+    }
+  }
+
+  /**
+   * Groups the class files of a jar by the top-level class to which they belong.
+   *
+   * @param zipFile the jar
+   * @return the names of the entries of the class files of each top-level class of the jar, keyed
+   *     by the path of the source file of the class, such as "com/example/Foo.java". The class file
+   *     of the top-level class comes first, followed by those of its nested classes.
+   */
+  static Map<String, List<String>> groupClassFiles(ZipFile zipFile) {
+    List<String> names = new ArrayList<>();
+    Enumeration<? extends ZipEntry> entries = zipFile.entries();
+    while (entries.hasMoreElements()) {
+      names.add(entries.nextElement().getName());
+    }
+    return groupClassFiles(names);
+  }
+
+  /**
+   * Groups class files by the top-level class to which they belong. Files that are not class files,
+   * and module and package descriptors, are left out.
+   *
+   * @param names the paths of files relative to the root of a jar or of a class directory, using
+   *     "/" as the separator
+   * @return the class files of each top-level class, keyed by the path of the source file of the
+   *     class, such as "com/example/Foo.java". The class file of the top-level class comes first,
+   *     followed by those of its nested classes.
+   */
+  static Map<String, List<String>> groupClassFiles(List<String> names) {
+    Map<String, List<String>> result = new HashMap<>();
+    List<String> nestedClassFiles = new ArrayList<>();
+    for (String name : names) {
+      if (!name.endsWith(".class")
+          || name.startsWith("META-INF/")
+          || name.endsWith("module-info.class")
+          || name.endsWith("package-info.class")) {
+        continue;
+      }
+      String binaryName = name.substring(0, name.length() - ".class".length());
+      if (binaryName.indexOf('$', binaryName.lastIndexOf('/') + 1) != -1) {
+        nestedClassFiles.add(name);
+        continue;
+      }
+      List<String> classFiles = new ArrayList<>();
+      classFiles.add(name);
+      result.put(binaryName + ".java", classFiles);
+    }
+    for (String name : nestedClassFiles) {
+      // A nested class may itself be nested, so look up the outermost class.
+      int firstDollar = name.indexOf('$', name.lastIndexOf('/') + 1);
+      List<String> classFiles = result.get(name.substring(0, firstDollar) + ".java");
+      if (classFiles != null) {
+        classFiles.add(name);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the jar file.
+   *
+   * @return the jar file
+   */
+  public String getJarPath() {
+    return jarPath;
+  }
+
+  /**
+   * Returns the directory that contains the classes of the jar that have been decompiled so far.
+   *
+   * @return the directory, ending with a separator
+   */
+  public String getDirectory() {
+    return directory.toString() + File.separator;
+  }
+
+  /**
+   * Does the jar contain the top-level class whose source file has the given path?
+   *
+   * @param relativePath a path relative to the root, such as "com/example/Foo.java"
+   * @return true iff the jar contains the class
+   */
+  public boolean contains(String relativePath) {
+    return classFilesBySourcePath.containsKey(relativePath);
+  }
+
+  /**
+   * Returns the paths of the source files of all the top-level classes of the jar, whether or not
+   * they have been decompiled yet.
+   *
+   * @return the paths relative to the root, such as "com/example/Foo.java"
+   */
+  public Set<String> getSourcePaths() {
+    return classFilesBySourcePath.keySet();
+  }
+
+  /**
+   * Returns the decompiled source of a top-level class of the jar, decompiling the class if it is
+   * not in the cache yet.
+   *
+   * @param relativePath the path of the source file relative to the root, such as
+   *     "com/example/Foo.java"
+   * @return the source file, or null if the jar does not contain the class
+   * @throws IOException if the class cannot be decompiled
+   */
+  public @Nullable Path getSourceFile(String relativePath) throws IOException {
+    List<String> classFiles = classFilesBySourcePath.get(relativePath);
+    if (classFiles == null) {
+      return null;
+    }
+    Path sourceFile = directory.resolve(relativePath);
+    if (isUpToDate(sourceFile, classFiles)) {
+      return sourceFile;
+    }
+    synchronized (DecompilationCache.getLock(sourceFile)) {
+      if (isUpToDate(sourceFile, classFiles)) {
+        return sourceFile;
+      }
+      Files.createDirectories(directory);
+      if (!decompileMethodBodies) {
+        String stub;
+        if (isClassDirectory) {
+          stub = BytecodeStubGenerator.generate(Path.of(jarPath), classFiles);
+        } else {
+          try (ZipFile zipFile = new ZipFile(jarPath)) {
+            stub = BytecodeStubGenerator.generate(zipFile, classFiles);
+          }
+        }
+        Path temporaryFile = Files.createTempFile(directory, "decompiling-", ".java");
+        try {
+          Files.writeString(temporaryFile, stub);
+          createParentDirectories(sourceFile);
+          Files.move(
+              temporaryFile,
+              sourceFile,
+              StandardCopyOption.REPLACE_EXISTING,
+              StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+          Files.deleteIfExists(temporaryFile);
+        }
+        return sourceFile;
+      }
+      Path temporaryDirectory = Files.createTempDirectory(directory, "decompiling-");
+      try {
+        List<String> arguments = new ArrayList<>();
+        arguments.add("--silent");
+        // The rest of the jar is a library, so that the decompiler knows the types that the class
+        // uses.
+        arguments.add("-e=" + jarPath);
+        Path classDirectory = temporaryDirectory.resolve("classes");
+        if (isClassDirectory) {
+          arguments.addAll(extractClassFiles(this::openFile, classFiles, classDirectory));
+        } else {
+          try (ZipFile zipFile = new ZipFile(jarPath)) {
+            arguments.addAll(
+                extractClassFiles(
+                    classFile -> openEntry(zipFile, classFile), classFiles, classDirectory));
+          }
+        }
+        Path outputDirectory = Files.createDirectory(temporaryDirectory.resolve("sources"));
+        arguments.add(outputDirectory.toString() + File.separator);
+        ConsoleDecompiler.main(arguments.toArray(new String[0]));
+        // Classes given as files rather than in a jar are written directly into the output
+        // directory, whatever their package.
+        Path decompiled =
+            outputDirectory.resolve(relativePath.substring(relativePath.lastIndexOf('/') + 1));
+        if (!Files.exists(decompiled)) {
+          throw new IOException("cannot decompile " + relativePath + " from " + jarPath);
+        }
+        createParentDirectories(sourceFile);
+        Files.move(
+            decompiled,
+            sourceFile,
+            StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        FileUtils.deleteDirectory(temporaryDirectory.toFile());
+      }
+    }
+    return sourceFile;
+  }
+
+  /**
+   * Is the decompiled source of a class in the cache, and up to date? The source of a class of a
+   * jar never changes, since the directory of the cache is derived from the content of the jar, but
+   * the classes of a class directory may have been recompiled since they were decompiled.
+   *
+   * @param sourceFile the decompiled source of a top-level class in the cache
+   * @param classFiles the class files of the class and of its nested classes
+   * @return true iff the source exists and is at least as recent as the class files
+   * @throws IOException if the times of the files cannot be read
+   */
+  private boolean isUpToDate(Path sourceFile, List<String> classFiles) throws IOException {
+    if (!Files.exists(sourceFile)) {
+      return false;
+    }
+    if (!isClassDirectory) {
+      return true;
+    }
+    FileTime decompiled = Files.getLastModifiedTime(sourceFile);
+    for (String classFile : classFiles) {
+      Path file = Path.of(jarPath, classFile);
+      if (!Files.exists(file) || Files.getLastModifiedTime(file).compareTo(decompiled) > 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Opens the class files of a jar or of a class directory. */
+  private interface ClassFileOpener {
+    /**
+     * Opens a class file.
+     *
+     * @param classFile the path of the class file relative to the root of the jar or directory
+     * @return the content of the class file, or null if there is no such file
+     * @throws IOException if the class file cannot be opened
+     */
+    @Nullable InputStream open(String classFile) throws IOException;
+  }
+
+  /**
+   * Opens a class file of the class directory.
+   *
+   * @param classFile the path of the class file relative to the directory
+   * @return the content of the class file, or null if there is no such file
+   * @throws IOException if the class file cannot be opened
+   */
+  private @Nullable InputStream openFile(String classFile) throws IOException {
+    Path file = Path.of(jarPath, classFile);
+    return Files.isRegularFile(file) ? Files.newInputStream(file) : null;
+  }
+
+  /**
+   * Opens a class file of a jar.
+   *
+   * @param zipFile the jar
+   * @param classFile the name of the entry of the class file
+   * @return the content of the class file, or null if there is no such entry
+   * @throws IOException if the entry cannot be opened
+   */
+  private static @Nullable InputStream openEntry(ZipFile zipFile, String classFile)
+      throws IOException {
+    ZipEntry entry = zipFile.getEntry(classFile);
+    return entry == null ? null : zipFile.getInputStream(entry);
+  }
+
+  /**
+   * Copies class files into a directory, keeping their relative paths.
+   *
+   * @param opener opens the class files
+   * @param classFiles the paths of the class files
+   * @param classDirectory the directory into which to copy them
+   * @return the copies
+   * @throws IOException if a class file cannot be copied
+   */
+  private List<String> extractClassFiles(
+      ClassFileOpener opener, List<String> classFiles, Path classDirectory) throws IOException {
+    List<String> result = new ArrayList<>();
+    for (String classFile : classFiles) {
+      @Nullable InputStream in = opener.open(classFile);
+      if (in == null) {
+        throw new IOException(classFile + " disappeared from " + jarPath);
+      }
+      Path extracted = classDirectory.resolve(classFile);
+      createParentDirectories(extracted);
+      try (in) {
+        Files.copy(in, extracted);
+      }
+      result.add(extracted.toString());
+    }
+    return result;
+  }
+
+  /**
+   * Creates the directory that will contain a file, if it does not exist yet.
+   *
+   * @param file a file
+   * @throws IOException if the directory cannot be created
+   */
+  private static void createParentDirectories(Path file) throws IOException {
+    Path parent = file.getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+  }
+
+  /**
+   * Finds the types declared by each top-level class of the jar and its nested classes, as if the
+   * whole jar had been decompiled and then scanned by {@link TypeDeclarationScanner}. Only the
+   * headers of the class files are read, so nothing is decompiled.
+   *
+   * @return the declared types, keyed by the paths of the source files relative to the root
+   * @throws IOException if the jar cannot be read
+   */
+  public Map<String, List<DeclaredType>> getDeclaredTypes() throws IOException {
+    if (isClassDirectory) {
+      return getDeclaredTypes(this::openFile);
+    }
+    try (ZipFile zipFile = new ZipFile(jarPath)) {
+      return getDeclaredTypes(classFile -> openEntry(zipFile, classFile));
+    }
+  }
+
+  /**
+   * Finds the types declared by each top-level class and its nested classes.
+   *
+   * @param opener opens the class files
+   * @return the declared types, keyed by the paths of the source files relative to the root
+   * @throws IOException if a class file cannot be read
+   */
+  private Map<String, List<DeclaredType>> getDeclaredTypes(ClassFileOpener opener)
+      throws IOException {
+    Map<String, List<DeclaredType>> result = new HashMap<>();
+    for (Map.Entry<String, List<String>> entry : classFilesBySourcePath.entrySet()) {
+      List<DeclaredType> declaredTypes = new ArrayList<>();
+      for (String classFile : entry.getValue()) {
+        String binaryName = classFile.substring(0, classFile.length() - ".class".length());
+        String simpleName = binaryName.substring(binaryName.lastIndexOf('/') + 1);
+        boolean topLevel = simpleName.indexOf('$') == -1;
+        if (!topLevel) {
+          simpleName = simpleName.substring(simpleName.lastIndexOf('$') + 1);
+          if (simpleName.isEmpty() || Character.isDigit(simpleName.charAt(0))) {
+            // an anonymous or local class, or a class within one
+            continue;
+          }
+        }
+        @Nullable InputStream in = opener.open(classFile);
+        if (in == null) {
+          continue;
+        }
+        TypeDeclarationScanner.Kind kind;
+        try (in) {
+          kind = readKind(in);
+        }
+        declaredTypes.add(
+            new DeclaredType(
+                binaryName.replace('/', '.').replace('$', '.'), simpleName, kind, topLevel));
+      }
+      result.put(entry.getKey(), declaredTypes);
+    }
+    return result;
+  }
+
+  /**
+   * Reads the kind of the class declared by a class file from the header of the file.
+   *
+   * @param in the content of a class file
+   * @return the kind of the class
+   * @throws IOException if the file cannot be read or is not a class file
+   */
+  private static TypeDeclarationScanner.Kind readKind(InputStream in) throws IOException {
+    DataInputStream data = new DataInputStream(in);
+    if (data.readInt() != 0xCAFEBABE) {
+      throw new IOException("not a class file");
+    }
+    // the minor and major versions
+    data.skipBytes(4);
+    // The constant pool has to be read to reach the access flags and the name of the superclass.
+    int constantPoolCount = data.readUnsignedShort();
+    @Nullable String[] utf8Constants = new String[constantPoolCount];
+    int[] classNameIndexes = new int[constantPoolCount];
+    for (int i = 1; i < constantPoolCount; i++) {
+      int tag = data.readUnsignedByte();
+      switch (tag) {
+        case 1: // Utf8
+          utf8Constants[i] = data.readUTF();
+          break;
+        case 7: // Class
+          classNameIndexes[i] = data.readUnsignedShort();
+          break;
+        case 8: // String
+        case 16: // MethodType
+        case 19: // Module
+        case 20: // Package
+          data.skipBytes(2);
+          break;
+        case 15: // MethodHandle
+          data.skipBytes(3);
+          break;
+        case 3: // Integer
+        case 4: // Float
+        case 9: // Fieldref
+        case 10: // Methodref
+        case 11: // InterfaceMethodref
+        case 12: // NameAndType
+        case 17: // Dynamic
+        case 18: // InvokeDynamic
+          data.skipBytes(4);
+          break;
+        case 5: // Long
+        case 6: // Double
+          data.skipBytes(8);
+          // These constants take up two entries.
+          i++;
+          break;
+        default:
+          throw new IOException("unknown constant pool tag: " + tag);
+      }
+    }
+    int accessFlags = data.readUnsignedShort();
+    // this_class
+    data.skipBytes(2);
+    int superclassIndex = data.readUnsignedShort();
+    if ((accessFlags & 0x2000) != 0) { // ACC_ANNOTATION
+      return TypeDeclarationScanner.Kind.ANNOTATION;
+    } else if ((accessFlags & 0x4000) != 0) { // ACC_ENUM
+      return TypeDeclarationScanner.Kind.ENUM;
+    } else if (superclassIndex > 0
+        && superclassIndex < constantPoolCount
+        && "java/lang/Record".equals(utf8Constants[classNameIndexes[superclassIndex]])) {
+      return TypeDeclarationScanner.Kind.RECORD;
+    }
+    return TypeDeclarationScanner.Kind.CLASS_OR_INTERFACE;
+  }
+}
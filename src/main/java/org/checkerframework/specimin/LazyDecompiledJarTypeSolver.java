@@ -0,0 +1,112 @@
+package org.checkerframework.specimin;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
+
+/**
+ * A type solver for the decompiled sources of a {@link LazyDecompiledJar}. It looks up types in the
+ * same way as JavaParser's JavaParserTypeSolver looks them up in a source directory, except that a
+ * class is decompiled when it is first looked up, rather than all classes up front. JavaParser's
+ * solver cannot be used for this, because it caches the files that it did not find.
+ */
+public class LazyDecompiledJarTypeSolver implements TypeSolver {
+
+  /** The jar in which to look up types. */
+  private final LazyDecompiledJar jar;
+
+  /** The parser for the decompiled files. */
+  private final JavaParser javaParser;
+
+  /** The parent of this solver. */
+  private @MonotonicNonNull TypeSolver parent;
+
+  /** Parsed files, keyed by their paths relative to the root. */
+  private final Map<String, Optional<CompilationUnit>> parsedFiles = new HashMap<>();
+
+  /**
+   * Creates a new solver.
+   *
+   * @param jar the jar in which to look up types
+   * @param parserConfiguration the configuration of the run's parser, which the decompiled files
+   *     are parsed with
+   */
+  public LazyDecompiledJarTypeSolver(
+      LazyDecompiledJar jar, ParserConfiguration parserConfiguration) {
+    this.jar = jar;
+    this.javaParser = new JavaParser(parserConfiguration);
+  }
+
+  /**
+   * Returns the files that were parsed successfully and are still cached.
+   *
+   * @return the parsed files
+   */
+  public List<CompilationUnit> getParsedFiles() {
+    List<CompilationUnit> result = new ArrayList<>(parsedFiles.size());
+    for (Optional<CompilationUnit> parsedFile : parsedFiles.values()) {
+      parsedFile.ifPresent(result::add);
+    }
+    return result;
+  }
+
+  @Override
+  @SuppressWarnings("nullness") // the TypeSolver interface allows a null parent
+  public TypeSolver getParent() {
+    return parent;
+  }
+
+  @Override
+  public void setParent(TypeSolver parent) {
+    if (this.parent != null) {
+      throw new IllegalStateException("This TypeSolver already has a parent.");
+    }
+    if (parent == this) {
+      throw new IllegalStateException("The parent of this TypeSolver cannot be itself.");
+    }
+    this.parent = parent;
+  }
+
+  @Override
+  public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+    return SyntheticSourceTypeSolver.solveInFiles(this, name, this::parse);
+  }
+
+  /**
+   * Parses a class of the jar, decompiling it first if needed, or retrieves it from the cache.
+   *
+   * @param relativePath the path of the source file of the class relative to the root
+   * @return the parsed file, or empty if the jar does not contain the class or it cannot be parsed
+   */
+  private Optional<CompilationUnit> parse(String relativePath) {
+    Optional<CompilationUnit> cached = parsedFiles.get(relativePath);
+    if (cached != null) {
+      return cached;
+    }
+    Optional<CompilationUnit> result = Optional.empty();
+    if (jar.contains(relativePath)) {
+      try {
+        Path sourceFile = jar.getSourceFile(relativePath);
+        if (sourceFile != null) {
+          result = javaParser.parse(sourceFile).getResult();
+        }
+      } catch (IOException e) {
+        throw new RuntimeException(
+            "cannot decompile " + relativePath + " from " + jar.getJarPath(), e);
+      }
+    }
+    parsedFiles.put(relativePath, result);
+    return result;
+  }
+}
@@ -0,0 +1,37 @@
+package org.checkerframework.specimin;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A map that keeps at most a fixed number of entries, dropping the entry that was used least
+ * recently when a new one would exceed the limit. It is not thread-safe. Specimin's long-lived
+ * modes use it for what they keep between minimizations, so that a process that sees many different
+ * projects does not keep every one of them in memory.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+final class LruCache<K, V> extends LinkedHashMap<K, V> {
+
+  /** The serial version of this class, which is never serialized. */
+  private static final long serialVersionUID = 1L;
+
+  /** The most entries that the map keeps. */
+  private final int maxSize;
+
+  /**
+   * Creates a new, empty map.
+   *
+   * @param maxSize the most entries that the map keeps
+   */
+  LruCache(int maxSize) {
+    super(16, 0.75f, true);
+    this.maxSize = maxSize;
+  }
+
+  @Override
+  protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+    return size() > maxSize;
+  }
+}
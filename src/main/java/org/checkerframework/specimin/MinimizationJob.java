@@ -0,0 +1,210 @@
+package org.checkerframework.specimin;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The arguments of a single minimization, as received by Specimin's line-oriented protocols (daemon
+ * requests and batch manifests). The JSON form is an object with the keys {@code root}, {@code
+ * targetFiles}, {@code jarPaths}, {@code targetMethods}, {@code targetFields}, {@code
+ * outputDirectory}, and {@code modularityModel}, mirroring the parameters of {@link
+ * SpeciminRunner#performMinimization(String, List, List, List, List, String, String, RootIndex,
+ * ClassPoolCache, MinimizationOptions)}, together with the keys of the {@link MinimizationOptions}
+ * of the job.
+ */
+public class MinimizationJob {
+
+  /** The root directory of the input files. */
+  private final String root;
+
+  /** The files that contain the target members, relative to the root. */
+  private final List<String> targetFiles;
+
+  /** Paths to relevant jar files and directories of class files. */
+  private final List<String> jarPaths;
+
+  /** The target methods. */
+  private final List<String> targetMethods;
+
+  /** The target fields. */
+  private final List<String> targetFields;
+
+  /** The directory for the output. */
+  private final String outputDirectory;
+
+  /** The code of the modularity model to use. */
+  private final String modularityModel;
+
+  /** The options of the run. */
+  private final MinimizationOptions options;
+
+  /**
+   * Creates a new job.
+   *
+   * @param root the root directory of the input files
+   * @param targetFiles the files that contain the target members
+   * @param jarPaths paths to relevant jar files and directories of class files
+   * @param targetMethods the target methods
+   * @param targetFields the target fields
+   * @param outputDirectory the directory for the output
+   * @param modularityModel the code of the modularity model to use
+   * @param options the options of the run
+   */
+  public MinimizationJob(
+      String root,
+      List<String> targetFiles,
+      List<String> jarPaths,
+      List<String> targetMethods,
+      List<String> targetFields,
+      String outputDirectory,
+      String modularityModel,
+      MinimizationOptions options) {
+    this.root = root;
+    this.targetFiles = targetFiles;
+    this.jarPaths = jarPaths;
+    this.targetMethods = targetMethods;
+    this.targetFields = targetFields;
+    this.outputDirectory = outputDirectory;
+    this.modularityModel = modularityModel;
+    this.options = options;
+  }
+
+  /**
+   * Reads a job from a parsed JSON object. A missing modularity model defaults to "cf", missing
+   * lists default to empty lists, and missing options keep their default values.
+   *
+   * @param params a parsed JSON object, as described in the class documentation
+   * @param defaultOptions the options of the job whose keys are missing, usually those given on the
+   *     command line
+   * @return the job
+   * @throws IllegalArgumentException if a value has the wrong type, or if the root, the target
+   *     files, or the output directory are missing
+   */
+  public static MinimizationJob fromJson(
+      Map<String, @Nullable Object> params, MinimizationOptions defaultOptions) {
+    String root = JsonUtil.getString(params, "root");
+    String outputDirectory = JsonUtil.getString(params, "outputDirectory");
+    String modularityModel = JsonUtil.getString(params, "modularityModel");
+    List<String> targetFiles = JsonUtil.getStringList(params, "targetFiles");
+    if (root == null || outputDirectory == null || targetFiles.isEmpty()) {
+      throw new IllegalArgumentException(
+          "a minimization requires \"root\", \"targetFiles\", and \"outputDirectory\"");
+    }
+    return new MinimizationJob(
+        root,
+        targetFiles,
+        JsonUtil.getStringList(params, "jarPaths"),
+        JsonUtil.getStringList(params, "targetMethods"),
+        JsonUtil.getStringList(params, "targetFields"),
+        outputDirectory,
+        modularityModel == null ? "cf" : modularityModel,
+        MinimizationOptions.fromJson(params, defaultOptions));
+  }
+
+  /**
+   * Returns the root directory of the input files.
+   *
+   * @return the root directory
+   */
+  public String getRoot() {
+    return root;
+  }
+
+  /**
+   * Returns the directory for the output.
+   *
+   * @return the output directory
+   */
+  public String getOutputDirectory() {
+    return outputDirectory;
+  }
+
+  /**
+   * Returns a key that is the same for two jobs iff they have the same source roots, and so can
+   * share the index built by {@link #buildRootIndex()}: the same root, jar files, and decompilation
+   * options.
+   *
+   * @return the key of the source roots of this job
+   */
+  public String getSourceRootsKey() {
+    return String.join(
+        "\0",
+        getNormalizedRoot(),
+        String.join("\0", jarPaths),
+        options.getDecompilationCacheDirectory(),
+        String.valueOf(options.isDecompilingLazily()),
+        String.valueOf(options.isDecompilingMethodBodies()));
+  }
+
+  /**
+   * Creates the source roots of this job, as SpeciminRunner does when it runs the job. Unless the
+   * job decompiles lazily, this decompiles every jar that is not in the decompilation cache yet.
+   *
+   * @return the source roots of this job
+   * @throws IOException if a jar cannot be read or decompiled
+   */
+  public SourceRoots createSourceRoots() throws IOException {
+    return SourceRoots.create(getNormalizedRoot(), jarPaths, options);
+  }
+
+  /**
+   * Builds the index of the classes of the source roots of this job. The index can be passed to
+   * {@link #run(RootIndex, ClassPoolCache)} of every job with the same {@link
+   * #getSourceRootsKey()}.
+   *
+   * @return the index of the source roots of this job
+   * @throws IOException if a source root cannot be read
+   */
+  public RootIndex buildRootIndex() throws IOException {
+    return RootIndex.build(createSourceRoots(), options.getIndexCacheDirectory());
+  }
+
+  /**
+   * Brings an index of the source roots of this job up to date with their contents (see {@link
+   * RootIndex#refresh(SourceRoots, String)}), for a caller that keeps indexes between jobs whose
+   * roots may change in between.
+   *
+   * @param previous an index built by {@link #buildRootIndex()} of this job or of a job with the
+   *     same {@link #getSourceRootsKey()}, or refreshed since
+   * @return the previous index if nothing changed, and otherwise a new, up-to-date index
+   * @throws IOException if a source root cannot be read
+   */
+  public RootIndex refreshRootIndex(RootIndex previous) throws IOException {
+    return previous.refresh(createSourceRoots(), options.getIndexCacheDirectory());
+  }
+
+  /**
+   * Returns the root directory with a trailing slash, as SpeciminRunner uses it.
+   *
+   * @return the root directory, ending with a slash
+   */
+  private String getNormalizedRoot() {
+    return root.endsWith("/") ? root : root + "/";
+  }
+
+  /**
+   * Runs this minimization.
+   *
+   * @param rootIndex the index of the source roots of this job, built by {@link #buildRootIndex()}
+   *     of this job or of a job with the same {@link #getSourceRootsKey()}, or null to build it
+   * @param classPoolCache the class pools kept between minimizations that run one at a time, or
+   *     null to read the JDK and the jar files afresh
+   * @throws IOException if there is an exception
+   */
+  public void run(@Nullable RootIndex rootIndex, @Nullable ClassPoolCache classPoolCache)
+      throws IOException {
+    SpeciminRunner.performMinimization(
+        root,
+        targetFiles,
+        jarPaths,
+        targetMethods,
+        targetFields,
+        outputDirectory,
+        modularityModel,
+        rootIndex,
+        classPoolCache,
+        options);
+  }
+}
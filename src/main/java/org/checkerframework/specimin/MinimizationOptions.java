@@ -0,0 +1,318 @@
+package org.checkerframework.specimin;
+
+import java.time.Duration;
+import java.util.Map;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The options that tune how one minimization runs, as opposed to what it minimizes. They belong to
+ * a single run rather than to the process, so that minimizations with different options can share a
+ * JVM, such as the requests of a {@link SpeciminDaemon} or the jobs of a {@link
+ * SpeciminBatchRunner}. Options are immutable: each {@code with} method returns a modified copy.
+ *
+ * <p>In JSON, the options are keys of the same object as the rest of a {@link MinimizationJob}:
+ * {@code decompilationCacheDirectory}, {@code decompileLazily}, {@code decompileMethodBodies},
+ * {@code release}, {@code maxIterations}, {@code timeBudget} (in seconds), {@code partialOutput},
+ * and {@code indexCacheDirectory}.
+ */
+public final class MinimizationOptions {
+
+  /** The options used when none are given. */
+  public static final MinimizationOptions DEFAULT = new MinimizationOptions();
+
+  /**
+   * The directory of the {@link DecompilationCache}, or null to use {@link
+   * DecompilationCache#getDefaultDirectory()}.
+   */
+  private @Nullable String decompilationCacheDirectory = null;
+
+  /** True iff the classes of jars are decompiled one at a time, when they are first needed. */
+  private boolean decompileLazily = false;
+
+  /** True iff jars are decompiled by Vineflower rather than turned into stubs. */
+  private boolean decompileMethodBodies = false;
+
+  /** The release of the JDK classes, or null for the release of the JDK that runs Specimin. */
+  private @Nullable Integer release = null;
+
+  /** The maximum number of iterations of the fixpoint loop, or null if there is no limit. */
+  private @Nullable Integer maxIterations = null;
+
+  /** The maximum time that the run may take before its fixpoint loop stops, or null. */
+  private @Nullable Duration timeBudget = null;
+
+  /** True iff the run checkpoints its files and writes partial output. */
+  private boolean partialOutput = false;
+
+  /** The directory of the on-disk root indexes, or null to not keep the root index on disk. */
+  private @Nullable String indexCacheDirectory = null;
+
+  /** Creates the default options. */
+  private MinimizationOptions() {}
+
+  /**
+   * Creates a copy of the given options, which a {@code with} method then modifies before returning
+   * it. The fields of options are never modified once they have been returned.
+   *
+   * @param other the options to copy
+   */
+  private MinimizationOptions(MinimizationOptions other) {
+    this.decompilationCacheDirectory = other.decompilationCacheDirectory;
+    this.decompileLazily = other.decompileLazily;
+    this.decompileMethodBodies = other.decompileMethodBodies;
+    this.release = other.release;
+    this.maxIterations = other.maxIterations;
+    this.timeBudget = other.timeBudget;
+    this.partialOutput = other.partialOutput;
+    this.indexCacheDirectory = other.indexCacheDirectory;
+  }
+
+  /**
+   * Reads options from a parsed JSON object. Each option that the object does not contain keeps its
+   * value in the given defaults, which are usually the options given on the command line.
+   *
+   * @param params a parsed JSON object, as described in the class documentation
+   * @param defaults the options to use for the keys that are missing
+   * @return the options
+   * @throws IllegalArgumentException if a value has the wrong type, or is not a valid value of its
+   *     option
+   */
+  public static MinimizationOptions fromJson(
+      Map<String, @Nullable Object> params, MinimizationOptions defaults) {
+    MinimizationOptions result = defaults;
+    if (params.containsKey("decompilationCacheDirectory")) {
+      result =
+          result.withDecompilationCacheDirectory(
+              JsonUtil.getString(params, "decompilationCacheDirectory"));
+    }
+    Boolean decompileLazily = JsonUtil.getBoolean(params, "decompileLazily");
+    if (decompileLazily != null) {
+      result = result.withDecompileLazily(decompileLazily);
+    }
+    Boolean decompileMethodBodies = JsonUtil.getBoolean(params, "decompileMethodBodies");
+    if (decompileMethodBodies != null) {
+      result = result.withDecompileMethodBodies(decompileMethodBodies);
+    }
+    if (params.containsKey("release")) {
+      result = result.withRelease(JsonUtil.getInteger(params, "release"));
+    }
+    if (params.containsKey("maxIterations")) {
+      result = result.withMaxIterations(JsonUtil.getInteger(params, "maxIterations"));
+    }
+    if (params.containsKey("timeBudget")) {
+      @Nullable Integer timeBudgetSeconds = JsonUtil.getInteger(params, "timeBudget");
+      result =
+          result.withTimeBudget(
+              timeBudgetSeconds == null ? null : Duration.ofSeconds(timeBudgetSeconds));
+    }
+    Boolean partialOutput = JsonUtil.getBoolean(params, "partialOutput");
+    if (partialOutput != null) {
+      result = result.withPartialOutput(partialOutput);
+    }
+    if (params.containsKey("indexCacheDirectory")) {
+      result = result.withIndexCacheDirectory(JsonUtil.getString(params, "indexCacheDirectory"));
+    }
+    return result;
+  }
+
+  /**
+   * Returns the directory of the decompilation cache.
+   *
+   * @return the directory of the decompilation cache
+   */
+  public String getDecompilationCacheDirectory() {
+    return decompilationCacheDirectory == null
+        ? DecompilationCache.getDefaultDirectory()
+        : decompilationCacheDirectory;
+  }
+
+  /**
+   * Returns a copy of these options with another directory of the decompilation cache, in which the
+   * decompiled sources of jar files are kept between runs.
+   *
+   * @param cacheDirectory the directory of the cache, or null to use the default directory
+   * @return the modified options
+   */
+  public MinimizationOptions withDecompilationCacheDirectory(@Nullable String cacheDirectory) {
+    MinimizationOptions result = new MinimizationOptions(this);
+    result.decompilationCacheDirectory = cacheDirectory;
+    return result;
+  }
+
+  /**
+   * Are the classes of jars decompiled one at a time, when they are first needed?
+   *
+   * @return true iff lazy mode is on
+   */
+  public boolean isDecompilingLazily() {
+    return decompileLazily;
+  }
+
+  /**
+   * Returns a copy of these options with lazy mode turned on or off. In lazy mode, SpeciminRunner
+   * decompiles only the classes of jars that a minimization actually needs, rather than every class
+   * of every jar (see {@link LazyDecompiledJar}).
+   *
+   * @param lazyMode true to decompile classes of jars only when they are first needed
+   * @return the modified options
+   */
+  public MinimizationOptions withDecompileLazily(boolean lazyMode) {
+    MinimizationOptions result = new MinimizationOptions(this);
+    result.decompileLazily = lazyMode;
+    return result;
+  }
+
+  /**
+   * Are jars decompiled with their method bodies by Vineflower, rather than turned into stubs by
+   * {@link BytecodeStubGenerator}?
+   *
+   * @return true iff method bodies are decompiled
+   */
+  public boolean isDecompilingMethodBodies() {
+    return decompileMethodBodies;
+  }
+
+  /**
+   * Returns a copy of these options that chooses whether jars are decompiled with their method
+   * bodies by Vineflower, or turned into stubs that have no method bodies, which is much faster.
+   *
+   * @param decompile true to decompile method bodies
+   * @return the modified options
+   */
+  public MinimizationOptions withDecompileMethodBodies(boolean decompile) {
+    MinimizationOptions result = new MinimizationOptions(this);
+    result.decompileMethodBodies = decompile;
+    return result;
+  }
+
+  /**
+   * Returns the release of the JDK classes that the target uses.
+   *
+   * @return the release, or null for the release of the JDK that runs Specimin
+   */
+  public @Nullable Integer getRelease() {
+    return release;
+  }
+
+  /**
+   * Returns a copy of these options with another release of the JDK classes, like javac's --release
+   * option. Both the type solvers and javac use the classes of that release.
+   *
+   * @param jdkRelease a release of Java no newer than the JDK that runs Specimin, such as 11, or
+   *     null for the release of the JDK that runs Specimin
+   * @return the modified options
+   * @throws IllegalArgumentException if the JDK that runs Specimin cannot provide the release
+   */
+  public MinimizationOptions withRelease(@Nullable Integer jdkRelease) {
+    if (jdkRelease != null) {
+      // Fail now rather than in the middle of a minimization.
+      JdkClassFiles.forRelease(jdkRelease);
+    }
+    MinimizationOptions result = new MinimizationOptions(this);
+    result.release = jdkRelease;
+    return result;
+  }
+
+  /**
+   * Returns the maximum number of iterations of the fixpoint loop.
+   *
+   * @return the maximum, or null if there is no limit
+   */
+  public @Nullable Integer getMaxIterations() {
+    return maxIterations;
+  }
+
+  /**
+   * Returns a copy of these options with another maximum number of iterations of the fixpoint loop
+   * (see {@link FixpointMonitor}).
+   *
+   * @param iterations the maximum, which must be positive, or null for no limit
+   * @return the modified options
+   * @throws IllegalArgumentException if the maximum is not positive
+   */
+  public MinimizationOptions withMaxIterations(@Nullable Integer iterations) {
+    if (iterations != null && iterations <= 0) {
+      throw new IllegalArgumentException(
+          "the maximum number of iterations must be positive: " + iterations);
+    }
+    MinimizationOptions result = new MinimizationOptions(this);
+    result.maxIterations = iterations;
+    return result;
+  }
+
+  /**
+   * Returns the maximum time that the run may take before its fixpoint loop stops.
+   *
+   * @return the time budget, or null if there is no limit
+   */
+  public @Nullable Duration getTimeBudget() {
+    return timeBudget;
+  }
+
+  /**
+   * Returns a copy of these options with another time budget. The time is counted from the
+   * beginning of the run (see {@link FixpointMonitor}). With partial output (see {@link
+   * PartialOutput}), a run that is still going when the time is up also stops at its next
+   * checkpoint after the loop.
+   *
+   * @param budget the maximum time, which must be positive, or null for no limit
+   * @return the modified options
+   * @throws IllegalArgumentException if the time budget is not positive
+   */
+  public MinimizationOptions withTimeBudget(@Nullable Duration budget) {
+    if (budget != null && (budget.isNegative() || budget.isZero())) {
+      throw new IllegalArgumentException("the time budget must be positive: " + budget);
+    }
+    MinimizationOptions result = new MinimizationOptions(this);
+    result.timeBudget = budget;
+    return result;
+  }
+
+  /**
+   * Does the run checkpoint its files and write partial output?
+   *
+   * @return true iff partial output is on
+   */
+  public boolean isPartialOutput() {
+    return partialOutput;
+  }
+
+  /**
+   * Returns a copy of these options with partial output turned on or off. With partial output, a
+   * run that fails or goes past its time budget writes the files of the last phase that it
+   * completed, and every run writes a status marker (see {@link PartialOutput}).
+   *
+   * @param enabled true to checkpoint the files of the run and write partial output
+   * @return the modified options
+   */
+  public MinimizationOptions withPartialOutput(boolean enabled) {
+    MinimizationOptions result = new MinimizationOptions(this);
+    result.partialOutput = enabled;
+    return result;
+  }
+
+  /**
+   * Returns the directory in which the index of the classes of the root is kept between runs.
+   *
+   * @return the directory of the on-disk root indexes, or null if the root index is not kept on
+   *     disk
+   */
+  public @Nullable String getIndexCacheDirectory() {
+    return indexCacheDirectory;
+  }
+
+  /**
+   * Returns a copy of these options with another directory of the on-disk root indexes. When a run
+   * builds the index of its root, it only scans the files that changed since the index in that
+   * directory was written (see {@link RootIndex#build(String, String)}).
+   *
+   * @param cacheDirectory the directory of the on-disk root indexes, or null to not keep the root
+   *     index on disk
+   * @return the modified options
+   */
+  public MinimizationOptions withIndexCacheDirectory(@Nullable String cacheDirectory) {
+    MinimizationOptions result = new MinimizationOptions(this);
+    result.indexCacheDirectory = cacheDirectory;
+    return result;
+  }
+}
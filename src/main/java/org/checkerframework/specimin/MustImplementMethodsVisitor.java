@@ -71,7 +71,7 @@ public class MustImplementMethodsVisitor extends SpeciminStateVisitor {
         || (overridden == null
             && overridesAnInterfaceMethod(method)
             && !isParentTargetAndInterfaceOrAbstract(method))) {
-      ResolvedMethodDeclaration resolvedMethod = method.resolve();
+      ResolvedMethodDeclaration resolvedMethod = resolutionCache.resolve(method);
       Map<String, ResolvedType> returnAndParamAndThrowTypes = new HashMap<>();
       try {
         returnAndParamAndThrowTypes.put(
@@ -81,7 +81,7 @@ public class MustImplementMethodsVisitor extends SpeciminStateVisitor {
           returnAndParamAndThrowTypes.put(param.describeType(), param.getType());
         }
         for (ReferenceType thrownException : method.getThrownExceptions()) {
-          ResolvedType resolvedException = thrownException.resolve();
+          ResolvedType resolvedException = resolutionCache.resolve(thrownException);
           returnAndParamAndThrowTypes.put(resolvedException.describe(), resolvedException);
         }
       } catch (UnsolvedSymbolException | UnsupportedOperationException e) {
@@ -179,7 +179,7 @@ public class MustImplementMethodsVisitor extends SpeciminStateVisitor {
     ResolvedMethodDeclaration resolved;
     String signature;
     try {
-      resolved = method.resolve();
+      resolved = resolutionCache.resolve(method);
       signature = resolved.getSignature();
     } catch (UnsolvedSymbolException | UnsupportedOperationException e) {
       // Some part of the signature isn't being preserved, so this shouldn't be preserved,
@@ -394,6 +394,7 @@ public class MustImplementMethodsVisitor extends SpeciminStateVisitor {
     methodBody.addStatement(superCall);
     ResolvedMethodDeclaration resolvedSuperCall = null;
     try {
+      // Not through the resolution cache: the call is temporary, so it is never resolved twice.
       resolvedSuperCall = superCall.resolve();
     } catch (Exception e) {
       // The current method is not overriding, thus the super call is unresolved.
@@ -0,0 +1,76 @@
+package org.checkerframework.specimin;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.resolution.cache.Cache;
+import com.github.javaparser.resolution.cache.CacheStats;
+import com.github.javaparser.symbolsolver.cache.DefaultCacheStats;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The cache of parsed files of a JavaParserTypeSolver. It caches the files just like the solver's
+ * own cache, but also lists them, which the solver's own cache cannot do, so that {@link
+ * GenerationalTypeSolver} can forget the types that JavaParser cached on their nodes.
+ */
+final class ParsedFilesCache implements Cache<Path, Optional<CompilationUnit>> {
+
+  /** The parsed files, keyed by their paths. */
+  private final Map<Path, Optional<CompilationUnit>> parsedFiles = new HashMap<>();
+
+  /**
+   * Returns the files that were parsed successfully.
+   *
+   * @return the parsed files
+   */
+  List<CompilationUnit> getParsedFiles() {
+    List<CompilationUnit> result = new ArrayList<>(parsedFiles.size());
+    for (Optional<CompilationUnit> parsedFile : parsedFiles.values()) {
+      parsedFile.ifPresent(result::add);
+    }
+    return result;
+  }
+
+  @Override
+  public void put(Path key, Optional<CompilationUnit> value) {
+    parsedFiles.put(key, value);
+  }
+
+  @Override
+  public Optional<Optional<CompilationUnit>> get(Path key) {
+    return Optional.ofNullable(parsedFiles.get(key));
+  }
+
+  @Override
+  public void remove(Path key) {
+    parsedFiles.remove(key);
+  }
+
+  @Override
+  public void removeAll() {
+    parsedFiles.clear();
+  }
+
+  @Override
+  public boolean contains(Path key) {
+    return parsedFiles.containsKey(key);
+  }
+
+  @Override
+  public long size() {
+    return parsedFiles.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return parsedFiles.isEmpty();
+  }
+
+  @Override
+  public CacheStats stats() {
+    return new DefaultCacheStats();
+  }
+}
@@ -0,0 +1,313 @@
+package org.checkerframework.specimin;
+
+import com.github.javaparser.ast.CompilationUnit;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The best-effort output of a minimization, for when it does not finish. When a run turns partial
+ * output on (see {@link MinimizationOptions#withPartialOutput(boolean)}), SpeciminRunner
+ * checkpoints the files of the run after each phase that changes them. If a later phase fails, or
+ * the run goes past its time budget (see {@link
+ * MinimizationOptions#withTimeBudget(java.time.Duration)}), the files of the last checkpoint are
+ * written to the output directory instead of the minimized program, so the work of the phases
+ * before it is not lost. A run that goes past its time budget is stopped at its next checkpoint, or
+ * earlier, between two files of a phase (see {@link #checkDeadline}).
+ *
+ * <p>The search for missing symbols is checkpointed too, at the end of an iteration of its fixpoint
+ * loop, so that a run that fails in the middle of a long search keeps the synthetic classes found
+ * so far. Since every checkpoint copies all the parsed files, the loop is checkpointed at most once
+ * every {@link #ITERATION_CHECKPOINT_INTERVAL}.
+ *
+ * <p>Whenever partial output is turned on, a run also writes a status marker, the file {@value
+ * #STATUS_FILE_NAME}, to its output directory. It is a JSON object whose {@code status} is {@code
+ * "complete"} if the run wrote the minimized program, {@code "partial"} if it wrote the files of a
+ * checkpoint, or {@code "failed"} if it failed before its first checkpoint. A partial or failed run
+ * also records the {@code reason}, {@code "failure"} or {@code "deadline"}, and the {@code error};
+ * a partial run records the {@code phase} of its checkpoint. If the search for missing symbols was
+ * stopped early by a budget, the marker has a {@code warning} that says so, whatever the status.
+ * The marker also records {@code javacCompilations}, the number of times that the run compiled its
+ * files with javac to correct the types of the synthetic classes.
+ */
+public class PartialOutput {
+
+  /** The name of the status marker in the output directory. */
+  public static final String STATUS_FILE_NAME = "specimin-status.json";
+
+  /** The minimum time between two checkpoints of the fixpoint loop. */
+  public static final Duration ITERATION_CHECKPOINT_INTERVAL = Duration.ofSeconds(10);
+
+  /** True iff this run checkpoints its files and writes partial output. */
+  private final boolean enabled;
+
+  /** The directory for the output of this run. */
+  private final String outputDirectory;
+
+  /** The absolute paths of the target files of this run. */
+  private final Set<String> targetFilesAbsolutePaths = new HashSet<>();
+
+  /** The phase of the last checkpoint, or null if there has been none. */
+  private @Nullable String checkpointPhase = null;
+
+  /** The files of the last checkpoint, keyed by their paths. Copies that no phase visits. */
+  private Map<String, CompilationUnit> checkpointFiles = new HashMap<>();
+
+  /** Files of the last checkpoint that are kept as source code, keyed by their paths. */
+  private Map<String, String> checkpointSources = new HashMap<>();
+
+  /**
+   * The value of {@link System#nanoTime()} at the last checkpoint of the fixpoint loop, or null if
+   * there has been none.
+   */
+  private @Nullable Long lastIterationCheckpointNanos = null;
+
+  /** A warning for the status marker, or null if there is none. */
+  private @Nullable String warning = null;
+
+  /** The number of times that the run compiled its files with javac. */
+  private int javacCompilationCount = 0;
+
+  /**
+   * Creates the partial output of a run that begins now.
+   *
+   * @param outputDirectory the directory for the output of the run
+   * @param targetFiles the target files of the run
+   * @param enabled true to checkpoint the files of the run and write partial output, or false to
+   *     make this object do nothing
+   */
+  public PartialOutput(String outputDirectory, List<String> targetFiles, boolean enabled) {
+    this.enabled = enabled;
+    this.outputDirectory = outputDirectory;
+    for (String targetFile : targetFiles) {
+      targetFilesAbsolutePaths.add(new File(targetFile).getAbsolutePath());
+    }
+  }
+
+  /** Thrown when the run has gone past its time budget, to stop it there. */
+  public static class DeadlineException extends RuntimeException {
+
+    /** The serial version UID, which is required since RuntimeException is serializable. */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates a new exception.
+     *
+     * @param message the detail message, which says where the run was stopped
+     */
+    public DeadlineException(String message) {
+      super(message);
+    }
+  }
+
+  /**
+   * Records the files of a run at the end of a phase. Later phases may modify the files freely,
+   * since they are copied. Does nothing if partial output is off for the run.
+   *
+   * @param phase the name of the phase, for the status marker
+   * @param parsedTargetFiles the parsed files of the run, keyed by their paths
+   * @param otherSources files that have not been parsed yet but belong in the output, keyed by
+   *     their paths; the parsed files take precedence over them
+   * @param fixpointMonitor the monitor of the run, which knows its time budget
+   * @throws DeadlineException if the run has gone past its time budget, so that it stops with this
+   *     checkpoint
+   */
+  public void checkpoint(
+      String phase,
+      Map<String, CompilationUnit> parsedTargetFiles,
+      Map<String, String> otherSources,
+      FixpointMonitor fixpointMonitor) {
+    if (!enabled) {
+      return;
+    }
+    record(phase, parsedTargetFiles, otherSources);
+    if (fixpointMonitor.isPastDeadline()) {
+      throw new DeadlineException(
+          "Specimin went past its time budget, and stopped after the phase " + phase);
+    }
+  }
+
+  /**
+   * Records the files of a run at the end of an iteration of the fixpoint loop, unless the loop was
+   * checkpointed less than {@link #ITERATION_CHECKPOINT_INTERVAL} ago. Never stops the run, since
+   * the loop itself stops once the run is past its time budget. Does nothing if partial output is
+   * off for the run.
+   *
+   * @param parsedTargetFiles the parsed files of the run, keyed by their paths
+   * @param syntheticSources the synthetic classes found so far, keyed by their paths
+   */
+  public void checkpointIteration(
+      Map<String, CompilationUnit> parsedTargetFiles, Map<String, String> syntheticSources) {
+    if (!enabled) {
+      return;
+    }
+    long now = System.nanoTime();
+    if (lastIterationCheckpointNanos != null
+        && now - lastIterationCheckpointNanos < ITERATION_CHECKPOINT_INTERVAL.toNanos()) {
+      return;
+    }
+    lastIterationCheckpointNanos = now;
+    record("solving-symbols", parsedTargetFiles, syntheticSources);
+  }
+
+  /**
+   * Stops the run in the middle of a phase if it has gone past its time budget, so that the files
+   * of the last checkpoint are written. Does nothing if partial output is off for the run, since it
+   * would then write nothing at all; such a run only stops its search for missing symbols.
+   *
+   * @param phase the name of the phase that is running
+   * @param fixpointMonitor the monitor of the run, which knows its time budget
+   * @throws DeadlineException if the run has gone past its time budget
+   */
+  public void checkDeadline(String phase, FixpointMonitor fixpointMonitor) {
+    if (enabled && fixpointMonitor.isPastDeadline()) {
+      throw new DeadlineException(
+          "Specimin went past its time budget, and stopped during the phase " + phase);
+    }
+  }
+
+  /**
+   * Copies the files of a run as the last checkpoint.
+   *
+   * @param phase the name of the phase, for the status marker
+   * @param parsedTargetFiles the parsed files of the run, keyed by their paths
+   * @param otherSources files that have not been parsed yet but belong in the output, keyed by
+   *     their paths; the parsed files take precedence over them
+   */
+  private void record(
+      String phase,
+      Map<String, CompilationUnit> parsedTargetFiles,
+      Map<String, String> otherSources) {
+    checkpointPhase = phase;
+    checkpointFiles = new HashMap<>();
+    for (Map.Entry<String, CompilationUnit> file : parsedTargetFiles.entrySet()) {
+      checkpointFiles.put(file.getKey(), file.getValue().clone());
+    }
+    checkpointSources = new HashMap<>(otherSources);
+    checkpointSources.keySet().removeAll(checkpointFiles.keySet());
+  }
+
+  /**
+   * Records a warning for the status marker, such as that the search for missing symbols stopped
+   * early.
+   *
+   * @param warning the warning
+   */
+  public void setWarning(String warning) {
+    this.warning = warning;
+  }
+
+  /**
+   * Records, for the status marker, the number of times that the run compiled its files with javac.
+   *
+   * @param javacCompilationCount the number of compilations
+   */
+  public void setJavacCompilationCount(int javacCompilationCount) {
+    this.javacCompilationCount = javacCompilationCount;
+  }
+
+  /**
+   * Writes the status marker of a run that wrote the minimized program. Does nothing if partial
+   * output is off for the run.
+   *
+   * @throws IOException if the marker cannot be written
+   */
+  public void writeComplete() throws IOException {
+    if (!enabled) {
+      return;
+    }
+    Map<String, @Nullable Object> status = new LinkedHashMap<>();
+    status.put("status", "complete");
+    writeStatus(status);
+  }
+
+  /**
+   * Writes the files of the last checkpoint and the status marker of a run that did not finish.
+   * Does nothing if partial output is off for the run. Never throws: a failure to write is added to
+   * the suppressed exceptions of the reason why the run did not finish.
+   *
+   * @param reason the exception that stopped the run, which is a {@link DeadlineException} if the
+   *     run went past its time budget
+   */
+  public void writePartial(Throwable reason) {
+    if (!enabled) {
+      return;
+    }
+    Map<String, @Nullable Object> status = new LinkedHashMap<>();
+    status.put("status", checkpointPhase == null ? "failed" : "partial");
+    status.put("reason", reason instanceof DeadlineException ? "deadline" : "failure");
+    status.put("error", reason.toString());
+    try {
+      if (checkpointPhase != null) {
+        status.put("phase", checkpointPhase);
+        writeCheckpoint();
+      }
+      writeStatus(status);
+    } catch (IOException e) {
+      reason.addSuppressed(e);
+    }
+  }
+
+  /**
+   * Writes the files of the last checkpoint to the output directory, except the files of the JDK
+   * that are not targets, like the minimized program.
+   *
+   * @throws IOException if a file cannot be written
+   */
+  private void writeCheckpoint() throws IOException {
+    Map<String, String> output = new HashMap<>(checkpointSources);
+    for (Map.Entry<String, CompilationUnit> file : checkpointFiles.entrySet()) {
+      output.put(file.getKey(), file.getValue().toString());
+    }
+    for (Map.Entry<String, String> file : output.entrySet()) {
+      String path = file.getKey();
+      if ((path.startsWith("java/") || path.startsWith("java\\"))
+          && !targetFilesAbsolutePaths.contains(new File(path).getAbsolutePath())) {
+        continue;
+      }
+      write(Path.of(outputDirectory, path), file.getValue());
+    }
+  }
+
+  /**
+   * Writes a status marker, with the warning if there is one and the number of compilations.
+   *
+   * @param status the fields of the marker
+   * @throws IOException if the marker cannot be written
+   */
+  private void writeStatus(Map<String, @Nullable Object> status) throws IOException {
+    if (warning != null) {
+      status.put("warning", warning);
+    }
+    status.put("javacCompilations", javacCompilationCount);
+    write(Path.of(outputDirectory, STATUS_FILE_NAME), JsonUtil.toJson(status) + "\n");
+  }
+
+  /**
+   * Writes a file, creating its directory if it does not exist.
+   *
+   * @param path the path of the file
+   * @param content the content of the file
+   * @throws IOException if the file cannot be written
+   */
+  private static void write(Path path, String content) throws IOException {
+    Path directory = path.getParent();
+    if (directory != null) {
+      Files.createDirectories(directory);
+    }
+    try (PrintWriter writer = new PrintWriter(path.toFile(), StandardCharsets.UTF_8)) {
+      writer.print(content);
+    }
+  }
+}
@@ -1,6 +1,5 @@
 package org.checkerframework.specimin;
 
-import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
@@ -192,7 +191,7 @@ public class PrunerVisitor extends SpeciminStateVisitor {
 
   @Override
   public Visitable visit(EnumDeclaration decl, Void p) {
-    String qualifiedName = decl.resolve().getQualifiedName();
+    String qualifiedName = resolutionCache.resolve(decl).getQualifiedName();
     if (!usedTypeElements.contains(qualifiedName)) {
       decl.remove();
       return decl;
@@ -220,7 +219,7 @@ public class PrunerVisitor extends SpeciminStateVisitor {
       functionInterfaceAnnotationExpr.remove();
     }
     decl = minimizeTypeParameters(decl);
-    String classQualifiedName = decl.resolve().getQualifiedName();
+    String classQualifiedName = resolutionCache.resolve(decl).getQualifiedName();
     if (!usedTypeElements.contains(classQualifiedName)
         && !isUsedMethodParameterType(classQualifiedName)) {
       decl.remove();
@@ -246,7 +245,7 @@ public class PrunerVisitor extends SpeciminStateVisitor {
   public Visitable visit(EnumConstantDeclaration enumConstantDeclaration, Void p) {
     ResolvedEnumConstantDeclaration resolved;
     try {
-      resolved = enumConstantDeclaration.resolve();
+      resolved = resolutionCache.resolve(enumConstantDeclaration);
     } catch (UnsolvedSymbolException | UnsupportedOperationException e) {
       JavaParserUtil.removeNode(enumConstantDeclaration);
       return enumConstantDeclaration;
@@ -264,7 +263,7 @@ public class PrunerVisitor extends SpeciminStateVisitor {
     try {
       // resolved() will only check if the return type is solvable
       // getQualifiedSignature() will also check if the parameters are solvable
-      signature = methodDecl.resolve().getQualifiedSignature();
+      signature = resolutionCache.resolve(methodDecl).getQualifiedSignature();
     } catch (UnsolvedSymbolException e) {
       // The current class is employed by the target methods, although not all of its members are
       // utilized. It's not surprising for unused members to remain unresolved.
@@ -279,7 +278,7 @@ public class PrunerVisitor extends SpeciminStateVisitor {
     if (insideFunctionalInterface && usedMembers.contains(signature)) {
       if (methodDecl.getBody().isPresent()) {
         // avoid introducing unsolved symbols into the final output.
-        methodDecl.setBody(StaticJavaParser.parseBlock("{ throw new java.lang.Error(); }"));
+        methodDecl.setBody(JavaParserUtil.parseBlock("{ throw new java.lang.Error(); }"));
       }
       return methodDecl;
     }
@@ -288,7 +287,7 @@ public class PrunerVisitor extends SpeciminStateVisitor {
       boolean isMethodInsideInterface = isInsideInterface(methodDecl);
       // do nothing if methodDecl is just a method signature in a class.
       if (methodDecl.getBody().isPresent() || isMethodInsideInterface) {
-        methodDecl.setBody(StaticJavaParser.parseBlock("{ throw new java.lang.Error(); }"));
+        methodDecl.setBody(JavaParserUtil.parseBlock("{ throw new java.lang.Error(); }"));
         // static and default keywords can not be together.
         if (isMethodInsideInterface && !methodDecl.isStatic()) {
           methodDecl.setDefault(true);
@@ -311,7 +310,7 @@ public class PrunerVisitor extends SpeciminStateVisitor {
     try {
       // resolved() will only check if the return type is solvable
       // getQualifiedSignature() will also check if the parameters are solvable
-      qualifiedSignature = constructorDecl.resolve().getQualifiedSignature();
+      qualifiedSignature = resolutionCache.resolve(constructorDecl).getQualifiedSignature();
     } catch (RuntimeException e) {
       // The current class is employed by the target methods, although not all of its members are
       // utilized. It's not surprising for unused members to remain unresolved.
@@ -329,8 +328,8 @@ public class PrunerVisitor extends SpeciminStateVisitor {
     // enums, but right now we don't remove any enum constants in related classes, so
     // we need to preserve all constructors to retain compilability.
     if (usedMembers.contains(qualifiedSignature) || JavaParserUtil.isInEnum(constructorDecl)) {
-      if (!needToPreserveSuperOrThisCall(constructorDecl.resolve())) {
-        constructorDecl.setBody(StaticJavaParser.parseBlock("{ throw new java.lang.Error(); }"));
+      if (!needToPreserveSuperOrThisCall(resolutionCache.resolve(constructorDecl))) {
+        constructorDecl.setBody(JavaParserUtil.parseBlock("{ throw new java.lang.Error(); }"));
         return constructorDecl;
       }
 
@@ -347,7 +346,7 @@ public class PrunerVisitor extends SpeciminStateVisitor {
       }
 
       // not sure if we will ever get to this line. So this line is merely for the peace of mind.
-      constructorDecl.setBody(StaticJavaParser.parseBlock("{ throw new java.lang.Error(); }"));
+      constructorDecl.setBody(JavaParserUtil.parseBlock("{ throw new java.lang.Error(); }"));
       return constructorDecl;
     }
 
@@ -367,7 +366,7 @@ public class PrunerVisitor extends SpeciminStateVisitor {
     while (iterator.hasNext()) {
       VariableDeclarator declarator = iterator.next();
       try {
-        declarator.resolve();
+        resolutionCache.resolve(declarator);
       } catch (UnsolvedSymbolException e) {
         // The current class is employed by the target methods, although not all of its members are
         // utilized. It's not surprising for unused members to remain unresolved.
@@ -408,7 +407,7 @@ public class PrunerVisitor extends SpeciminStateVisitor {
    * @return true if the above statement is true.
    */
   private boolean isAResolvedYetStuckMethod(MethodDeclaration method) {
-    ResolvedMethodDeclaration decl = method.resolve();
+    ResolvedMethodDeclaration decl = resolutionCache.resolve(method);
     String methodQualifiedName = decl.getQualifiedSignature();
     String methodSimpleName = method.getNameAsString();
     int numberOfParams = decl.getNumberOfParams();
@@ -500,7 +499,7 @@ public class PrunerVisitor extends SpeciminStateVisitor {
     for (ClassOrInterfaceType type : inputList) {
       ResolvedType resolvedType;
       try {
-        resolvedType = type.resolve();
+        resolvedType = resolutionCache.resolve(type);
       } catch (UnsolvedSymbolException | IllegalStateException e) {
         continue;
       }
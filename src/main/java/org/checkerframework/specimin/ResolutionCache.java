@@ -0,0 +1,267 @@
+package org.checkerframework.specimin;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.ConstructorDeclaration;
+import com.github.javaparser.ast.body.EnumConstantDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.AnnotationExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.MethodReferenceExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.stmt.ExplicitConstructorInvocationStmt;
+import com.github.javaparser.ast.type.Type;
+import com.github.javaparser.resolution.declarations.ResolvedAnnotationDeclaration;
+import com.github.javaparser.resolution.declarations.ResolvedConstructorDeclaration;
+import com.github.javaparser.resolution.declarations.ResolvedEnumConstantDeclaration;
+import com.github.javaparser.resolution.declarations.ResolvedFieldDeclaration;
+import com.github.javaparser.resolution.declarations.ResolvedMethodDeclaration;
+import com.github.javaparser.resolution.declarations.ResolvedParameterDeclaration;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.declarations.ResolvedValueDeclaration;
+import com.github.javaparser.resolution.types.ResolvedType;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The results of resolving the nodes of the ASTs of one run, shared by every visitor that runs
+ * after the fixpoint loop of {@link UnsolvedSymbolVisitor}. Once that loop has ended, neither the
+ * ASTs of the nodes that are still in use nor the type solver change any more, so resolving a node
+ * a second time would give the same result; JavaParser's overload resolution is expensive, and the
+ * visitors of the later phases resolve the same method calls, names, and types again and again.
+ *
+ * <p>The results are keyed by the identity of the node rather than by {@link Node#equals(Object)},
+ * which compares the structure of nodes: two calls that look the same in different places can
+ * resolve differently. Failures are remembered as well as successes, and a node whose resolution
+ * failed throws the same exception again.
+ *
+ * <p>Do not use this cache before the fixpoint loop has ended: until then, synthetic classes are
+ * still being added, so the result of resolving a node can change.
+ */
+public final class ResolutionCache {
+
+  /**
+   * The result of resolving each node that has been resolved, or a {@link Failure} if resolving it
+   * threw an exception. The results of {@link Expression#calculateResolvedType()} are in {@link
+   * #expressionTypes} instead, since an expression can be resolved in both ways.
+   */
+  private final Map<Node, Object> resolved = new IdentityHashMap<>();
+
+  /**
+   * The type of each expression whose type has been calculated, or a {@link Failure} if calculating
+   * it threw an exception.
+   */
+  private final Map<Node, Object> expressionTypes = new IdentityHashMap<>();
+
+  /** A failed resolution: the exception that it threw. */
+  private static final class Failure {
+    /** The exception. */
+    private final RuntimeException exception;
+
+    /**
+     * Creates a new failure.
+     *
+     * @param exception the exception
+     */
+    private Failure(RuntimeException exception) {
+      this.exception = exception;
+    }
+  }
+
+  /**
+   * Resolves a method call.
+   *
+   * @param call a method call
+   * @return the method that it calls
+   */
+  public ResolvedMethodDeclaration resolve(MethodCallExpr call) {
+    return lookUp(resolved, call, MethodCallExpr::resolve);
+  }
+
+  /**
+   * Resolves a method reference.
+   *
+   * @param reference a method reference
+   * @return the method that it refers to
+   */
+  public ResolvedMethodDeclaration resolve(MethodReferenceExpr reference) {
+    return lookUp(resolved, reference, MethodReferenceExpr::resolve);
+  }
+
+  /**
+   * Resolves a name.
+   *
+   * @param name a name
+   * @return the variable, field, or parameter that it refers to
+   */
+  public ResolvedValueDeclaration resolve(NameExpr name) {
+    return lookUp(resolved, name, NameExpr::resolve);
+  }
+
+  /**
+   * Resolves a field access.
+   *
+   * @param fieldAccess a field access
+   * @return the field that it accesses
+   */
+  public ResolvedValueDeclaration resolve(FieldAccessExpr fieldAccess) {
+    return lookUp(resolved, fieldAccess, FieldAccessExpr::resolve);
+  }
+
+  /**
+   * Resolves an object creation.
+   *
+   * @param creation an object creation expression
+   * @return the constructor that it calls
+   */
+  public ResolvedConstructorDeclaration resolve(ObjectCreationExpr creation) {
+    return lookUp(resolved, creation, ObjectCreationExpr::resolve);
+  }
+
+  /**
+   * Resolves a call to a super or this constructor.
+   *
+   * @param call a super() or this() call
+   * @return the constructor that it calls
+   */
+  public ResolvedConstructorDeclaration resolve(ExplicitConstructorInvocationStmt call) {
+    return lookUp(resolved, call, ExplicitConstructorInvocationStmt::resolve);
+  }
+
+  /**
+   * Resolves a method declaration.
+   *
+   * @param method a method declaration
+   * @return the resolved method
+   */
+  public ResolvedMethodDeclaration resolve(MethodDeclaration method) {
+    return lookUp(resolved, method, MethodDeclaration::resolve);
+  }
+
+  /**
+   * Resolves a constructor declaration.
+   *
+   * @param constructor a constructor declaration
+   * @return the resolved constructor
+   */
+  public ResolvedConstructorDeclaration resolve(ConstructorDeclaration constructor) {
+    return lookUp(resolved, constructor, ConstructorDeclaration::resolve);
+  }
+
+  /**
+   * Resolves a type declaration, such as a class, interface, or enum declaration.
+   *
+   * @param declaration a type declaration
+   * @return the resolved type
+   */
+  public ResolvedReferenceTypeDeclaration resolve(TypeDeclaration<?> declaration) {
+    return lookUp(resolved, declaration, TypeDeclaration::resolve);
+  }
+
+  /**
+   * Resolves a field declaration.
+   *
+   * @param field a field declaration
+   * @return the resolved field
+   */
+  public ResolvedFieldDeclaration resolve(FieldDeclaration field) {
+    return lookUp(resolved, field, FieldDeclaration::resolve);
+  }
+
+  /**
+   * Resolves a variable declarator, such as one of the variables of a field declaration.
+   *
+   * @param variable a variable declarator
+   * @return the resolved variable
+   */
+  public ResolvedValueDeclaration resolve(VariableDeclarator variable) {
+    return lookUp(resolved, variable, VariableDeclarator::resolve);
+  }
+
+  /**
+   * Resolves a parameter declaration.
+   *
+   * @param parameter a parameter declaration
+   * @return the resolved parameter
+   */
+  public ResolvedParameterDeclaration resolve(Parameter parameter) {
+    return lookUp(resolved, parameter, Parameter::resolve);
+  }
+
+  /**
+   * Resolves an enum constant declaration.
+   *
+   * @param constant an enum constant declaration
+   * @return the resolved constant
+   */
+  public ResolvedEnumConstantDeclaration resolve(EnumConstantDeclaration constant) {
+    return lookUp(resolved, constant, EnumConstantDeclaration::resolve);
+  }
+
+  /**
+   * Resolves an annotation.
+   *
+   * @param annotation an annotation
+   * @return the declaration of the annotation type
+   */
+  public ResolvedAnnotationDeclaration resolve(AnnotationExpr annotation) {
+    return lookUp(resolved, annotation, AnnotationExpr::resolve);
+  }
+
+  /**
+   * Resolves a type.
+   *
+   * @param type a type, such as a class or interface type
+   * @return the resolved type
+   */
+  public ResolvedType resolve(Type type) {
+    return lookUp(resolved, type, Type::resolve);
+  }
+
+  /**
+   * Calculates the type of an expression.
+   *
+   * @param expression an expression
+   * @return its type
+   */
+  public ResolvedType calculateResolvedType(Expression expression) {
+    return lookUp(expressionTypes, expression, Expression::calculateResolvedType);
+  }
+
+  /**
+   * Looks up the result of resolving a node, resolving it if it has not been resolved yet.
+   *
+   * @param <N> the type of the node
+   * @param <R> the type of the result
+   * @param results the results of one kind of resolution, keyed by node
+   * @param node the node
+   * @param resolver resolves the node; every node in {@code results} was resolved by the same kind
+   *     of resolver, so its result has type {@code R}
+   * @return the result of resolving the node
+   */
+  @SuppressWarnings("unchecked") // see the documentation of resolver
+  private static <N extends Node, R> R lookUp(
+      Map<Node, Object> results, N node, Function<N, R> resolver) {
+    @Nullable Object result = results.get(node);
+    if (result == null) {
+      try {
+        result = resolver.apply(node);
+      } catch (RuntimeException e) {
+        result = new Failure(e);
+      }
+      results.put(node, result);
+    }
+    if (result instanceof Failure) {
+      throw ((Failure) result).exception;
+    }
+    return (R) result;
+  }
+}
@@ -0,0 +1,189 @@
+package org.checkerframework.specimin;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.MarkerAnnotationExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.MethodReferenceExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.NormalAnnotationExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.expr.SingleMemberAnnotationExpr;
+import com.github.javaparser.ast.nodeTypes.NodeWithOptionalScope;
+import com.github.javaparser.ast.nodeTypes.NodeWithScope;
+import com.github.javaparser.ast.stmt.ExplicitConstructorInvocationStmt;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * A resolution-only pass over the target files, made before the fixpoint loop of SpeciminRunner. It
+ * resolves every type, method call, name, field access, object creation, method reference, explicit
+ * constructor call, and annotation of the target files, and creates no synthetic class.
+ *
+ * <p>If all of them resolve, and every type that the resolutions looked up is declared in a target
+ * file or in the JDK, then nothing that the targets can reach is missing or lives in another file,
+ * so {@link UnsolvedSymbolVisitor} would neither create a synthetic class nor add a target file,
+ * and the fixpoint loop can be skipped altogether. The check is conservative: it visits the whole
+ * target files rather than only what the targets use, and any failure, of whatever kind, sends the
+ * run through the fixpoint loop as usual.
+ */
+public class ResolutionPrepassVisitor extends VoidVisitorAdapter<Void> {
+
+  /** True until a node fails to resolve. */
+  private boolean allResolved = true;
+
+  /**
+   * Checks whether the target files resolve without any synthetic class and without any file but
+   * themselves and the JDK.
+   *
+   * @param targetFiles the parsed target files, which are not modified
+   * @param typeSolver the type solver of the run, which records the types that are looked up
+   * @param existingClassesToFilePath the file of each class in the source roots, by qualified name
+   * @param targetFilePaths the absolute, normalized paths of the target files
+   * @return true iff the fixpoint loop can be skipped
+   */
+  public static boolean resolvesWithoutSyntheticClasses(
+      Collection<CompilationUnit> targetFiles,
+      GenerationalTypeSolver typeSolver,
+      Map<String, Path> existingClassesToFilePath,
+      Set<Path> targetFilePaths) {
+    ResolutionPrepassVisitor visitor = new ResolutionPrepassVisitor();
+    typeSolver.startRecordingLookups();
+    Set<String> lookups;
+    try {
+      for (CompilationUnit cu : targetFiles) {
+        cu.accept(visitor, null);
+        if (!visitor.allResolved) {
+          return false;
+        }
+      }
+    } finally {
+      lookups = typeSolver.stopRecordingLookups();
+    }
+    for (String name : lookups) {
+      if (!typeSolver.tryToSolveType(name).isSolved()) {
+        // JavaParser tries several names for each simple name; only the ones it found matter.
+        continue;
+      }
+      Path file = existingClassesToFilePath.get(name);
+      if (file == null ? !JavaLangUtils.inJdkPackage(name) : !targetFilePaths.contains(file)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void visit(ClassOrInterfaceType node, Void arg) {
+    // The scope of a qualified type, such as "java.util" in "java.util.List", may be a package, and
+    // is resolved along with the type.
+    if (!isScopeOfParent(node)) {
+      check(node::resolve);
+    }
+    super.visit(node, arg);
+  }
+
+  @Override
+  public void visit(MethodCallExpr node, Void arg) {
+    check(() -> node.resolve().getReturnType());
+    super.visit(node, arg);
+  }
+
+  @Override
+  public void visit(NameExpr node, Void arg) {
+    // A name that is the scope of a call or of a field access may be a class or a package, and is
+    // resolved along with its parent.
+    if (!isScopeOfParent(node)) {
+      check(() -> node.resolve().getType());
+    }
+    super.visit(node, arg);
+  }
+
+  @Override
+  public void visit(FieldAccessExpr node, Void arg) {
+    if (!isScopeOfParent(node)) {
+      check(() -> node.resolve().getType());
+    }
+    super.visit(node, arg);
+  }
+
+  @Override
+  public void visit(ObjectCreationExpr node, Void arg) {
+    check(node::resolve);
+    super.visit(node, arg);
+  }
+
+  @Override
+  public void visit(MethodReferenceExpr node, Void arg) {
+    check(node::resolve);
+    super.visit(node, arg);
+  }
+
+  @Override
+  public void visit(ExplicitConstructorInvocationStmt node, Void arg) {
+    check(node::resolve);
+    super.visit(node, arg);
+  }
+
+  @Override
+  public void visit(MarkerAnnotationExpr node, Void arg) {
+    check(node::resolve);
+    super.visit(node, arg);
+  }
+
+  @Override
+  public void visit(NormalAnnotationExpr node, Void arg) {
+    check(node::resolve);
+    super.visit(node, arg);
+  }
+
+  @Override
+  public void visit(SingleMemberAnnotationExpr node, Void arg) {
+    check(node::resolve);
+    super.visit(node, arg);
+  }
+
+  /**
+   * Runs a resolution, unless an earlier one has already failed, and records whether it failed.
+   *
+   * @param resolution the resolution
+   */
+  private void check(Runnable resolution) {
+    if (!allResolved) {
+      return;
+    }
+    try {
+      resolution.run();
+    } catch (RuntimeException e) {
+      // Whatever the failure, the fixpoint loop deals with it.
+      allResolved = false;
+    }
+  }
+
+  /**
+   * Is a node the scope of its parent, such as "a.b" in "a.b.c()"?
+   *
+   * @param node a node
+   * @return true iff the parent of the node has the node as its scope
+   */
+  private static boolean isScopeOfParent(Node node) {
+    Optional<Node> parent = node.getParentNode();
+    if (parent.isEmpty()) {
+      return false;
+    }
+    if (parent.get() instanceof NodeWithScope) {
+      return ((NodeWithScope<?>) parent.get()).getScope() == node;
+    }
+    if (parent.get() instanceof NodeWithOptionalScope) {
+      Optional<?> scope = ((NodeWithOptionalScope<?>) parent.get()).getScope();
+      return scope.isPresent() && scope.get() == node;
+    }
+    return false;
+  }
+}
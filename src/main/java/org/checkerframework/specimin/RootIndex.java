@@ -0,0 +1,633 @@
+package org.checkerframework.specimin;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.specimin.TypeDeclarationScanner.DeclaredType;
+
+/**
+ * An index of the classes declared in the Java files under a root directory. Building the index
+ * requires reading every file under the root, which is expensive on large codebases, so an index is
+ * immutable once built and can be shared by any number of minimizations over the same root (see
+ * {@link SpeciminBatchRunner}). An index can also be kept on disk, so that later runs over the same
+ * root only scan the files that changed (see {@link #build(String, String)}), and an index kept in
+ * memory can be brought up to date the same way (see {@link #refresh(SourceRoots, String)}).
+ */
+public class RootIndex {
+
+  /** The version of the format of index files. Change it whenever the format changes. */
+  private static final int INDEX_FILE_VERSION = 1;
+
+  /** Matches the names of directories that can be packages. */
+  private static final Pattern JAVA_IDENTIFIER =
+      Pattern.compile("\\p{javaJavaIdentifierStart}\\p{javaJavaIdentifierPart}*");
+
+  /**
+   * The set of Java classes in the original codebase mapped with their corresponding Java files.
+   */
+  private final Map<String, Path> existingClassesToFilePath;
+
+  /**
+   * This map connects the fully-qualified names of non-primary classes with the fully-qualified
+   * names of their corresponding primary classes. A primary class is a class that has the same name
+   * as the Java file where the class is declared.
+   */
+  private final Map<String, String> nonPrimaryClassesToPrimaryClass;
+
+  /**
+   * The files scanned to build this index, keyed by the directory that contains them and then by
+   * their paths relative to it, so that {@link #refresh(SourceRoots, String)} only scans the files
+   * that changed since.
+   */
+  private final Map<String, Map<String, IndexedFile>> scannedFiles;
+
+  /** The indexes of the lazily decompiled jars of this index, keyed by their directories. */
+  private final Map<String, RootIndex> jarIndexes;
+
+  /**
+   * Creates a new index. Use {@link #build(String)} instead.
+   *
+   * @param existingClassesToFilePath map from classes to the files that declare them
+   * @param nonPrimaryClassesToPrimaryClass map from non-primary classes to their primary classes
+   * @param scannedFiles the files scanned to build the index, keyed by directory and path
+   * @param jarIndexes the indexes of the lazily decompiled jars, keyed by their directories
+   */
+  private RootIndex(
+      Map<String, Path> existingClassesToFilePath,
+      Map<String, String> nonPrimaryClassesToPrimaryClass,
+      Map<String, Map<String, IndexedFile>> scannedFiles,
+      Map<String, RootIndex> jarIndexes) {
+    this.existingClassesToFilePath = Collections.unmodifiableMap(existingClassesToFilePath);
+    this.nonPrimaryClassesToPrimaryClass =
+        Collections.unmodifiableMap(nonPrimaryClassesToPrimaryClass);
+    this.scannedFiles = scannedFiles;
+    this.jarIndexes = jarIndexes;
+  }
+
+  /**
+   * Scans every Java file under the given root and indexes the classes and enums it declares. The
+   * files are only scanned for their type declarations (see {@link TypeDeclarationScanner}), not
+   * parsed, and they are scanned in parallel.
+   *
+   * @param root the root directory
+   * @return the index of the root
+   * @throws IOException if the root cannot be read
+   */
+  public static RootIndex build(String root) throws IOException {
+    return build(root, null);
+  }
+
+  /**
+   * Indexes the classes and enums declared in the Java files under the given root, like {@link
+   * #build(String)}. If a cache directory is given, the types declared in each file are also stored
+   * in an index file there, so that a later build over the same root only scans the files that were
+   * added or whose size or modification time changed since.
+   *
+   * @param root the root directory
+   * @param cacheDirectory the directory of the index files, or null to scan every file
+   * @return the index of the root
+   * @throws IOException if the root cannot be read, or the index file cannot be written
+   */
+  public static RootIndex build(String root, @Nullable String cacheDirectory) throws IOException {
+    Map<String, IndexedFile> files = scanDirectory(root, cacheDirectory, null);
+    Map<String, Path> existingClassesToFilePath = new HashMap<>();
+    Map<String, String> nonPrimaryClassesToPrimaryClass = new HashMap<>();
+    indexDirectory(root, files, existingClassesToFilePath, nonPrimaryClassesToPrimaryClass);
+    return new RootIndex(
+        existingClassesToFilePath, nonPrimaryClassesToPrimaryClass, Map.of(root, files), Map.of());
+  }
+
+  /**
+   * Scans the Java files under a root for the types that they declare, except for the files whose
+   * size and modification time are the same as when they were last scanned. If a cache directory is
+   * given, the scanned files are also stored in an index file there.
+   *
+   * @param root the root directory
+   * @param cacheDirectory the directory of the index files, or null
+   * @param previousFiles the files of the root when it was last scanned by this process, or null to
+   *     read them from the index file of the root, if any
+   * @return the files under the root, keyed by their paths relative to it; this is previousFiles
+   *     itself if no file was added, removed, or changed since
+   * @throws IOException if the root cannot be read, or the index file cannot be written
+   */
+  private static Map<String, IndexedFile> scanDirectory(
+      String root,
+      @Nullable String cacheDirectory,
+      @Nullable Map<String, IndexedFile> previousFiles)
+      throws IOException {
+    Path rootPath = Path.of(root);
+    Path absoluteRoot = rootPath.toAbsolutePath().normalize();
+    @Nullable Path indexFile =
+        cacheDirectory == null ? null : getIndexFile(Path.of(cacheDirectory), absoluteRoot);
+    Map<String, IndexedFile> reusableFiles =
+        previousFiles != null
+            ? previousFiles
+            : indexFile == null ? new HashMap<>() : readIndexFile(indexFile, absoluteRoot);
+    Map<Path, BasicFileAttributes> javaFiles = listJavaFiles(rootPath);
+    List<IndexedFile> indexedFiles;
+    AtomicInteger reusedFileCount = new AtomicInteger();
+    try {
+      indexedFiles =
+          javaFiles.entrySet().parallelStream()
+              .map(
+                  entry -> {
+                    String relativePath =
+                        rootPath.relativize(entry.getKey()).toString().replace('\\', '/');
+                    long size = entry.getValue().size();
+                    long modifiedTime =
+                        entry.getValue().lastModifiedTime().to(TimeUnit.NANOSECONDS);
+                    IndexedFile previous = reusableFiles.get(relativePath);
+                    if (previous != null
+                        && previous.size == size
+                        && previous.modifiedTime == modifiedTime) {
+                      reusedFileCount.incrementAndGet();
+                      return previous;
+                    }
+                    return new IndexedFile(
+                        relativePath, size, modifiedTime, scanFile(entry.getKey()));
+                  })
+              .collect(Collectors.toList());
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    // The previous files are up to date iff every one of them was reused as it was.
+    if (reusedFileCount.get() == indexedFiles.size()
+        && reusableFiles.size() == indexedFiles.size()) {
+      return reusableFiles;
+    }
+    if (indexFile != null) {
+      writeIndexFile(indexFile, absoluteRoot, indexedFiles);
+    }
+    Map<String, IndexedFile> result = new HashMap<>();
+    for (IndexedFile indexedFile : indexedFiles) {
+      result.put(indexedFile.relativePath, indexedFile);
+    }
+    return result;
+  }
+
+  /**
+   * Adds the classes of the scanned files of a directory to the maps of an index.
+   *
+   * @param directory the directory
+   * @param files the files under the directory, keyed by their paths relative to it
+   * @param existingClassesToFilePath map from classes to the files that declare them
+   * @param nonPrimaryClassesToPrimaryClass map from non-primary classes to their primary classes
+   */
+  private static void indexDirectory(
+      String directory,
+      Map<String, IndexedFile> files,
+      Map<String, Path> existingClassesToFilePath,
+      Map<String, String> nonPrimaryClassesToPrimaryClass) {
+    Path absoluteRoot = Path.of(directory).toAbsolutePath().normalize();
+    for (IndexedFile indexedFile : files.values()) {
+      indexFile(
+          absoluteRoot,
+          indexedFile.relativePath,
+          indexedFile.declaredTypes,
+          existingClassesToFilePath,
+          nonPrimaryClassesToPrimaryClass);
+    }
+  }
+
+  /**
+   * Indexes the classes declared in all the source roots of a run, like {@link #build(String,
+   * String)}, and combines the indexes. A class declared in more than one source root is indexed at
+   * the first of them, the same way that the type solver and javac would find it. The classes of a
+   * lazily decompiled jar are indexed from the headers of its class files, without decompiling
+   * them; they are indexed at the files into which they would be decompiled.
+   *
+   * @param sourceRoots the source roots of the run
+   * @param cacheDirectory the directory of the index files, or null to scan every file
+   * @return the combined index of the source roots
+   * @throws IOException if a source root cannot be read, or an index file cannot be written
+   */
+  public static RootIndex build(SourceRoots sourceRoots, @Nullable String cacheDirectory)
+      throws IOException {
+    return update(null, sourceRoots, cacheDirectory);
+  }
+
+  /**
+   * Brings this index up to date with the contents of the source roots that it was built from, for
+   * an index that is kept in memory between minimizations whose source roots may change, such as
+   * those of a {@link SpeciminDaemon}. Like {@link #build(String, String)}, only the files that
+   * were added, or whose size or modification time changed, since this index was built are scanned.
+   * The index itself is immutable, so a new index is returned if anything changed.
+   *
+   * @param sourceRoots the source roots of the run, which must have the same directories as those
+   *     that this index was built from
+   * @param cacheDirectory the directory of the index files, or null to not keep them on disk
+   * @return this index if nothing changed, and otherwise a new, up-to-date index
+   * @throws IOException if a source root cannot be read, or an index file cannot be written
+   */
+  public RootIndex refresh(SourceRoots sourceRoots, @Nullable String cacheDirectory)
+      throws IOException {
+    return update(this, sourceRoots, cacheDirectory);
+  }
+
+  /**
+   * Indexes the classes declared in all the source roots of a run, reusing what a previous index of
+   * the same source roots found in the files that did not change since.
+   *
+   * @param previous the previous index of the source roots, or null
+   * @param sourceRoots the source roots of the run
+   * @param cacheDirectory the directory of the index files, or null to scan every file
+   * @return the previous index if nothing changed, and otherwise a new index
+   * @throws IOException if a source root cannot be read, or an index file cannot be written
+   */
+  private static RootIndex update(
+      @Nullable RootIndex previous, SourceRoots sourceRoots, @Nullable String cacheDirectory)
+      throws IOException {
+    boolean changed = previous == null;
+    Map<String, Map<String, IndexedFile>> scannedFiles = new LinkedHashMap<>();
+    for (String directory : sourceRoots.getCompleteDirectories()) {
+      @Nullable Map<String, IndexedFile> previousFiles =
+          previous == null ? null : previous.scannedFiles.get(directory);
+      Map<String, IndexedFile> files = scanDirectory(directory, cacheDirectory, previousFiles);
+      changed |= files != previousFiles;
+      scannedFiles.put(directory, files);
+    }
+    Map<String, RootIndex> jarIndexes = new LinkedHashMap<>();
+    for (LazyDecompiledJar jar : sourceRoots.getLazyDecompiledJars()) {
+      @Nullable RootIndex previousJarIndex =
+          previous == null ? null : previous.jarIndexes.get(jar.getDirectory());
+      // The directory of a jar file in the decompilation cache is derived from its contents, so its
+      // classes are the same as before. A directory of class files may have been recompiled.
+      RootIndex jarIndex =
+          previousJarIndex != null && !ClassDirectoryTypeSolver.isClassDirectory(jar.getJarPath())
+              ? previousJarIndex
+              : indexJar(jar);
+      changed |=
+          previousJarIndex == null
+              || !previousJarIndex.existingClassesToFilePath.equals(
+                  jarIndex.existingClassesToFilePath);
+      jarIndexes.put(jar.getDirectory(), jarIndex);
+    }
+    if (previous != null && !changed) {
+      return previous;
+    }
+
+    Map<String, Path> existingClassesToFilePath = new HashMap<>();
+    Map<String, String> nonPrimaryClassesToPrimaryClass = new HashMap<>();
+    for (Map.Entry<String, Map<String, IndexedFile>> entry : scannedFiles.entrySet()) {
+      Map<String, Path> directoryClassesToFilePath = new HashMap<>();
+      Map<String, String> directoryNonPrimaryClassesToPrimaryClass = new HashMap<>();
+      indexDirectory(
+          entry.getKey(),
+          entry.getValue(),
+          directoryClassesToFilePath,
+          directoryNonPrimaryClassesToPrimaryClass);
+      addAbsent(
+          directoryClassesToFilePath,
+          directoryNonPrimaryClassesToPrimaryClass,
+          existingClassesToFilePath,
+          nonPrimaryClassesToPrimaryClass);
+    }
+    for (RootIndex jarIndex : jarIndexes.values()) {
+      addAbsent(
+          jarIndex.existingClassesToFilePath,
+          jarIndex.nonPrimaryClassesToPrimaryClass,
+          existingClassesToFilePath,
+          nonPrimaryClassesToPrimaryClass);
+    }
+    return new RootIndex(
+        existingClassesToFilePath, nonPrimaryClassesToPrimaryClass, scannedFiles, jarIndexes);
+  }
+
+  /**
+   * Indexes the classes of a lazily decompiled jar from the headers of its class files, without
+   * decompiling them. They are indexed at the files into which they would be decompiled.
+   *
+   * @param jar the jar
+   * @return the index of the jar
+   * @throws IOException if the jar cannot be read
+   */
+  private static RootIndex indexJar(LazyDecompiledJar jar) throws IOException {
+    Path absoluteDirectory = Path.of(jar.getDirectory()).toAbsolutePath().normalize();
+    Map<String, Path> jarClassesToFilePath = new HashMap<>();
+    Map<String, String> jarNonPrimaryClassesToPrimaryClass = new HashMap<>();
+    for (Map.Entry<String, List<DeclaredType>> entry : jar.getDeclaredTypes().entrySet()) {
+      indexFile(
+          absoluteDirectory,
+          entry.getKey(),
+          entry.getValue(),
+          jarClassesToFilePath,
+          jarNonPrimaryClassesToPrimaryClass);
+    }
+    return new RootIndex(
+        jarClassesToFilePath, jarNonPrimaryClassesToPrimaryClass, Map.of(), Map.of());
+  }
+
+  /**
+   * Adds the classes of a Java file to the maps of an index.
+   *
+   * @param absoluteRoot the absolute, normalized path of the directory that contains the file
+   * @param relativePath the path of the file relative to that directory, using "/" as the separator
+   * @param declaredTypes the types declared in the file
+   * @param existingClassesToFilePath map from classes to the files that declare them
+   * @param nonPrimaryClassesToPrimaryClass map from non-primary classes to their primary classes
+   */
+  private static void indexFile(
+      Path absoluteRoot,
+      String relativePath,
+      List<DeclaredType> declaredTypes,
+      Map<String, Path> existingClassesToFilePath,
+      Map<String, String> nonPrimaryClassesToPrimaryClass) {
+    Path pathOfCurrentJavaFile = absoluteRoot.resolve(relativePath).normalize();
+    String fileName = relativePath.substring(relativePath.lastIndexOf('/') + 1);
+    String primaryTypeName = fileName.substring(0, fileName.length() - ".java".length());
+    String primaryTypeQualifiedName = "";
+    for (DeclaredType declaredType : declaredTypes) {
+      String qualifiedName = declaredType.getQualifiedName();
+      if (declaredType.isTopLevel()
+          && qualifiedName != null
+          && declaredType.getSimpleName().equals(primaryTypeName)) {
+        primaryTypeQualifiedName = qualifiedName;
+        break;
+      }
+    }
+    for (DeclaredType declaredType : declaredTypes) {
+      String declaredClassQualifiedName = declaredType.getQualifiedName();
+      if (declaredClassQualifiedName == null) {
+        // a local class
+        continue;
+      }
+      if (declaredType.getKind() == TypeDeclarationScanner.Kind.CLASS_OR_INTERFACE) {
+        existingClassesToFilePath.put(declaredClassQualifiedName, pathOfCurrentJavaFile);
+        // which means this class is not a primary class, and there is a primary class.
+        if (!"".equals(primaryTypeQualifiedName)
+            && !declaredClassQualifiedName.equals(primaryTypeQualifiedName)) {
+          nonPrimaryClassesToPrimaryClass.put(declaredClassQualifiedName, primaryTypeQualifiedName);
+        }
+      } else if (declaredType.getKind() == TypeDeclarationScanner.Kind.ENUM) {
+        existingClassesToFilePath.put(declaredClassQualifiedName, pathOfCurrentJavaFile);
+      }
+    }
+  }
+
+  /**
+   * Adds the classes of one source root to the maps of an index, except for the classes that are
+   * already in them.
+   *
+   * @param addedClassesToFilePath map from the classes to add to the files that declare them
+   * @param addedNonPrimaryClassesToPrimaryClass map from the non-primary classes to add to their
+   *     primary classes
+   * @param existingClassesToFilePath map from classes to the files that declare them
+   * @param nonPrimaryClassesToPrimaryClass map from non-primary classes to their primary classes
+   */
+  private static void addAbsent(
+      Map<String, Path> addedClassesToFilePath,
+      Map<String, String> addedNonPrimaryClassesToPrimaryClass,
+      Map<String, Path> existingClassesToFilePath,
+      Map<String, String> nonPrimaryClassesToPrimaryClass) {
+    for (Map.Entry<String, Path> entry : addedClassesToFilePath.entrySet()) {
+      if (existingClassesToFilePath.putIfAbsent(entry.getKey(), entry.getValue()) == null) {
+        String primaryClass = addedNonPrimaryClassesToPrimaryClass.get(entry.getKey());
+        if (primaryClass != null) {
+          nonPrimaryClassesToPrimaryClass.put(entry.getKey(), primaryClass);
+        }
+      }
+    }
+  }
+
+  /**
+   * Lists the Java files under a root directory. Like JavaParser's SourceRoot, this does not enter
+   * hidden directories or directories whose names are not Java identifiers, since they cannot be
+   * packages.
+   *
+   * @param root the root directory
+   * @return the Java files under the root, with their attributes, in the order they were visited
+   * @throws IOException if the root cannot be read
+   */
+  private static Map<Path, BasicFileAttributes> listJavaFiles(Path root) throws IOException {
+    Map<Path, BasicFileAttributes> javaFiles = new LinkedHashMap<>();
+    Files.walkFileTree(
+        root,
+        new SimpleFileVisitor<Path>() {
+          @Override
+          public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+              throws IOException {
+            Path dirName = dir.getFileName();
+            if (!dir.equals(root)
+                && (Files.isHidden(dir)
+                    || dirName == null
+                    || !JAVA_IDENTIFIER.matcher(dirName.toString()).matches())) {
+              return FileVisitResult.SKIP_SUBTREE;
+            }
+            return FileVisitResult.CONTINUE;
+          }
+
+          @Override
+          public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+            if (!attrs.isDirectory() && file.toString().endsWith(".java")) {
+              javaFiles.put(file, attrs);
+            }
+            return FileVisitResult.CONTINUE;
+          }
+        });
+    return javaFiles;
+  }
+
+  /**
+   * Finds the types declared in a Java file.
+   *
+   * @param file a Java file
+   * @return the types it declares
+   * @throws UncheckedIOException if the file cannot be read
+   */
+  private static List<DeclaredType> scanFile(Path file) {
+    try {
+      return TypeDeclarationScanner.scan(
+          new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Returns the index file of a root in a cache directory. Its name is derived from a hash of the
+   * path of the root, so that one cache directory can serve many roots.
+   *
+   * @param cacheDirectory the cache directory
+   * @param absoluteRoot the absolute, normalized path of the root
+   * @return the index file of the root
+   */
+  private static Path getIndexFile(Path cacheDirectory, Path absoluteRoot) {
+    try {
+      byte[] hash =
+          MessageDigest.getInstance("SHA-256")
+              .digest(absoluteRoot.toString().getBytes(StandardCharsets.UTF_8));
+      return cacheDirectory.resolve("root-index-" + HexFormat.of().formatHex(hash) + ".bin");
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException("SHA-256 is not supported by this JVM", e);
+    }
+  }
+
+  /**
+   * Reads the index file of a root. A missing, outdated, or unreadable index file is not an error:
+   * it just means that every file has to be scanned.
+   *
+   * @param indexFile the index file
+   * @param absoluteRoot the absolute, normalized path of the root
+   * @return the files in the index file, keyed by their paths relative to the root
+   */
+  private static Map<String, IndexedFile> readIndexFile(Path indexFile, Path absoluteRoot) {
+    Map<String, IndexedFile> result = new HashMap<>();
+    if (!Files.exists(indexFile)) {
+      return result;
+    }
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+      if (in.readInt() != INDEX_FILE_VERSION || !in.readUTF().equals(absoluteRoot.toString())) {
+        return result;
+      }
+      TypeDeclarationScanner.Kind[] kinds = TypeDeclarationScanner.Kind.values();
+      int fileCount = in.readInt();
+      for (int i = 0; i < fileCount; i++) {
+        String relativePath = in.readUTF();
+        long size = in.readLong();
+        long modifiedTime = in.readLong();
+        int typeCount = in.readInt();
+        List<DeclaredType> declaredTypes = new ArrayList<>(typeCount);
+        for (int j = 0; j < typeCount; j++) {
+          @Nullable String qualifiedName = in.readBoolean() ? in.readUTF() : null;
+          String simpleName = in.readUTF();
+          int kind = in.readUnsignedByte();
+          if (kind >= kinds.length) {
+            throw new IOException("unknown kind of type: " + kind);
+          }
+          declaredTypes.add(
+              new DeclaredType(qualifiedName, simpleName, kinds[kind], in.readBoolean()));
+        }
+        result.put(relativePath, new IndexedFile(relativePath, size, modifiedTime, declaredTypes));
+      }
+      return result;
+    } catch (IOException e) {
+      return new HashMap<>();
+    }
+  }
+
+  /**
+   * Writes the index file of a root. The file is written under a temporary name and then moved into
+   * place, so that concurrent runs over the same root never see a partial index file.
+   *
+   * @param indexFile the index file
+   * @param absoluteRoot the absolute, normalized path of the root
+   * @param indexedFiles the files under the root
+   * @throws IOException if the index file cannot be written
+   */
+  private static void writeIndexFile(
+      Path indexFile, Path absoluteRoot, List<IndexedFile> indexedFiles) throws IOException {
+    Path cacheDirectory = indexFile.toAbsolutePath().getParent();
+    if (cacheDirectory == null) {
+      throw new IOException("invalid index file: " + indexFile);
+    }
+    Files.createDirectories(cacheDirectory);
+    Path temporaryFile = Files.createTempFile(cacheDirectory, "root-index-", ".tmp");
+    try {
+      try (DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+        out.writeInt(INDEX_FILE_VERSION);
+        out.writeUTF(absoluteRoot.toString());
+        out.writeInt(indexedFiles.size());
+        for (IndexedFile indexedFile : indexedFiles) {
+          out.writeUTF(indexedFile.relativePath);
+          out.writeLong(indexedFile.size);
+          out.writeLong(indexedFile.modifiedTime);
+          out.writeInt(indexedFile.declaredTypes.size());
+          for (DeclaredType declaredType : indexedFile.declaredTypes) {
+            String qualifiedName = declaredType.getQualifiedName();
+            out.writeBoolean(qualifiedName != null);
+            if (qualifiedName != null) {
+              out.writeUTF(qualifiedName);
+            }
+            out.writeUTF(declaredType.getSimpleName());
+            out.writeByte(declaredType.getKind().ordinal());
+            out.writeBoolean(declaredType.isTopLevel());
+          }
+        }
+      }
+      Files.move(
+          temporaryFile,
+          indexFile,
+          StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+  }
+
+  /**
+   * Returns the map from the fully-qualified name of each class in the root to its file.
+   *
+   * @return an unmodifiable map
+   */
+  public Map<String, Path> getExistingClassesToFilePath() {
+    return existingClassesToFilePath;
+  }
+
+  /**
+   * Returns the map from the fully-qualified name of each non-primary class to the fully-qualified
+   * name of the primary class of the same file.
+   *
+   * @return an unmodifiable map
+   */
+  public Map<String, String> getNonPrimaryClassesToPrimaryClass() {
+    return nonPrimaryClassesToPrimaryClass;
+  }
+
+  /** A Java file under a root, as recorded in the index file of the root. */
+  private static final class IndexedFile {
+
+    /** The path of the file relative to the root, using "/" as the separator. */
+    private final String relativePath;
+
+    /** The size of the file, in bytes, when it was scanned. */
+    private final long size;
+
+    /** The modification time of the file, in nanoseconds since the epoch, when it was scanned. */
+    private final long modifiedTime;
+
+    /** The types declared in the file. */
+    private final List<DeclaredType> declaredTypes;
+
+    /**
+     * Creates a new indexed file.
+     *
+     * @param relativePath the path of the file relative to the root
+     * @param size the size of the file when it was scanned
+     * @param modifiedTime the modification time of the file when it was scanned
+     * @param declaredTypes the types declared in the file
+     */
+    IndexedFile(
+        String relativePath, long size, long modifiedTime, List<DeclaredType> declaredTypes) {
+      this.relativePath = relativePath;
+      this.size = size;
+      this.modifiedTime = modifiedTime;
+      this.declaredTypes = declaredTypes;
+    }
+  }
+}
@@ -25,7 +25,7 @@ public class SolveMethodOverridingVisitor extends SpeciminStateVisitor {
   public Visitable visit(MethodDeclaration method, Void p) {
     String methodSignature;
     try {
-      methodSignature = method.resolve().getQualifiedSignature();
+      methodSignature = resolutionCache.resolve(method).getQualifiedSignature();
     } catch (UnsolvedSymbolException | UnsupportedOperationException e) {
       // this method is not used by target methods, so it is unresolved.
       return super.visit(method, p);
@@ -0,0 +1,173 @@
+package org.checkerframework.specimin;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The places in which one run of Specimin looks up source files, in order of precedence: the root
+ * directory, and then the decompiled sources of each jar file. The sources of a jar are either a
+ * directory of the {@link DecompilationCache} that contains the whole decompiled jar, or, in lazy
+ * mode, a {@link LazyDecompiledJar} whose classes are decompiled when they are first looked up. The
+ * classes of a directory of class files are always decompiled when they are first looked up.
+ */
+public class SourceRoots {
+
+  /** The root directory, ending with a separator. */
+  private final String root;
+
+  /** The directories that contain the sources of whole decompiled jars. */
+  private final List<String> decompiledDirectories;
+
+  /** The jars whose classes are decompiled when they are first needed. */
+  private final List<LazyDecompiledJar> lazyDecompiledJars;
+
+  /**
+   * Creates new source roots.
+   *
+   * @param root the root directory, ending with a separator
+   * @param decompiledDirectories the directories that contain the sources of whole decompiled jars
+   * @param lazyDecompiledJars the jars whose classes are decompiled when they are first needed
+   */
+  private SourceRoots(
+      String root, List<String> decompiledDirectories, List<LazyDecompiledJar> lazyDecompiledJars) {
+    this.root = root;
+    this.decompiledDirectories = decompiledDirectories;
+    this.lazyDecompiledJars = lazyDecompiledJars;
+  }
+
+  /**
+   * Creates the source roots of a run. Unless the run decompiles lazily (see {@link
+   * MinimizationOptions#isDecompilingLazily()}), every jar that is not in the cache yet is
+   * decompiled.
+   *
+   * @param root the root directory, ending with a separator
+   * @param jarPaths the jar files and directories of class files used by the run
+   * @param options the options of the run, which choose the decompilation cache and its mode
+   * @return the source roots of the run
+   * @throws IOException if a jar cannot be read or decompiled
+   */
+  public static SourceRoots create(String root, List<String> jarPaths, MinimizationOptions options)
+      throws IOException {
+    List<String> eagerJarPaths = new ArrayList<>();
+    List<LazyDecompiledJar> lazyDecompiledJars = new ArrayList<>();
+    for (String jarPath : jarPaths) {
+      // A class directory may change between runs, so it is not decompiled as a whole.
+      if (options.isDecompilingLazily() || ClassDirectoryTypeSolver.isClassDirectory(jarPath)) {
+        lazyDecompiledJars.add(new LazyDecompiledJar(jarPath, options));
+      } else {
+        eagerJarPaths.add(jarPath);
+      }
+    }
+    return new SourceRoots(
+        root, DecompilationCache.getSourceDirectories(eagerJarPaths, options), lazyDecompiledJars);
+  }
+
+  /**
+   * Returns the root directory.
+   *
+   * @return the root directory, ending with a separator
+   */
+  public String getRoot() {
+    return root;
+  }
+
+  /**
+   * Returns the directories that contain every one of their source files: the root, followed by the
+   * directories of whole decompiled jars. These are the directories that javac may use as its
+   * source path.
+   *
+   * @return the complete directories, in order of precedence
+   */
+  public List<String> getCompleteDirectories() {
+    List<String> result = new ArrayList<>();
+    result.add(root);
+    result.addAll(decompiledDirectories);
+    return result;
+  }
+
+  /**
+   * Returns all the directories in which source files are, or will be once they are decompiled.
+   *
+   * @return the complete directories, followed by the directories of the lazily decompiled jars
+   */
+  public List<String> getDirectories() {
+    List<String> result = getCompleteDirectories();
+    for (LazyDecompiledJar jar : lazyDecompiledJars) {
+      result.add(jar.getDirectory());
+    }
+    return result;
+  }
+
+  /**
+   * Returns the jars whose classes are decompiled when they are first needed.
+   *
+   * @return the lazily decompiled jars, in order of precedence
+   */
+  public List<LazyDecompiledJar> getLazyDecompiledJars() {
+    return Collections.unmodifiableList(lazyDecompiledJars);
+  }
+
+  /**
+   * Returns the jar files whose classes are decompiled when they are first needed. Javac reads
+   * their class files instead, since their sources are not all available.
+   *
+   * @return the paths of the lazily decompiled jars, in order of precedence
+   */
+  public List<String> getLazyDecompiledJarPaths() {
+    List<String> result = new ArrayList<>();
+    for (LazyDecompiledJar jar : lazyDecompiledJars) {
+      result.add(jar.getJarPath());
+    }
+    return result;
+  }
+
+  /**
+   * Is there a source file with the given path in any of the source roots? Nothing is decompiled to
+   * answer this.
+   *
+   * @param relativePath the path of the file relative to the root
+   * @return true iff a source root contains the file
+   */
+  public boolean contains(String relativePath) {
+    for (String directory : getCompleteDirectories()) {
+      if (Files.exists(Path.of(directory, relativePath))) {
+        return true;
+      }
+    }
+    for (LazyDecompiledJar jar : lazyDecompiledJars) {
+      if (jar.contains(relativePath)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Finds the source file with the given path in the first source root that contains it,
+   * decompiling it if it is in a lazily decompiled jar.
+   *
+   * @param relativePath the path of the file relative to the root
+   * @return the source file, or null if no source root contains it
+   * @throws IOException if the file cannot be decompiled
+   */
+  public @Nullable Path findFile(String relativePath) throws IOException {
+    for (String directory : getCompleteDirectories()) {
+      Path file = Path.of(directory, relativePath);
+      if (Files.exists(file)) {
+        return file;
+      }
+    }
+    for (LazyDecompiledJar jar : lazyDecompiledJars) {
+      Path file = jar.getSourceFile(relativePath);
+      if (file != null) {
+        return file;
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,244 @@
+package org.checkerframework.specimin;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Runs many independent minimizations described by a manifest. The manifest is a JSON Lines file:
+ * each non-blank line is a JSON object describing one job, in the format of {@link
+ * MinimizationJob}. Jobs run on a bounded pool of worker threads. Before any job runs, the {@link
+ * RootIndex} of each distinct root and jars of the manifest is built on the workers, and all jobs
+ * over that root and jars then share it read-only, so the root is indexed once rather than once per
+ * job.
+ *
+ * <p>For each job, one JSON object is written as a line of the result stream when the job finishes
+ * (so results may be out of manifest order). Each result contains the job's 1-based line number in
+ * the manifest ({@code job}), its {@code status} ("success" or "failure"), its {@code
+ * outputDirectory}, the time it spent waiting for a worker ({@code queuedMillis}) and running
+ * ({@code elapsedMillis}), and, for failures, an {@code error} message. Lines that are not valid
+ * jobs produce failure results without running anything.
+ */
+public class SpeciminBatchRunner {
+
+  /** The number of worker threads. */
+  private final int jobs;
+
+  /** The destination of result lines. */
+  private final PrintStream out;
+
+  /** The options of the jobs that do not set them. */
+  private final MinimizationOptions defaultOptions;
+
+  /**
+   * Creates a new batch runner whose jobs use the default options unless they set them.
+   *
+   * @param jobs the number of worker threads; must be positive
+   * @param out the destination of result lines
+   */
+  public SpeciminBatchRunner(int jobs, PrintStream out) {
+    this(jobs, out, MinimizationOptions.DEFAULT);
+  }
+
+  /**
+   * Creates a new batch runner.
+   *
+   * @param jobs the number of worker threads; must be positive
+   * @param out the destination of result lines
+   * @param defaultOptions the options of the jobs that do not set them
+   */
+  public SpeciminBatchRunner(int jobs, PrintStream out, MinimizationOptions defaultOptions) {
+    if (jobs < 1) {
+      throw new IllegalArgumentException("the number of jobs must be positive, but was " + jobs);
+    }
+    this.jobs = jobs;
+    this.out = out;
+    this.defaultOptions = defaultOptions;
+  }
+
+  /**
+   * Runs a manifest on this process's standard output. Anything that Specimin would normally print
+   * to standard output is sent to standard error instead, so that standard output carries only
+   * result lines. This is done with {@link System#setOut(PrintStream)}, which affects every thread
+   * in the process until this method returns, not only the jobs'.
+   *
+   * @param manifest the path to the manifest
+   * @param jobs the number of worker threads
+   * @param defaultOptions the options of the jobs that do not set them
+   * @return true iff every job succeeded
+   * @throws IOException if the manifest cannot be read
+   */
+  public static boolean run(String manifest, int jobs, MinimizationOptions defaultOptions)
+      throws IOException {
+    PrintStream resultOut = System.out;
+    System.setOut(System.err);
+    try {
+      return new SpeciminBatchRunner(jobs, resultOut, defaultOptions)
+          .runManifest(Path.of(manifest));
+    } finally {
+      System.setOut(resultOut);
+    }
+  }
+
+  /**
+   * Runs every job in the given manifest and waits for all of them to finish.
+   *
+   * @param manifest the path to the manifest
+   * @return true iff every job succeeded
+   * @throws IOException if the manifest cannot be read
+   */
+  public boolean runManifest(Path manifest) throws IOException {
+    List<String> lines = Files.readAllLines(manifest, StandardCharsets.UTF_8);
+    boolean allSucceeded = true;
+    Map<Integer, MinimizationJob> parsedJobs = new LinkedHashMap<>();
+    for (int i = 0; i < lines.size(); i++) {
+      String line = lines.get(i);
+      if (line.isBlank()) {
+        continue;
+      }
+      int jobNumber = i + 1;
+      try {
+        parsedJobs.put(jobNumber, parseJob(line));
+      } catch (IllegalArgumentException e) {
+        Map<String, @Nullable Object> result = new LinkedHashMap<>();
+        result.put("job", jobNumber);
+        result.put("status", "failure");
+        result.put("error", e.getMessage());
+        report(result);
+        allSucceeded = false;
+      }
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool(jobs);
+    List<Future<Boolean>> results = new ArrayList<>();
+    try {
+      Map<String, RootIndex> rootIndexes = buildRootIndexes(parsedJobs.values(), pool);
+      for (Map.Entry<Integer, MinimizationJob> entry : parsedJobs.entrySet()) {
+        int jobNumber = entry.getKey();
+        MinimizationJob job = entry.getValue();
+        @Nullable RootIndex rootIndex = rootIndexes.get(job.getSourceRootsKey());
+        long submitted = System.currentTimeMillis();
+        results.add(pool.submit(() -> runJob(jobNumber, job, rootIndex, submitted)));
+      }
+    } finally {
+      pool.shutdown();
+    }
+    try {
+      pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+      for (Future<Boolean> result : results) {
+        allSucceeded &= result.get();
+      }
+    } catch (Exception e) {
+      throw new RuntimeException("interrupted while waiting for batch jobs", e);
+    }
+    return allSucceeded;
+  }
+
+  /**
+   * Reads one job of the manifest.
+   *
+   * @param line the job's line in the manifest
+   * @return the job
+   * @throws IllegalArgumentException if the line is not a valid job
+   */
+  @SuppressWarnings("unchecked") // JSON objects are always parsed as Map<String, Object>
+  private MinimizationJob parseJob(String line) {
+    Object parsed = JsonUtil.parse(line);
+    if (!(parsed instanceof Map)) {
+      throw new IllegalArgumentException("a job must be a JSON object");
+    }
+    return MinimizationJob.fromJson((Map<String, @Nullable Object>) parsed, defaultOptions);
+  }
+
+  /**
+   * Builds the index of each distinct source roots of the given jobs, in parallel on the given
+   * pool, and waits for all of them. An index is immutable, so the jobs can then share it without
+   * any synchronization. If an index cannot be built, it is left out, and each of its jobs tries to
+   * build it again when it runs, so that it reports the failure in its own result.
+   *
+   * @param parsedJobs the jobs of the manifest
+   * @param pool the worker threads
+   * @return the indexes that were built, keyed by {@link MinimizationJob#getSourceRootsKey()}
+   */
+  private static Map<String, RootIndex> buildRootIndexes(
+      Collection<MinimizationJob> parsedJobs, ExecutorService pool) {
+    Map<String, Future<RootIndex>> builds = new LinkedHashMap<>();
+    for (MinimizationJob job : parsedJobs) {
+      builds.computeIfAbsent(job.getSourceRootsKey(), key -> pool.submit(job::buildRootIndex));
+    }
+    Map<String, RootIndex> result = new HashMap<>();
+    for (Map.Entry<String, Future<RootIndex>> build : builds.entrySet()) {
+      try {
+        result.put(build.getKey(), build.getValue().get());
+      } catch (ExecutionException e) {
+        // Left to the jobs, as described above.
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException("interrupted while indexing the roots of batch jobs", e);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Runs one job of the manifest and reports its result.
+   *
+   * @param jobNumber the 1-based line number of the job in the manifest
+   * @param job the job
+   * @param rootIndex the index of the source roots of the job, or null if the job should build it
+   * @param submitted the time at which the job was submitted, in milliseconds since the epoch
+   * @return true iff the job succeeded
+   */
+  private boolean runJob(
+      int jobNumber, MinimizationJob job, @Nullable RootIndex rootIndex, long submitted) {
+    Map<String, @Nullable Object> result = new LinkedHashMap<>();
+    result.put("job", jobNumber);
+    result.put("outputDirectory", job.getOutputDirectory());
+
+    Throwable failure = null;
+    long start = System.currentTimeMillis();
+    try {
+      // The jobs run concurrently, so they do not share class pools, which are not thread-safe.
+      job.run(rootIndex, null);
+    } catch (Exception | StackOverflowError e) {
+      // A crash in one job must not stop the others.
+      failure = e;
+    }
+    long end = System.currentTimeMillis();
+    result.put("status", failure == null ? "success" : "failure");
+    result.put("queuedMillis", start - submitted);
+    result.put("elapsedMillis", end - start);
+    if (failure != null) {
+      result.put("error", failure.toString());
+    }
+    report(result);
+    return failure == null;
+  }
+
+  /**
+   * Writes one result line.
+   *
+   * @param result the result of a job
+   */
+  private void report(Map<String, @Nullable Object> result) {
+    String json = JsonUtil.toJson(result);
+    synchronized (out) {
+      out.println(json);
+      out.flush();
+    }
+  }
+}
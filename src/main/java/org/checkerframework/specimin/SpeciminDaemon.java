@@ -0,0 +1,322 @@
+package org.checkerframework.specimin;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A long-lived server that runs many minimizations in a single JVM. Starting Specimin is expensive:
+ * every run pays for JVM startup, for loading and JIT-compiling JavaParser and Vineflower, for
+ * reading and parsing the JDK classes that {@link JdkTypeSolver} solves and the classes of the jar
+ * files, and for indexing the classes of the root. A daemon pays for startup and class loading
+ * once, and keeps the rest for later requests as described below.
+ *
+ * <p>The daemon speaks JSON-RPC 2.0 over its standard input and output, one message per line. The
+ * supported methods are:
+ *
+ * <ul>
+ *   <li>{@code minimize}: runs {@link SpeciminRunner#performMinimization(String, List, List, List,
+ *       List, String, String)}. The params are an object with the keys {@code root}, {@code
+ *       targetFiles}, {@code jarPaths}, {@code targetMethods}, {@code targetFields}, {@code
+ *       outputDirectory}, and {@code modularityModel}, and the keys of the {@link
+ *       MinimizationOptions} of the run, as described in {@link MinimizationJob}. Options that a
+ *       request does not set keep the values given on the command line.
+ *   <li>{@code health}: reports that the daemon is alive.
+ *   <li>{@code stats}: reports counters, timings, and memory usage for this daemon.
+ *   <li>{@code shutdown}: stops the daemon after responding.
+ * </ul>
+ *
+ * Requests are handled one at a time, in order. A request without an {@code id} is a notification:
+ * it is handled like any other request, but gets no response.
+ *
+ * <p>Each minimization keeps the synthetic files that it creates in its own in-memory {@link
+ * SyntheticSourceOverlay} rather than on disk, and has its own parser, type solvers, and javac
+ * session, so one request never sees another's synthetic files. What requests share is read-only
+ * data about their inputs, for the most recently used of them:
+ *
+ * <ul>
+ *   <li>the index of the classes of each set of source roots (see {@link RootIndex}), refreshed
+ *       before each minimization by rescanning the files whose size or modification time changed;
+ *   <li>the class pools of the JDK classes of each release and of each jar file (see {@link
+ *       ClassPoolCache}), so that a class file is parsed once rather than once per request.
+ * </ul>
+ *
+ * Directories of class files are read afresh by every request.
+ */
+public class SpeciminDaemon {
+
+  /** JSON-RPC error code for malformed JSON. */
+  private static final int PARSE_ERROR = -32700;
+
+  /** JSON-RPC error code for a well-formed message that is not a valid request. */
+  private static final int INVALID_REQUEST = -32600;
+
+  /** JSON-RPC error code for an unknown method. */
+  private static final int METHOD_NOT_FOUND = -32601;
+
+  /** JSON-RPC error code for bad method parameters. */
+  private static final int INVALID_PARAMS = -32602;
+
+  /** JSON-RPC error code (from the implementation-defined range) for a failed minimization. */
+  private static final int MINIMIZATION_FAILED = -32000;
+
+  /** The time at which this daemon was created, in milliseconds since the epoch. */
+  private final long startTimeMillis = System.currentTimeMillis();
+
+  /** The number of minimize requests that completed successfully. */
+  private long succeeded = 0;
+
+  /** The number of minimize requests that failed. */
+  private long failed = 0;
+
+  /** The total wall-clock time spent in minimize requests, in milliseconds. */
+  private long totalMinimizationMillis = 0;
+
+  /** The wall-clock time of the slowest minimize request so far, in milliseconds. */
+  private long maxMinimizationMillis = 0;
+
+  /** Set once a shutdown request has been handled. */
+  private boolean shutdownRequested = false;
+
+  /** The options of the minimizations that do not set them. */
+  private final MinimizationOptions defaultOptions;
+
+  /** The most indexes of source roots that the daemon keeps. */
+  private static final int MAX_ROOT_INDEXES = 16;
+
+  /**
+   * The indexes of the source roots of the most recent minimizations, keyed by {@link
+   * MinimizationJob#getSourceRootsKey()}. Each minimization refreshes the index of its source roots
+   * before it runs.
+   */
+  private final Map<String, RootIndex> rootIndexCache = new LruCache<>(MAX_ROOT_INDEXES);
+
+  /** The class pools of the JDK and the jar files of the minimizations so far. */
+  private final ClassPoolCache classPoolCache = new ClassPoolCache();
+
+  /** Creates a new daemon whose minimizations use the default options unless they set them. */
+  public SpeciminDaemon() {
+    this(MinimizationOptions.DEFAULT);
+  }
+
+  /**
+   * Creates a new daemon.
+   *
+   * @param defaultOptions the options of the minimizations that do not set them
+   */
+  public SpeciminDaemon(MinimizationOptions defaultOptions) {
+    this.defaultOptions = defaultOptions;
+  }
+
+  /**
+   * Runs a daemon on this process's standard input and output until standard input is closed or a
+   * shutdown request is received. Anything that Specimin would normally print to standard output is
+   * sent to standard error instead, so that standard output carries only protocol messages. This is
+   * done with {@link System#setOut(PrintStream)}, which affects every thread in the process until
+   * this method returns, not only the daemon's.
+   *
+   * @param defaultOptions the options of the minimizations that do not set them
+   * @throws IOException if reading standard input fails
+   */
+  public static void run(MinimizationOptions defaultOptions) throws IOException {
+    PrintStream protocolOut = System.out;
+    System.setOut(System.err);
+    try {
+      new SpeciminDaemon(defaultOptions).serve(System.in, protocolOut);
+    } finally {
+      System.setOut(protocolOut);
+    }
+  }
+
+  /**
+   * Reads requests from the given stream, one per line, and writes one response line per request to
+   * the given output, except for notifications. Blank lines are ignored.
+   *
+   * @param in the source of requests
+   * @param out the destination of responses
+   * @throws IOException if reading the requests fails
+   */
+  public void serve(InputStream in, PrintStream out) throws IOException {
+    BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    String line;
+    while (!shutdownRequested && (line = reader.readLine()) != null) {
+      if (line.isBlank()) {
+        continue;
+      }
+      Map<String, @Nullable Object> response = handle(line);
+      if (response != null) {
+        out.println(JsonUtil.toJson(response));
+        out.flush();
+      }
+    }
+  }
+
+  /**
+   * Handles a single request line.
+   *
+   * @param line a JSON-RPC request
+   * @return the JSON-RPC response, or null if the request is a notification
+   */
+  @SuppressWarnings("unchecked") // JSON objects are always parsed as Map<String, Object>
+  @Nullable Map<String, @Nullable Object> handle(String line) {
+    Object parsed;
+    try {
+      parsed = JsonUtil.parse(line);
+    } catch (IllegalArgumentException e) {
+      return error(null, PARSE_ERROR, e.getMessage());
+    }
+    if (!(parsed instanceof Map)) {
+      return error(null, INVALID_REQUEST, "a request must be a JSON object");
+    }
+    Map<String, @Nullable Object> request = (Map<String, @Nullable Object>) parsed;
+    Map<String, @Nullable Object> response = handle(request);
+    // Per JSON-RPC, the server must not reply to a notification, even if it fails.
+    return request.containsKey("id") ? response : null;
+  }
+
+  /**
+   * Handles a single request.
+   *
+   * @param request a parsed JSON-RPC request
+   * @return the JSON-RPC response
+   */
+  @SuppressWarnings("unchecked") // JSON objects are always parsed as Map<String, Object>
+  private Map<String, @Nullable Object> handle(Map<String, @Nullable Object> request) {
+    Object id = request.get("id");
+    Object method = request.get("method");
+    if (!(method instanceof String)) {
+      return error(id, INVALID_REQUEST, "a request must have a string \"method\"");
+    }
+    switch ((String) method) {
+      case "health":
+        Map<String, @Nullable Object> health = new LinkedHashMap<>();
+        health.put("status", "ok");
+        return result(id, health);
+      case "stats":
+        return result(id, stats());
+      case "shutdown":
+        shutdownRequested = true;
+        return result(id, "shutting down");
+      case "minimize":
+        Object params = request.get("params");
+        if (!(params instanceof Map)) {
+          return error(id, INVALID_PARAMS, "minimize requires an object of params");
+        }
+        return minimize(id, (Map<String, @Nullable Object>) params);
+      default:
+        return error(id, METHOD_NOT_FOUND, "unknown method: " + method);
+    }
+  }
+
+  /**
+   * Runs one minimization and records its outcome in this daemon's statistics.
+   *
+   * @param id the request id
+   * @param params the request parameters, as described in the class documentation
+   * @return the JSON-RPC response
+   */
+  private Map<String, @Nullable Object> minimize(
+      @Nullable Object id, Map<String, @Nullable Object> params) {
+    MinimizationJob job;
+    try {
+      job = MinimizationJob.fromJson(params, defaultOptions);
+    } catch (IllegalArgumentException e) {
+      return error(id, INVALID_PARAMS, e.getMessage());
+    }
+
+    long start = System.currentTimeMillis();
+    Throwable failure = null;
+    try {
+      // The roots may have changed since the previous request over them, so the index is
+      // refreshed, which only rescans the files whose size or modification time changed.
+      String sourceRootsKey = job.getSourceRootsKey();
+      @Nullable RootIndex cachedIndex = rootIndexCache.get(sourceRootsKey);
+      RootIndex rootIndex =
+          cachedIndex == null ? job.buildRootIndex() : job.refreshRootIndex(cachedIndex);
+      rootIndexCache.put(sourceRootsKey, rootIndex);
+      job.run(rootIndex, classPoolCache);
+    } catch (Exception | StackOverflowError e) {
+      // A crash in one minimization must not take the daemon down with it.
+      failure = e;
+    }
+    long elapsed = System.currentTimeMillis() - start;
+    totalMinimizationMillis += elapsed;
+    maxMinimizationMillis = Math.max(maxMinimizationMillis, elapsed);
+
+    if (failure != null) {
+      failed++;
+      return error(id, MINIMIZATION_FAILED, failure.toString());
+    }
+    succeeded++;
+    Map<String, @Nullable Object> result = new LinkedHashMap<>();
+    result.put("status", "success");
+    result.put("outputDirectory", job.getOutputDirectory());
+    result.put("elapsedMillis", elapsed);
+    return result(id, result);
+  }
+
+  /**
+   * Collects the statistics reported by the stats method.
+   *
+   * @return a JSON object of statistics
+   */
+  private Map<String, @Nullable Object> stats() {
+    Runtime runtime = Runtime.getRuntime();
+    long completed = succeeded + failed;
+    Map<String, @Nullable Object> stats = new LinkedHashMap<>();
+    stats.put("uptimeMillis", System.currentTimeMillis() - startTimeMillis);
+    stats.put("requestsCompleted", completed);
+    stats.put("requestsSucceeded", succeeded);
+    stats.put("requestsFailed", failed);
+    stats.put("totalMinimizationMillis", totalMinimizationMillis);
+    stats.put("meanMinimizationMillis", completed == 0 ? 0 : totalMinimizationMillis / completed);
+    stats.put("maxMinimizationMillis", maxMinimizationMillis);
+    stats.put("heapUsedBytes", runtime.totalMemory() - runtime.freeMemory());
+    stats.put("heapMaxBytes", runtime.maxMemory());
+    stats.put("loadedClassCount", ManagementFactory.getClassLoadingMXBean().getLoadedClassCount());
+    return stats;
+  }
+
+  /**
+   * Builds a successful JSON-RPC response.
+   *
+   * @param id the request id
+   * @param result the result of the request
+   * @return the response
+   */
+  private static Map<String, @Nullable Object> result(@Nullable Object id, Object result) {
+    Map<String, @Nullable Object> response = new LinkedHashMap<>();
+    response.put("jsonrpc", "2.0");
+    response.put("id", id);
+    response.put("result", result);
+    return response;
+  }
+
+  /**
+   * Builds a JSON-RPC error response.
+   *
+   * @param id the request id, or null if it could not be determined
+   * @param code the JSON-RPC error code
+   * @param message a description of the error
+   * @return the response
+   */
+  private static Map<String, @Nullable Object> error(
+      @Nullable Object id, int code, @Nullable String message) {
+    Map<String, @Nullable Object> error = new LinkedHashMap<>();
+    error.put("code", code);
+    error.put("message", message);
+    Map<String, @Nullable Object> response = new LinkedHashMap<>();
+    response.put("jsonrpc", "2.0");
+    response.put("id", id);
+    response.put("error", error);
+    return response;
+  }
+}
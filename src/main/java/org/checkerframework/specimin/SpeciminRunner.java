@@ -1,29 +1,26 @@
 package org.checkerframework.specimin;
 
+import com.github.javaparser.JavaParser;
 import com.github.javaparser.ParseProblemException;
-import com.github.javaparser.ParseResult;
 import com.github.javaparser.ParserConfiguration;
-import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.ImportDeclaration;
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.PackageDeclaration;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
-import com.github.javaparser.ast.body.EnumDeclaration;
 import com.github.javaparser.ast.comments.Comment;
+import com.github.javaparser.resolution.TypeSolver;
 import com.github.javaparser.symbolsolver.JavaSymbolSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.JarTypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
-import com.github.javaparser.utils.SourceRoot;
+import com.google.common.base.Splitter;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -35,11 +32,10 @@ import java.util.stream.Stream;
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
 import joptsimple.OptionSpec;
-import org.apache.commons.io.FileUtils;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.checker.signature.qual.ClassGetSimpleName;
 import org.checkerframework.checker.signature.qual.FullyQualifiedName;
 import org.checkerframework.specimin.modularity.ModularityModel;
-import org.jetbrains.java.decompiler.main.decompiler.ConsoleDecompiler;
 
 /** This class is the main runner for Specimin. Use its main() method to start Specimin. */
 public class SpeciminRunner {
@@ -58,6 +54,16 @@ public class SpeciminRunner {
 
     var jar = optionParser.accepts("jarPath").withOptionalArg().ofType(String.class);
 
+    // This option is a class path, in the same format as that of javac: jar files and directories
+    // of class files, such as build/classes, separated by the system's path separator. The classes
+    // of a directory are read from their bytecode, so it need not be packed into a jar.
+    OptionSpec<String> classPathOption = optionParser.accepts("classPath").withRequiredArg();
+
+    // This option is a module path, in the same format as that of javac: modular jars, exploded
+    // modules, and directories that contain them. Module boundaries are not enforced, so its
+    // modules are used like the entries of the class path.
+    OptionSpec<String> modulePathOption = optionParser.accepts("modulePath").withRequiredArg();
+
     // This option is the relative paths to the target file(s) - the .java file(s) containing
     // target method(s) - from the root.
     OptionSpec<String> targetFilesOption = optionParser.accepts("targetFile").withRequiredArg();
@@ -80,12 +86,95 @@ public class SpeciminRunner {
     OptionSpec<String> outputDirectoryOption =
         optionParser.accepts("outputDirectory").withRequiredArg();
 
+    // This option starts a long-lived daemon that reads minimization requests from standard
+    // input instead of running a single minimization. See SpeciminDaemon for the protocol.
+    OptionSpec<Void> daemonOption = optionParser.accepts("daemon");
+
+    // This option runs every minimization described by a manifest (a JSON Lines file) instead of
+    // running a single minimization. See SpeciminBatchRunner for the format.
+    OptionSpec<String> batchOption = optionParser.accepts("batch").withRequiredArg();
+
+    // The number of batch jobs to run at the same time. Only meaningful with --batch.
+    OptionSpec<Integer> jobsOption =
+        optionParser.accepts("jobs").withRequiredArg().ofType(Integer.class).defaultsTo(1);
+
+    // The directory in which to keep the index of the classes in the root between runs, so that
+    // later runs over the same root only scan the files that changed. See RootIndex.
+    OptionSpec<String> indexCacheDirOption =
+        optionParser.accepts("indexCacheDir").withRequiredArg();
+
+    // The directory in which to keep the decompiled sources of jar files between runs, so that each
+    // jar is decompiled only once. See DecompilationCache.
+    OptionSpec<String> decompilationCacheDirOption =
+        optionParser.accepts("decompilationCacheDir").withRequiredArg();
+
+    // This option decompiles the classes of jar files one at a time, only when a minimization
+    // needs them, rather than decompiling every jar as a whole. See LazyDecompiledJar.
+    OptionSpec<Void> decompileLazilyOption = optionParser.accepts("decompileLazily");
+
+    // This option decompiles the classes of jar files with their method bodies, rather than
+    // generating stubs that have only their signatures. See BytecodeStubGenerator.
+    OptionSpec<Void> decompileMethodBodiesOption = optionParser.accepts("decompileMethodBodies");
+
+    // The release of the JDK classes that the target uses, like javac's --release option. By
+    // default, the classes of the JDK that runs Specimin are used. See JdkTypeSolver.
+    OptionSpec<Integer> releaseOption =
+        optionParser.accepts("release").withRequiredArg().ofType(Integer.class);
+
+    // The maximum number of iterations of the search for missing symbols. A run that reaches it
+    // stops searching and produces its output from what it has found, which may not compile. See
+    // FixpointMonitor.
+    OptionSpec<Integer> maxIterationsOption =
+        optionParser.accepts("maxIterations").withRequiredArg().ofType(Integer.class);
+
+    // The maximum time, in seconds, that a run may take before it stops searching for missing
+    // symbols, like --maxIterations.
+    OptionSpec<Integer> timeBudgetOption =
+        optionParser.accepts("timeBudget").withRequiredArg().ofType(Integer.class);
+
+    // This option writes the files of the last phase that a run completed, with a status marker,
+    // when the run fails or goes past its time budget. See PartialOutput.
+    OptionSpec<Void> partialOutputOption = optionParser.accepts("partialOutput");
+
     OptionSet options = optionParser.parse(args);
+    MinimizationOptions minimizationOptions =
+        MinimizationOptions.DEFAULT
+            .withDecompilationCacheDirectory(options.valueOf(decompilationCacheDirOption))
+            .withDecompileLazily(options.has(decompileLazilyOption))
+            .withDecompileMethodBodies(options.has(decompileMethodBodiesOption))
+            .withRelease(options.valueOf(releaseOption))
+            .withMaxIterations(options.valueOf(maxIterationsOption))
+            .withIndexCacheDirectory(options.valueOf(indexCacheDirOption));
+    @Nullable Integer timeBudgetSeconds = options.valueOf(timeBudgetOption);
+    if (timeBudgetSeconds != null) {
+      minimizationOptions =
+          minimizationOptions.withTimeBudget(Duration.ofSeconds(timeBudgetSeconds));
+    }
+    minimizationOptions = minimizationOptions.withPartialOutput(options.has(partialOutputOption));
+
+    if (options.has(daemonOption)) {
+      SpeciminDaemon.run(minimizationOptions);
+      return;
+    }
+
+    String manifest = options.valueOf(batchOption);
+    if (manifest != null) {
+      if (!SpeciminBatchRunner.run(manifest, options.valueOf(jobsOption), minimizationOptions)) {
+        System.exit(1);
+      }
+      return;
+    }
 
     String jarDirectory = options.valueOf(jar);
     List<String> jarFiles = new ArrayList<>();
     if (jarDirectory != null) {
-      jarFiles = getJarFiles(jarDirectory);
+      jarFiles.addAll(getJarFiles(jarDirectory));
+    }
+    for (String classPath : options.valuesOf(classPathOption)) {
+      jarFiles.addAll(getClassPathEntries(classPath));
+    }
+    for (String modulePath : options.valuesOf(modulePathOption)) {
+      jarFiles.addAll(getModulePathEntries(modulePath));
     }
 
     performMinimization(
@@ -95,7 +184,10 @@ public class SpeciminRunner {
         options.valuesOf(targetMethodsOption),
         options.valuesOf(targetFieldsOptions),
         options.valueOf(outputDirectoryOption),
-        options.valueOf(modularityModelOption));
+        options.valueOf(modularityModelOption),
+        null,
+        null,
+        minimizationOptions);
   }
 
   /**
@@ -105,7 +197,7 @@ public class SpeciminRunner {
    *
    * @param root The root directory of the input files.
    * @param targetFiles A list of files that contain the target methods.
-   * @param jarPaths Paths to relevant JAR files.
+   * @param jarPaths Paths to relevant JAR files and directories of class files.
    * @param targetMethodNames A set of target method names to be preserved.
    * @param targetFieldNames A set of target field names to be preserved.
    * @param outputDirectory The directory for the output.
@@ -130,7 +222,7 @@ public class SpeciminRunner {
    *
    * @param root The root directory of the input files.
    * @param targetFiles A list of files that contain the target methods.
-   * @param jarPaths Paths to relevant JAR files.
+   * @param jarPaths Paths to relevant JAR files and directories of class files.
    * @param targetMethodNames A set of target method names to be preserved.
    * @param targetFieldNames A set of target field names to be preserved.
    * @param outputDirectory The directory for the output.
@@ -146,44 +238,93 @@ public class SpeciminRunner {
       String outputDirectory,
       String modularityModelCode)
       throws IOException {
-    // The set of path of files that have been created by Specimin. We must be careful to delete all
-    // those files in the end, because otherwise they can pollute the input directory. To do that,
-    // we need to register a shutdown hook with the JVM.
-    Set<Path> createdClass = new HashSet<>();
-    Runtime.getRuntime()
-        .addShutdownHook(
-            new Thread() {
-              @Override
-              public void run() {
-                deleteFiles(createdClass);
-              }
-            });
-
-    ModularityModel model = ModularityModel.createModularityModel(modularityModelCode);
-
-    performMinimizationImpl(
+    performMinimization(
         root,
         targetFiles,
         jarPaths,
         targetMethodNames,
         targetFieldNames,
         outputDirectory,
-        model,
-        createdClass);
+        modularityModelCode,
+        null,
+        null,
+        MinimizationOptions.DEFAULT);
+  }
+
+  /**
+   * This method acts as an API for users who want to run many minimizations, possibly with
+   * different options, in the same process. It is the same as {@link #performMinimization(String,
+   * List, List, List, List, String, String)}, except that the run uses the given options rather
+   * than the default ones, and that the index of the classes in the root directory and the class
+   * pools of the JDK and the jar files may be given. Sharing one index between minimizations with
+   * the same root and jar files avoids re-parsing the whole root for each of them, and sharing the
+   * class pools avoids re-reading the class files that earlier minimizations have read.
+   *
+   * @param root The root directory of the input files.
+   * @param targetFiles A list of files that contain the target methods.
+   * @param jarPaths Paths to relevant JAR files and directories of class files.
+   * @param targetMethodNames A set of target method names to be preserved.
+   * @param targetFieldNames A set of target field names to be preserved.
+   * @param outputDirectory The directory for the output.
+   * @param modularityModelCode the modularity model to use
+   * @param rootIndex the index of the source roots of the minimization, which must have been built
+   *     from the same root, jar files, and decompilation options (see {@link
+   *     MinimizationJob#buildRootIndex()}), or null to build it. The index is only read, so one
+   *     index can be shared by minimizations that run concurrently.
+   * @param classPoolCache the class pools kept between minimizations that run one at a time, or
+   *     null to read the JDK and the jar files afresh
+   * @param options the options of this run
+   * @throws IOException if there is an exception
+   */
+  public static void performMinimization(
+      String root,
+      List<String> targetFiles,
+      List<String> jarPaths,
+      List<String> targetMethodNames,
+      List<String> targetFieldNames,
+      String outputDirectory,
+      String modularityModelCode,
+      @Nullable RootIndex rootIndex,
+      @Nullable ClassPoolCache classPoolCache,
+      MinimizationOptions options)
+      throws IOException {
+    ModularityModel model = ModularityModel.createModularityModel(modularityModelCode);
+    PartialOutput partialOutput =
+        new PartialOutput(outputDirectory, targetFiles, options.isPartialOutput());
+    try {
+      performMinimizationImpl(
+          root,
+          targetFiles,
+          jarPaths,
+          targetMethodNames,
+          targetFieldNames,
+          outputDirectory,
+          model,
+          rootIndex,
+          classPoolCache,
+          options,
+          partialOutput);
+    } catch (RuntimeException | IOException | StackOverflowError e) {
+      partialOutput.writePartial(e);
+      throw e;
+    }
+    partialOutput.writeComplete();
   }
 
   /**
-   * Helper method for performMinimization. The logic of performMinimization is here;
-   * performMinimization itself wraps this in a try-finally to ensure that all created files are
-   * cleaned up properly in the event of a crash or interrupt.
+   * Helper method for performMinimization. The logic of performMinimization is here.
    *
    * @param root The root directory of the input files.
    * @param targetFiles A list of files that contain the target methods.
-   * @param jarPaths Paths to relevant JAR files.
+   * @param jarPaths Paths to relevant JAR files and directories of class files.
    * @param targetMethodNames A set of target method names to be preserved.
    * @param targetFieldNames A set of target field names to be preserved.
    * @param outputDirectory The directory for the output.
    * @param modularityModel the modularity model
+   * @param rootIndex the index of the source roots, or null to build it
+   * @param classPoolCache the class pools kept between minimizations, or null
+   * @param options the options of this run
+   * @param partialOutput the checkpoints of this run
    * @throws IOException if there is an exception
    */
   private static void performMinimizationImpl(
@@ -194,211 +335,264 @@ public class SpeciminRunner {
       List<String> targetFieldNames,
       String outputDirectory,
       ModularityModel modularityModel,
-      Set<Path> createdClass)
+      @Nullable RootIndex rootIndex,
+      @Nullable ClassPoolCache classPoolCache,
+      MinimizationOptions options,
+      PartialOutput partialOutput)
       throws IOException {
+    // The budgets of this run, which are counted from here.
+    FixpointMonitor fixpointMonitor =
+        new FixpointMonitor(options.getMaxIterations(), options.getTimeBudget());
+
     // To facilitate string manipulation in subsequent methods, ensure that 'root' ends with a
     // trailing slash.
     if (!root.endsWith("/")) {
       root = root + "/";
     }
 
-    updateStaticSolver(root, jarPaths);
+    // The places in which source files are looked up, in order of precedence: the root, then the
+    // decompiled sources of each jar. The jars are decompiled into a cache outside the root the
+    // first time they are seen, rather than into the root on every run; in lazy mode, only the
+    // classes that are actually needed are decompiled.
+    SourceRoots sourceRoots = SourceRoots.create(root, jarPaths, options);
+    // A target file that is in none of them is reported right away.
+    for (String targetFile : targetFiles) {
+      if (sourceRoots.findFile(targetFile) == null) {
+        throw new IllegalArgumentException(
+            "Specimin could not find the target file " + targetFile + " in the root " + root);
+      }
+    }
+
+    // The synthetic classes created by this run. They are layered on top of the root directory in
+    // memory, so the root itself is never modified.
+    SyntheticSourceOverlay syntheticSourceOverlay = new SyntheticSourceOverlay();
+
+    // This run's type solver and parser. Each run owns its parser and symbol solver rather than
+    // configuring StaticJavaParser, so that several runs can safely share a JVM. Both live for the
+    // whole run: when the synthetic classes change, the solver starts a new generation rather than
+    // being rebuilt. The solver parses the files that it reads with the same configuration.
+    ParserConfiguration parserConfiguration =
+        new ParserConfiguration().setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_17);
+    GenerationalTypeSolver typeSolver =
+        new GenerationalTypeSolver(
+            sourceRoots,
+            jarPaths,
+            syntheticSourceOverlay,
+            parserConfiguration,
+            options.getRelease(),
+            classPoolCache);
+    JavaParser parser = createJavaParser(parserConfiguration, typeSolver);
+
+    // The target files are parsed once; each iteration of the fixpoint loop below visits fresh
+    // copies of them.
+    TargetFileCache targetFileCache =
+        new TargetFileCache(parser, sourceRoots, syntheticSourceOverlay);
 
     // Keys are paths to files, values are parsed ASTs
     Map<String, CompilationUnit> parsedTargetFiles = new HashMap<>();
     for (String targetFile : targetFiles) {
-      parsedTargetFiles.put(targetFile, parseJavaFile(root, targetFile));
+      parsedTargetFiles.put(targetFile, targetFileCache.get(targetFile));
     }
 
-    if (!jarPaths.isEmpty()) {
-      List<String> argsToDecompile = new ArrayList<>();
-      argsToDecompile.add("--silent");
-      argsToDecompile.addAll(jarPaths);
-      argsToDecompile.add(root);
-      ConsoleDecompiler.main(argsToDecompile.toArray(new String[0]));
-      // delete unneccessary legal files
-      try {
-        FileUtils.deleteDirectory(new File(root + "META-INF"));
-      } catch (IOException ex) {
-        // Following decompilation, Windows raises an IOException because the files are still
-        // being used (by what?), so we should defer deletion until the end
-        for (File legalFile :
-            FileUtils.listFiles(new File(root + "META-INF"), new String[] {}, true)) {
-          createdClass.add(legalFile.toPath());
-        }
-      }
-    }
+    // Check the targets against the target files before any symbol is solved, so that a typo in a
+    // target is reported right away rather than after the whole run.
+    validateTargets(parsedTargetFiles.values(), targetMethodNames, targetFieldNames);
 
-    // the set of Java classes in the original codebase mapped with their corresponding Java files.
-    Map<String, Path> existingClassesToFilePath = new HashMap<>();
-    // This map connects the fully-qualified names of non-primary classes with the fully-qualified
-    // names of their corresponding primary classes. A primary
-    // class is a class that has the same name as the Java file where the class is declared.
-    Map<String, String> nonPrimaryClassesToPrimaryClass = new HashMap<>();
-    SourceRoot sourceRoot = new SourceRoot(Path.of(root));
-    sourceRoot.tryToParse();
-    // getCompilationUnits does not seem to include all files, causing some to be deleted
-    for (ParseResult<CompilationUnit> res : sourceRoot.getCache()) {
-      CompilationUnit compilationUnit =
-          res.getResult().orElseThrow(() -> new RuntimeException(res.getProblems().toString()));
-      Path pathOfCurrentJavaFile =
-          compilationUnit.getStorage().get().getPath().toAbsolutePath().normalize();
-      String primaryTypeQualifiedName = "";
-      if (compilationUnit.getPrimaryType().isPresent()) {
-        // the get() is safe because primary type here is definitely not a local declaration,
-        // which does not have a fully-qualified name.
-        primaryTypeQualifiedName =
-            compilationUnit.getPrimaryType().get().getFullyQualifiedName().get();
-      }
-      for (ClassOrInterfaceDeclaration declaredClass :
-          compilationUnit.findAll(ClassOrInterfaceDeclaration.class)) {
-        if (declaredClass.getFullyQualifiedName().isPresent()) {
-          String declaredClassQualifiedName =
-              declaredClass.getFullyQualifiedName().get().toString();
-          existingClassesToFilePath.put(declaredClassQualifiedName, pathOfCurrentJavaFile);
-          // which means this class is not a primary class, and there is a primary class.
-          if (!"".equals(primaryTypeQualifiedName)
-              && !declaredClassQualifiedName.equals(primaryTypeQualifiedName)) {
-            nonPrimaryClassesToPrimaryClass.put(
-                declaredClassQualifiedName, primaryTypeQualifiedName);
-          }
-        }
-      }
-      for (EnumDeclaration enumDeclaration : compilationUnit.findAll(EnumDeclaration.class)) {
-        existingClassesToFilePath.put(
-            enumDeclaration.getFullyQualifiedName().get(), pathOfCurrentJavaFile);
-      }
+    // The index of the classes declared in the source roots. Building it reads every file under
+    // them, so callers that run many minimizations over the same source roots, such as the jobs of
+    // a batch, build it once and share it, and it may be kept on disk for later runs.
+    if (rootIndex == null) {
+      rootIndex = RootIndex.build(sourceRoots, options.getIndexCacheDirectory());
     }
+    Map<String, Path> existingClassesToFilePath = rootIndex.getExistingClassesToFilePath();
+    Map<String, String> nonPrimaryClassesToPrimaryClass =
+        rootIndex.getNonPrimaryClassesToPrimaryClass();
     UnsolvedSymbolVisitor addMissingClass =
         new UnsolvedSymbolVisitor(
-            root,
+            sourceRoots.getDirectories(),
             existingClassesToFilePath,
             new HashSet<>(targetMethodNames),
             new HashSet<>(targetFieldNames),
-            modularityModel);
+            modularityModel,
+            syntheticSourceOverlay);
     addMissingClass.setClassesFromJar(jarPaths);
 
+    // If the target files resolve as they are, against themselves and the JDK, no synthetic class
+    // is needed, and the fixpoint loop below is skipped altogether, with its javac rounds.
+    Set<Path> targetFilePaths = new HashSet<>();
+    for (String targetFile : targetFiles) {
+      targetFilePaths.add(Path.of(root, targetFile).toAbsolutePath().normalize());
+    }
+    if (ResolutionPrepassVisitor.resolvesWithoutSyntheticClasses(
+        parsedTargetFiles.values(), typeSolver, existingClassesToFilePath, targetFilePaths)) {
+      addMissingClass.setExceptionToFalse();
+    }
+
     Map<String, String> typesToChange = new HashMap<>();
     Map<String, String> classAndUnresolvedInterface = new HashMap<>();
     Map<String, String> methodRefToCorrectParameters = new HashMap<>();
     Map<String, Boolean> methodRefToVoidness = new HashMap<>();
 
     // This is a defense against infinite loop bugs. The idea is this:
-    // if we encounter the same set of outputs three times, that's a good indication
-    // that we're in an infinite loop. But, we sometimes encounter the same set
+    // if the outputs of the iterations start repeating periodically, that's a good
+    // indication that we're in an infinite loop. But, we sometimes encounter the same set
     // of outputs *twice* during normal operation (because some symbol needs to be
-    // solved). So, we track all previous iterations, and if we ever see the same
-    // outputs we set "problematicIteration" to that one. If we see that output again,
-    // we break the loop below early.
-    Set<UnsolvedSymbolVisitorProgress> previousIterations = new HashSet<>();
-    UnsolvedSymbolVisitorProgress problematicIteration = null;
-
-    while (addMissingClass.gettingException()) {
-      addMissingClass.setExceptionToFalse();
-      for (CompilationUnit cu : parsedTargetFiles.values()) {
-        addMissingClass.setImportStatement(cu.getImports());
-        // it's important to make sure that getDeclarations and addMissingClass will visit the same
-        // file for each execution of the loop
-        FieldDeclarationsVisitor getDeclarations = new FieldDeclarationsVisitor();
-        cu.accept(getDeclarations, null);
-        addMissingClass.setFieldNameToClassNameMap(getDeclarations.getFieldAndItsClass());
-        cu.accept(addMissingClass, null);
-      }
-      addMissingClass.updateSyntheticSourceCode();
-      createdClass.addAll(addMissingClass.getCreatedClass());
-      // since the root directory is updated, we need to update the SymbolSolver
-      updateStaticSolver(root, jarPaths);
-      parsedTargetFiles = new HashMap<>();
-      for (String targetFile : targetFiles) {
-        parsedTargetFiles.put(targetFile, parseJavaFile(root, targetFile));
-      }
-      for (String targetFile : addMissingClass.getAddedTargetFiles()) {
-        try {
-          parsedTargetFiles.put(targetFile, parseJavaFile(root, targetFile));
-        } catch (ParseProblemException e) {
-          // These parsing codes cause crashes in the CI. Those crashes can't be reproduced locally.
-          // Not sure if something is wrong with VineFlower or Specimin CI. Hence we keep these
-          // lines as tech debt.
-          // TODO: Figure out why the CI is crashing.
-          continue;
-        }
-      }
-      UnsolvedSymbolVisitorProgress workDoneAfterIteration =
-          new UnsolvedSymbolVisitorProgress(
-              addMissingClass.getPotentialUsedMembers(),
-              addMissingClass.getAddedTargetFiles(),
-              addMissingClass.getSyntheticClassesAsAStringSet());
-
-      // Infinite loop protection.
-      boolean gettingStuck = previousIterations.contains(workDoneAfterIteration);
-      if (gettingStuck) {
-        if (problematicIteration == null) {
-          problematicIteration = workDoneAfterIteration;
-        } else if (workDoneAfterIteration.equals(problematicIteration)) {
-          // This is the third time that we've made no changes, so we're probably
-          // in an infinite loop.
+    // solved). So, we track all previous iterations, and break the loop below early only
+    // when the outputs start cycling; see FixpointMonitor. The loop also stops
+    // when the run has used up its budget of iterations or time, since the pipeline below
+    // can still produce output from the state reached so far.
+
+    // The javac session is shared by the type corrections of all the iterations below. It is only
+    // created by the first of them, since a run that needs no correction never runs javac.
+    @Nullable JavacSession javacSession = null;
+    try {
+      // Each iteration only visits the files that the changes to the synthetic classes since their
+      // last visit could affect.
+      FixpointWorklist worklist = new FixpointWorklist(syntheticSourceOverlay, typeSolver);
+      while (addMissingClass.gettingException()) {
+        @Nullable String exhaustedBudget = fixpointMonitor.getExhaustedBudget();
+        if (exhaustedBudget != null) {
+          String diagnostic =
+              "Specimin stopped solving missing symbols after using up "
+                  + exhaustedBudget
+                  + "; the output may not compile.";
+          System.err.println(diagnostic);
+          partialOutput.setWarning(diagnostic);
           break;
         }
-      } else { // not getting stuck
-        if (problematicIteration != null && !problematicIteration.equals(workDoneAfterIteration)) {
-          // unset problematicIteration
-          problematicIteration = null;
+        addMissingClass.setExceptionToFalse();
+        worklist.startIteration();
+        for (Map.Entry<String, CompilationUnit> targetFile : parsedTargetFiles.entrySet()) {
+          int potentialUsedMemberCount = addMissingClass.getPotentialUsedMemberCount();
+          if (!worklist.needsVisit(targetFile.getKey(), potentialUsedMemberCount)) {
+            continue;
+          }
+          CompilationUnit cu = targetFile.getValue();
+          addMissingClass.setImportStatement(cu.getImports());
+          // it's important to make sure that getDeclarations and addMissingClass will visit the
+          // same file for each execution of the loop
+          FieldDeclarationsVisitor getDeclarations = new FieldDeclarationsVisitor();
+          cu.accept(getDeclarations, null);
+          addMissingClass.setFieldNameToClassNameMap(getDeclarations.getFieldAndItsClass());
+          // whether this visit in particular finds something unsolved decides whether the file
+          // must be visited again
+          boolean earlierVisitsFoundUnsolved = addMissingClass.gettingException();
+          addMissingClass.setExceptionToFalse();
+          worklist.startVisit();
+          cu.accept(addMissingClass, null);
+          boolean foundUnsolved = addMissingClass.gettingException();
+          worklist.finishVisit(targetFile.getKey(), foundUnsolved, potentialUsedMemberCount);
+          if (earlierVisitsFoundUnsolved) {
+            addMissingClass.gotException();
+          }
         }
-      }
-      previousIterations.add(workDoneAfterIteration);
-
-      if (gettingStuck || !addMissingClass.gettingException()) {
-        // Three possible cases here:
-        // 1: addMissingClass has finished its iteration.
-        // 2: addMissingClass is stuck for some unknown reasons.
-        // 3: addMissingClass is stuck due to type mismatches, in which the JavaTypeCorrect call
-        // below should solve it. In this case (only), we should trigger another round
-        // of iteration of the unsolved symbol visitor, since JavaTypeCorrect may have caused
-        // some new symbols to be unsolved.
-
-        // update the synthetic types by using error messages from javac.
-        GetTypesFullNameVisitor getTypesFullNameVisitor = new GetTypesFullNameVisitor();
-        for (CompilationUnit cu : parsedTargetFiles.values()) {
-          cu.accept(getTypesFullNameVisitor, null);
+        addMissingClass.updateSyntheticSourceCode();
+        // since the synthetic classes are updated, the SymbolSolver must forget what it knew about
+        // them
+        typeSolver.startNewGeneration();
+        // the visitor modifies the files that it visits, so the next iteration needs fresh copies;
+        // only the files that are new or whose synthetic source changed are parsed again
+        parsedTargetFiles = new HashMap<>();
+        for (String targetFile : targetFiles) {
+          parsedTargetFiles.put(targetFile, targetFileCache.get(targetFile));
+        }
+        for (String targetFile : addMissingClass.getAddedTargetFiles()) {
+          try {
+            parsedTargetFiles.put(targetFile, targetFileCache.get(targetFile));
+          } catch (ParseProblemException e) {
+            // These parsing codes cause crashes in the CI. Those crashes can't be reproduced
+            // locally. Not sure if something is wrong with VineFlower or Specimin CI. Hence we keep
+            // these lines as tech debt.
+            // TODO: Figure out why the CI is crashing.
+            continue;
+          }
         }
-        Map<String, Set<String>> filesAndAssociatedTypes =
-            getTypesFullNameVisitor.getFileAndAssociatedTypes();
-        // correct the types of all related files before adding them to parsedTargetFiles
-        JavaTypeCorrect typeCorrecter =
-            new JavaTypeCorrect(root, new HashSet<>(targetFiles), filesAndAssociatedTypes);
-        typeCorrecter.correctTypesForAllFiles();
-        typesToChange = typeCorrecter.getTypeToChange();
-        classAndUnresolvedInterface = typeCorrecter.getClassAndUnresolvedInterface();
-        methodRefToCorrectParameters = typeCorrecter.getMethodRefToCorrectParameters();
-        methodRefToVoidness = typeCorrecter.getMethodRefVoidness();
-        boolean changeAtLeastOneType = addMissingClass.updateTypes(typesToChange);
-        boolean extendAtLeastOneType =
-            addMissingClass.updateTypesWithExtends(typeCorrecter.getExtendedTypes());
-        boolean changeAtLeastOneMethodRef =
-            addMissingClass.updateMethodReferenceParameters(methodRefToCorrectParameters);
-        boolean changeAtLeastOneMethodReturn =
-            addMissingClass.updateMethodReferenceVoidness(methodRefToVoidness);
-        boolean atLeastOneTypeIsUpdated =
-            changeAtLeastOneType
-                || extendAtLeastOneType
-                || changeAtLeastOneMethodRef
-                || changeAtLeastOneMethodReturn;
-
-        // this is case 2. We will stop addMissingClass. In the next phase,
-        // TargetMethodFinderVisitor will give us a meaningful exception message regarding which
-        // element in the input is not solvable.
-        if (!atLeastOneTypeIsUpdated && gettingStuck) {
+        // The fresh copies are the target files with the synthetic classes found so far.
+        partialOutput.checkpointIteration(parsedTargetFiles, syntheticSourceOverlay.getSources());
+        // Infinite loop protection.
+        boolean gettingStuck = fixpointMonitor.record(addMissingClass.getProgressFingerprint());
+        if (fixpointMonitor.isCycling()) {
+          // A whole cycle of outputs has repeated, so we're probably in an infinite loop.
+          break;
+        }
+
+        if ((gettingStuck || !addMissingClass.gettingException())
+            && syntheticSourceOverlay.getSources().isEmpty()) {
+          // Every symbol that the targets use has been solved against the root, the jars, and the
+          // JDK, without a single synthetic class, though the pre-pass above could not tell. The
+          // corrections from javac below only ever change synthetic classes, so the loop has
+          // reached its fixpoint, and there is no need for a javac round.
           break;
-        } else if (atLeastOneTypeIsUpdated) {
-          // this is case 3: ensure that unsolved symbol solver is called at least once, to force us
-          // to reach a correct fixpoint
-          addMissingClass.gotException();
-          continue;
         }
 
-        // in order for the newly updated files to be considered when solving symbols, we need to
-        // update the type solver and the map of parsed target files.
-        updateStaticSolver(root, jarPaths);
+        if (gettingStuck || !addMissingClass.gettingException()) {
+          // Three possible cases here:
+          // 1: addMissingClass has finished its iteration.
+          // 2: addMissingClass is stuck for some unknown reasons.
+          // 3: addMissingClass is stuck due to type mismatches, in which the JavaTypeCorrect call
+          // below should solve it. In this case (only), we should trigger another round
+          // of iteration of the unsolved symbol visitor, since JavaTypeCorrect may have caused
+          // some new symbols to be unsolved.
+
+          // update the synthetic types by using error messages from javac.
+          GetTypesFullNameVisitor getTypesFullNameVisitor = new GetTypesFullNameVisitor();
+          for (CompilationUnit cu : parsedTargetFiles.values()) {
+            cu.accept(getTypesFullNameVisitor, null);
+          }
+          Map<String, Set<String>> filesAndAssociatedTypes =
+              getTypesFullNameVisitor.getFileAndAssociatedTypes();
+          // correct the types of all related files before adding them to parsedTargetFiles
+          if (javacSession == null) {
+            javacSession =
+                new JavacSession(
+                    sourceRoots.getCompleteDirectories(),
+                    sourceRoots.getLazyDecompiledJarPaths(),
+                    syntheticSourceOverlay,
+                    options.getRelease());
+          }
+          JavaTypeCorrect typeCorrecter =
+              new JavaTypeCorrect(
+                  root, new HashSet<>(targetFiles), filesAndAssociatedTypes, javacSession);
+          typeCorrecter.correctTypesForAllFiles();
+          typesToChange = typeCorrecter.getTypeToChange();
+          classAndUnresolvedInterface = typeCorrecter.getClassAndUnresolvedInterface();
+          methodRefToCorrectParameters = typeCorrecter.getMethodRefToCorrectParameters();
+          methodRefToVoidness = typeCorrecter.getMethodRefVoidness();
+          boolean changeAtLeastOneType = addMissingClass.updateTypes(typesToChange);
+          boolean extendAtLeastOneType =
+              addMissingClass.updateTypesWithExtends(typeCorrecter.getExtendedTypes());
+          boolean changeAtLeastOneMethodRef =
+              addMissingClass.updateMethodReferenceParameters(methodRefToCorrectParameters);
+          boolean changeAtLeastOneMethodReturn =
+              addMissingClass.updateMethodReferenceVoidness(methodRefToVoidness);
+          boolean atLeastOneTypeIsUpdated =
+              changeAtLeastOneType
+                  || extendAtLeastOneType
+                  || changeAtLeastOneMethodRef
+                  || changeAtLeastOneMethodReturn;
+
+          // this is case 2. We will stop addMissingClass. In the next phase,
+          // TargetMethodFinderVisitor will give us a meaningful exception message regarding which
+          // element in the input is not solvable.
+          if (!atLeastOneTypeIsUpdated && gettingStuck) {
+            break;
+          } else if (atLeastOneTypeIsUpdated) {
+            // this is case 3: ensure that unsolved symbol solver is called at least once, to force
+            // us to reach a correct fixpoint
+            addMissingClass.gotException();
+            worklist.visitEverythingNextIteration();
+            continue;
+          }
+
+          // in order for the newly updated files to be considered when solving symbols, we need to
+          // update the type solver and the map of parsed target files.
+          typeSolver.startNewGeneration();
+        }
+      }
+    } finally {
+      if (javacSession != null) {
+        partialOutput.setJavacCompilationCount(javacSession.getCompilationCount());
+        javacSession.close();
       }
     }
 
@@ -406,6 +600,9 @@ public class SpeciminRunner {
     for (CompilationUnit cu : parsedTargetFiles.values()) {
       cu.accept(enumVisitor, null);
     }
+    // The target files, whole, and every synthetic class that they need.
+    partialOutput.checkpoint(
+        "solved-symbols", parsedTargetFiles, syntheticSourceOverlay.getSources(), fixpointMonitor);
 
     // Use a two-phase approach: the first phase finds the target(s) and records
     // what specifications they use, and the second phase takes that information
@@ -414,27 +611,19 @@ public class SpeciminRunner {
     TargetMemberFinderVisitor finder =
         new TargetMemberFinderVisitor(enumVisitor, nonPrimaryClassesToPrimaryClass);
 
+    // With partial output, the phases below also stop between two files once the run is past its
+    // time budget, and the files of the last checkpoint are written.
     for (CompilationUnit cu : parsedTargetFiles.values()) {
+      partialOutput.checkDeadline("finding-targets", fixpointMonitor);
       cu.accept(finder, null);
     }
 
-    Map<String, Set<String>> unfoundMethods = finder.getUnfoundMethods();
-    if (!unfoundMethods.isEmpty()) {
-      throw new RuntimeException(
-          "Specimin could not locate the following target methods in the target files:\n"
-              + unfoundMembersTable(unfoundMethods, true));
-    }
-
-    Map<String, Set<String>> unfoundFields = finder.getUnfoundFields();
-    if (!unfoundFields.isEmpty()) {
-      throw new RuntimeException(
-          "Specimin could not locate the following target fields in the target files:\n"
-              + unfoundMembersTable(unfoundFields, false));
-    }
+    checkTargetsFound(finder.getUnfoundMethods(), finder.getUnfoundFields());
 
     SolveMethodOverridingVisitor solveMethodOverridingVisitor =
         new SolveMethodOverridingVisitor(finder);
     for (CompilationUnit cu : parsedTargetFiles.values()) {
+      partialOutput.checkDeadline("finding-targets", fixpointMonitor);
       cu.accept(solveMethodOverridingVisitor, null);
     }
 
@@ -442,10 +631,9 @@ public class SpeciminRunner {
     // add all files related to the targeted methods
     for (String classFullName : solveMethodOverridingVisitor.getUsedTypeElements()) {
       String directoryOfFile = classFullName.replace(".", "/") + ".java";
-      File thisFile = new File(root + directoryOfFile);
       // classes from JDK are automatically on the classpath, so UnsolvedSymbolVisitor will not
       // create synthetic files for them
-      if (thisFile.exists()) {
+      if (syntheticSourceOverlay.existsInSourceRoots(sourceRoots, directoryOfFile)) {
         relatedClass.add(directoryOfFile);
       }
     }
@@ -455,7 +643,8 @@ public class SpeciminRunner {
       // not supposed to update them.
       if (!parsedTargetFiles.containsKey(directory)) {
         try {
-          parsedTargetFiles.put(directory, parseJavaFile(root, directory));
+          parsedTargetFiles.put(
+              directory, parseJavaFile(parser, sourceRoots, syntheticSourceOverlay, directory));
         } catch (ParseProblemException e) {
           // TODO: Figure out why the CI is crashing.
           continue;
@@ -465,17 +654,25 @@ public class SpeciminRunner {
     Set<String> classToFindInheritance = solveMethodOverridingVisitor.getUsedTypeElements();
     Set<String> totalSetOfAddedInheritedClasses = classToFindInheritance;
     InheritancePreserveVisitor inheritancePreserve;
+    // The type parameter bounds that have already been handled, shared across all rounds below.
+    Set<String> visitedBounds = new HashSet<>();
     while (!classToFindInheritance.isEmpty()) {
-      inheritancePreserve = new InheritancePreserveVisitor(classToFindInheritance);
+      inheritancePreserve =
+          new InheritancePreserveVisitor(
+              classToFindInheritance,
+              visitedBounds,
+              solveMethodOverridingVisitor.getResolutionCache());
       for (CompilationUnit cu : parsedTargetFiles.values()) {
+        partialOutput.checkDeadline("collecting-used-files", fixpointMonitor);
         cu.accept(inheritancePreserve, null);
       }
       for (String targetFile : inheritancePreserve.getAddedClasses()) {
         String directoryOfFile = targetFile.replace(".", "/") + ".java";
-        File thisFile = new File(root + directoryOfFile);
-        if (thisFile.exists()) {
+        if (syntheticSourceOverlay.existsInSourceRoots(sourceRoots, directoryOfFile)) {
           try {
-            parsedTargetFiles.put(directoryOfFile, parseJavaFile(root, directoryOfFile));
+            parsedTargetFiles.put(
+                directoryOfFile,
+                parseJavaFile(parser, sourceRoots, syntheticSourceOverlay, directoryOfFile));
           } catch (ParseProblemException e) {
             // TODO: Figure out why the CI is crashing.
             continue;
@@ -493,16 +690,30 @@ public class SpeciminRunner {
         new MustImplementMethodsVisitor(solveMethodOverridingVisitor);
 
     for (CompilationUnit cu : parsedTargetFiles.values()) {
+      partialOutput.checkDeadline("collecting-used-files", fixpointMonitor);
       cu.accept(mustImplementMethodsVisitor, null);
     }
+    partialOutput.checkDeadline("collecting-used-files", fixpointMonitor);
 
     // This is safe to run after MustImplementMethodsVisitor because
     // annotations do not inherit
-    processAnnotationTypes(mustImplementMethodsVisitor, root, parsedTargetFiles);
+    processAnnotationTypes(
+        mustImplementMethodsVisitor,
+        parser,
+        sourceRoots,
+        syntheticSourceOverlay,
+        parsedTargetFiles);
+    // The same, with every other file that the targets use, whole.
+    partialOutput.checkpoint(
+        "collected-used-files",
+        parsedTargetFiles,
+        syntheticSourceOverlay.getSources(),
+        fixpointMonitor);
 
     // Remove the unsolved annotations (and @Override) in all files.
     UnsolvedAnnotationRemoverVisitor annoRemover = new UnsolvedAnnotationRemoverVisitor(jarPaths);
     for (CompilationUnit cu : parsedTargetFiles.values()) {
+      partialOutput.checkDeadline("pruning", fixpointMonitor);
       cu.accept(annoRemover, null);
     }
 
@@ -513,11 +724,15 @@ public class SpeciminRunner {
             classAndUnresolvedInterface);
 
     for (CompilationUnit cu : parsedTargetFiles.values()) {
+      partialOutput.checkDeadline("pruning", fixpointMonitor);
       cu.accept(methodPruner, null);
     }
 
+    partialOutput.checkDeadline("pruning", fixpointMonitor);
     pruneAnnotationDeclarationTargets(parsedTargetFiles);
-    removeUnusedImports(parsedTargetFiles);
+    removeUnusedImports(parsedTargetFiles, methodPruner.getResolutionCache());
+    // The minimized program, before it is written.
+    partialOutput.checkpoint("pruned", parsedTargetFiles, Map.of(), fixpointMonitor);
 
     // cache to avoid called Files.createDirectories repeatedly with the same arguments
     Set<Path> createdDirectories = new HashSet<>();
@@ -530,6 +745,7 @@ public class SpeciminRunner {
     }
 
     for (Entry<String, CompilationUnit> target : parsedTargetFiles.entrySet()) {
+      partialOutput.checkDeadline("writing-output", fixpointMonitor);
       // ignore classes from the Java package, unless we are targeting a JDK file.
       // However, all related java/ files should not be included (as in used, but not targeted)
       String absolutePath = new File(target.getKey()).getAbsolutePath();
@@ -576,7 +792,52 @@ public class SpeciminRunner {
         System.out.println("with error: " + e);
       }
     }
-    createdClass.addAll(getPathsFromJarPaths(root, jarPaths));
+  }
+
+  /**
+   * Matches the targets lexically against the declarations of the target files, without solving any
+   * symbols, and reports the targets that do not exist the same way as the full search for them
+   * does. Only a target whose class is declared in the target files but lacks the member is
+   * reported here; any other target is left to the full search, since its class may be in a file
+   * that is added during the run.
+   *
+   * @param targetFiles the parsed target files, which are not modified
+   * @param targetMethodNames the target methods
+   * @param targetFieldNames the target fields
+   */
+  private static void validateTargets(
+      Collection<CompilationUnit> targetFiles,
+      List<String> targetMethodNames,
+      List<String> targetFieldNames) {
+    TargetValidatorVisitor validator =
+        new TargetValidatorVisitor(targetMethodNames, targetFieldNames);
+    for (CompilationUnit cu : targetFiles) {
+      cu.accept(validator, null);
+    }
+    checkTargetsFound(validator.getUnfoundMethods(), validator.getUnfoundFields());
+  }
+
+  /**
+   * Throws an exception that lists the targets that were not found, if there are any.
+   *
+   * @param unfoundMethods the target methods that were not found, each mapped to the methods of its
+   *     class that were considered
+   * @param unfoundFields the target fields that were not found, each mapped to the fields of its
+   *     class that were considered
+   */
+  private static void checkTargetsFound(
+      Map<String, Set<String>> unfoundMethods, Map<String, Set<String>> unfoundFields) {
+    if (!unfoundMethods.isEmpty()) {
+      throw new RuntimeException(
+          "Specimin could not locate the following target methods in the target files:\n"
+              + unfoundMembersTable(unfoundMethods, true));
+    }
+
+    if (!unfoundFields.isEmpty()) {
+      throw new RuntimeException(
+          "Specimin could not locate the following target fields in the target files:\n"
+              + unfoundMembersTable(unfoundFields, false));
+    }
   }
 
   /**
@@ -585,11 +846,17 @@ public class SpeciminRunner {
    * necessary files in Specimin's output.
    *
    * @param last The last SpeciminStateVisitor to run
-   * @param root The root directory
+   * @param parser The parser of this run
+   * @param sourceRoots The source roots of this run
+   * @param syntheticSourceOverlay The synthetic classes of this run
    * @param parsedTargetFiles A map of file names to parsed CompilationUnits
    */
   private static SpeciminStateVisitor processAnnotationTypes(
-      SpeciminStateVisitor last, String root, Map<String, CompilationUnit> parsedTargetFiles)
+      SpeciminStateVisitor last,
+      JavaParser parser,
+      SourceRoots sourceRoots,
+      SyntheticSourceOverlay syntheticSourceOverlay,
+      Map<String, CompilationUnit> parsedTargetFiles)
       throws IOException {
     AnnotationParameterTypesVisitor annotationParameterTypesVisitor =
         new AnnotationParameterTypesVisitor(last);
@@ -609,10 +876,9 @@ public class SpeciminRunner {
           continue;
         }
         String directoryOfFile = annoFullName.replace(".", "/") + ".java";
-        File thisFile = new File(root + directoryOfFile);
         // classes from JDK are automatically on the classpath, so UnsolvedSymbolVisitor will not
         // create synthetic files for them
-        if (thisFile.exists()) {
+        if (syntheticSourceOverlay.existsInSourceRoots(sourceRoots, directoryOfFile)) {
           classesToParse.add(directoryOfFile);
         } else {
           // The given class may be an inner class, so we should find its encapsulating class
@@ -629,9 +895,8 @@ public class SpeciminRunner {
 
           if (dot != -1) {
             directoryOfFile = annoFullName.substring(0, dot).replace(".", "/") + ".java";
-            thisFile = new File(root + directoryOfFile);
             // This inner class was just added, so we should re-parse the file
-            if (thisFile.exists()) {
+            if (syntheticSourceOverlay.existsInSourceRoots(sourceRoots, directoryOfFile)) {
               classesToParse.add(directoryOfFile);
             }
           }
@@ -646,7 +911,8 @@ public class SpeciminRunner {
           // directories already in parsedTargetFiles are original files in the root directory, we
           // are not supposed to update them.
           if (!parsedTargetFiles.containsKey(directory)) {
-            CompilationUnit parsed = parseJavaFile(root, directory);
+            CompilationUnit parsed =
+                parseJavaFile(parser, sourceRoots, syntheticSourceOverlay, directory);
             parsedTargetFiles.put(directory, parsed);
           }
           compilationUnitsToSolveAnnotations.add(parsedTargetFiles.get(directory));
@@ -681,9 +947,12 @@ public class SpeciminRunner {
    * Removes all unused imports in each output file through {@code UnusedImportRemoverVisitor}.
    *
    * @param parsedTargetFiles the files to remove unused imports
+   * @param resolutionCache the results of resolving the nodes of this run
    */
-  private static void removeUnusedImports(Map<String, CompilationUnit> parsedTargetFiles) {
-    UnusedImportRemoverVisitor unusedImportRemover = new UnusedImportRemoverVisitor();
+  private static void removeUnusedImports(
+      Map<String, CompilationUnit> parsedTargetFiles, ResolutionCache resolutionCache) {
+    UnusedImportRemoverVisitor unusedImportRemover =
+        new UnusedImportRemoverVisitor(resolutionCache);
 
     for (CompilationUnit cu : parsedTargetFiles.values()) {
       cu.accept(unusedImportRemover, null);
@@ -716,23 +985,19 @@ public class SpeciminRunner {
   }
 
   /**
-   * Update the static solver for JavaParser.
+   * Creates a parser that resolves symbols with the given type solver. The symbol resolver is set
+   * on the given configuration, so the files that the type solver parses with the same
+   * configuration resolve their symbols in the same way.
    *
-   * @param root the root directory of the files to parse.
-   * @param jarPaths the list of jar files to be used as input.
-   * @throws IOException if something went wrong.
+   * @param configuration the parser configuration of this run
+   * @param typeSolver the type solver of this run
+   * @return a new parser
    */
-  private static void updateStaticSolver(String root, List<String> jarPaths) throws IOException {
-    // Set up the parser's symbol solver, so that we can resolve definitions.
-    CombinedTypeSolver typeSolver =
-        new CombinedTypeSolver(new JdkTypeSolver(), new JavaParserTypeSolver(new File(root)));
-    for (String path : jarPaths) {
-      typeSolver.add(new JarTypeSolver(path));
-    }
-    JavaSymbolSolver symbolSolver = new JavaSymbolSolver(typeSolver);
-    StaticJavaParser.getParserConfiguration().setSymbolResolver(symbolSolver);
-    StaticJavaParser.getParserConfiguration()
-        .setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_17);
+  private static JavaParser createJavaParser(
+      ParserConfiguration configuration, TypeSolver typeSolver) {
+    JavaSymbolSolver symbolSolver = new SpeciminSymbolSolver(typeSolver);
+    configuration.setSymbolResolver(symbolSolver);
+    return new JavaParser(configuration);
   }
 
   /**
@@ -782,70 +1047,32 @@ public class SpeciminRunner {
   }
 
   /**
-   * Use JavaParser to parse a single Java files.
+   * Use JavaParser to parse a single Java files. A synthetic class is parsed from the overlay, and
+   * any other file from the first source root that contains it.
    *
-   * @param root the absolute path to the root of the source tree
+   * @param parser the parser of this run
+   * @param sourceRoots the source roots of this run
+   * @param syntheticSourceOverlay the synthetic classes of this run
    * @param path the path of the file to be parsed, relative to the root
    * @return the compilation unit representing the code in the file at the path, or exit with an
    *     error
    */
-  private static CompilationUnit parseJavaFile(String root, String path) throws IOException {
-    return StaticJavaParser.parse(Path.of(root, path));
-  }
-
-  /**
-   * Retrieves the paths of Java files that should be created from the list of JAR files.
-   *
-   * @param outPutDirectory The directory where the Java files will be created.
-   * @param jarPaths The set of paths to JAR files.
-   * @return A set containing the paths of the Java files to be created.
-   * @throws IOException If an I/O error occurs.
-   */
-  private static Set<Path> getPathsFromJarPaths(String outPutDirectory, List<String> jarPaths)
+  static CompilationUnit parseJavaFile(
+      JavaParser parser,
+      SourceRoots sourceRoots,
+      SyntheticSourceOverlay syntheticSourceOverlay,
+      String path)
       throws IOException {
-    Set<Path> pathsOfFile = new HashSet<>();
-    for (String path : jarPaths) {
-      JarTypeSolver jarSolver = new JarTypeSolver(path);
-      for (String qualifedClassName : jarSolver.getKnownClasses()) {
-        String relativePath = qualifedClassName.replace(".", "/") + ".java";
-        String absolutePath = outPutDirectory + relativePath;
-        Path filePath = Paths.get(absolutePath);
-        if (Files.exists(filePath)) {
-          pathsOfFile.add(filePath);
-        }
-      }
+    String syntheticSource = syntheticSourceOverlay.getSource(path);
+    if (syntheticSource != null) {
+      return JavaParserUtil.getParsedResult(parser.parse(syntheticSource));
     }
-    return pathsOfFile;
-  }
-
-  /**
-   * This method delete all files from a set of Paths. If a file is the only file in its parent
-   * directory, this method will recursively delete the parent directories until it meets a
-   * non-empty directory.
-   *
-   * @param fileList the set of Paths of files to be deleted
-   */
-  private static void deleteFiles(Set<Path> fileList) {
-    for (Path filePath : fileList) {
-      try {
-        Files.delete(filePath);
-        File classFile = new File(filePath.toString().replace(".java", ".class"));
-        // since javac might leave some .class files
-        if (classFile.exists()) {
-          Files.delete(classFile.toPath());
-        }
-        File parentDir = filePath.toFile().getParentFile();
-        if (parentDir != null && parentDir.exists() && parentDir.isDirectory()) {
-          String[] fileContained = parentDir.list();
-          if (fileContained != null && fileContained.length == 0) {
-            // Recursive call to delete the parent directory
-            deleteFileFamily(parentDir);
-          }
-        }
-      } catch (Exception e) {
-        throw new RuntimeException("Unresolved file path: " + filePath);
-      }
+    Path file = sourceRoots.findFile(path);
+    if (file == null) {
+      // Report the missing file in the root.
+      file = Path.of(sourceRoots.getRoot(), path);
     }
+    return JavaParserUtil.getParsedResult(parser.parse(file));
   }
 
   /**
@@ -862,28 +1089,6 @@ public class SpeciminRunner {
     return cuWithNoComments;
   }
 
-  /**
-   * Given a directory, this method will delete that directory and recursively delete the parent
-   * directories until it meets a non-empty directory. Be careful when making any changes to this
-   * method, as an incorrect conditional statement could result in the deletion of non-empty
-   * directories. This method is used to delete the temporary directory created by
-   * UnsolvedSymbolVisitor.
-   *
-   * @param fileDir the directory of the file to be deleted
-   */
-  private static void deleteFileFamily(File fileDir) {
-    fileDir.delete();
-    File parentDir = fileDir.getParentFile();
-    if (parentDir != null && parentDir.exists() && parentDir.isDirectory()) {
-      String[] fileContained = parentDir.list();
-      // Be cautious when making any changes to this line, you might actually delete important
-      // directories in the project.
-      if (fileContained != null && fileContained.length == 0) {
-        deleteFileFamily(parentDir);
-      }
-    }
-  }
-
   /**
    * Given a directory, this method will return all the .jar files stored in the directory.
    *
@@ -900,4 +1105,56 @@ public class SpeciminRunner {
       throw new RuntimeException(e);
     }
   }
+
+  /**
+   * Splits a class path into its entries.
+   *
+   * @param classPath jar files and directories of class files, separated by the system's path
+   *     separator
+   * @return the entries of the class path, in order
+   * @throws IllegalArgumentException if an entry does not exist
+   */
+  private static List<String> getClassPathEntries(String classPath) {
+    List<String> result = new ArrayList<>();
+    for (String entry : Splitter.on(File.pathSeparatorChar).omitEmptyStrings().split(classPath)) {
+      if (!Files.exists(Path.of(entry))) {
+        throw new IllegalArgumentException("class path entry does not exist: " + entry);
+      }
+      result.add(entry);
+    }
+    return result;
+  }
+
+  /**
+   * Finds the modules of a module path. Each entry of the module path is a modular jar, an exploded
+   * module, which is a directory of class files that contains a module-info.class file, or a
+   * directory whose jar files and exploded modules are modules.
+   *
+   * @param modulePath the entries of the module path, separated by the system's path separator
+   * @return the jar files and directories of class files of the modules, in order
+   * @throws IOException if a directory cannot be listed
+   * @throws IllegalArgumentException if an entry does not exist
+   */
+  private static List<String> getModulePathEntries(String modulePath) throws IOException {
+    List<String> result = new ArrayList<>();
+    for (String entry : getClassPathEntries(modulePath)) {
+      Path path = Path.of(entry);
+      if (!Files.isDirectory(path) || Files.exists(path.resolve("module-info.class"))) {
+        result.add(entry);
+        continue;
+      }
+      try (Stream<Path> children = Files.list(path)) {
+        children
+            .filter(
+                child ->
+                    Files.isDirectory(child)
+                        ? Files.exists(child.resolve("module-info.class"))
+                        : child.toString().endsWith(".jar"))
+            .map(Path::toString)
+            .sorted()
+            .forEach(result::add);
+      }
+    }
+    return result;
+  }
 }
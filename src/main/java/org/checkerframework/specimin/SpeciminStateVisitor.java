@@ -91,6 +91,13 @@ public abstract class SpeciminStateVisitor extends ModifierVisitor<Void> {
    */
   protected final Set<String> fieldsAssignedByTargetCtors;
 
+  /**
+   * The results of resolving the nodes of this run, shared by every visitor that copies its state
+   * from this one. Only the visitors that run after the fixpoint loop of {@link
+   * UnsolvedSymbolVisitor} may use it; see {@link ResolutionCache}.
+   */
+  protected final ResolutionCache resolutionCache;
+
   /**
    * Constructs a new instance with the provided sets. Use this constructor only for the first
    * visitor to run.
@@ -123,6 +130,7 @@ public abstract class SpeciminStateVisitor extends ModifierVisitor<Void> {
     this.existingClassesToFilePath = existingClassesToFilePath;
     this.fieldsAssignedByTargetCtors = new HashSet<>();
     this.modularityModel = model;
+    this.resolutionCache = new ResolutionCache();
   }
 
   /**
@@ -142,6 +150,16 @@ public abstract class SpeciminStateVisitor extends ModifierVisitor<Void> {
     this.currentClassQualifiedName = previous.currentClassQualifiedName;
     this.fieldsAssignedByTargetCtors = previous.fieldsAssignedByTargetCtors;
     this.modularityModel = previous.modularityModel;
+    this.resolutionCache = previous.resolutionCache;
+  }
+
+  /**
+   * Get the results of resolving the nodes of this run.
+   *
+   * @return the resolution cache shared by this visitor and the visitors before and after it
+   */
+  public ResolutionCache getResolutionCache() {
+    return resolutionCache;
   }
 
   /**
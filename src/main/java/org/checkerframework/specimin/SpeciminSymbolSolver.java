@@ -0,0 +1,36 @@
+package org.checkerframework.specimin;
+
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.symbolsolver.JavaSymbolSolver;
+import com.github.javaparser.symbolsolver.javaparsermodel.JavaParserFacade;
+
+/**
+ * The symbol resolver of Specimin's parsers. It resolves symbols exactly like JavaParser's
+ * JavaSymbolSolver, but also exposes the JavaParserFacade that it resolves them with, so that
+ * {@link TryResolver} can ask whether a symbol is solved without an exception being thrown when it
+ * is not.
+ */
+public class SpeciminSymbolSolver extends JavaSymbolSolver {
+
+  /** The facade that resolves the symbols. */
+  private final JavaParserFacade facade;
+
+  /**
+   * Creates a new symbol resolver.
+   *
+   * @param typeSolver the type solver of this run
+   */
+  public SpeciminSymbolSolver(TypeSolver typeSolver) {
+    super(typeSolver);
+    this.facade = JavaParserFacade.get(typeSolver);
+  }
+
+  /**
+   * Returns the facade that resolves the symbols.
+   *
+   * @return the facade, which JavaSymbolSolver also uses
+   */
+  public JavaParserFacade getFacade() {
+    return facade;
+  }
+}
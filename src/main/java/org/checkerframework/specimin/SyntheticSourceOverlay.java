@@ -0,0 +1,135 @@
+package org.checkerframework.specimin;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The source code of the synthetic classes created by {@link UnsolvedSymbolVisitor}, held in
+ * memory. The overlay is a layer on top of the root directory: the symbol solver, javac, and
+ * SpeciminRunner all treat a file in the overlay as if it were a file in the root, and a file in
+ * the overlay hides a file with the same path in the root. Keeping the synthetic classes in memory
+ * means that Specimin never writes into the user's root, so roots may be read-only or shared by
+ * concurrent runs.
+ *
+ * <p>Each run of Specimin owns one overlay.
+ */
+public class SyntheticSourceOverlay {
+
+  /** The kind of the elements of the fingerprint of an overlay, which are its files. */
+  private static final String FINGERPRINT_KIND = "synthetic file";
+
+  /**
+   * The source code of each synthetic file. The keys are paths relative to the root, using "/" as
+   * the separator, such as "com/example/Foo.java".
+   */
+  private final Map<String, String> sources = new HashMap<>();
+
+  /** The fingerprint of the files in the overlay, kept up to date as files are put and removed. */
+  private Fingerprint fingerprint = Fingerprint.EMPTY;
+
+  /**
+   * Adds a file to the overlay, replacing any previous version of it.
+   *
+   * @param relativePath the path of the file relative to the root, such as "com/example/Foo.java"
+   * @param source the content of the file
+   */
+  public void put(String relativePath, String source) {
+    @Nullable String previous = sources.put(relativePath, source);
+    if (previous != null) {
+      if (previous.equals(source)) {
+        return;
+      }
+      fingerprint = fingerprint.with(FINGERPRINT_KIND, relativePath + '\0' + previous);
+    }
+    fingerprint = fingerprint.with(FINGERPRINT_KIND, relativePath + '\0' + source);
+  }
+
+  /**
+   * Removes a file from the overlay. Does nothing if there is no such file.
+   *
+   * @param relativePath the path of the file relative to the root
+   */
+  public void remove(String relativePath) {
+    @Nullable String previous = sources.remove(relativePath);
+    if (previous != null) {
+      fingerprint = fingerprint.with(FINGERPRINT_KIND, relativePath + '\0' + previous);
+    }
+  }
+
+  /**
+   * Returns the fingerprint of the files in the overlay. Two overlays have the same fingerprint iff
+   * they contain the same files with the same contents, with overwhelming probability. Computing it
+   * costs nothing, since it is kept up to date as files are put and removed.
+   *
+   * @return the fingerprint of the paths and contents of the files
+   */
+  public Fingerprint getFingerprint() {
+    return fingerprint;
+  }
+
+  /**
+   * Is the given file in the overlay?
+   *
+   * @param relativePath the path of the file relative to the root
+   * @return true iff the overlay contains the file
+   */
+  public boolean contains(String relativePath) {
+    return sources.containsKey(relativePath);
+  }
+
+  /**
+   * Returns the content of a file in the overlay.
+   *
+   * @param relativePath the path of the file relative to the root
+   * @return the content of the file, or null if the overlay does not contain it
+   */
+  public @Nullable String getSource(String relativePath) {
+    return sources.get(relativePath);
+  }
+
+  /**
+   * Returns all the files in the overlay.
+   *
+   * @return an unmodifiable map from relative paths to file contents
+   */
+  public Map<String, String> getSources() {
+    return Collections.unmodifiableMap(sources);
+  }
+
+  /**
+   * Returns the files that were added, changed, or removed since a snapshot of the overlay was
+   * taken.
+   *
+   * @param snapshot an earlier copy of {@link #getSources()}
+   * @return the relative paths of the files whose content differs from the snapshot
+   */
+  public Set<String> getChangedPaths(Map<String, String> snapshot) {
+    Set<String> changedPaths = new HashSet<>();
+    for (Map.Entry<String, String> entry : sources.entrySet()) {
+      if (!entry.getValue().equals(snapshot.get(entry.getKey()))) {
+        changedPaths.add(entry.getKey());
+      }
+    }
+    for (String path : snapshot.keySet()) {
+      if (!sources.containsKey(path)) {
+        changedPaths.add(path);
+      }
+    }
+    return changedPaths;
+  }
+
+  /**
+   * Is the given file either in the overlay or in one of the source roots?
+   *
+   * @param sourceRoots the source roots of the run
+   * @param relativePath the path of the file relative to the root
+   * @return true iff the file exists in the overlay or in a source root
+   */
+  public boolean existsInSourceRoots(SourceRoots sourceRoots, String relativePath) {
+    return contains(relativePath) || sourceRoots.contains(relativePath);
+  }
+}
@@ -0,0 +1,173 @@
+package org.checkerframework.specimin;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.resolution.Navigator;
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.symbolsolver.javaparsermodel.JavaParserFacade;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
+
+/**
+ * A type solver for the synthetic classes in a {@link SyntheticSourceOverlay}. It looks up types in
+ * the same way as JavaParser's JavaParserTypeSolver looks them up in a source directory, except
+ * that the files are read from the overlay instead of from disk.
+ *
+ * <p>Like JavaParserTypeSolver, this solver parses each file the first time that it is needed and
+ * then caches it, so a change to the overlay after a file has been parsed is only seen once the
+ * file is {@link #invalidate invalidated}.
+ */
+public class SyntheticSourceTypeSolver implements TypeSolver {
+
+  /** The overlay in which to look up types. */
+  private final SyntheticSourceOverlay overlay;
+
+  /** The parser for the files in the overlay. */
+  private final JavaParser javaParser;
+
+  /** The parent of this solver. */
+  private @MonotonicNonNull TypeSolver parent;
+
+  /** Parsed files, keyed by their paths relative to the root. */
+  private final Map<String, Optional<CompilationUnit>> parsedFiles = new HashMap<>();
+
+  /**
+   * Creates a new solver.
+   *
+   * @param overlay the overlay in which to look up types
+   * @param parserConfiguration the configuration of the run's parser, which the files are parsed
+   *     with
+   */
+  public SyntheticSourceTypeSolver(
+      SyntheticSourceOverlay overlay, ParserConfiguration parserConfiguration) {
+    this.overlay = overlay;
+    this.javaParser = new JavaParser(parserConfiguration);
+  }
+
+  @Override
+  @SuppressWarnings("nullness") // the TypeSolver interface allows a null parent
+  public TypeSolver getParent() {
+    return parent;
+  }
+
+  @Override
+  public void setParent(TypeSolver parent) {
+    if (this.parent != null) {
+      throw new IllegalStateException("This TypeSolver already has a parent.");
+    }
+    if (parent == this) {
+      throw new IllegalStateException("The parent of this TypeSolver cannot be itself.");
+    }
+    this.parent = parent;
+  }
+
+  @Override
+  public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+    return solveInFiles(this, name, this::parse);
+  }
+
+  /**
+   * Looks up a type in the files that could declare it, as JavaParser's JavaParserTypeSolver does
+   * in a source directory.
+   *
+   * @param typeSolver the solver that owns the files
+   * @param name the fully-qualified name of a type
+   * @param parse parses the file with the given path relative to the root, or returns empty if
+   *     there is no such file
+   * @return the declaration of the type, or unsolved if none of the files declares it
+   */
+  static SymbolReference<ResolvedReferenceTypeDeclaration> solveInFiles(
+      TypeSolver typeSolver, String name, Function<String, Optional<CompilationUnit>> parse) {
+    List<String> filePaths = candidateFilePaths(name);
+    for (int i = 0; i < filePaths.size(); i++) {
+      Optional<CompilationUnit> compilationUnit = parse.apply(filePaths.get(i));
+      if (compilationUnit.isEmpty()) {
+        continue;
+      }
+      // The file declares the top-level type whose simple name is the last element of its path, so
+      // the rest of the name is the path to a nested type within it.
+      String[] nameElements = name.split("\\.");
+      int topLevelIndex = nameElements.length - 1 - i;
+      String typeName =
+          String.join(".", Arrays.asList(nameElements).subList(topLevelIndex, nameElements.length));
+      Optional<TypeDeclaration<?>> typeDeclaration =
+          Navigator.findType(compilationUnit.get(), typeName);
+      if (typeDeclaration.isPresent()) {
+        return SymbolReference.solved(
+            JavaParserFacade.get(typeSolver).getTypeDeclaration(typeDeclaration.get()));
+      }
+    }
+    return SymbolReference.unsolved();
+  }
+
+  /**
+   * Forgets the parsed versions of the given files, so that the next lookup reads them from the
+   * overlay again. The other cached files are kept.
+   *
+   * @param relativePaths the paths of the files that changed, relative to the root
+   */
+  public void invalidate(Set<String> relativePaths) {
+    parsedFiles.keySet().removeAll(relativePaths);
+  }
+
+  /**
+   * Returns the files that were parsed successfully and are still cached.
+   *
+   * @return the parsed files
+   */
+  public List<CompilationUnit> getParsedFiles() {
+    List<CompilationUnit> result = new ArrayList<>(parsedFiles.size());
+    for (Optional<CompilationUnit> parsedFile : parsedFiles.values()) {
+      parsedFile.ifPresent(result::add);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the paths of the files, relative to the root, that could declare the type with the
+   * given name. The name may refer to a nested type, so every split of the name into a file name
+   * and a name within that file is a candidate, from the longest file name to the shortest.
+   *
+   * @param name the fully-qualified name of a type
+   * @return the candidate files, such as "com/example/Foo/Bar.java" and then "com/example/Foo.java"
+   *     for "com.example.Foo.Bar"
+   */
+  public static List<String> candidateFilePaths(String name) {
+    String[] nameElements = name.split("\\.");
+    List<String> result = new ArrayList<>(nameElements.length);
+    for (int i = nameElements.length; i > 0; i--) {
+      result.add(String.join("/", Arrays.asList(nameElements).subList(0, i)) + ".java");
+    }
+    return result;
+  }
+
+  /**
+   * Parses a file of the overlay, or retrieves it from the cache.
+   *
+   * @param relativePath the path of the file relative to the root
+   * @return the parsed file, or empty if the overlay does not contain the file or it cannot be
+   *     parsed
+   */
+  private Optional<CompilationUnit> parse(String relativePath) {
+    Optional<CompilationUnit> cached = parsedFiles.get(relativePath);
+    if (cached != null) {
+      return cached;
+    }
+    String source = overlay.getSource(relativePath);
+    Optional<CompilationUnit> result =
+        source == null ? Optional.empty() : javaParser.parse(source).getResult();
+    parsedFiles.put(relativePath, result);
+    return result;
+  }
+}
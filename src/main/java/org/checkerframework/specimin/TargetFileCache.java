@@ -0,0 +1,78 @@
+package org.checkerframework.specimin;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Parses each target file of a run once, rather than in every iteration of the fixpoint loop of
+ * {@link UnsolvedSymbolVisitor}. The files in the source roots never change during a run, so the
+ * result of parsing one is kept for the rest of the run; a file that is also a synthetic class is
+ * parsed again only when its synthetic source has changed.
+ *
+ * <p>The parsed files are never handed out directly: {@link #get(String)} returns a copy. The
+ * visitors modify the files that they visit, for example by removing the methods that the targets
+ * do not use, and JavaParser caches the types that it resolves for a node on the node itself, where
+ * they would go stale when the synthetic classes change. A copy has none of the changes. Copying
+ * also copies the data on each node, but the originals are never resolved, so a copy has no cached
+ * types either; it only keeps the symbol resolver of the original. It costs much less than parsing
+ * the file again.
+ */
+class TargetFileCache {
+
+  /** The parser of the run. */
+  private final JavaParser parser;
+
+  /** The source roots of the run. */
+  private final SourceRoots sourceRoots;
+
+  /** The synthetic classes of the run. */
+  private final SyntheticSourceOverlay syntheticSourceOverlay;
+
+  /** The parsed target files, keyed by their paths. Never visited or resolved. */
+  private final Map<String, CompilationUnit> originals = new HashMap<>();
+
+  /**
+   * The synthetic source that each target file was parsed from, or null if it was parsed from the
+   * source roots. Keyed by the paths of the files.
+   */
+  private final Map<String, @Nullable String> parsedSyntheticSources = new HashMap<>();
+
+  /**
+   * Creates a new cache.
+   *
+   * @param parser the parser of the run
+   * @param sourceRoots the source roots of the run
+   * @param syntheticSourceOverlay the synthetic classes of the run
+   */
+  TargetFileCache(
+      JavaParser parser, SourceRoots sourceRoots, SyntheticSourceOverlay syntheticSourceOverlay) {
+    this.parser = parser;
+    this.sourceRoots = sourceRoots;
+    this.syntheticSourceOverlay = syntheticSourceOverlay;
+  }
+
+  /**
+   * Returns a fresh copy of a target file, parsing the file first if it has not been parsed yet or
+   * if its synthetic source has changed since it was.
+   *
+   * @param path the path of the file, relative to the source roots
+   * @return a copy of the parsed file that may be visited and modified freely
+   * @throws IOException if the file cannot be read
+   * @throws com.github.javaparser.ParseProblemException if the file cannot be parsed
+   */
+  CompilationUnit get(String path) throws IOException {
+    @Nullable String syntheticSource = syntheticSourceOverlay.getSource(path);
+    @Nullable CompilationUnit original = originals.get(path);
+    if (original == null || !Objects.equals(syntheticSource, parsedSyntheticSources.get(path))) {
+      original = SpeciminRunner.parseJavaFile(parser, sourceRoots, syntheticSourceOverlay, path);
+      originals.put(path, original);
+      parsedSyntheticSources.put(path, syntheticSource);
+    }
+    return original.clone();
+  }
+}
@@ -239,7 +239,7 @@ public class TargetMemberFinderVisitor extends SpeciminStateVisitor {
     // remove spaces
     methodName = methodName.replaceAll("\\s", "");
     if (this.targetMethodNames.contains(methodName)) {
-      ResolvedConstructorDeclaration resolvedMethod = method.resolve();
+      ResolvedConstructorDeclaration resolvedMethod = resolutionCache.resolve(method);
       targetMethods.add(resolvedMethod.getQualifiedSignature());
       unfoundMethods.remove(methodName);
       updateUsedClassWithQualifiedClassName(
@@ -253,7 +253,7 @@ public class TargetMemberFinderVisitor extends SpeciminStateVisitor {
         for (FieldDeclaration field : thisClass.getFields()) {
           for (VariableDeclarator variable : field.getVariables()) {
             usedMembers.add(currentClassQualifiedName + "#" + variable.getNameAsString());
-            ResolvedType fieldType = variable.resolve().getType();
+            ResolvedType fieldType = resolutionCache.resolve(variable).getType();
             updateUsedClassBasedOnType(fieldType);
           }
         }
@@ -275,7 +275,7 @@ public class TargetMemberFinderVisitor extends SpeciminStateVisitor {
       // used enums needs to have compilable constructors.
       if (usedTypeElements.contains(parentNode.getFullyQualifiedName().orElseThrow())) {
         for (Parameter parameter : method.getParameters()) {
-          updateUsedClassBasedOnType(parameter.getType().resolve());
+          updateUsedClassBasedOnType(resolutionCache.resolve(parameter.getType()));
         }
       }
     }
@@ -289,7 +289,7 @@ public class TargetMemberFinderVisitor extends SpeciminStateVisitor {
       String fieldName = this.currentClassQualifiedName + "#" + node.getNameAsString();
       if (targetFields.contains(fieldName)) {
         ResolvedFieldDeclaration resolvedField =
-            ((FieldDeclaration) node.getParentNode().get()).resolve();
+            resolutionCache.resolve((FieldDeclaration) node.getParentNode().get());
         unfoundFields.remove(fieldName);
         updateUsedClassWithQualifiedClassName(
             resolvedField.declaringType().getQualifiedName(),
@@ -317,7 +317,7 @@ public class TargetMemberFinderVisitor extends SpeciminStateVisitor {
       } else if (lhs.isNameExpr()) {
         // could be a field of "this"
         NameExpr asName = lhs.asNameExpr();
-        ResolvedValueDeclaration resolved = asName.resolve();
+        ResolvedValueDeclaration resolved = resolutionCache.resolve(asName);
         if (resolved.isField()) {
           fieldsAssignedByTargetCtors.add(
               currentClassQualifiedName + "#" + asName.getNameAsString());
@@ -340,7 +340,7 @@ public class TargetMemberFinderVisitor extends SpeciminStateVisitor {
       // it could also be an enum declaration, but those are handled separately
       if (parentNode instanceof ObjectCreationExpr) {
         ObjectCreationExpr parentExpression = (ObjectCreationExpr) parentNode;
-        ResolvedConstructorDeclaration resolved = parentExpression.resolve();
+        ResolvedConstructorDeclaration resolved = resolutionCache.resolve(parentExpression);
         String methodPackagePrefix = JavaParserUtil.packagePrefix(resolved);
         String methodClass = resolved.getClassName();
         usedMembers.add(methodPackagePrefix + methodClass + "." + method.getNameAsString() + "()");
@@ -350,7 +350,7 @@ public class TargetMemberFinderVisitor extends SpeciminStateVisitor {
     }
     String methodWithoutAnySpace = methodName.replaceAll("\\s", "");
     if (this.targetMethodNames.contains(methodWithoutAnySpace)) {
-      ResolvedMethodDeclaration resolvedMethod = method.resolve();
+      ResolvedMethodDeclaration resolvedMethod = resolutionCache.resolve(method);
       updateUsedClassesForInterface(resolvedMethod);
       updateUsedClassWithQualifiedClassName(
           JavaParserUtil.packagePrefix(resolvedMethod) + resolvedMethod.getClassName(),
@@ -370,7 +370,7 @@ public class TargetMemberFinderVisitor extends SpeciminStateVisitor {
       // JavaParser may misinterpret unresolved array types as reference types.
       // To ensure accuracy, we resolve the type before proceeding with the check.
       try {
-        ResolvedType resolvedType = returnType.resolve();
+        ResolvedType resolvedType = resolutionCache.resolve(returnType);
         if (resolvedType instanceof ResolvedReferenceType) {
           updateUsedClassBasedOnType(resolvedType);
         }
@@ -413,10 +413,10 @@ public class TargetMemberFinderVisitor extends SpeciminStateVisitor {
         // Bug report: https://github.com/javaparser/javaparser/issues/4240
         ResolvedType paramType;
         if (para.getParentNode().isPresent() && para.getParentNode().get() instanceof CatchClause) {
-          paramType = para.getType().resolve();
+          paramType = resolutionCache.resolve(para.getType());
         } else {
           try {
-            paramType = para.resolve().getType();
+            paramType = resolutionCache.resolve(para).getType();
           } catch (UnsupportedOperationException e) {
             throw new RuntimeException("cannot solve: " + para, e);
           }
@@ -459,7 +459,7 @@ public class TargetMemberFinderVisitor extends SpeciminStateVisitor {
   @Override
   public Visitable visit(MethodReferenceExpr ref, Void p) {
     if (insideTargetMember) {
-      ResolvedMethodDeclaration decl = ref.resolve();
+      ResolvedMethodDeclaration decl = resolutionCache.resolve(ref);
       preserveMethodDecl(decl);
     }
     return super.visit(ref, p);
@@ -470,7 +470,7 @@ public class TargetMemberFinderVisitor extends SpeciminStateVisitor {
     if (insideTargetMember) {
       ResolvedMethodDeclaration decl;
       try {
-        decl = call.resolve();
+        decl = resolutionCache.resolve(call);
       } catch (UnsupportedOperationException e) {
         // This case only occurs when a method is called on a lambda parameter.
         // JavaParser has a type variable for the lambda parameter, but it won't
@@ -506,7 +506,7 @@ public class TargetMemberFinderVisitor extends SpeciminStateVisitor {
             // Use the scope instead. First, check if it's resolvable. If it is, great -
             // just use that. If not, then we need to use some heuristics as fallbacks.
             try {
-              ResolvedType scopeType = scope.calculateResolvedType();
+              ResolvedType scopeType = resolutionCache.calculateResolvedType(scope);
               resolvedYetStuckMethodCall.add(scopeType.describe() + "." + call.getNameAsString());
               usedTypeElements.add(scopeType.describe());
             } catch (Exception e1) {
@@ -623,7 +623,7 @@ public class TargetMemberFinderVisitor extends SpeciminStateVisitor {
   public Visitable visit(ObjectCreationExpr newExpr, Void p) {
     if (insideTargetMember) {
       try {
-        ResolvedConstructorDeclaration resolved = newExpr.resolve();
+        ResolvedConstructorDeclaration resolved = resolutionCache.resolve(newExpr);
         usedMembers.add(resolved.getQualifiedSignature());
         updateUsedClassWithQualifiedClassName(
             JavaParserUtil.packagePrefix(resolved) + resolved.getClassName(),
@@ -645,7 +645,7 @@ public class TargetMemberFinderVisitor extends SpeciminStateVisitor {
   @Override
   public Visitable visit(ExplicitConstructorInvocationStmt expr, Void p) {
     if (insideTargetMember) {
-      ResolvedConstructorDeclaration resolved = expr.resolve();
+      ResolvedConstructorDeclaration resolved = resolutionCache.resolve(expr);
       usedMembers.add(resolved.getQualifiedSignature());
       updateUsedClassWithQualifiedClassName(
           JavaParserUtil.packagePrefix(resolved) + resolved.getClassName(),
@@ -688,11 +688,12 @@ public class TargetMemberFinderVisitor extends SpeciminStateVisitor {
       try {
         // while the name of the method is declaringType(), it actually returns the class where the
         // field is declared
-        fullNameOfClass = expr.resolve().asField().declaringType().getQualifiedName();
+        fullNameOfClass =
+            resolutionCache.resolve(expr).asField().declaringType().getQualifiedName();
         usedMembers.add(fullNameOfClass + "#" + expr.getName().asString());
         updateUsedClassWithQualifiedClassName(
             fullNameOfClass, usedTypeElements, nonPrimaryClassesToPrimaryClass);
-        ResolvedType exprResolvedType = expr.resolve().getType();
+        ResolvedType exprResolvedType = resolutionCache.resolve(expr).getType();
         updateUsedClassBasedOnType(exprResolvedType);
       } catch (UnsolvedSymbolException | UnsupportedOperationException e) {
         // when the type is a primitive array, we will have an UnsupportedOperationException
@@ -712,7 +713,7 @@ public class TargetMemberFinderVisitor extends SpeciminStateVisitor {
     }
     Expression caller = expr.getScope();
     if (caller instanceof SuperExpr) {
-      ResolvedType callerResolvedType = caller.calculateResolvedType();
+      ResolvedType callerResolvedType = resolutionCache.calculateResolvedType(caller);
       updateUsedClassBasedOnType(callerResolvedType);
     }
     return super.visit(expr, p);
@@ -771,7 +772,7 @@ public class TargetMemberFinderVisitor extends SpeciminStateVisitor {
    */
   private void resolveUnionType(UnionType type) {
     for (ReferenceType param : type.getElements()) {
-      ResolvedType paramType = param.resolve();
+      ResolvedType paramType = resolutionCache.resolve(param);
       updateUsedClassBasedOnType(paramType);
     }
   }
@@ -786,7 +787,7 @@ public class TargetMemberFinderVisitor extends SpeciminStateVisitor {
   private boolean updateUsedClassAndMemberForEnumConstant(FieldAccessExpr fieldAccessExpr) {
     ResolvedValueDeclaration resolved;
     try {
-      resolved = fieldAccessExpr.resolve();
+      resolved = resolutionCache.resolve(fieldAccessExpr);
     }
     // if the a field is accessed in the form of a fully-qualified path, such as
     // org.example.A.b, then other components in the path apart from the class name and field
@@ -813,7 +814,7 @@ public class TargetMemberFinderVisitor extends SpeciminStateVisitor {
   public void updateUsedElementWithPotentialFieldNameExpr(NameExpr expr) {
     ResolvedValueDeclaration exprDecl;
     try {
-      exprDecl = expr.resolve();
+      exprDecl = resolutionCache.resolve(expr);
     } catch (UnsolvedSymbolException e) {
       // if expr is the name of a class in a static call, we can't resolve its value.
       return;
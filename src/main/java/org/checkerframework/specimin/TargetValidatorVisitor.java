@@ -0,0 +1,211 @@
+package org.checkerframework.specimin;
+
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.ConstructorDeclaration;
+import com.github.javaparser.ast.body.EnumDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A cheap check of the target members, made before any symbol is solved. This visitor matches the
+ * targets against the declarations of the target files lexically, exactly as {@link
+ * TargetMemberFinderVisitor} does after the missing symbols have been solved: a method by its class
+ * and its declaration without return type, annotations, or spaces; a constructor by its class and
+ * its declaration without spaces; and a field by its class and its name. Since it needs no symbol
+ * resolution, it can reject a target with a typo in milliseconds, rather than after a whole run.
+ *
+ * <p>The unfound targets are reported in the same form as by TargetMemberFinderVisitor, with the
+ * members of the same class that were considered. Only the targets whose class is declared in the
+ * visited files are reported: the class of any other target may be in a file that is added during
+ * the run, so those targets are left to the full search.
+ */
+public class TargetValidatorVisitor extends VoidVisitorAdapter<Void> {
+
+  /** The target fields, in the form class.fully.qualified.Name#fieldName. */
+  private final Set<String> targetFields;
+
+  /** The target methods, without spaces. */
+  private final Set<String> targetMethodNames = new HashSet<>();
+
+  /**
+   * The target methods that have not been found, each mapped to the methods of its class that were
+   * considered. Same as in TargetMemberFinderVisitor.
+   */
+  private final Map<String, Set<String>> unfoundMethods = new HashMap<>();
+
+  /** Same as the unfoundMethods map, but for fields. */
+  private final Map<String, Set<String>> unfoundFields = new HashMap<>();
+
+  /** The qualified names of the classes declared in the visited files. */
+  private final Set<String> declaredClasses = new HashSet<>();
+
+  /**
+   * The qualified name of the class currently being visited, maintained like {@link
+   * SpeciminStateVisitor}'s, so that members are named the same way.
+   */
+  private String currentClassQualifiedName = "";
+
+  /**
+   * Creates a new visitor.
+   *
+   * @param targetMethods the target methods, in the form
+   *     class.fully.qualified.Name#methodName(Param1Type, Param2Type, ...)
+   * @param targetFields the target fields, in the form class.fully.qualified.Name#fieldName
+   */
+  public TargetValidatorVisitor(List<String> targetMethods, List<String> targetFields) {
+    for (String methodSignature : targetMethods) {
+      targetMethodNames.add(methodSignature.replaceAll("\\s", ""));
+    }
+    this.targetFields = new HashSet<>(targetFields);
+    targetMethodNames.forEach(m -> unfoundMethods.put(m, new HashSet<>()));
+    targetFields.forEach(f -> unfoundFields.put(f, new HashSet<>()));
+  }
+
+  /**
+   * Returns the target methods that have not been found in their classes, among the targets whose
+   * class is declared in the visited files.
+   *
+   * @return a map from each unfound target method to the methods of its class that were considered
+   */
+  public Map<String, Set<String>> getUnfoundMethods() {
+    return inDeclaredClasses(unfoundMethods);
+  }
+
+  /**
+   * Returns the target fields that have not been found in their classes, among the targets whose
+   * class is declared in the visited files.
+   *
+   * @return a map from each unfound target field to the fields of its class that were considered
+   */
+  public Map<String, Set<String>> getUnfoundFields() {
+    return inDeclaredClasses(unfoundFields);
+  }
+
+  /**
+   * Returns the unfound targets whose class is declared in the visited files.
+   *
+   * @param unfound the unfound targets, each mapped to its considered members
+   * @return the entries of unfound whose class is declared in the visited files
+   */
+  private Map<String, Set<String>> inDeclaredClasses(Map<String, Set<String>> unfound) {
+    Map<String, Set<String>> result = new HashMap<>();
+    for (Map.Entry<String, Set<String>> target : unfound.entrySet()) {
+      int hashIndex = target.getKey().indexOf('#');
+      if (hashIndex != -1 && declaredClasses.contains(target.getKey().substring(0, hashIndex))) {
+        result.put(target.getKey(), target.getValue());
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public void visit(ClassOrInterfaceDeclaration node, Void arg) {
+    enterType(node);
+    super.visit(node, arg);
+    exitType(node);
+  }
+
+  @Override
+  public void visit(EnumDeclaration node, Void arg) {
+    enterType(node);
+    super.visit(node, arg);
+    exitType(node);
+  }
+
+  @Override
+  public void visit(ConstructorDeclaration method, Void p) {
+    String methodName =
+        (currentClassQualifiedName + "#" + method.getDeclarationAsString(false, false, false))
+            .replaceAll("\\s", "");
+    if (targetMethodNames.contains(methodName)) {
+      unfoundMethods.remove(methodName);
+    } else {
+      updateUnfound(unfoundMethods, methodName);
+    }
+    super.visit(method, p);
+  }
+
+  @Override
+  public void visit(MethodDeclaration method, Void p) {
+    String methodName =
+        currentClassQualifiedName
+            + "#"
+            + JavaParserUtil.removeMethodReturnTypeAndAnnotations(method);
+    String methodWithoutAnySpace = methodName.replaceAll("\\s", "");
+    if (targetMethodNames.contains(methodWithoutAnySpace)) {
+      unfoundMethods.remove(methodWithoutAnySpace);
+    } else {
+      updateUnfound(unfoundMethods, methodName);
+    }
+    super.visit(method, p);
+  }
+
+  @Override
+  public void visit(VariableDeclarator node, Void arg) {
+    if (node.getParentNode().isPresent()
+        && node.getParentNode().get() instanceof FieldDeclaration) {
+      String fieldName = currentClassQualifiedName + "#" + node.getNameAsString();
+      if (targetFields.contains(fieldName)) {
+        unfoundFields.remove(fieldName);
+      } else {
+        updateUnfound(unfoundFields, fieldName);
+      }
+    }
+    super.visit(node, arg);
+  }
+
+  /**
+   * Adds a member that is not a target to the considered members of the unfound targets of the
+   * current class.
+   *
+   * @param unfound the unfound targets, each mapped to its considered members
+   * @param member the member that is not a target
+   */
+  private void updateUnfound(Map<String, Set<String>> unfound, String member) {
+    for (Map.Entry<String, Set<String>> target : unfound.entrySet()) {
+      if (target.getKey().startsWith(currentClassQualifiedName)) {
+        target.getValue().add(member);
+      }
+    }
+  }
+
+  /**
+   * Updates the current class when a type declaration is entered, like {@link
+   * SpeciminStateVisitor#maintainDataStructuresPreSuper(TypeDeclaration)}.
+   *
+   * @param decl the type declaration
+   */
+  private void enterType(TypeDeclaration<?> decl) {
+    if (decl.isNestedType()) {
+      currentClassQualifiedName += "." + decl.getName().asString();
+    } else if (!JavaParserUtil.isLocalClassDecl(decl)) {
+      currentClassQualifiedName = decl.getFullyQualifiedName().orElseThrow();
+    } else {
+      return;
+    }
+    declaredClasses.add(currentClassQualifiedName);
+  }
+
+  /**
+   * Updates the current class when a type declaration is left, like {@link
+   * SpeciminStateVisitor#maintainDataStructuresPostSuper(TypeDeclaration)}.
+   *
+   * @param decl the type declaration
+   */
+  private void exitType(TypeDeclaration<?> decl) {
+    if (decl.isNestedType()) {
+      currentClassQualifiedName =
+          currentClassQualifiedName.substring(0, currentClassQualifiedName.lastIndexOf('.'));
+    } else if (!JavaParserUtil.isLocalClassDecl(decl)) {
+      currentClassQualifiedName = "";
+    }
+  }
+}
@@ -0,0 +1,296 @@
+package org.checkerframework.specimin;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.type.Type;
+import com.github.javaparser.resolution.SymbolResolver;
+import com.github.javaparser.resolution.UnsolvedSymbolException;
+import com.github.javaparser.resolution.declarations.ResolvedConstructorDeclaration;
+import com.github.javaparser.resolution.declarations.ResolvedMethodDeclaration;
+import com.github.javaparser.resolution.declarations.ResolvedValueDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.resolution.types.ResolvedType;
+import com.github.javaparser.symbolsolver.javaparsermodel.JavaParserFacade;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Resolves nodes without throwing an exception when they cannot be resolved, for the many places
+ * that only need to know whether a node is solved yet. JavaParser's resolve() methods report an
+ * unsolved symbol by throwing an exception, and building the stack trace of the exception is most
+ * of the cost of a failed resolution; Specimin fails to resolve a great many nodes while it is
+ * still creating the synthetic classes that they need.
+ *
+ * <p>Where JavaParser can report that a method call, name, field access, or object creation is
+ * unsolved without throwing, through the SymbolReference returned by its JavaParserFacade, the
+ * methods of this class use that, so the usual miss does not create an exception at all. A failure
+ * deeper inside JavaParser, such as an unsolved type in the scope of a call, still throws inside
+ * JavaParser; the methods of this class catch it.
+ *
+ * <p>By default, a node is unsolved if JavaParser throws an UnsolvedSymbolException or an
+ * UnsupportedOperationException for it, and any other exception propagates. Each method also has a
+ * form that takes the exceptions that mean that the node is unsolved, for callers that need a
+ * different set: for example, RuntimeException to also count an ambiguous call as unsolved, or only
+ * UnsupportedOperationException to let a missing symbol propagate.
+ */
+public final class TryResolver {
+
+  /**
+   * Private constructor to prevent instantiation.
+   *
+   * @throws UnsupportedOperationException if an attempt is made to instantiate this class.
+   */
+  private TryResolver() {
+    throw new UnsupportedOperationException("This class cannot be instantiated.");
+  }
+
+  /**
+   * Resolves a method call.
+   *
+   * @param call a method call
+   * @return the method that it calls, or empty if it cannot be resolved
+   */
+  public static Optional<ResolvedMethodDeclaration> tryResolve(MethodCallExpr call) {
+    return tryResolve(call, UnsolvedSymbolException.class, UnsupportedOperationException.class);
+  }
+
+  /**
+   * Resolves a method call, with the given exceptions meaning that it cannot be resolved.
+   *
+   * @param call a method call
+   * @param unsolvedExceptions the exceptions that mean that it cannot be resolved; any other
+   *     exception propagates
+   * @return the method that it calls, or empty if it cannot be resolved
+   */
+  @SafeVarargs
+  public static Optional<ResolvedMethodDeclaration> tryResolve(
+      MethodCallExpr call, Class<? extends RuntimeException>... unsolvedExceptions) {
+    return solve(call, facade -> facade.solve(call), call::resolve, List.of(unsolvedExceptions));
+  }
+
+  /**
+   * Resolves a name.
+   *
+   * @param name a name
+   * @return the variable, field, or parameter that it refers to, or empty if it cannot be resolved
+   */
+  public static Optional<ResolvedValueDeclaration> tryResolve(NameExpr name) {
+    return tryResolve(name, UnsolvedSymbolException.class, UnsupportedOperationException.class);
+  }
+
+  /**
+   * Resolves a name, with the given exceptions meaning that it cannot be resolved.
+   *
+   * @param name a name
+   * @param unsolvedExceptions the exceptions that mean that it cannot be resolved; any other
+   *     exception propagates
+   * @return the variable, field, or parameter that it refers to, or empty if it cannot be resolved
+   */
+  @SafeVarargs
+  public static Optional<ResolvedValueDeclaration> tryResolve(
+      NameExpr name, Class<? extends RuntimeException>... unsolvedExceptions) {
+    return solve(name, facade -> facade.solve(name), name::resolve, List.of(unsolvedExceptions));
+  }
+
+  /**
+   * Resolves a field access.
+   *
+   * @param fieldAccess a field access
+   * @return the field that it accesses, or empty if it cannot be resolved
+   */
+  public static Optional<ResolvedValueDeclaration> tryResolve(FieldAccessExpr fieldAccess) {
+    return tryResolve(
+        fieldAccess, UnsolvedSymbolException.class, UnsupportedOperationException.class);
+  }
+
+  /**
+   * Resolves a field access, with the given exceptions meaning that it cannot be resolved.
+   *
+   * @param fieldAccess a field access
+   * @param unsolvedExceptions the exceptions that mean that it cannot be resolved; any other
+   *     exception propagates
+   * @return the field that it accesses, or empty if it cannot be resolved
+   */
+  @SafeVarargs
+  public static Optional<ResolvedValueDeclaration> tryResolve(
+      FieldAccessExpr fieldAccess, Class<? extends RuntimeException>... unsolvedExceptions) {
+    return solve(
+        fieldAccess,
+        facade -> facade.solve(fieldAccess),
+        fieldAccess::resolve,
+        List.of(unsolvedExceptions));
+  }
+
+  /**
+   * Resolves an object creation.
+   *
+   * @param creation an object creation expression
+   * @return the constructor that it calls, or empty if it cannot be resolved
+   */
+  public static Optional<ResolvedConstructorDeclaration> tryResolve(ObjectCreationExpr creation) {
+    return tryResolve(creation, UnsolvedSymbolException.class, UnsupportedOperationException.class);
+  }
+
+  /**
+   * Resolves an object creation, with the given exceptions meaning that it cannot be resolved.
+   *
+   * @param creation an object creation expression
+   * @param unsolvedExceptions the exceptions that mean that it cannot be resolved; any other
+   *     exception propagates
+   * @return the constructor that it calls, or empty if it cannot be resolved
+   */
+  @SafeVarargs
+  public static Optional<ResolvedConstructorDeclaration> tryResolve(
+      ObjectCreationExpr creation, Class<? extends RuntimeException>... unsolvedExceptions) {
+    return solve(
+        creation, facade -> facade.solve(creation), creation::resolve, List.of(unsolvedExceptions));
+  }
+
+  /**
+   * Resolves a type. JavaParser has no way to resolve a type without throwing when it is unsolved,
+   * so this method only saves its callers from catching the exception.
+   *
+   * @param type a type
+   * @return the resolved type, or empty if it cannot be resolved
+   */
+  public static Optional<ResolvedType> tryResolve(Type type) {
+    return tryResolve(type, UnsolvedSymbolException.class, UnsupportedOperationException.class);
+  }
+
+  /**
+   * Resolves a type, with the given exceptions meaning that it cannot be resolved.
+   *
+   * @param type a type
+   * @param unsolvedExceptions the exceptions that mean that it cannot be resolved; any other
+   *     exception propagates
+   * @return the resolved type, or empty if it cannot be resolved
+   */
+  @SafeVarargs
+  public static Optional<ResolvedType> tryResolve(
+      Type type, Class<? extends RuntimeException>... unsolvedExceptions) {
+    return attempt(type::resolve, List.of(unsolvedExceptions));
+  }
+
+  /**
+   * Calculates the type of an expression. JavaParser has no way to calculate a type without
+   * throwing when it fails, so this method only saves its callers from catching the exception.
+   *
+   * @param expression an expression
+   * @return its type, or empty if it cannot be calculated
+   */
+  public static Optional<ResolvedType> tryCalculateResolvedType(Expression expression) {
+    return tryCalculateResolvedType(
+        expression, UnsolvedSymbolException.class, UnsupportedOperationException.class);
+  }
+
+  /**
+   * Calculates the type of an expression, with the given exceptions meaning that it cannot be
+   * resolved.
+   *
+   * @param expression an expression
+   * @param unsolvedExceptions the exceptions that mean that it cannot be resolved; any other
+   *     exception propagates
+   * @return its type, or empty if it cannot be calculated
+   */
+  @SafeVarargs
+  public static Optional<ResolvedType> tryCalculateResolvedType(
+      Expression expression, Class<? extends RuntimeException>... unsolvedExceptions) {
+    return attempt(expression::calculateResolvedType, List.of(unsolvedExceptions));
+  }
+
+  /**
+   * Resolves a node through the JavaParserFacade of its compilation unit if it has one, or else
+   * through JavaParser's resolve() method.
+   *
+   * @param <N> the type of the node
+   * @param <R> the type of the resolved declaration
+   * @param node the node
+   * @param solver solves the node with a facade, returning an unsolved reference on a miss
+   * @param resolver resolves the node, throwing on a miss
+   * @param unsolvedExceptions the exceptions that mean that the node cannot be resolved
+   * @return the resolved declaration, or empty if the node cannot be resolved
+   */
+  private static <N extends Node, R> Optional<R> solve(
+      N node,
+      Function<JavaParserFacade, SymbolReference<? extends R>> solver,
+      Supplier<R> resolver,
+      List<Class<? extends RuntimeException>> unsolvedExceptions) {
+    @Nullable JavaParserFacade facade = getFacade(node);
+    // A caller that does not count a missing symbol as unsolved gets the exception that resolve()
+    // throws for it, so the facade's unsolved reference cannot be used.
+    if (facade == null || !isOneOf(UnsolvedSymbolException.class, unsolvedExceptions)) {
+      return attempt(resolver, unsolvedExceptions);
+    }
+    Optional<SymbolReference<? extends R>> reference =
+        attempt(() -> solver.apply(facade), unsolvedExceptions);
+    if (reference.isEmpty() || !reference.get().isSolved()) {
+      return Optional.empty();
+    }
+    return Optional.of(reference.get().getCorrespondingDeclaration());
+  }
+
+  /**
+   * Runs a resolution that throws when it fails.
+   *
+   * @param <R> the type of the result
+   * @param resolution the resolution
+   * @param unsolvedExceptions the exceptions that mean that the resolution failed
+   * @return its result, or empty if it threw one of the given exceptions
+   */
+  private static <R> Optional<R> attempt(
+      Supplier<R> resolution, List<Class<? extends RuntimeException>> unsolvedExceptions) {
+    try {
+      return Optional.of(resolution.get());
+    } catch (RuntimeException e) {
+      if (isOneOf(e.getClass(), unsolvedExceptions)) {
+        return Optional.empty();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Is an exception type one of the given types or a subtype of one of them?
+   *
+   * @param exceptionType an exception type
+   * @param types exception types
+   * @return true iff an exception of the type is an instance of one of the types
+   */
+  private static boolean isOneOf(
+      Class<? extends RuntimeException> exceptionType,
+      List<Class<? extends RuntimeException>> types) {
+    for (Class<? extends RuntimeException> type : types) {
+      if (type.isAssignableFrom(exceptionType)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the facade with which the symbols of a node are resolved.
+   *
+   * @param node a node
+   * @return the facade of its compilation unit, or null if the compilation unit was not parsed by
+   *     one of Specimin's parsers
+   */
+  private static @Nullable JavaParserFacade getFacade(Node node) {
+    Optional<CompilationUnit> compilationUnit = node.findCompilationUnit();
+    if (compilationUnit.isEmpty()
+        || !compilationUnit.get().containsData(Node.SYMBOL_RESOLVER_KEY)) {
+      return null;
+    }
+    SymbolResolver symbolResolver = compilationUnit.get().getData(Node.SYMBOL_RESOLVER_KEY);
+    return symbolResolver instanceof SpeciminSymbolSolver
+        ? ((SpeciminSymbolSolver) symbolResolver).getFacade()
+        : null;
+  }
+}
@@ -0,0 +1,418 @@
+package org.checkerframework.specimin;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Finds the types declared in a Java file by scanning its tokens, without parsing it. This is much
+ * cheaper than building an AST of the whole file, and is all that {@link RootIndex} needs.
+ *
+ * <p>The scanner skips comments and literals, and tracks braces to know whether a declaration is a
+ * member of a type or local to a block of code. It names types the way JavaParser's {@code
+ * getFullyQualifiedName()} does: a local class has no qualified name, nor does any type nested in
+ * it, and a type declared in the body of an anonymous class or of an enum constant is named after
+ * the nearest enclosing named type.
+ */
+final class TypeDeclarationScanner {
+
+  /** The kinds of type declaration. */
+  enum Kind {
+    /** A class or an interface. */
+    CLASS_OR_INTERFACE,
+    /** An enum. */
+    ENUM,
+    /** A record. */
+    RECORD,
+    /** An annotation type. */
+    ANNOTATION
+  }
+
+  /** A type declared in a file. */
+  static final class DeclaredType {
+
+    /** The fully-qualified name of the type, or null if it is local. */
+    private final @Nullable String qualifiedName;
+
+    /** The simple name of the type. */
+    private final String simpleName;
+
+    /** The kind of the type. */
+    private final Kind kind;
+
+    /** True iff the type is declared at the top level of its file. */
+    private final boolean topLevel;
+
+    /**
+     * Creates a new declared type.
+     *
+     * @param qualifiedName the fully-qualified name of the type, or null if it is local
+     * @param simpleName the simple name of the type
+     * @param kind the kind of the type
+     * @param topLevel true iff the type is declared at the top level of its file
+     */
+    DeclaredType(@Nullable String qualifiedName, String simpleName, Kind kind, boolean topLevel) {
+      this.qualifiedName = qualifiedName;
+      this.simpleName = simpleName;
+      this.kind = kind;
+      this.topLevel = topLevel;
+    }
+
+    /**
+     * Returns the fully-qualified name of the type.
+     *
+     * @return the fully-qualified name, or null if the type is local
+     */
+    @Nullable String getQualifiedName() {
+      return qualifiedName;
+    }
+
+    /**
+     * Returns the simple name of the type.
+     *
+     * @return the simple name
+     */
+    String getSimpleName() {
+      return simpleName;
+    }
+
+    /**
+     * Returns the kind of the type.
+     *
+     * @return the kind
+     */
+    Kind getKind() {
+      return kind;
+    }
+
+    /**
+     * Is the type declared at the top level of its file?
+     *
+     * @return true iff the type is a top-level type
+     */
+    boolean isTopLevel() {
+      return topLevel;
+    }
+  }
+
+  /** The kinds of scope delimited by braces. */
+  private enum ScopeKind {
+    /** The body of a named type. */
+    TYPE,
+    /** The body of an anonymous class or of an enum constant. */
+    ANONYMOUS,
+    /** A block of code, an array initializer, or anything else. */
+    BLOCK
+  }
+
+  /** A scope delimited by braces. */
+  private static final class Scope {
+
+    /** The kind of the scope. */
+    private final ScopeKind kind;
+
+    /** For the body of a named type, its fully-qualified name, or null if it is local. */
+    private final @Nullable String qualifiedName;
+
+    /** The number of parentheses enclosing the opening brace of the scope. */
+    private final int parenthesisDepth;
+
+    /** True iff this is the body of an enum whose constants have not all been seen yet. */
+    private boolean inEnumConstants;
+
+    /**
+     * Creates a new scope.
+     *
+     * @param kind the kind of the scope
+     * @param qualifiedName for the body of a named type, its fully-qualified name
+     * @param parenthesisDepth the number of parentheses enclosing the opening brace of the scope
+     * @param inEnumConstants true iff this is the body of an enum
+     */
+    Scope(
+        ScopeKind kind,
+        @Nullable String qualifiedName,
+        int parenthesisDepth,
+        boolean inEnumConstants) {
+      this.kind = kind;
+      this.qualifiedName = qualifiedName;
+      this.parenthesisDepth = parenthesisDepth;
+      this.inEnumConstants = inEnumConstants;
+    }
+  }
+
+  /** The tokens of the file. Literals are replaced by a placeholder. */
+  private final List<String> tokens;
+
+  /** The package of the file, or the empty string for the default package. */
+  private String packageName = "";
+
+  /** The scopes enclosing the current token, innermost first. Empty at the top level. */
+  private final Deque<Scope> scopes = new ArrayDeque<>();
+
+  /**
+   * For each parenthesis enclosing the current token, innermost first, whether it holds the
+   * arguments of a class instance creation expression.
+   */
+  private final Deque<Boolean> parentheses = new ArrayDeque<>();
+
+  /** The types found so far. */
+  private final List<DeclaredType> declaredTypes = new ArrayList<>();
+
+  /**
+   * Creates a new scanner.
+   *
+   * @param source the content of a Java file
+   */
+  private TypeDeclarationScanner(String source) {
+    this.tokens = tokenize(source);
+  }
+
+  /**
+   * Finds the types declared in a Java file, in the order in which they are declared.
+   *
+   * @param source the content of the file
+   * @return the types declared in the file
+   */
+  static List<DeclaredType> scan(String source) {
+    TypeDeclarationScanner scanner = new TypeDeclarationScanner(source);
+    scanner.scanTokens();
+    return scanner.declaredTypes;
+  }
+
+  /** Scans the tokens of the file, filling {@link #declaredTypes}. */
+  private void scanTokens() {
+    // A declaration whose name has been seen but whose body has not begun yet.
+    @Nullable DeclaredType pendingType = null;
+    int pendingDepth = 0;
+    // Whether a "new" is waiting for the parenthesis that holds its arguments.
+    boolean afterNew = false;
+    // Whether the previous token closed the arguments of a class instance creation expression.
+    boolean afterCreationArguments = false;
+    for (int i = 0; i < tokens.size(); i++) {
+      String token = tokens.get(i);
+      boolean closesCreationArguments = false;
+      switch (token) {
+        case "package":
+          if (scopes.isEmpty() && declaredTypes.isEmpty() && pendingType == null) {
+            StringBuilder name = new StringBuilder();
+            while (i + 1 < tokens.size() && !tokens.get(i + 1).equals(";")) {
+              name.append(tokens.get(++i));
+            }
+            packageName = name.toString();
+          }
+          break;
+        case "new":
+          afterNew = true;
+          break;
+        case "(":
+          parentheses.push(afterNew);
+          afterNew = false;
+          break;
+        case ")":
+          if (!parentheses.isEmpty()) {
+            closesCreationArguments = parentheses.pop();
+          }
+          break;
+        case "[":
+          // an array creation expression
+          afterNew = false;
+          break;
+        case ";":
+          afterNew = false;
+          if (pendingType != null && pendingDepth == parentheses.size()) {
+            pendingType = null;
+          }
+          Scope scope = scopes.peek();
+          if (scope != null && scope.parenthesisDepth == parentheses.size()) {
+            scope.inEnumConstants = false;
+          }
+          break;
+        case "{":
+          afterNew = false;
+          int depth = parentheses.size();
+          if (pendingType != null && pendingDepth == depth) {
+            scopes.push(
+                new Scope(
+                    ScopeKind.TYPE,
+                    pendingType.qualifiedName,
+                    depth,
+                    pendingType.kind == Kind.ENUM));
+            pendingType = null;
+          } else if (afterCreationArguments || isEnumConstantBody()) {
+            scopes.push(new Scope(ScopeKind.ANONYMOUS, null, depth, false));
+          } else {
+            scopes.push(new Scope(ScopeKind.BLOCK, null, depth, false));
+          }
+          break;
+        case "}":
+          scopes.poll();
+          break;
+        case "class":
+        case "interface":
+        case "enum":
+        case "record":
+          String previous = i > 0 ? tokens.get(i - 1) : "";
+          String name = i + 1 < tokens.size() ? tokens.get(i + 1) : "";
+          Kind kind = getKind(token, previous, i);
+          if (kind != null && !previous.equals(".") && isIdentifier(name)) {
+            pendingType = declare(name, kind);
+            pendingDepth = parentheses.size();
+            i++;
+          }
+          break;
+        default:
+          break;
+      }
+      afterCreationArguments = closesCreationArguments;
+    }
+  }
+
+  /**
+   * Determines the kind of type that a keyword declares.
+   *
+   * @param keyword "class", "interface", "enum", or "record"
+   * @param previous the token before the keyword
+   * @param index the index of the keyword
+   * @return the kind of type, or null if the keyword does not begin a declaration here
+   */
+  private @Nullable Kind getKind(String keyword, String previous, int index) {
+    switch (keyword) {
+      case "class":
+      case "enum":
+        return keyword.equals("class") ? Kind.CLASS_OR_INTERFACE : Kind.ENUM;
+      case "interface":
+        return previous.equals("@") ? Kind.ANNOTATION : Kind.CLASS_OR_INTERFACE;
+      default:
+        // "record" is only a keyword when a name and then a header follow it.
+        String afterName = index + 2 < tokens.size() ? tokens.get(index + 2) : "";
+        return afterName.equals("(") || afterName.equals("<") ? Kind.RECORD : null;
+    }
+  }
+
+  /**
+   * Records the declaration of a type in the current scope.
+   *
+   * @param simpleName the simple name of the type
+   * @param kind the kind of the type
+   * @return the declared type
+   */
+  private DeclaredType declare(String simpleName, Kind kind) {
+    Scope scope = scopes.peek();
+    String qualifiedName;
+    if (scope == null) {
+      qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+    } else if (scope.kind == ScopeKind.BLOCK) {
+      // a local type
+      qualifiedName = null;
+    } else {
+      String enclosingName = getEnclosingTypeName();
+      qualifiedName = enclosingName == null ? null : enclosingName + "." + simpleName;
+    }
+    DeclaredType declaredType = new DeclaredType(qualifiedName, simpleName, kind, scope == null);
+    declaredTypes.add(declaredType);
+    return declaredType;
+  }
+
+  /**
+   * Returns the fully-qualified name of the innermost named type whose body encloses the current
+   * token.
+   *
+   * @return the name of the type, or null if it is local or there is none
+   */
+  private @Nullable String getEnclosingTypeName() {
+    for (Scope scope : scopes) {
+      if (scope.kind == ScopeKind.TYPE) {
+        return scope.qualifiedName;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Is an opening brace at the current token the beginning of the body of an enum constant?
+   *
+   * @return true iff the innermost scope is the body of an enum whose constants are still being
+   *     declared, and the brace is not within parentheses inside that body
+   */
+  private boolean isEnumConstantBody() {
+    Scope scope = scopes.peek();
+    return scope != null && scope.inEnumConstants && scope.parenthesisDepth == parentheses.size();
+  }
+
+  /**
+   * Is the given token an identifier?
+   *
+   * @param token a token
+   * @return true iff the token is an identifier or a keyword
+   */
+  private static boolean isIdentifier(String token) {
+    return !token.isEmpty() && Character.isJavaIdentifierStart(token.charAt(0));
+  }
+
+  /**
+   * Splits Java source code into tokens. Whitespace and comments are dropped. Each identifier,
+   * keyword, or number is one token, each literal is replaced by the token "\"", and every other
+   * character is a token by itself.
+   *
+   * @param source Java source code
+   * @return its tokens
+   */
+  private static List<String> tokenize(String source) {
+    List<String> result = new ArrayList<>();
+    int length = source.length();
+    int i = 0;
+    while (i < length) {
+      char c = source.charAt(i);
+      if (Character.isWhitespace(c)) {
+        i++;
+      } else if (source.startsWith("//", i)) {
+        int end = source.indexOf('\n', i);
+        i = end == -1 ? length : end + 1;
+      } else if (source.startsWith("/*", i)) {
+        int end = source.indexOf("*/", i + 2);
+        i = end == -1 ? length : end + 2;
+      } else if (source.startsWith("\"\"\"", i)) {
+        i = skipLiteral(source, i + 3, "\"\"\"");
+        result.add("\"");
+      } else if (c == '"' || c == '\'') {
+        i = skipLiteral(source, i + 1, String.valueOf(c));
+        result.add("\"");
+      } else if (Character.isJavaIdentifierPart(c) && !Character.isIdentifierIgnorable(c)) {
+        int start = i;
+        while (i < length && Character.isJavaIdentifierPart(source.charAt(i))) {
+          i++;
+        }
+        result.add(source.substring(start, i));
+      } else {
+        result.add(String.valueOf(c));
+        i++;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Finds the end of a string, character, or text block literal.
+   *
+   * @param source Java source code
+   * @param start the index just after the opening delimiter
+   * @param delimiter the closing delimiter
+   * @return the index just after the closing delimiter, or the length of the source if the literal
+   *     is not closed
+   */
+  private static int skipLiteral(String source, int start, String delimiter) {
+    int i = start;
+    while (i < source.length()) {
+      if (source.charAt(i) == '\\') {
+        i += 2;
+      } else if (source.startsWith(delimiter, i)) {
+        return i + delimiter.length();
+      } else {
+        i++;
+      }
+    }
+    return source.length();
+  }
+}
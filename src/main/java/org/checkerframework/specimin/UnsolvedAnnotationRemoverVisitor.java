@@ -10,8 +10,6 @@ import com.github.javaparser.ast.visitor.ModifierVisitor;
 import com.github.javaparser.ast.visitor.Visitable;
 import com.github.javaparser.resolution.UnsolvedSymbolException;
 import com.github.javaparser.resolution.declarations.ResolvedAnnotationDeclaration;
-import com.github.javaparser.symbolsolver.reflectionmodel.ReflectionAnnotationDeclaration;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.JarTypeSolver;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
@@ -43,8 +41,7 @@ public class UnsolvedAnnotationRemoverVisitor extends ModifierVisitor<Void> {
     this.jarPaths = jarPaths;
     for (String jarPath : jarPaths) {
       try {
-        JarTypeSolver jarSolver = new JarTypeSolver(jarPath);
-        for (String fullClassName : jarSolver.getKnownClasses()) {
+        for (String fullClassName : ClassDirectoryTypeSolver.getKnownClassesOf(jarPath)) {
           classToJarPath.put(fullClassName, jarPath);
         }
       } catch (IOException e) {
@@ -100,7 +97,7 @@ public class UnsolvedAnnotationRemoverVisitor extends ModifierVisitor<Void> {
       ResolvedAnnotationDeclaration resolvedAnno = annotation.resolve();
       annotationName = resolvedAnno.getQualifiedName();
 
-      if (resolvedAnno instanceof ReflectionAnnotationDeclaration) {
+      if (JavaParserUtil.isResolvedFromClassFile(resolvedAnno)) {
         // These annotations do not have a file corresponding to them, which can cause
         // compile errors in the output
         // This is fine if it's included in java.lang, but if not, we should treat it as
@@ -1,6 +1,5 @@
 package org.checkerframework.specimin;
 
-import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.AccessSpecifier;
 import com.github.javaparser.ast.ImportDeclaration;
 import com.github.javaparser.ast.Node;
@@ -63,16 +62,9 @@ import com.github.javaparser.resolution.types.ResolvedLambdaConstraintType;
 import com.github.javaparser.resolution.types.ResolvedReferenceType;
 import com.github.javaparser.resolution.types.ResolvedType;
 import com.github.javaparser.resolution.types.ResolvedTypeVariable;
-import com.github.javaparser.symbolsolver.reflectionmodel.ReflectionAnnotationDeclaration;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.JarTypeSolver;
 import com.github.javaparser.utils.Pair;
 import com.google.common.base.Ascii;
 import com.google.common.base.Splitter;
-import java.io.BufferedWriter;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayDeque;
@@ -144,8 +136,11 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
   /** List of classes not in the source codes */
   private final Set<UnsolvedClassOrInterface> missingClass = new HashSet<>();
 
-  /** The same as the root being used in SpeciminRunner */
-  private final String rootDirectory;
+  /**
+   * The same as the source roots being used in SpeciminRunner: the root, followed by the
+   * directories of decompiled jar sources
+   */
+  private final List<String> sourceRoots;
 
   /**
    * This instance maps the name of the return type of a synthetic method with the synthetic class
@@ -167,10 +162,10 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
   private boolean gotException;
 
   /**
-   * The list of classes that have been created. We use this list to delete all the temporary
-   * synthetic classes when Specimin finishes its run
+   * The in-memory overlay that holds the source code of the synthetic classes. Synthetic classes
+   * are never written into the root directory.
    */
-  private final Set<Path> createdClass = new HashSet<>();
+  private final SyntheticSourceOverlay syntheticSourceOverlay;
 
   /**
    * List of fully-qualified names of classes that are directly imported (i.e., without the use of a
@@ -210,10 +205,30 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
 
   /**
    * Fields and methods that could be called inside the target methods. We call them potential-used
-   * because the usage check is simply based on the simple names of those members.
+   * because the usage check is simply based on the simple names of those members. Methods are only
+   * added here when a call to them cannot be resolved, or when they are used through a method
+   * reference; the methods called by resolved calls are in {@link #potentialUsedMethods} instead.
    */
   private final Set<String> potentialUsedMembers = new HashSet<>();
 
+  /**
+   * The methods called by resolved calls inside the target methods, each identified by its
+   * declaring type and erased signature, as computed by {@link
+   * #getPotentialUsedMethodKey(ResolvedMethodDeclaration)}. The keys of the map are the simple
+   * names of the methods. Unlike a simple name in {@link #potentialUsedMembers}, which makes every
+   * method of that name in every target file potential-used, such a method only makes its own
+   * declaration and the declarations that may override it potential-used.
+   */
+  private final Map<String, Set<String>> potentialUsedMethods = new HashMap<>();
+
+  /**
+   * The fingerprint of {@link #potentialUsedMembers}, {@link #potentialUsedMethods}, and {@link
+   * #addedTargetFiles}. Add to them only through {@link #addPotentialUsedMember(String)}, {@link
+   * #addPotentialUsedMethod(MethodCallExpr)}, and {@link #addTargetFile(String)}, which keep it up
+   * to date.
+   */
+  private Fingerprint progressFingerprint = Fingerprint.EMPTY;
+
   /**
    * Maps a method reference to all the synthetic method definitions and parameters created from its
    * usages. The keys are the method references themselves (i.e. Baz::test), the inner key is the
@@ -239,20 +254,23 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
   /**
    * Create a new UnsolvedSymbolVisitor instance
    *
-   * @param rootDirectory the root directory of the input files
+   * @param sourceRoots the root directory of the input files, followed by the directories of
+   *     decompiled jar sources
    * @param existingClassesToFilePath The fully-qualified name of each Java class in the original
    *     codebase mapped to the corresponding Java file.
    * @param targetMethodsSignatures the list of signatures of target methods as specified by the
    *     user.
    * @param targetFieldsSignature the list of signatures of target fields as specified by the user.
    * @param model the modularity model selected by the user
+   * @param syntheticSourceOverlay the overlay in which to store the synthetic classes
    */
   public UnsolvedSymbolVisitor(
-      String rootDirectory,
+      List<String> sourceRoots,
       Map<String, Path> existingClassesToFilePath,
       Set<String> targetMethodsSignatures,
       Set<String> targetFieldsSignature,
-      ModularityModel model) {
+      ModularityModel model,
+      SyntheticSourceOverlay syntheticSourceOverlay) {
     super(
         targetMethodsSignatures,
         targetFieldsSignature,
@@ -260,7 +278,8 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
         new HashSet<>(),
         model,
         existingClassesToFilePath);
-    this.rootDirectory = rootDirectory;
+    this.sourceRoots = sourceRoots;
+    this.syntheticSourceOverlay = syntheticSourceOverlay;
     this.gotException = true;
   }
 
@@ -283,12 +302,12 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
   /**
    * This method sets the value of classesFromJar based on the known class of jar type solvers
    *
-   * @param jarPaths a list of path of jar files
+   * @param jarPaths a list of path of jar files and directories of class files
    */
   public void setClassesFromJar(List<String> jarPaths) {
     for (String path : jarPaths) {
       try {
-        classesFromJar.addAll(new JarTypeSolver(path).getKnownClasses());
+        classesFromJar.addAll(ClassDirectoryTypeSolver.getKnownClassesOf(path));
       } catch (Exception e) {
         throw new RuntimeException(e);
       }
@@ -334,46 +353,153 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
   }
 
   /**
-   * Get the names of members that could be used by the target methods.
+   * Get the number of members that could be used by the target methods, counting both those known
+   * by their simple names and those known by their signatures. It only grows, so a change means
+   * that more members could be used.
    *
-   * @return a copy of potentialUsedMembers.
+   * @return the number of potential-used members
    */
-  public Set<String> getPotentialUsedMembers() {
-    Set<String> copyOfPotentialUsedMembers = new HashSet<>();
-    copyOfPotentialUsedMembers.addAll(potentialUsedMembers);
-    return copyOfPotentialUsedMembers;
+  public int getPotentialUsedMemberCount() {
+    int count = potentialUsedMembers.size();
+    for (Set<String> methods : potentialUsedMethods.values()) {
+      count += methods.size();
+    }
+    return count;
   }
 
   /**
-   * Return the set of synthetic classes created by the UnsolvedSymbolVisitor in the form of a set
-   * of strings.
+   * Adds a member to the set of members that could be used by the target methods.
    *
-   * @return the set of created synthetic classes represented as a set of strings.
+   * @param name the simple name of the member
    */
-  public Set<String> getSyntheticClassesAsAStringSet() {
-    Set<String> syntheticClassesAsString = new HashSet<>();
-    for (UnsolvedClassOrInterface syntheticClass : missingClass) {
-      syntheticClassesAsString.add(syntheticClass.toString());
+  private void addPotentialUsedMember(String name) {
+    if (potentialUsedMembers.add(name)) {
+      progressFingerprint = progressFingerprint.with("potential-used member", name);
     }
-    return syntheticClassesAsString;
   }
 
   /**
-   * Get the value of gotException
+   * Adds the method called by a method call to the members that could be used by the target
+   * methods: by its declaring type and erased signature if the call can be resolved, or else by its
+   * simple name.
    *
-   * @return gotException the value of gotException
+   * @param call a method call inside a target member
    */
-  public boolean gettingException() {
-    return gotException;
+  private void addPotentialUsedMethod(MethodCallExpr call) {
+    String name = call.getNameAsString();
+    @Nullable String key = null;
+    Optional<ResolvedMethodDeclaration> method = TryResolver.tryResolve(call);
+    if (method.isPresent()) {
+      try {
+        key = getPotentialUsedMethodKey(method.get());
+      } catch (RuntimeException e) {
+        // The method was found, but not all of its parameter types can be resolved yet.
+      }
+    }
+    if (key == null) {
+      addPotentialUsedMember(name);
+      return;
+    }
+    if (potentialUsedMethods.computeIfAbsent(name, k -> new HashSet<>()).add(key)) {
+      progressFingerprint = progressFingerprint.with("potential-used method", key);
+    }
   }
 
   /**
-   * Get the classes that have been created by the current iteration of the visitor.
+   * Identifies a method by its declaring type and its erased signature, the same way whether the
+   * method was found by resolving a call to it or by resolving its declaration.
    *
-   * @return createdClass the Set of Path of classes that have beenc created
+   * @param method a method
+   * @return the key of the method, such as "com.example.Foo#get(java.util.List,int)"
+   * @throws RuntimeException if the type of a parameter of the method cannot be resolved
    */
-  public Set<Path> getCreatedClass() {
-    return createdClass;
+  private static String getPotentialUsedMethodKey(ResolvedMethodDeclaration method) {
+    StringBuilder key = new StringBuilder();
+    key.append(method.declaringType().getQualifiedName())
+        .append('#')
+        .append(method.getName())
+        .append('(');
+    for (int i = 0; i < method.getNumberOfParams(); i++) {
+      if (i > 0) {
+        key.append(',');
+      }
+      key.append(method.getParam(i).getType().erasure().describe());
+    }
+    return key.append(')').toString();
+  }
+
+  /**
+   * Could a method declaration be called by the target methods, according to the methods called by
+   * their resolved calls? It could if it is one of those methods, or if it could override one of
+   * them: if its class has a supertype that declares a called method with the same name. The
+   * parameters of an overriding method are not compared with those of the overridden one, since
+   * they differ when the supertype is generic. If the declaration or the supertypes of its class
+   * cannot be resolved yet, it could be called.
+   *
+   * @param node a method declaration
+   * @return true iff the method could be called by a resolved call in a target method
+   */
+  private boolean isPotentialUsedMethod(MethodDeclaration node) {
+    Set<String> calledMethods = potentialUsedMethods.get(node.getNameAsString());
+    if (calledMethods == null) {
+      return false;
+    }
+    Optional<Node> parent = node.getParentNode();
+    if (parent.isEmpty() || !(parent.get() instanceof TypeDeclaration)) {
+      // a method of an anonymous class or of an enum constant
+      return true;
+    }
+    Set<String> supertypes = new HashSet<>();
+    try {
+      if (calledMethods.contains(getPotentialUsedMethodKey(node.resolve()))) {
+        return true;
+      }
+      for (ResolvedReferenceType supertype :
+          ((TypeDeclaration<?>) parent.get()).resolve().getAllAncestors()) {
+        supertypes.add(supertype.getQualifiedName());
+      }
+    } catch (RuntimeException e) {
+      return true;
+    }
+    for (String calledMethod : calledMethods) {
+      if (supertypes.contains(calledMethod.substring(0, calledMethod.indexOf('#')))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Adds a file to the set of files that should be added to the list of target files for the next
+   * iteration.
+   *
+   * @param filePath the path of the file
+   */
+  private void addTargetFile(String filePath) {
+    if (addedTargetFiles.add(filePath)) {
+      progressFingerprint = progressFingerprint.with("added target file", filePath);
+    }
+  }
+
+  /**
+   * Returns a fingerprint of the progress of this visitor: of the members that could be used by the
+   * target methods, the files that have been added to the target files, and the synthetic classes
+   * as they were last written to the overlay by {@link #updateSyntheticSourceCode()}. The
+   * fingerprint is kept up to date as they change, so it costs nothing to compute.
+   *
+   * @return the fingerprint of the progress so far
+   */
+  public Fingerprint getProgressFingerprint() {
+    return progressFingerprint.with(syntheticSourceOverlay.getFingerprint());
+  }
+
+  /**
+   * Get the value of gotException
+   *
+   * @return gotException the value of gotException
+   */
+  public boolean gettingException() {
+    return gotException;
   }
 
   /**
@@ -513,14 +639,14 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
           // file.
           gotException();
         }
-        addedTargetFiles.add(filePath);
+        addTargetFile(filePath);
       } else {
-        try {
-          implementedOrExtended.resolve();
-          continue;
-        }
         // IllegalArgumentException is thrown when implementedOrExtended has a generic type.
-        catch (UnsolvedSymbolException | IllegalArgumentException e) {
+        if (TryResolver.tryResolve(
+                implementedOrExtended,
+                UnsolvedSymbolException.class,
+                IllegalArgumentException.class)
+            .isEmpty()) {
           // this extended/implemented type is an interface if it is in the declaration of an
           // interface, or if it is used with the "implements" keyword.
           boolean typeIsAnInterface =
@@ -876,9 +1002,7 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
       insidePotentialUsedMember = oldInsidePotentialUsedMember;
       return result;
     }
-    try {
-      declType.resolve();
-    } catch (UnsolvedSymbolException | UnsupportedOperationException e) {
+    if (TryResolver.tryResolve(declType).isEmpty()) {
       String typeAsString = declType.asString();
       List<String> elements = Splitter.onPattern("\\.").splitToList(typeAsString);
       // There could be three cases here: a type variable, a fully-qualified class name, or a simple
@@ -888,7 +1012,7 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
         int typeParamIndex = typeAsString.indexOf('<');
         int typeParamCount = -1;
         if (typeParamIndex != -1) {
-          ClassOrInterfaceType asType = StaticJavaParser.parseClassOrInterfaceType(typeAsString);
+          ClassOrInterfaceType asType = JavaParserUtil.parseClassOrInterfaceType(typeAsString);
           typeParamCount = asType.getTypeArguments().get().size();
           typeAsString = typeAsString.substring(0, typeParamIndex);
         }
@@ -937,7 +1061,7 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
     }
     String name = node.getNameAsString();
     if (fieldNameToClassNameMap.containsKey(name)) {
-      potentialUsedMembers.add(name);
+      addPotentialUsedMember(name);
       if (!canBeSolved(node)) {
         gotException();
       } else {
@@ -955,9 +1079,7 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
     }
     // this condition checks if this NameExpr is a statically imported field
     else if (staticImportedMembersMap.containsKey(name)) {
-      try {
-        node.resolve();
-      } catch (UnsolvedSymbolException e) {
+      if (TryResolver.tryResolve(node, UnsolvedSymbolException.class).isEmpty()) {
         @FullyQualifiedName String className = staticImportedMembersMap.get(name);
         String fullyQualifiedFieldSignature = className + "." + name;
         updateClassSetWithQualifiedFieldSignature(fullyQualifiedFieldSignature, true, true);
@@ -1045,7 +1167,7 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
     if (targetMethods.contains(methodQualifiedSignature)) {
       Visitable result = processMethodDeclaration(node);
       return result;
-    } else if (potentialUsedMembers.contains(methodSimpleName)) {
+    } else if (potentialUsedMembers.contains(methodSimpleName) || isPotentialUsedMethod(node)) {
       boolean oldInsidePotentialUsedMember = insidePotentialUsedMember;
       insidePotentialUsedMember = true;
       Visitable result = processMethodDeclaration(node);
@@ -1067,7 +1189,7 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
     if (!insideTargetMember) {
       return super.visit(node, p);
     }
-    potentialUsedMembers.add(node.getNameAsString());
+    addPotentialUsedMember(node.getNameAsString());
     boolean canBeSolved = canBeSolved(node);
     if (isASuperCall(node) && !canBeSolved) {
       updateSyntheticClassForSuperCall(node);
@@ -1087,15 +1209,13 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
         updateSyntheticClassWithNonStaticFields(node);
       } else {
         // since we have checked whether node.getScope() can be solved, this call is safe.
-        addedTargetFiles.add(
+        addTargetFile(
             qualifiedNameToFilePath(
                 node.getScope().calculateResolvedType().asReferenceType().getQualifiedName()));
       }
     }
 
-    try {
-      node.resolve();
-    } catch (UnsolvedSymbolException | UnsupportedOperationException e) {
+    if (TryResolver.tryResolve(node).isEmpty()) {
       // for a qualified name field access such as org.sample.MyClass.field, org.sample will also be
       // considered FieldAccessExpr.
       if (JavaParserUtil.isAClassPath(node.getScope().toString())) {
@@ -1118,7 +1238,7 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
               getQualifiedNameForClassOrInterfaceType(scopeAsType.asClassOrInterfaceType());
         }
         if (classfileIsInOriginalCodebase(scopeAsTypeFQN)) {
-          addedTargetFiles.add(qualifiedNameToFilePath(scopeAsTypeFQN));
+          addTargetFile(qualifiedNameToFilePath(scopeAsTypeFQN));
         } else {
           // TODO: create a synthetic class?
         }
@@ -1130,7 +1250,7 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
         System.err.println("Specimin warning: new in method references is not supported: " + node);
         return super.visit(node, p);
       }
-      potentialUsedMembers.add(identifier);
+      addPotentialUsedMember(identifier);
     }
     return super.visit(node, p);
   }
@@ -1145,7 +1265,7 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
     if (!insideTargetMember) {
       return super.visit(method, p);
     }
-    potentialUsedMembers.add(method.getName().asString());
+    addPotentialUsedMethod(method);
     if (canBeSolved(method) && isFromAJarFile(method)) {
       updateClassesFromJarSourcesForMethodCall(method);
       return super.visit(method, p);
@@ -1169,7 +1289,7 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
        */
       String qualifiedNameOfIncompleteClass = getIncompleteClass(method);
       if (classfileIsInOriginalCodebase(qualifiedNameOfIncompleteClass)) {
-        addedTargetFiles.add(qualifiedNameToFilePath(qualifiedNameOfIncompleteClass));
+        addTargetFile(qualifiedNameToFilePath(qualifiedNameOfIncompleteClass));
       } else {
         updateUnsolvedClassOrInterfaceWithMethod(method, qualifiedNameOfIncompleteClass, "", false);
       }
@@ -1319,7 +1439,7 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
       String qualifiedName =
           getPackageFromClassName(typeExpr.getNameAsString()) + "." + typeExpr.getNameAsString();
       if (classfileIsInOriginalCodebase(qualifiedName)) {
-        addedTargetFiles.add(qualifiedNameToFilePath(qualifiedName));
+        addTargetFile(qualifiedNameToFilePath(qualifiedName));
         gotException();
         return;
       }
@@ -1357,7 +1477,7 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
       className = oldClassName;
       return result;
     }
-    potentialUsedMembers.add(newExpr.getTypeAsString());
+    addPotentialUsedMember(newExpr.getTypeAsString());
     // Cannot be newExpr.getTypeAsString(), because that will include type variables,
     // which is undesirable.
     String type = newExpr.getType().getNameAsString();
@@ -1403,7 +1523,7 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
   public Visitable visit(MarkerAnnotationExpr anno, Void p) {
     try {
       ResolvedAnnotationDeclaration resolvedAnno = anno.resolve();
-      if (!(resolvedAnno instanceof ReflectionAnnotationDeclaration)) {
+      if (!JavaParserUtil.isResolvedFromClassFile(resolvedAnno)) {
         // ResolvedAnnotationDeclaration means no file/CompilationUnit behind anno
         // So, we must still generate it even though it's resolved
         return super.visit(anno, p);
@@ -1449,7 +1569,7 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
   public Visitable visit(NormalAnnotationExpr anno, Void p) {
     try {
       ResolvedAnnotationDeclaration resolvedAnno = anno.resolve();
-      if (!(resolvedAnno instanceof ReflectionAnnotationDeclaration)) {
+      if (!JavaParserUtil.isResolvedFromClassFile(resolvedAnno)) {
         // ResolvedAnnotationDeclaration means no file/CompilationUnit behind anno
         // So, we must still generate it even though it's resolved
         return super.visit(anno, p);
@@ -1506,7 +1626,7 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
   public Visitable visit(SingleMemberAnnotationExpr anno, Void p) {
     try {
       ResolvedAnnotationDeclaration resolvedAnno = anno.resolve();
-      if (!(resolvedAnno instanceof ReflectionAnnotationDeclaration)) {
+      if (!JavaParserUtil.isResolvedFromClassFile(resolvedAnno)) {
         // ResolvedAnnotationDeclaration means no file/CompilationUnit behind anno
         // So, we must still generate it even though it's resolved
         return super.visit(anno, p);
@@ -1569,9 +1689,15 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
           "qualifiedNameToFilePath only works for classes in the original directory");
     }
     Path absoluteFilePath = existingClassesToFilePath.get(qualifiedName);
-    // theoretically rootDirectory should already be absolute as stated in README.
-    Path absoluteRootDirectory = Paths.get(rootDirectory).toAbsolutePath();
-    return absoluteRootDirectory.relativize(absoluteFilePath).toString();
+    // theoretically the root should already be absolute as stated in README.
+    for (String sourceRoot : sourceRoots) {
+      Path absoluteSourceRoot = Paths.get(sourceRoot).toAbsolutePath().normalize();
+      if (absoluteFilePath.startsWith(absoluteSourceRoot)) {
+        return absoluteSourceRoot.relativize(absoluteFilePath).toString();
+      }
+    }
+    throw new RuntimeException(
+        "qualifiedNameToFilePath only works for classes in the original directory");
   }
 
   /**
@@ -1582,12 +1708,11 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
    * @return true if the update was successful, false otherwise.
    */
   public boolean updatedAddedTargetFilesForPotentialEnum(FieldAccessExpr expr) {
-    ResolvedValueDeclaration resolved;
-    try {
-      resolved = expr.resolve();
-    } catch (UnsolvedSymbolException | UnsupportedOperationException e) {
+    Optional<ResolvedValueDeclaration> maybeResolved = TryResolver.tryResolve(expr);
+    if (maybeResolved.isEmpty()) {
       return false;
     }
+    ResolvedValueDeclaration resolved = maybeResolved.get();
     if (resolved.isEnumConstant()) {
       if (JavaLangUtils.inJdkPackage(resolved.getType().describe())) {
         return false;
@@ -1595,7 +1720,7 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
       String filePathName = qualifiedNameToFilePath(resolved.getType().describe());
       if (!addedTargetFiles.contains(filePathName)) {
         gotException();
-        addedTargetFiles.add(filePathName);
+        addTargetFile(filePathName);
         return true;
       }
     }
@@ -1704,9 +1829,7 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
           // it must be a class/interface/etc. Try solving for it.
           // If that fails, create a synthetic class, just as we
           // would for something directly extended.
-          try {
-            typeArgument.resolve();
-          } catch (UnsolvedSymbolException e) {
+          if (TryResolver.tryResolve(typeArgument, UnsolvedSymbolException.class).isEmpty()) {
             // Assumption: type arguments are not interfaces. This isn't really true, but
             // Specimin doesn't have a way to know because the type argument context doesn't
             // tell us if this type is an interface or not.
@@ -1846,7 +1969,7 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
       if (!resolvedClass.getAllAncestors().isEmpty()) {
         String pathOfThisCurrentType = qualifiedNameToFilePath(fullyQualifiedName);
         if (!addedTargetFiles.contains(pathOfThisCurrentType)) {
-          addedTargetFiles.add(pathOfThisCurrentType);
+          addTargetFile(pathOfThisCurrentType);
           gotException();
         }
         return true;
@@ -1979,29 +2102,20 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
       accessModifer = methodDecl.getAccessSpecifier().asString();
       for (Parameter para : methodDecl.getParameters()) {
         Type paraType = para.getType();
-        String paraTypeAsString = paraType.asString();
-        try {
-          // if possible, opt for fully-qualified names.
-          ResolvedType resolvedType = paraType.resolve();
-          paraTypeAsString = resolvedType.describe();
-        } catch (UnsolvedSymbolException | UnsupportedOperationException e) {
-          // avoiding ignored catch blocks errors.
-          listOfParameters.add(paraTypeAsString);
-          continue;
-        }
+        // if possible, opt for fully-qualified names.
+        String paraTypeAsString =
+            TryResolver.tryResolve(paraType)
+                .map(ResolvedType::describe)
+                .orElse(paraType.asString());
         listOfParameters.add(paraTypeAsString);
       }
 
       for (ReferenceType exception : methodDecl.getThrownExceptions()) {
-        String exceptionTypeAsString = exception.asString();
-        try {
-          // if possible, opt for fully-qualified names.
-          exceptionTypeAsString = exception.resolve().describe();
-        } catch (UnsolvedSymbolException | UnsupportedOperationException e) {
-          // avoiding ignored catch blocks errors.
-          listOfExceptions.add(exceptionTypeAsString);
-          continue;
-        }
+        // if possible, opt for fully-qualified names.
+        String exceptionTypeAsString =
+            TryResolver.tryResolve(exception)
+                .map(ResolvedType::describe)
+                .orElse(exception.asString());
         listOfExceptions.add(exceptionTypeAsString);
       }
     }
@@ -2071,11 +2185,9 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
     }
     // node is a method declaration inside an anonymous class
     else {
-      try {
-        // since this method declaration is inside an anonymous class, its parent will be an
-        // ObjectCreationExpr
-        ((ObjectCreationExpr) parentNode).resolve();
-      } catch (UnsolvedSymbolException | UnsupportedOperationException e) {
+      // since this method declaration is inside an anonymous class, its parent will be an
+      // ObjectCreationExpr
+      if (TryResolver.tryResolve((ObjectCreationExpr) parentNode).isEmpty()) {
         SimpleName classNodeSimpleName = ((ObjectCreationExpr) parentNode).getType().getName();
         String nameOfClass = classNodeSimpleName.asString();
         updateUnsolvedClassOrInterfaceWithMethod(
@@ -2086,9 +2198,7 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
     // These are two places where a checked exception can appear, in a catch phrase or in the
     // declaration of a method. This part handles the second case.
     for (ReferenceType throwType : node.getThrownExceptions()) {
-      try {
-        throwType.resolve();
-      } catch (UnsolvedSymbolException | UnsupportedOperationException e) {
+      if (TryResolver.tryResolve(throwType).isEmpty()) {
         String typeName = throwType.asString();
         UnsolvedClassOrInterface typeOfThrow =
             new UnsolvedClassOrInterface(typeName, getPackageFromClassName(typeName));
@@ -2142,12 +2252,10 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
   public boolean isFromAJarFile(Expression expr) {
     String className;
     if (expr instanceof MethodCallExpr) {
-      try {
-        className =
-            ((MethodCallExpr) expr).resolve().getPackageName()
-                + "."
-                + ((MethodCallExpr) expr).resolve().getClassName();
-      } catch (UnsupportedOperationException e) {
+      // Callers check that the call can be solved first, so a missing symbol is not caught here.
+      Optional<ResolvedMethodDeclaration> resolved =
+          TryResolver.tryResolve((MethodCallExpr) expr, UnsupportedOperationException.class);
+      if (resolved.isEmpty()) {
         // This is a limitation of JavaParser. If a method call has a generic return type, sometimes
         // JavaParser can not resolve it.
         // The consequence is that we can not get the class where a method is declared if that
@@ -2155,6 +2263,7 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
         // this limitation.
         return false;
       }
+      className = resolved.get().getPackageName() + "." + resolved.get().getClassName();
     } else if (expr instanceof ObjectCreationExpr) {
       String shortName = ((ObjectCreationExpr) expr).getTypeAsString();
       String packageName = classAndPackageMap.get(shortName);
@@ -2950,12 +3059,7 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
     // the class. While this approach suffices for compilable input, it is inadequate for handling
     // incomplete synthetic classes, such as in our case.
     if (expr instanceof ObjectCreationExpr) {
-      try {
-        expr.asObjectCreationExpr().resolve();
-        return true;
-      } catch (UnsolvedSymbolException | UnsupportedOperationException e) {
-        return false;
-      }
+      return TryResolver.tryResolve(expr.asObjectCreationExpr()).isPresent();
     }
     try {
       ResolvedType resolvedType = expr.calculateResolvedType();
@@ -3205,48 +3309,32 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
    * @param missedClass a synthetic class to be deleted
    */
   public void deleteOldSyntheticClass(UnsolvedClassOrInterface missedClass) {
-    String classPackage = missedClass.getPackageName();
-    String classDirectory = classPackage.replace(".", "/");
-    String filePathStr =
-        this.rootDirectory + classDirectory + "/" + missedClass.getClassName() + ".java";
-    Path filePath = Path.of(filePathStr);
-    try {
-      Files.delete(filePath);
-    } catch (IOException e) {
-      // It means that the class that has not been created in the previous run of this visitor
-    }
+    syntheticSourceOverlay.remove(getSyntheticFilePath(missedClass));
   }
 
   /**
-   * This method create a synthetic file for a class that is not in the source codes. The class will
-   * be created in the root directory of the input. All these synthetic files will be deleted when
-   * Specimin finishes its run.
+   * This method creates a synthetic file for a class that is not in the source codes. The file is
+   * added to the in-memory overlay of the root directory rather than written to disk, so there is
+   * nothing to clean up when Specimin finishes its run.
    *
    * @param missedClass the class to be added
    */
   public void createMissingClass(UnsolvedClassOrInterface missedClass) {
-    StringBuilder fileContent = new StringBuilder();
-    fileContent.append(missedClass);
-    String classPackage = missedClass.getPackageName();
-    String classDirectory = classPackage.replace(".", "/");
-    String filePathStr =
-        this.rootDirectory + classDirectory + "/" + missedClass.getClassName() + ".java";
-    Path filePath = Paths.get(filePathStr);
-    createdClass.add(filePath);
-    try {
-      Path parentPath = filePath.getParent();
-      if (parentPath != null && !Files.exists(parentPath)) {
-        Files.createDirectories(parentPath);
-      }
-      try (BufferedWriter writer =
-          new BufferedWriter(new FileWriter(filePath.toFile(), StandardCharsets.UTF_8))) {
-        writer.write(fileContent.toString());
-      } catch (Exception e) {
-        throw new Error(e.getMessage());
-      }
-    } catch (IOException e) {
-      System.out.println("Error creating Java file: " + e.getMessage());
+    syntheticSourceOverlay.put(getSyntheticFilePath(missedClass), missedClass.toString());
+  }
+
+  /**
+   * Returns the path of the file of a synthetic class, relative to the root directory.
+   *
+   * @param missedClass a synthetic class
+   * @return the path of its file, such as "com/example/Foo.java"
+   */
+  private static String getSyntheticFilePath(UnsolvedClassOrInterface missedClass) {
+    String fileName = missedClass.getClassName() + ".java";
+    if (missedClass.getPackageName().isEmpty()) {
+      return fileName;
     }
+    return missedClass.getPackageName().replace(".", "/") + "/" + fileName;
   }
 
   /**
@@ -3287,18 +3375,17 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
    * @return true if the method is unsolved and called by a simple class name, otherwise false
    */
   public boolean unsolvedAndCalledByASimpleClassName(MethodCallExpr method) {
-    try {
-      method.resolve();
+    // Any failure, such as an ambiguous call, means that the method is not solved yet.
+    if (TryResolver.tryResolve(method, RuntimeException.class).isPresent()) {
+      return false;
+    }
+    Optional<Expression> callerExpression = method.getScope();
+    if (callerExpression.isEmpty()) {
       return false;
-    } catch (Exception e) {
-      Optional<Expression> callerExpression = method.getScope();
-      if (callerExpression.isEmpty()) {
-        return false;
-      }
-      String callerExpressionString = callerExpression.get().toString();
-      return classAndPackageMap.containsKey(callerExpressionString)
-          || looksLikeSimpleClassName(callerExpressionString);
     }
+    String callerExpressionString = callerExpression.get().toString();
+    return classAndPackageMap.containsKey(callerExpressionString)
+        || looksLikeSimpleClassName(callerExpressionString);
   }
 
   /**
@@ -3326,14 +3413,11 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
    * @return true if the field is unsolved and invoked by a simple class name
    */
   public boolean unsolvedFieldCalledByASimpleClassName(FieldAccessExpr field) {
-    try {
-      field.resolve();
+    if (TryResolver.tryResolve(field).isPresent()) {
       return false;
-    } catch (UnsolvedSymbolException | UnsupportedOperationException e) {
-      String scopeAsString = field.getScope().toString();
-      return classAndPackageMap.containsKey(scopeAsString)
-          || looksLikeSimpleClassName(scopeAsString);
     }
+    String scopeAsString = field.getScope().toString();
+    return classAndPackageMap.containsKey(scopeAsString) || looksLikeSimpleClassName(scopeAsString);
   }
 
   /**
@@ -3364,17 +3448,23 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
    * @return true if the method call is not simple and unsolved
    */
   public boolean isAnUnsolvedStaticMethodCalledByAQualifiedClassName(MethodCallExpr method) {
-    try {
-      method.resolve().getReturnType();
-      return false;
-    } catch (Exception e) {
-      Optional<Expression> callerExpression = method.getScope();
-      if (callerExpression.isEmpty()) {
+    // Any failure, such as an ambiguous call, means that the method is not solved yet.
+    Optional<ResolvedMethodDeclaration> resolved =
+        TryResolver.tryResolve(method, RuntimeException.class);
+    if (resolved.isPresent()) {
+      try {
+        resolved.get().getReturnType();
         return false;
+      } catch (Exception e) {
+        // The method is solved, but its return type is not.
       }
-      String callerToString = callerExpression.get().toString();
-      return JavaParserUtil.isAClassPath(callerToString);
     }
+    Optional<Expression> callerExpression = method.getScope();
+    if (callerExpression.isEmpty()) {
+      return false;
+    }
+    String callerToString = callerExpression.get().toString();
+    return JavaParserUtil.isAClassPath(callerToString);
   }
 
   /**
@@ -3485,7 +3575,7 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
     // proceeding to try to make a synthetic class.
     String qualifiedName = packageName + "." + className;
     if (classfileIsInOriginalCodebase(qualifiedName)) {
-      addedTargetFiles.add(qualifiedNameToFilePath(qualifiedName));
+      addTargetFile(qualifiedNameToFilePath(qualifiedName));
       gotException();
       return null;
     }
@@ -3880,7 +3970,7 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
       indexOfAt = rest.indexOf('@');
     }
 
-    Visitable parsedJavac = StaticJavaParser.parseType(rest);
+    Visitable parsedJavac = JavaParserUtil.parseType(rest);
     parsedJavac =
         parsedJavac.accept(
             new ModifierVisitor<Void>() {
@@ -3915,7 +4005,7 @@ public class UnsolvedSymbolVisitor extends SpeciminStateVisitor {
                   fullyQualifiedName.append(type.asString());
                 }
 
-                return StaticJavaParser.parseClassOrInterfaceType(fullyQualifiedName.toString());
+                return JavaParserUtil.parseClassOrInterfaceType(fullyQualifiedName.toString());
               }
             },
             null);
@@ -49,6 +49,19 @@ public class UnusedImportRemoverVisitor extends ModifierVisitor<Void> {
   /** The package of the current compilation unit. */
   private String currentPackage = "";
 
+  /** The results of resolving the nodes of this run. */
+  private final ResolutionCache resolutionCache;
+
+  /**
+   * Creates a new visitor.
+   *
+   * @param resolutionCache the results of resolving the nodes of this run, shared with the visitors
+   *     that ran before this one
+   */
+  public UnusedImportRemoverVisitor(ResolutionCache resolutionCache) {
+    this.resolutionCache = resolutionCache;
+  }
+
   /**
    * Removes unused imports from the current compilation unit and resets the state to be used with
    * another compilation unit.
@@ -126,7 +139,7 @@ public class UnusedImportRemoverVisitor extends ModifierVisitor<Void> {
 
     String fullyQualified;
     try {
-      fullyQualified = JavaParserUtil.erase(type.resolve().describe());
+      fullyQualified = JavaParserUtil.erase(resolutionCache.resolve(type).describe());
     } catch (UnsolvedSymbolException ex) {
       // Specimin made an error somewhere if this type is unresolvable;
       // TODO: fix this once MethodReturnFullyQualifiedGenericTest is fixed
@@ -180,7 +193,7 @@ public class UnusedImportRemoverVisitor extends ModifierVisitor<Void> {
       }
     }
 
-    ResolvedValueDeclaration resolved = expr.resolve();
+    ResolvedValueDeclaration resolved = resolutionCache.resolve(expr);
 
     // Handle statically imported fields
     // e.g.
@@ -211,7 +224,7 @@ public class UnusedImportRemoverVisitor extends ModifierVisitor<Void> {
   public Visitable visit(MethodCallExpr expr, Void arg) {
     ResolvedMethodDeclaration resolved;
     try {
-      resolved = expr.resolve();
+      resolved = resolutionCache.resolve(expr);
     } catch (UnsupportedOperationException ex) {
       // Lambdas can raise an UnsupportedOperationException
       return super.visit(expr, arg);
@@ -270,7 +283,8 @@ public class UnusedImportRemoverVisitor extends ModifierVisitor<Void> {
       return;
     }
 
-    String fullyQualified = JavaParserUtil.erase(scope.calculateResolvedType().describe());
+    String fullyQualified =
+        JavaParserUtil.erase(resolutionCache.calculateResolvedType(scope).describe());
 
     if (!fullyQualified.contains(".")) {
       // If there is no ., it is not a class (e.g. this.values.length)
@@ -289,7 +303,7 @@ public class UnusedImportRemoverVisitor extends ModifierVisitor<Void> {
    * @param anno The annotation expression to handle
    */
   private void handleAnnotation(AnnotationExpr anno) {
-    String fullyQualified = JavaParserUtil.erase(anno.resolve().getQualifiedName());
+    String fullyQualified = JavaParserUtil.erase(resolutionCache.resolve(anno).getQualifiedName());
     String wildcard = getWildcardFromClassOrMemberName(fullyQualified);
 
     // Check for the fully qualified class name, or a wildcard import of the annotation's package
@@ -0,0 +1,86 @@
+package org.checkerframework.specimin;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipFile;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * This test checks that the stubs generated from class files have the signatures of the classes but
+ * no method bodies, and that the stubs of a whole jar compile.
+ */
+public class BytecodeStubGeneratorTest {
+  @Test
+  public void stubOfClass() throws IOException {
+    try (ZipFile jar = new ZipFile("src/test/resources/jarfile/input/Book.jar")) {
+      Assert.assertEquals(
+          "package an.old.library;\n"
+              + "\n"
+              + "public class Book {\n"
+              + "\n"
+              + "  int year;\n"
+              + "\n"
+              + "  String rates;\n"
+              + "\n"
+              + "  public Book(int var1) {\n"
+              + "    throw new java.lang.Error();\n"
+              + "  }\n"
+              + "\n"
+              + "  public String getRates() {\n"
+              + "    throw new java.lang.Error();\n"
+              + "  }\n"
+              + "}\n",
+          BytecodeStubGenerator.generate(jar, List.of("an/old/library/Book.class")));
+    }
+  }
+
+  @Test
+  public void stubsOfJarCompile() throws IOException {
+    Path directory = Files.createTempDirectory("specimin-stub-test-");
+    try {
+      List<Path> sourceFiles = new ArrayList<>();
+      try (ZipFile jar = new ZipFile("src/test/resources/shared/checker-qual-3.42.0.jar")) {
+        for (Map.Entry<String, List<String>> group :
+            LazyDecompiledJar.groupClassFiles(jar).entrySet()) {
+          Path sourceFile = directory.resolve("sources").resolve(group.getKey());
+          FileUtils.forceMkdirParent(sourceFile.toFile());
+          Files.writeString(sourceFile, BytecodeStubGenerator.generate(jar, group.getValue()));
+          sourceFiles.add(sourceFile);
+        }
+      }
+      Assert.assertFalse(sourceFiles.isEmpty());
+      JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+      StringWriter output = new StringWriter();
+      boolean success;
+      try (StandardJavaFileManager fileManager =
+          compiler.getStandardFileManager(null, null, null)) {
+        Iterable<? extends JavaFileObject> compilationUnits =
+            fileManager.getJavaFileObjectsFromPaths(sourceFiles);
+        success =
+            compiler
+                .getTask(
+                    output,
+                    fileManager,
+                    null,
+                    List.of("-proc:none", "-d", directory.resolve("classes").toString()),
+                    null,
+                    compilationUnits)
+                .call();
+      }
+      Assert.assertTrue(output.toString(), success);
+    } finally {
+      FileUtils.deleteDirectory(directory.toFile());
+    }
+  }
+}
@@ -0,0 +1,70 @@
+package org.checkerframework.specimin;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+/**
+ * This test checks that the jar tests produce the same output when the classes of the jars are
+ * given as directories of class files rather than as jars.
+ */
+public class ClassDirectoryTest {
+  @Test
+  public void runTest() throws IOException {
+    Path classDirectories = Files.createTempDirectory("specimin-class-directory-test-");
+    try {
+      SpeciminTestExecutor.runTest(
+          "jarfile",
+          new String[] {"com/example/Simple.java"},
+          new String[] {"com.example.Simple#test()"},
+          "cf",
+          new String[] {
+            unpack("src/test/resources/jarfile/input/Book.jar", classDirectories.resolve("book"))
+          });
+      SpeciminTestExecutor.runTest(
+          "preserveannotations",
+          new String[] {"com/example/Simple.java"},
+          new String[] {"com.example.Simple#test()"},
+          "cf",
+          new String[] {
+            unpack(
+                "src/test/resources/shared/checker-qual-3.42.0.jar",
+                classDirectories.resolve("checker-qual"))
+          });
+    } finally {
+      FileUtils.deleteDirectory(classDirectories.toFile());
+    }
+  }
+
+  /**
+   * Extracts the class files of a jar into a directory.
+   *
+   * @param jarPath the jar
+   * @param directory the directory
+   * @return the directory
+   * @throws IOException if the jar cannot be extracted
+   */
+  private static String unpack(String jarPath, Path directory) throws IOException {
+    try (ZipFile zipFile = new ZipFile(jarPath)) {
+      Enumeration<? extends ZipEntry> entries = zipFile.entries();
+      while (entries.hasMoreElements()) {
+        ZipEntry entry = entries.nextElement();
+        if (!entry.getName().endsWith(".class")) {
+          continue;
+        }
+        Path file = directory.resolve(entry.getName());
+        FileUtils.forceMkdirParent(file.toFile());
+        try (InputStream in = zipFile.getInputStream(entry)) {
+          Files.copy(in, file);
+        }
+      }
+    }
+    return directory.toString();
+  }
+}
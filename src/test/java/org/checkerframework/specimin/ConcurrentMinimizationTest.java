@@ -0,0 +1,48 @@
+package org.checkerframework.specimin;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+/**
+ * This test checks that minimizations over different roots can run at the same time in one JVM,
+ * which requires that each run owns its own parser and symbol solver. The pair of runs is repeated
+ * so that the second pair runs on threads that have already run Specimin.
+ */
+public class ConcurrentMinimizationTest {
+  @Test
+  public void runTest() throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(2);
+    try {
+      for (int i = 0; i < 2; i++) {
+        Future<?> first =
+            pool.submit(
+                () -> {
+                  SpeciminTestExecutor.runTestWithoutJarPaths(
+                      "booleanreturn",
+                      new String[] {"com/example/Simple.java"},
+                      new String[] {
+                        "com.example.Simple#test()",
+                        "com.example.Simple#testFoo(Foo)",
+                        "com.example.Simple#testFoo2(Foo)"
+                      });
+                  return null;
+                });
+        Future<?> second =
+            pool.submit(
+                () -> {
+                  SpeciminTestExecutor.runTestWithoutJarPaths(
+                      "twofilesimple",
+                      new String[] {"com/example/Foo.java", "com/example/Baz.java"},
+                      new String[] {"com.example.Foo#bar()"});
+                  return null;
+                });
+        first.get();
+        second.get();
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
@@ -0,0 +1,28 @@
+package org.checkerframework.specimin;
+
+import java.io.IOException;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * This test checks that a target whose symbols all resolve against the root, without a single
+ * synthetic class, is minimized without running javac, and that its output is the same as it would
+ * be after a javac round. A target that needs synthetic classes still runs javac.
+ */
+public class FastPathTest {
+  @Test
+  public void runTest() throws IOException {
+    SpeciminTestExecutor.runTestWithoutJarPaths(
+        "onefilesimple",
+        new String[] {"com/example/Simple.java"},
+        new String[] {"com.example.Simple#bar()"});
+    Assert.assertEquals(
+        0,
+        SpeciminTestExecutor.countJavacCompilations(
+            "onefilesimple", "com/example/Simple.java", "com.example.Simple#bar()"));
+    Assert.assertNotEquals(
+        0,
+        SpeciminTestExecutor.countJavacCompilations(
+            "booleanreturn", "com/example/Simple.java", "com.example.Simple#testFoo(Foo)"));
+  }
+}
@@ -0,0 +1,34 @@
+package org.checkerframework.specimin;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * This test checks that fingerprints identify sets regardless of the order in which their elements
+ * were added, and that the fingerprint of a synthetic source overlay follows its contents.
+ */
+public class FingerprintTest {
+  @Test
+  public void runTest() {
+    Fingerprint ab = Fingerprint.EMPTY.with("member", "a").with("member", "b");
+    Fingerprint ba = Fingerprint.EMPTY.with("member", "b").with("member", "a");
+    Assert.assertEquals(ab, ba);
+    Assert.assertNotEquals(Fingerprint.EMPTY.with("member", "a"), ab);
+    Assert.assertEquals(Fingerprint.EMPTY.with("member", "a"), ab.with("member", "b"));
+    Assert.assertNotEquals(
+        Fingerprint.EMPTY.with("member", "a"), Fingerprint.EMPTY.with("file", "a"));
+
+    SyntheticSourceOverlay overlay = new SyntheticSourceOverlay();
+    Assert.assertEquals(Fingerprint.EMPTY, overlay.getFingerprint());
+    overlay.put("Foo.java", "class Foo {}");
+    Fingerprint withFoo = overlay.getFingerprint();
+    overlay.put("Foo.java", "class Foo {}");
+    Assert.assertEquals(withFoo, overlay.getFingerprint());
+    overlay.put("Foo.java", "class Foo { int x; }");
+    Assert.assertNotEquals(withFoo, overlay.getFingerprint());
+    overlay.put("Foo.java", "class Foo {}");
+    Assert.assertEquals(withFoo, overlay.getFingerprint());
+    overlay.remove("Foo.java");
+    Assert.assertEquals(Fingerprint.EMPTY, overlay.getFingerprint());
+  }
+}
@@ -0,0 +1,74 @@
+package org.checkerframework.specimin;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * This test checks that the fixpoint monitor tells apart a state that is repeated once, which is
+ * normal, from states that cycle, whether or not the repetitions are consecutive, and that it
+ * enforces the iteration budget.
+ */
+public class FixpointMonitorTest {
+  @Test
+  public void runTest() {
+    Fingerprint a = Fingerprint.EMPTY.with("state", "a");
+    Fingerprint b = Fingerprint.EMPTY.with("state", "b");
+    Fingerprint c = Fingerprint.EMPTY.with("state", "c");
+
+    // Stuck on one state: cycling on its third occurrence.
+    FixpointMonitor stuck = new FixpointMonitor();
+    Assert.assertFalse(stuck.record(a));
+    Assert.assertTrue(stuck.record(a));
+    Assert.assertFalse(stuck.isCycling());
+    Assert.assertTrue(stuck.record(a));
+    Assert.assertTrue(stuck.isCycling());
+
+    // Oscillating between two states: cycling once both have repeated.
+    FixpointMonitor oscillating = new FixpointMonitor();
+    oscillating.record(a);
+    oscillating.record(b);
+    oscillating.record(a);
+    Assert.assertFalse(oscillating.isCycling());
+    oscillating.record(b);
+    Assert.assertTrue(oscillating.isCycling());
+
+    // A repeated state that the loop moves on from is not a cycle.
+    FixpointMonitor progressing = new FixpointMonitor();
+    progressing.record(a);
+    progressing.record(b);
+    progressing.record(a);
+    progressing.record(c);
+    progressing.record(a);
+    Assert.assertFalse(progressing.isCycling());
+    Assert.assertNull(progressing.getExhaustedBudget());
+
+    // A state that is reached again, and then once more with no new state in between: a cycle, even
+    // though neither the repetitions nor the states between them are consecutive or periodic.
+    FixpointMonitor returning = new FixpointMonitor();
+    returning.record(a);
+    returning.record(b);
+    returning.record(c);
+    returning.record(a);
+    Assert.assertFalse(returning.isCycling());
+    returning.record(b);
+    Assert.assertFalse(returning.isCycling());
+    returning.record(a);
+    Assert.assertTrue(returning.isCycling());
+
+    FixpointMonitor interrupted = new FixpointMonitor();
+    interrupted.record(a);
+    interrupted.record(b);
+    interrupted.record(a);
+    Assert.assertFalse(interrupted.isCycling());
+    interrupted.record(a);
+    Assert.assertTrue(interrupted.isCycling());
+
+    FixpointMonitor limited = new FixpointMonitor(2, null);
+    limited.record(a);
+    Assert.assertNull(limited.getExhaustedBudget());
+    limited.record(b);
+    Assert.assertNotNull(limited.getExhaustedBudget());
+    Assert.assertThrows(
+        IllegalArgumentException.class, () -> MinimizationOptions.DEFAULT.withMaxIterations(0));
+  }
+}
@@ -0,0 +1,113 @@
+package org.checkerframework.specimin;
+
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.symbolsolver.javaparsermodel.declarations.JavaParserClassDeclaration;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * This test checks that a generational type solver sees changes to the synthetic classes only after
+ * a new generation starts, that it keeps cached lookups that the change cannot affect, that it
+ * forgets the expression types that depend on a changed synthetic class, and that it records its
+ * lookups.
+ */
+public class GenerationalTypeSolverTest {
+  @Test
+  public void runTest() throws IOException {
+    Path root = Files.createTempDirectory("specimin-generational-test-");
+    SyntheticSourceOverlay overlay = new SyntheticSourceOverlay();
+    overlay.put("com/example/Foo.java", "package com.example;\npublic class Foo {}\n");
+    GenerationalTypeSolver typeSolver =
+        new GenerationalTypeSolver(
+            SourceRoots.create(root.toString() + "/", List.of(), MinimizationOptions.DEFAULT),
+            List.of(),
+            overlay,
+            new ParserConfiguration(),
+            null,
+            null);
+
+    Assert.assertTrue(typeSolver.tryToSolveType("com.example.Foo").isSolved());
+    Assert.assertFalse(typeSolver.tryToSolveType("com.example.Bar").isSolved());
+    ResolvedReferenceTypeDeclaration string =
+        typeSolver.tryToSolveType("java.lang.String").getCorrespondingDeclaration();
+
+    overlay.put(
+        "com/example/Foo.java",
+        "package com.example;\npublic class Foo {\n  public int baz() { throw new Error(); }\n}\n");
+    overlay.put("com/example/Bar.java", "package com.example;\npublic class Bar {}\n");
+    // Lookups within a generation are stable.
+    Assert.assertFalse(typeSolver.tryToSolveType("com.example.Bar").isSolved());
+
+    Assert.assertTrue(typeSolver.startNewGeneration());
+    Assert.assertTrue(typeSolver.tryToSolveType("com.example.Bar").isSolved());
+    Assert.assertEquals(
+        1,
+        typeSolver
+            .tryToSolveType("com.example.Foo")
+            .getCorrespondingDeclaration()
+            .getDeclaredMethods()
+            .size());
+    Assert.assertSame(
+        string, typeSolver.tryToSolveType("java.lang.String").getCorrespondingDeclaration());
+
+    Assert.assertFalse(typeSolver.startNewGeneration());
+
+    // Lookups are recorded whether or not they are solved or cached.
+    typeSolver.startRecordingLookups();
+    typeSolver.tryToSolveType("com.example.Foo");
+    typeSolver.tryToSolveType("com.example.Missing");
+    Assert.assertEquals(
+        Set.of("com.example.Foo", "com.example.Missing"), typeSolver.stopRecordingLookups());
+    typeSolver.tryToSolveType("com.example.Bar");
+    Assert.assertTrue(typeSolver.stopRecordingLookups().isEmpty());
+  }
+
+  @Test
+  public void memberTypeChangeTest() throws IOException {
+    Path root = Files.createTempDirectory("specimin-generational-test-");
+    Files.createDirectories(root.resolve("com/example"));
+    Files.writeString(
+        root.resolve("com/example/Use.java"),
+        "package com.example;\npublic class Use {\n  Object o = new Foo().baz();\n}\n");
+    SyntheticSourceOverlay overlay = new SyntheticSourceOverlay();
+    overlay.put(
+        "com/example/Foo.java",
+        "package com.example;\npublic class Foo {\n  public int baz() { throw new Error(); }\n}\n");
+    ParserConfiguration parserConfiguration =
+        new ParserConfiguration().setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_17);
+    GenerationalTypeSolver typeSolver =
+        new GenerationalTypeSolver(
+            SourceRoots.create(root.toString() + "/", List.of(), MinimizationOptions.DEFAULT),
+            List.of(),
+            overlay,
+            parserConfiguration,
+            null,
+            null);
+    parserConfiguration.setSymbolResolver(new SpeciminSymbolSolver(typeSolver));
+
+    // The root file is parsed once by the solver, and kept across generations.
+    CompilationUnit use =
+        ((JavaParserClassDeclaration)
+                typeSolver.tryToSolveType("com.example.Use").getCorrespondingDeclaration())
+            .getWrappedNode()
+            .findCompilationUnit()
+            .orElseThrow();
+    MethodCallExpr call = use.findFirst(MethodCallExpr.class).orElseThrow();
+    Assert.assertEquals("int", call.calculateResolvedType().describe());
+
+    overlay.put(
+        "com/example/Foo.java",
+        "package com.example;\npublic class Foo {\n"
+            + "  public String baz() { throw new Error(); }\n}\n");
+    Assert.assertTrue(typeSolver.startNewGeneration());
+    Assert.assertEquals("java.lang.String", call.calculateResolvedType().describe());
+  }
+}
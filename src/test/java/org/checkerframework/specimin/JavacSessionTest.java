@@ -0,0 +1,46 @@
+package org.checkerframework.specimin;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * This test checks that a javac session reuses its previous compilation when nothing that javac
+ * looked at has changed, and compiles again when a synthetic class that the files depend on
+ * changes.
+ */
+public class JavacSessionTest {
+  @Test
+  public void runTest() throws IOException {
+    Path root = Files.createTempDirectory("specimin-javac-session-test-");
+    Files.createDirectories(root.resolve("com/example"));
+    Files.writeString(
+        root.resolve("com/example/Simple.java"),
+        "package com.example;\npublic class Simple {\n  int bar(Foo f) { return f.baz(); }\n}\n");
+    SyntheticSourceOverlay overlay = new SyntheticSourceOverlay();
+    overlay.put(
+        "com/example/Foo.java",
+        "package com.example;\npublic class Foo {\n  public String baz() { throw new Error(); }\n}\n");
+    try (JavacSession session =
+        new JavacSession(List.of(root.toString()), List.of(), overlay, null)) {
+      Set<String> files = Set.of("com/example/Simple.java");
+      Assert.assertEquals(1, session.compile(files).size());
+      Assert.assertEquals(1, session.getCompilationCount());
+
+      // A synthetic class in a package that javac never looked at cannot change the result.
+      overlay.put("org/other/Bar.java", "package org.other;\npublic class Bar {}\n");
+      Assert.assertEquals(1, session.compile(files).size());
+      Assert.assertEquals(1, session.getCompilationCount());
+
+      overlay.put(
+          "com/example/Foo.java",
+          "package com.example;\npublic class Foo {\n  public int baz() { throw new Error(); }\n}\n");
+      Assert.assertEquals(0, session.compile(files).size());
+      Assert.assertEquals(2, session.getCompilationCount());
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package org.checkerframework.specimin;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * This test checks that the JDK classes come from the release chosen by --release, both for the
+ * type solver and for javac: java.lang.Record was added in Java 16, so it is missing from Java 11.
+ */
+public class JdkTypeSolverTest {
+  @Test
+  public void currentRelease() {
+    JdkTypeSolver solver = new JdkTypeSolver();
+    Assert.assertTrue(solver.tryToSolveType("java.lang.Record").isSolved());
+    Assert.assertEquals(
+        "java.util.Map.Entry",
+        solver
+            .tryToSolveType("java.util.Map.Entry")
+            .getCorrespondingDeclaration()
+            .getQualifiedName());
+    Assert.assertFalse(solver.tryToSolveType("com.example.Foo").isSolved());
+  }
+
+  @Test
+  public void olderRelease() throws IOException {
+    Path root = Files.createTempDirectory("specimin-release-test-");
+    Files.createDirectories(root.resolve("com/example"));
+    Files.writeString(
+        root.resolve("com/example/Simple.java"),
+        "package com.example;\npublic class Simple {\n  Record r;\n}\n");
+    JdkTypeSolver solver = new JdkTypeSolver(11);
+    Assert.assertTrue(solver.tryToSolveType("java.util.List").isSolved());
+    Assert.assertFalse(solver.tryToSolveType("java.lang.Record").isSolved());
+    try (JavacSession session =
+        new JavacSession(List.of(root.toString()), List.of(), new SyntheticSourceOverlay(), 11)) {
+      Assert.assertEquals(1, session.compile(Set.of("com/example/Simple.java")).size());
+    }
+    // The release belongs to the solver and the session, not to the process.
+    Assert.assertTrue(new JdkTypeSolver().tryToSolveType("java.lang.Record").isSolved());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void futureRelease() {
+    MinimizationOptions.DEFAULT.withRelease(Runtime.version().feature() + 1);
+  }
+}
@@ -0,0 +1,51 @@
+package org.checkerframework.specimin;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * This test checks that the jar tests produce the same output when the classes of jars are
+ * decompiled lazily, and that only the classes that a minimization needs are decompiled.
+ */
+public class LazyDecompilationTest {
+  @Test
+  public void runTest() throws IOException {
+    Path cacheDir = Files.createTempDirectory("specimin-lazy-decompilation-test-");
+    String[] cacheArguments = {"--decompilationCacheDir", cacheDir.toString(), "--decompileLazily"};
+    SpeciminTestExecutor.runTest(
+        "jarfile",
+        new String[] {"com/example/Simple.java"},
+        new String[] {"com.example.Simple#test()"},
+        "cf",
+        new String[] {"src/test/resources/jarfile/input/Book.jar"},
+        cacheArguments);
+    SpeciminTestExecutor.runTest(
+        "importanno",
+        new String[] {"com/example/Simple.java"},
+        new String[] {"com.example.Simple#bar()"},
+        "cf",
+        new String[] {"src/test/resources/shared/checker-qual-3.42.0.jar"},
+        cacheArguments);
+    SpeciminTestExecutor.runTest(
+        "preserveannotations",
+        new String[] {"com/example/Simple.java"},
+        new String[] {"com.example.Simple#test()"},
+        "cf",
+        new String[] {"src/test/resources/shared/checker-qual-3.42.0.jar"},
+        cacheArguments);
+    List<Path> decompiledFiles;
+    try (Stream<Path> paths = Files.walk(cacheDir)) {
+      decompiledFiles =
+          paths.filter(path -> path.toString().endsWith(".java")).collect(Collectors.toList());
+    }
+    // checker-qual alone has a few hundred classes.
+    Assert.assertTrue(
+        "too many classes were decompiled: " + decompiledFiles, decompiledFiles.size() < 20);
+  }
+}
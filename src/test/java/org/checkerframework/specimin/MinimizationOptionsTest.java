@@ -0,0 +1,63 @@
+package org.checkerframework.specimin;
+
+import java.time.Duration;
+import java.util.Map;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * This test checks that the options of a job keep the given defaults unless the job's JSON object
+ * sets them, and that setting an option does not change the options it was copied from.
+ */
+public class MinimizationOptionsTest {
+  @Test
+  @SuppressWarnings("unchecked") // JSON objects are always parsed as Map<String, Object>
+  public void runTest() {
+    MinimizationOptions defaults =
+        MinimizationOptions.DEFAULT
+            .withDecompilationCacheDirectory("/tmp/default-cache")
+            .withDecompileLazily(true)
+            .withDecompileMethodBodies(true);
+    Assert.assertEquals(
+        DecompilationCache.getDefaultDirectory(),
+        MinimizationOptions.DEFAULT.getDecompilationCacheDirectory());
+    Assert.assertFalse(MinimizationOptions.DEFAULT.isDecompilingLazily());
+
+    MinimizationOptions unset =
+        MinimizationOptions.fromJson(
+            (Map<String, @Nullable Object>) JsonUtil.parse("{\"root\":\"/src\"}"), defaults);
+    Assert.assertEquals("/tmp/default-cache", unset.getDecompilationCacheDirectory());
+    Assert.assertTrue(unset.isDecompilingLazily());
+    Assert.assertTrue(unset.isDecompilingMethodBodies());
+    Assert.assertNull(unset.getRelease());
+    Assert.assertNull(unset.getMaxIterations());
+    Assert.assertFalse(unset.isPartialOutput());
+    Assert.assertNull(unset.getIndexCacheDirectory());
+
+    MinimizationOptions set =
+        MinimizationOptions.fromJson(
+            (Map<String, @Nullable Object>)
+                JsonUtil.parse(
+                    "{\"decompilationCacheDirectory\":\"/tmp/job-cache\","
+                        + "\"decompileLazily\":false,\"release\":11,"
+                        + "\"maxIterations\":5,\"timeBudget\":60,\"partialOutput\":true,"
+                        + "\"indexCacheDirectory\":\"/tmp/index-cache\"}"),
+            defaults);
+    Assert.assertEquals("/tmp/job-cache", set.getDecompilationCacheDirectory());
+    Assert.assertFalse(set.isDecompilingLazily());
+    Assert.assertTrue(set.isDecompilingMethodBodies());
+    Assert.assertEquals(Integer.valueOf(11), set.getRelease());
+    Assert.assertEquals(Integer.valueOf(5), set.getMaxIterations());
+    Assert.assertEquals(Duration.ofSeconds(60), set.getTimeBudget());
+    Assert.assertTrue(set.isPartialOutput());
+    Assert.assertEquals("/tmp/index-cache", set.getIndexCacheDirectory());
+
+    Assert.assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            MinimizationOptions.fromJson(
+                (Map<String, @Nullable Object>) JsonUtil.parse("{\"decompileLazily\":\"yes\"}"),
+                defaults));
+  }
+}
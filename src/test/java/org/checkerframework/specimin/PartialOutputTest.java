@@ -0,0 +1,110 @@
+package org.checkerframework.specimin;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * This test checks that, with partial output, a run that is stopped late writes the files of its
+ * last checkpoint and a status marker that says so, that a run that fails before its first
+ * checkpoint writes only the marker, that a run that finishes writes a marker that says it is
+ * complete, that a run is only stopped in the middle of a phase if it has partial output, and that
+ * the checkpoints of the fixpoint loop are throttled.
+ */
+public class PartialOutputTest {
+  @Test
+  public void runTest() throws IOException {
+    Path root = Path.of("src/test/resources/booleanreturn/input/").toAbsolutePath();
+    MinimizationOptions partial = MinimizationOptions.DEFAULT.withPartialOutput(true);
+
+    // The target method does not exist, which is found out before anything else is done.
+    Path failedDir = Files.createTempDirectory("specimin-partial-output-test-");
+    Assert.assertThrows(
+        RuntimeException.class,
+        () -> minimize(root, "com.example.Simple#noSuchMethod()", failedDir, partial));
+    Assert.assertFalse(Files.exists(failedDir.resolve("com/example/Simple.java")));
+    String failedStatus = Files.readString(failedDir.resolve(PartialOutput.STATUS_FILE_NAME));
+    Assert.assertTrue(failedStatus, failedStatus.contains("\"status\":\"failed\""));
+    Assert.assertTrue(failedStatus, failedStatus.contains("\"reason\":\"failure\""));
+
+    // The run is out of time as soon as it begins, so it stops at its first checkpoint.
+    Path partialDir = Files.createTempDirectory("specimin-partial-output-test-");
+    Assert.assertThrows(
+        PartialOutput.DeadlineException.class,
+        () ->
+            minimize(
+                root,
+                "com.example.Simple#testFoo(Foo)",
+                partialDir,
+                partial.withTimeBudget(Duration.ofNanos(1))));
+    Assert.assertTrue(Files.exists(partialDir.resolve("com/example/Simple.java")));
+    String partialStatus = Files.readString(partialDir.resolve(PartialOutput.STATUS_FILE_NAME));
+    Assert.assertTrue(partialStatus, partialStatus.contains("\"status\":\"partial\""));
+    Assert.assertTrue(partialStatus, partialStatus.contains("\"reason\":\"deadline\""));
+    Assert.assertTrue(partialStatus, partialStatus.contains("\"phase\":\"solved-symbols\""));
+    Assert.assertTrue(partialStatus, partialStatus.contains("\"warning\":"));
+
+    Path completeDir = Files.createTempDirectory("specimin-partial-output-test-");
+    minimize(root, "com.example.Simple#testFoo(Foo)", completeDir, partial);
+    Assert.assertTrue(Files.exists(completeDir.resolve("org/example/Foo.java")));
+    String completeStatus = Files.readString(completeDir.resolve(PartialOutput.STATUS_FILE_NAME));
+    Assert.assertTrue(completeStatus, completeStatus.startsWith("{\"status\":\"complete\","));
+    Assert.assertTrue(completeStatus, completeStatus.contains("\"javacCompilations\":"));
+
+    // Partial output belongs to the run that asked for it.
+    Path defaultDir = Files.createTempDirectory("specimin-partial-output-test-");
+    minimize(root, "com.example.Simple#testFoo(Foo)", defaultDir, MinimizationOptions.DEFAULT);
+    Assert.assertFalse(Files.exists(defaultDir.resolve(PartialOutput.STATUS_FILE_NAME)));
+
+    FixpointMonitor outOfTime = new FixpointMonitor(null, Duration.ofNanos(1));
+    new PartialOutput(defaultDir.toString(), List.of(), false).checkDeadline("pruning", outOfTime);
+    Assert.assertThrows(
+        PartialOutput.DeadlineException.class,
+        () ->
+            new PartialOutput(defaultDir.toString(), List.of(), true)
+                .checkDeadline("pruning", outOfTime));
+    new PartialOutput(defaultDir.toString(), List.of(), true)
+        .checkDeadline("pruning", new FixpointMonitor());
+
+    // The fixpoint loop is checkpointed at its first iteration, and then only once in a while.
+    Path iterationDir = Files.createTempDirectory("specimin-partial-output-test-");
+    PartialOutput iterations = new PartialOutput(iterationDir.toString(), List.of(), true);
+    iterations.checkpointIteration(Map.of(), Map.of("org/example/Foo.java", "class Foo {}\n"));
+    iterations.checkpointIteration(Map.of(), Map.of("org/example/Bar.java", "class Bar {}\n"));
+    iterations.writePartial(new RuntimeException("failed in the loop"));
+    Assert.assertTrue(Files.exists(iterationDir.resolve("org/example/Foo.java")));
+    Assert.assertFalse(Files.exists(iterationDir.resolve("org/example/Bar.java")));
+    String iterationStatus = Files.readString(iterationDir.resolve(PartialOutput.STATUS_FILE_NAME));
+    Assert.assertTrue(iterationStatus, iterationStatus.contains("\"phase\":\"solving-symbols\""));
+  }
+
+  /**
+   * Minimizes the test program for one target method.
+   *
+   * @param root the root directory of the test program
+   * @param targetMethod the target method
+   * @param outputDir the directory for the output
+   * @param options the options of the run
+   * @throws IOException if there is an exception
+   */
+  private static void minimize(
+      Path root, String targetMethod, Path outputDir, MinimizationOptions options)
+      throws IOException {
+    SpeciminRunner.performMinimization(
+        root + "/",
+        List.of("com/example/Simple.java"),
+        List.of(),
+        List.of(targetMethod),
+        List.of(),
+        outputDir.toAbsolutePath().toString(),
+        "cf",
+        null,
+        null,
+        options);
+  }
+}
@@ -0,0 +1,52 @@
+package org.checkerframework.specimin;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.resolution.UnsolvedSymbolException;
+import com.github.javaparser.symbolsolver.JavaSymbolSolver;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * This test checks that the resolution cache resolves each node once, remembering failures as well
+ * as successes, and that it tells apart nodes that are equal but not the same.
+ */
+public class ResolutionCacheTest {
+  @Test
+  public void runTest() {
+    JavaParser parser =
+        new JavaParser(
+            new ParserConfiguration().setSymbolResolver(new JavaSymbolSolver(new JdkTypeSolver())));
+    CompilationUnit cu =
+        parser
+            .parse(
+                "class Simple {\n"
+                    + "  int foo(int x) { return x; }\n"
+                    + "  String foo(String s) { return s; }\n"
+                    + "  void bar() { foo(1); foo(\"a\"); baz(); baz(); }\n"
+                    + "}\n")
+            .getResult()
+            .orElseThrow();
+    List<MethodCallExpr> calls = cu.findAll(MethodCallExpr.class);
+    ResolutionCache cache = new ResolutionCache();
+
+    Assert.assertEquals("Simple.foo(int)", cache.resolve(calls.get(0)).getQualifiedSignature());
+    Assert.assertSame(cache.resolve(calls.get(0)), cache.resolve(calls.get(0)));
+    Assert.assertEquals(
+        "Simple.foo(java.lang.String)", cache.resolve(calls.get(1)).getQualifiedSignature());
+
+    // The two calls to baz() are equal, but each is resolved on its own.
+    Assert.assertEquals(calls.get(2), calls.get(3));
+    UnsolvedSymbolException first =
+        Assert.assertThrows(UnsolvedSymbolException.class, () -> cache.resolve(calls.get(2)));
+    Assert.assertSame(
+        first,
+        Assert.assertThrows(UnsolvedSymbolException.class, () -> cache.resolve(calls.get(2))));
+    Assert.assertNotSame(
+        first,
+        Assert.assertThrows(UnsolvedSymbolException.class, () -> cache.resolve(calls.get(3))));
+  }
+}
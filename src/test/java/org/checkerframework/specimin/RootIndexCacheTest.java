@@ -0,0 +1,88 @@
+package org.checkerframework.specimin;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * This test checks that a root index kept on disk is reused for the files whose size and
+ * modification time are unchanged, and that added, changed, and removed files are re-indexed. It
+ * also checks the same of an index kept in memory and refreshed, as a daemon does between requests.
+ */
+public class RootIndexCacheTest {
+  @Test
+  public void runTest() throws IOException {
+    Path root = Files.createTempDirectory("specimin-root-index-test-");
+    Path cacheDirectory = Files.createTempDirectory("specimin-root-index-cache-");
+    Path foo = root.resolve("com/example/Foo.java");
+    Path bar = root.resolve("com/example/Bar.java");
+    Files.createDirectories(foo.getParent());
+    Files.writeString(foo, "package com.example;\nclass Foo {}\nclass Extra {}\n");
+    Files.writeString(bar, "package com.example;\nclass Bar {}\n");
+
+    RootIndex index = RootIndex.build(root.toString(), cacheDirectory.toString());
+    Assert.assertEquals(
+        Map.of("com.example.Extra", "com.example.Foo"), index.getNonPrimaryClassesToPrimaryClass());
+
+    // Same size and modification time: the file is not scanned again.
+    FileTime fooTime = Files.getLastModifiedTime(foo);
+    Files.writeString(foo, "package com.example;\nclass Foo {}\nclass Other {}\n");
+    Files.setLastModifiedTime(foo, fooTime);
+    index = RootIndex.build(root.toString(), cacheDirectory.toString());
+    Assert.assertEquals(
+        Map.of("com.example.Extra", "com.example.Foo"), index.getNonPrimaryClassesToPrimaryClass());
+
+    Files.setLastModifiedTime(foo, FileTime.fromMillis(fooTime.toMillis() + 1000));
+    Files.delete(bar);
+    Files.writeString(root.resolve("com/example/Baz.java"), "package com.example;\nenum Baz {}\n");
+    index = RootIndex.build(root.toString(), cacheDirectory.toString());
+    Assert.assertEquals(
+        Map.of("com.example.Other", "com.example.Foo"), index.getNonPrimaryClassesToPrimaryClass());
+    Assert.assertEquals(
+        Map.of(
+            "com.example.Foo",
+            foo.toAbsolutePath().normalize(),
+            "com.example.Other",
+            foo.toAbsolutePath().normalize(),
+            "com.example.Baz",
+            root.resolve("com/example/Baz.java").toAbsolutePath().normalize()),
+        index.getExistingClassesToFilePath());
+  }
+
+  @Test
+  public void refreshTest() throws IOException {
+    Path root = Files.createTempDirectory("specimin-root-index-refresh-test-");
+    Path foo = root.resolve("com/example/Foo.java");
+    Files.createDirectories(foo.getParent());
+    Files.writeString(foo, "package com.example;\nclass Foo {}\n");
+    SourceRoots sourceRoots =
+        SourceRoots.create(root.toString(), List.of(), MinimizationOptions.DEFAULT);
+
+    RootIndex index = RootIndex.build(sourceRoots, null);
+    Assert.assertSame(index, index.refresh(sourceRoots, null));
+
+    Files.writeString(root.resolve("com/example/Bar.java"), "package com.example;\nclass Bar {}\n");
+    RootIndex refreshed = index.refresh(sourceRoots, null);
+    Assert.assertNotSame(index, refreshed);
+    Assert.assertEquals(
+        Map.of(
+            "com.example.Foo",
+            foo.toAbsolutePath().normalize(),
+            "com.example.Bar",
+            root.resolve("com/example/Bar.java").toAbsolutePath().normalize()),
+        refreshed.getExistingClassesToFilePath());
+
+    FileTime fooTime = Files.getLastModifiedTime(foo);
+    Files.writeString(foo, "package com.example;\nclass Foo {}\nclass Extra {}\n");
+    Files.setLastModifiedTime(foo, FileTime.fromMillis(fooTime.toMillis() + 1000));
+    refreshed = refreshed.refresh(sourceRoots, null);
+    Assert.assertEquals(
+        Map.of("com.example.Extra", "com.example.Foo"),
+        refreshed.getNonPrimaryClassesToPrimaryClass());
+  }
+}
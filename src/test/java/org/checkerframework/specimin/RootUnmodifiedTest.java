@@ -0,0 +1,86 @@
+package org.checkerframework.specimin;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * This test checks that a minimization that needs synthetic classes or decompiled jar sources does
+ * not write anything into the root directory: the synthetic classes must stay in memory, and the
+ * jars must be decompiled into the decompilation cache. Modification times are compared as well as
+ * file names, so that files created and then deleted before the run ends are noticed.
+ */
+public class RootUnmodifiedTest {
+  @Test
+  public void runTest() throws IOException {
+    Path root = Path.of("src/test/resources/booleanreturn/input/").toAbsolutePath();
+    List<String> filesBefore = listFiles(root);
+    Path outputDir = Files.createTempDirectory("specimin-root-unmodified-test-");
+    SpeciminRunner.performMinimization(
+        root + "/",
+        List.of("com/example/Simple.java"),
+        List.of(),
+        List.of("com.example.Simple#testFoo(Foo)"),
+        List.of(),
+        outputDir.toAbsolutePath().toString());
+    Assert.assertTrue(Files.exists(outputDir.resolve("org/example/Foo.java")));
+    Assert.assertEquals(filesBefore, listFiles(root));
+  }
+
+  @Test
+  public void jarTest() throws IOException {
+    Path root = Path.of("src/test/resources/jarfile/input/").toAbsolutePath();
+    List<String> filesBefore = listFiles(root);
+    Path cacheDir = Files.createTempDirectory("specimin-decompilation-cache-test-");
+    MinimizationOptions options =
+        MinimizationOptions.DEFAULT.withDecompilationCacheDirectory(cacheDir.toString());
+    // The second run also reuses the class pool of the jar that the first run read.
+    ClassPoolCache classPoolCache = new ClassPoolCache();
+    List<String> cacheAfterFirstRun = null;
+    for (int run = 0; run < 2; run++) {
+      Path outputDir = Files.createTempDirectory("specimin-root-unmodified-test-");
+      SpeciminRunner.performMinimization(
+          root + "/",
+          List.of("com/example/Simple.java"),
+          List.of(root.resolve("Book.jar").toString()),
+          List.of("com.example.Simple#test()"),
+          List.of(),
+          outputDir.toAbsolutePath().toString(),
+          "cf",
+          null,
+          classPoolCache,
+          options);
+      Assert.assertTrue(Files.exists(outputDir.resolve("an/old/library/Book.java")));
+      Assert.assertEquals(filesBefore, listFiles(root));
+      if (cacheAfterFirstRun == null) {
+        cacheAfterFirstRun = listFiles(cacheDir);
+      } else {
+        // The second run reused the decompiled sources rather than decompiling the jar again.
+        Assert.assertEquals(cacheAfterFirstRun, listFiles(cacheDir));
+      }
+    }
+  }
+
+  /**
+   * Lists every file and directory under the given directory, with its modification time.
+   *
+   * @param directory a directory
+   * @return the sorted paths under the directory, each followed by its modification time
+   * @throws IOException if the directory cannot be read
+   */
+  private static List<String> listFiles(Path directory) throws IOException {
+    List<String> result = new ArrayList<>();
+    try (Stream<Path> paths = Files.walk(directory)) {
+      for (Path path : paths.sorted().collect(Collectors.toList())) {
+        result.add(path + " " + Files.getLastModifiedTime(path));
+      }
+    }
+    return result;
+  }
+}
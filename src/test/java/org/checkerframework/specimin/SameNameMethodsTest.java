@@ -0,0 +1,18 @@
+package org.checkerframework.specimin;
+
+import java.io.IOException;
+import org.junit.Test;
+
+/**
+ * This test checks that Specimin does not solve the symbols of a method that only has the same name
+ * as a method called by the target, but still solves those of a method that overrides it.
+ */
+public class SameNameMethodsTest {
+  @Test
+  public void runTest() throws IOException {
+    SpeciminTestExecutor.runTestWithoutJarPaths(
+        "samenamemethods",
+        new String[] {"com/example/Simple.java"},
+        new String[] {"com.example.Simple#bar(Helper, Box<String>)"});
+  }
+}
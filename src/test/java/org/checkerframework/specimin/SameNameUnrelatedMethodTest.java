@@ -0,0 +1,27 @@
+package org.checkerframework.specimin;
+
+import java.io.IOException;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * This test checks that Specimin does not solve the symbols of a method that only has the same name
+ * as a method called by the target. The body of that method uses an unsolved type, so solving it
+ * would create a synthetic class, and with it a javac round that a run without synthetic classes
+ * skips.
+ */
+public class SameNameUnrelatedMethodTest {
+  @Test
+  public void runTest() throws IOException {
+    SpeciminTestExecutor.runTestWithoutJarPaths(
+        "samenameunrelatedmethod",
+        new String[] {"com/example/Simple.java"},
+        new String[] {"com.example.Simple#bar(Helper)"});
+    Assert.assertEquals(
+        0,
+        SpeciminTestExecutor.countJavacCompilations(
+            "samenameunrelatedmethod",
+            "com/example/Simple.java",
+            "com.example.Simple#bar(Helper)"));
+  }
+}
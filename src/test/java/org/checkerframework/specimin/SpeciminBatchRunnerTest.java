@@ -0,0 +1,62 @@
+package org.checkerframework.specimin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * This test checks that a batch manifest runs each job, reports one result line per job, and
+ * reports bad jobs as failures without stopping the others.
+ */
+public class SpeciminBatchRunnerTest {
+  @Test
+  @SuppressWarnings("unchecked")
+  public void runTest() throws IOException {
+    Path firstOutputDir = Files.createTempDirectory("specimin-batch-test-");
+    Path secondOutputDir = Files.createTempDirectory("specimin-batch-test-");
+    String root = Path.of("src/test/resources/onefilesimple/input/").toAbsolutePath() + "/";
+    String job =
+        "{\"root\":\""
+            + root
+            + "\",\"targetFiles\":[\"com/example/Simple.java\"],\"targetMethods\":[\"%s\"],"
+            + "\"outputDirectory\":\"%s\"}";
+    Path manifest = Files.createTempFile("specimin-batch-test-", ".jsonl");
+    Files.writeString(
+        manifest,
+        String.join(
+            "\n",
+            String.format(job, "com.example.Simple#bar()", firstOutputDir.toAbsolutePath()),
+            "",
+            String.format(job, "com.example.Simple#notAMethod()", secondOutputDir.toAbsolutePath()),
+            "{\"targetFiles\":[\"com/example/Simple.java\"]}",
+            String.format(job, "com.example.Simple#bar()", secondOutputDir.toAbsolutePath())));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    boolean allSucceeded =
+        new SpeciminBatchRunner(2, new PrintStream(out, true, StandardCharsets.UTF_8))
+            .runManifest(manifest);
+    Assert.assertFalse(allSucceeded);
+
+    List<String> results = out.toString(StandardCharsets.UTF_8).lines().toList();
+    Assert.assertEquals(4, results.size());
+    Map<Long, String> statusByJob = new HashMap<>();
+    for (String result : results) {
+      Map<String, Object> parsed = (Map<String, Object>) JsonUtil.parse(result);
+      statusByJob.put((Long) parsed.get("job"), (String) parsed.get("status"));
+    }
+    Assert.assertEquals("success", statusByJob.get(1L));
+    Assert.assertEquals("failure", statusByJob.get(3L));
+    Assert.assertEquals("failure", statusByJob.get(4L));
+    Assert.assertEquals("success", statusByJob.get(5L));
+    Assert.assertTrue(Files.exists(firstOutputDir.resolve("com/example/Simple.java")));
+    Assert.assertTrue(Files.exists(secondOutputDir.resolve("com/example/Simple.java")));
+  }
+}
@@ -0,0 +1,73 @@
+package org.checkerframework.specimin;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * This test checks that the daemon answers health and stats requests, runs several minimizations in
+ * the same JVM, reports a failed minimization as an error without stopping, and handles
+ * notifications without responding to them.
+ */
+public class SpeciminDaemonTest {
+  @Test
+  @SuppressWarnings("unchecked")
+  public void runTest() throws IOException {
+    Path outputDir = Files.createTempDirectory("specimin-daemon-test-");
+    try {
+      String root = Path.of("src/test/resources/onefilesimple/input/").toAbsolutePath() + "/";
+      String minimize =
+          "{\"jsonrpc\":\"2.0\",\"id\":%d,\"method\":\"minimize\",\"params\":{\"root\":\""
+              + root
+              + "\",\"targetFiles\":[\"com/example/Simple.java\"],\"targetMethods\":[\"%s\"],"
+              + "\"outputDirectory\":\""
+              + outputDir.toAbsolutePath()
+              + "\"}}";
+      String requests =
+          String.join(
+              "\n",
+              "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"health\"}",
+              String.format(minimize, 2, "com.example.Simple#bar()"),
+              String.format(minimize, 3, "com.example.Simple#notAMethod()"),
+              String.format(minimize, 4, "com.example.Simple#bar()"),
+              String.format(minimize, 6, "com.example.Simple#bar()").replace("\"id\":6,", ""),
+              "{\"jsonrpc\":\"2.0\",\"method\":\"health\"}",
+              "{\"jsonrpc\":\"2.0\",\"id\":5,\"method\":\"stats\"}");
+
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      new SpeciminDaemon()
+          .serve(
+              new ByteArrayInputStream(requests.getBytes(StandardCharsets.UTF_8)),
+              new PrintStream(out, true, StandardCharsets.UTF_8));
+      List<String> responses = out.toString(StandardCharsets.UTF_8).lines().toList();
+      Assert.assertEquals(5, responses.size());
+
+      Map<String, Object> health = (Map<String, Object>) JsonUtil.parse(responses.get(0));
+      Assert.assertEquals("ok", ((Map<String, Object>) health.get("result")).get("status"));
+      Assert.assertTrue(
+          ((Map<String, Object>) JsonUtil.parse(responses.get(1))).containsKey("result"));
+      Assert.assertTrue(
+          ((Map<String, Object>) JsonUtil.parse(responses.get(2))).containsKey("error"));
+      Assert.assertTrue(
+          ((Map<String, Object>) JsonUtil.parse(responses.get(3))).containsKey("result"));
+
+      Map<String, Object> stats =
+          (Map<String, Object>)
+              ((Map<String, Object>) JsonUtil.parse(responses.get(4))).get("result");
+      Assert.assertEquals(3L, stats.get("requestsSucceeded"));
+      Assert.assertEquals(1L, stats.get("requestsFailed"));
+      Assert.assertTrue(Files.exists(outputDir.resolve("com/example/Simple.java")));
+    } finally {
+      FileUtils.deleteDirectory(outputDir.toFile());
+    }
+  }
+}
@@ -10,11 +10,14 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import org.apache.commons.io.FileUtils;
 import org.junit.Assert;
 
 /** Utility class containing routines to run Specimin's tests. */
@@ -41,7 +44,8 @@ public class SpeciminTestExecutor {
    *     class.fully.qualified.Name#methodName(Param1Type, Param2Type, ...) for method and
    *     class.fully.qualified.Name#fieldName for field.
    * @param modularityModel the model to use
-   * @param jarPaths the path of jar files for Specimin to solve symbols
+   * @param jarPaths the path of jar files or directories of class files for Specimin to solve
+   *     symbols
    * @throws IOException if some operation fails
    */
   public static void runTest(
@@ -51,6 +55,32 @@ public class SpeciminTestExecutor {
       String modularityModel,
       String[] jarPaths)
       throws IOException {
+    runTest(testName, targetFiles, targetMembers, modularityModel, jarPaths, new String[] {});
+  }
+
+  /**
+   * This method is the same as {@link #runTest(String, String[], String[], String, String[])},
+   * except that it passes additional command-line options to Specimin.
+   *
+   * @param testName the name of the test folder
+   * @param targetFiles the targeted files
+   * @param targetMembers the targeted methods or fields, each in the format
+   *     class.fully.qualified.Name#methodName(Param1Type, Param2Type, ...) for method and
+   *     class.fully.qualified.Name#fieldName for field.
+   * @param modularityModel the model to use
+   * @param jarPaths the path of jar files or directories of class files for Specimin to solve
+   *     symbols
+   * @param extraArguments additional command-line options, such as "--decompileLazily"
+   * @throws IOException if some operation fails
+   */
+  public static void runTest(
+      String testName,
+      String[] targetFiles,
+      String[] targetMembers,
+      String modularityModel,
+      String[] jarPaths,
+      String[] extraArguments)
+      throws IOException {
     // Create output directory
     Path outputDir = null;
     try {
@@ -88,9 +118,11 @@ public class SpeciminTestExecutor {
     speciminArgs.add("--modularityModel");
     speciminArgs.add(modularityModel);
     for (String jarPath : jarPaths) {
-      speciminArgs.add("--jarPath");
+      // Directories of class files are passed on the class path.
+      speciminArgs.add(jarPath.endsWith(".jar") ? "--jarPath" : "--classPath");
       speciminArgs.add(jarPath);
     }
+    speciminArgs.addAll(Arrays.asList(extraArguments));
 
     // Run specimin on target
     SpeciminRunner.main(speciminArgs.toArray(new String[0]));
@@ -184,6 +216,43 @@ public class SpeciminTestExecutor {
     runTest(testName, targetFiles, targetMembers, "nullaway", new String[] {});
   }
 
+  /**
+   * Minimizes the input of a test for one target method, and returns the number of times that the
+   * run compiled its files with javac, as recorded in its status marker (see {@link
+   * PartialOutput}). The output is not compared to the expected output.
+   *
+   * @param testName the name of the test folder
+   * @param targetFile the targeted file
+   * @param targetMethod the targeted method, in the format
+   *     class.fully.qualified.Name#methodName(Param1Type, Param2Type, ...)
+   * @return the number of javac compilations of the run
+   * @throws IOException if some operation fails
+   */
+  @SuppressWarnings("unchecked") // JSON objects are always parsed as Map<String, Object>
+  public static long countJavacCompilations(String testName, String targetFile, String targetMethod)
+      throws IOException {
+    Path outputDir = Files.createTempDirectory("specimin-test-");
+    try {
+      SpeciminRunner.performMinimization(
+          Path.of("src/test/resources/" + testName + "/input/").toAbsolutePath() + "/",
+          List.of(targetFile),
+          List.of(),
+          List.of(targetMethod),
+          List.of(),
+          outputDir.toAbsolutePath().toString(),
+          "cf",
+          null,
+          null,
+          MinimizationOptions.DEFAULT.withPartialOutput(true));
+      Map<String, Object> status =
+          (Map<String, Object>)
+              JsonUtil.parse(Files.readString(outputDir.resolve(PartialOutput.STATUS_FILE_NAME)));
+      return (Long) status.get("javacCompilations");
+    } finally {
+      FileUtils.deleteDirectory(outputDir.toFile());
+    }
+  }
+
   /** Code borrowed from https://www.baeldung.com/run-shell-command-in-java. */
   private static class StreamGobbler implements Runnable {
     private InputStream inputStream;
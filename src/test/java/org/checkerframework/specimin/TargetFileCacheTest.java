@@ -0,0 +1,41 @@
+package org.checkerframework.specimin;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * This test checks that the target file cache hands out independent copies of each file, and that
+ * it parses a synthetic file again when its source changes.
+ */
+public class TargetFileCacheTest {
+  @Test
+  public void runTest() throws IOException {
+    Path root = Files.createTempDirectory("specimin-target-file-cache-test-");
+    SyntheticSourceOverlay overlay = new SyntheticSourceOverlay();
+    overlay.put(
+        "com/example/Foo.java", "package com.example;\npublic class Foo {\n  void bar() {}\n}\n");
+    TargetFileCache cache =
+        new TargetFileCache(
+            new JavaParser(new ParserConfiguration()),
+            SourceRoots.create(root.toString() + "/", List.of(), MinimizationOptions.DEFAULT),
+            overlay);
+
+    CompilationUnit first = cache.get("com/example/Foo.java");
+    first.findAll(MethodDeclaration.class).forEach(MethodDeclaration::remove);
+    CompilationUnit second = cache.get("com/example/Foo.java");
+    Assert.assertNotSame(first, second);
+    // Changes to one copy do not reach the next.
+    Assert.assertEquals(1, second.findAll(MethodDeclaration.class).size());
+
+    overlay.put("com/example/Foo.java", "package com.example;\npublic class Foo {}\n");
+    Assert.assertTrue(cache.get("com/example/Foo.java").findAll(MethodDeclaration.class).isEmpty());
+  }
+}
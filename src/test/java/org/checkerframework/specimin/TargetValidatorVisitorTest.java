@@ -0,0 +1,75 @@
+package org.checkerframework.specimin;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * This test checks that the lexical validation of the targets finds methods, constructors, and
+ * fields regardless of spaces and annotations, and reports the targets that do not exist with the
+ * members of their classes, but leaves the targets of classes that are not in the file to the full
+ * search. It also checks that a target file that does not exist is reported before the run does
+ * anything else.
+ */
+public class TargetValidatorVisitorTest {
+  @Test
+  public void runTest() {
+    CompilationUnit cu =
+        StaticJavaParser.parse(
+            "package com.example;\n"
+                + "class Simple {\n"
+                + "  int x;\n"
+                + "  Simple(int x) {}\n"
+                + "  @Deprecated java.util.List<String> foo(@Nullable String s, int[] a) {}\n"
+                + "  void baz(long l) {}\n"
+                + "  static class Inner { void bar() {} }\n"
+                + "}\n");
+    TargetValidatorVisitor validator =
+        new TargetValidatorVisitor(
+            List.of(
+                "com.example.Simple#Simple(int)",
+                "com.example.Simple#foo(String, int[])",
+                "com.example.Simple.Inner#bar()",
+                "com.example.Simple#fooo(String, int[])",
+                "com.example.Simple.Missing#bar()",
+                "com.example.Other#foo()"),
+            List.of("com.example.Simple#x", "com.example.Simple#y", "com.example.Other#z"));
+    cu.accept(validator, null);
+
+    Assert.assertEquals(
+        Set.of("com.example.Simple#fooo(String,int[])"), validator.getUnfoundMethods().keySet());
+    Assert.assertTrue(
+        validator
+            .getUnfoundMethods()
+            .get("com.example.Simple#fooo(String,int[])")
+            .contains("com.example.Simple#baz(long)"));
+    Assert.assertEquals(Set.of("com.example.Simple#y"), validator.getUnfoundFields().keySet());
+  }
+
+  @Test
+  public void missingTargetFileTest() throws IOException {
+    Path outputDir = Files.createTempDirectory("specimin-target-validator-test-");
+    IllegalArgumentException e =
+        Assert.assertThrows(
+            IllegalArgumentException.class,
+            () ->
+                SpeciminRunner.performMinimization(
+                    Path.of("src/test/resources/booleanreturn/input/").toAbsolutePath() + "/",
+                    List.of("com/example/Missing.java"),
+                    List.of(),
+                    List.of("com.example.Missing#foo()"),
+                    List.of(),
+                    outputDir.toString(),
+                    "cf",
+                    null,
+                    null,
+                    MinimizationOptions.DEFAULT));
+    Assert.assertTrue(e.getMessage(), e.getMessage().contains("com/example/Missing.java"));
+  }
+}
@@ -0,0 +1,92 @@
+package org.checkerframework.specimin;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.resolution.MethodAmbiguityException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.checkerframework.specimin.modularity.ModularityModel;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * This test checks that the try-resolve API reports solved and unsolved nodes without throwing, and
+ * that the exceptions that mean that a node is unsolved can be chosen.
+ */
+public class TryResolverTest {
+  @Test
+  public void runTest() {
+    JavaParser parser =
+        new JavaParser(
+            new ParserConfiguration()
+                .setSymbolResolver(new SpeciminSymbolSolver(new JdkTypeSolver())));
+    CompilationUnit cu =
+        parser
+            .parse(
+                "class Simple {\n"
+                    + "  int x;\n"
+                    + "  Missing m;\n"
+                    + "  void bar() { foo(x); baz(y); this.x = m.z; }\n"
+                    + "  void foo(int i) {}\n"
+                    + "}\n")
+            .getResult()
+            .orElseThrow();
+    List<MethodCallExpr> calls = cu.findAll(MethodCallExpr.class);
+    Assert.assertEquals(
+        "Simple.foo(int)",
+        TryResolver.tryResolve(calls.get(0)).orElseThrow().getQualifiedSignature());
+    Assert.assertTrue(TryResolver.tryResolve(calls.get(1)).isEmpty());
+
+    List<NameExpr> names = cu.findAll(NameExpr.class);
+    Assert.assertEquals("x", TryResolver.tryResolve(names.get(0)).orElseThrow().getName());
+    Assert.assertTrue(TryResolver.tryResolve(names.get(1)).isEmpty());
+
+    List<FieldAccessExpr> fieldAccesses = cu.findAll(FieldAccessExpr.class);
+    Assert.assertTrue(TryResolver.tryResolve(fieldAccesses.get(0)).isPresent());
+    Assert.assertTrue(TryResolver.tryResolve(fieldAccesses.get(1)).isEmpty());
+    Assert.assertTrue(TryResolver.tryCalculateResolvedType(fieldAccesses.get(1)).isEmpty());
+
+    List<ClassOrInterfaceType> types = cu.findAll(ClassOrInterfaceType.class);
+    Assert.assertEquals("Missing", types.get(0).getNameAsString());
+    Assert.assertTrue(TryResolver.tryResolve(types.get(0)).isEmpty());
+  }
+
+  @Test
+  public void ambiguousTest() {
+    JavaParser parser =
+        new JavaParser(
+            new ParserConfiguration()
+                .setSymbolResolver(new SpeciminSymbolSolver(new JdkTypeSolver())));
+    CompilationUnit cu =
+        parser
+            .parse(
+                "class Simple {\n"
+                    + "  static void foo(String s) {}\n"
+                    + "  static void foo(Integer i) {}\n"
+                    + "  void bar() { Simple.foo(null); }\n"
+                    + "}\n")
+            .getResult()
+            .orElseThrow();
+    MethodCallExpr call = cu.findFirst(MethodCallExpr.class).orElseThrow();
+    // An ambiguous call is not one of the default exceptions of an unsolved node.
+    Assert.assertThrows(MethodAmbiguityException.class, () -> TryResolver.tryResolve(call));
+    Assert.assertTrue(TryResolver.tryResolve(call, RuntimeException.class).isEmpty());
+
+    // The checks of UnsolvedSymbolVisitor that count any failure as unsolved still do so.
+    UnsolvedSymbolVisitor visitor =
+        new UnsolvedSymbolVisitor(
+            List.of(),
+            Map.of(),
+            Set.of(),
+            Set.of(),
+            ModularityModel.createModularityModel("cf"),
+            new SyntheticSourceOverlay());
+    Assert.assertTrue(visitor.unsolvedAndCalledByASimpleClassName(call));
+  }
+}
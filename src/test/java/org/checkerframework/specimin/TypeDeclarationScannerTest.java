@@ -0,0 +1,49 @@
+package org.checkerframework.specimin;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * This test checks that the type declaration scanner names the types of a file the way JavaParser
+ * does, ignoring comments, literals, class literals, and local classes.
+ */
+public class TypeDeclarationScannerTest {
+  @Test
+  public void runTest() {
+    String source =
+        String.join(
+            "\n",
+            "package com.example;",
+            "// class Comment {}",
+            "public class Foo {",
+            "  String s = \"class InString {}\" + Foo.class;",
+            "  Object o = new Object() { class InAnonymous {} };",
+            "  interface Inner { enum E { A { class InConstant {} }, B; class AfterConstants {} } }",
+            "  void m() { class Local { class InLocal {} } Runnable r = () -> { class InLambda {} }; }",
+            "  record R(int x) { class InRecord {} }",
+            "}",
+            "@interface Ann { class InAnnotation {} }");
+    List<String> names = new ArrayList<>();
+    for (TypeDeclarationScanner.DeclaredType declaredType : TypeDeclarationScanner.scan(source)) {
+      names.add(declaredType.getQualifiedName() + " " + declaredType.getKind());
+    }
+    Assert.assertEquals(
+        List.of(
+            "com.example.Foo CLASS_OR_INTERFACE",
+            "com.example.Foo.InAnonymous CLASS_OR_INTERFACE",
+            "com.example.Foo.Inner CLASS_OR_INTERFACE",
+            "com.example.Foo.Inner.E ENUM",
+            "com.example.Foo.Inner.E.InConstant CLASS_OR_INTERFACE",
+            "com.example.Foo.Inner.E.AfterConstants CLASS_OR_INTERFACE",
+            "null CLASS_OR_INTERFACE",
+            "null CLASS_OR_INTERFACE",
+            "null CLASS_OR_INTERFACE",
+            "com.example.Foo.R RECORD",
+            "com.example.Foo.R.InRecord CLASS_OR_INTERFACE",
+            "com.example.Ann ANNOTATION",
+            "com.example.Ann.InAnnotation CLASS_OR_INTERFACE"),
+        names);
+  }
+}
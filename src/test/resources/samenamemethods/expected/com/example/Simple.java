@@ -0,0 +1,23 @@
+package com.example;
+
+class Simple {
+
+    void bar(Helper helper, Box<String> box) {
+        helper.get();
+        box.put("hello");
+    }
+
+    static class Helper {
+
+        int get() {
+            throw new java.lang.Error();
+        }
+    }
+
+    static class Box<T> {
+
+        void put(T t) {
+            throw new java.lang.Error();
+        }
+    }
+}
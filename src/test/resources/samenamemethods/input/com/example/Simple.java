@@ -0,0 +1,33 @@
+package com.example;
+
+import org.example.Unrelated;
+
+class Simple {
+  void bar(Helper helper, Box<String> box) {
+    helper.get();
+    box.put("hello");
+  }
+
+  static class Helper {
+    int get() {
+      return 1;
+    }
+  }
+
+  static class Other {
+    Unrelated get() {
+      return new Unrelated();
+    }
+  }
+
+  static class Box<T> {
+    void put(T t) {}
+  }
+
+  static class StringBox extends Box<String> {
+    @Override
+    void put(String s) {
+      Unrelated u = new Unrelated();
+    }
+  }
+}
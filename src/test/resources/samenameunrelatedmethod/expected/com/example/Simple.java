@@ -0,0 +1,15 @@
+package com.example;
+
+class Simple {
+
+    void bar(Helper helper) {
+        helper.get();
+    }
+
+    static class Helper {
+
+        int get() {
+            throw new java.lang.Error();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example;
+
+import org.example.Unrelated;
+
+class Simple {
+  void bar(Helper helper) {
+    helper.get();
+  }
+
+  static class Helper {
+    int get() {
+      return 1;
+    }
+  }
+
+  static class Other {
+    Object get() {
+      Unrelated unrelated = new Unrelated();
+      return unrelated.describe();
+    }
+  }
+}